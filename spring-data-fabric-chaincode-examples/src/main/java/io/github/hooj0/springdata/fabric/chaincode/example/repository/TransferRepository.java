@@ -12,6 +12,7 @@ import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Instal
 import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Instantiate;
 import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Invoke;
 import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Query;
+import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Transaction;
 import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Upgrade;
 import io.github.hooj0.springdata.fabric.chaincode.example.domain.Account;
 import io.github.hooj0.springdata.fabric.chaincode.repository.ChaincodeRepository;
@@ -43,7 +44,8 @@ public interface TransferRepository extends ChaincodeRepository<Account> {
 	@Query(clientUser = "user1")
 	int query(String account);
 	
-	@Invoke(clientUser = "user1")
+	@Invoke(clientUser = "user1", keys = { "?0", "?1" })
+	@Transaction(maxAttempts = 3)
 	ResultSet move(String from, String to, int amount);
 	
 	@Invoke(clientUser = "user1", args = { "a", "b", ":#{#account.aAmount}"})
@@ -0,0 +1,41 @@
+package io.github.hooj0.springdata.fabric.chaincode.annotations.repository;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * chaincode query result cache annotation
+ * <p>缓存 @Query 方法的查询结果，缓存 key 为 channel/chaincode/version/func/user/参数</p>
+ * @changelog query result ttl cache, backed by spring CacheManager when present
+ * @author hoojo
+ * @createDate 2019年1月24日 上午9:36:08
+ * @file CachedQuery.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.annotations.repository
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Target({ ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CachedQuery {
+
+	/** 缓存过期时间(毫秒) */
+	long ttl() default 60_000;
+	
+	/** 最大缓存条目数，使用 Spring CacheManager 时由 CacheManager 的配置决定；invalidateOnWrite 开启时同时限制跟踪依赖账本键的条目数 */
+	int maxEntries() default 1024;
+	
+	/** Spring CacheManager 中的缓存名称，默认为 repository 接口名.方法名；CacheManager 不存在或没有该缓存时使用内置 LRU 缓存 */
+	String cacheName() default "";
+	
+	/** 订阅通道区块事件，已提交交易改写了查询依赖的账本键时淘汰缓存结果，依赖的键由 @Query(keys) 声明或从背书读集获得 */
+	boolean invalidateOnWrite() default false;
+	
+	/** 从查询背书结果的读集获得依赖的账本键，invalidateOnWrite 开启时生效；读集包含范围查询或富查询时结果不缓存 */
+	boolean learnKeys() default true;
+}
@@ -36,6 +36,18 @@ public @interface Chaincode {
 	@AliasFor(annotation = Channel.class, attribute = "org")
 	String org() default "";
 	
+	/** 每秒允许发起的请求数，0 表示不限流，同一 repository 的所有方法共享该令牌桶 */
+	@AliasFor(annotation = Channel.class, attribute = "permitsPerSecond")
+	double permitsPerSecond() default 0;
+	
+	/** 令牌桶容量，即允许的突发请求数 */
+	@AliasFor(annotation = Channel.class, attribute = "burst")
+	int burst() default 1;
+	
+	/** 令牌不足时最长等待时间(毫秒)，0 表示立即失败，小于 0 表示一直等待 */
+	@AliasFor(annotation = Channel.class, attribute = "acquireTimeout")
+	long acquireTimeout() default -1;
+	
 	/** chaincode 合约名称 */
 	String name();
 	
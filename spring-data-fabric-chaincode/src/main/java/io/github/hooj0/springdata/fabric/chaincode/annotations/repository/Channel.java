@@ -29,4 +29,13 @@ public @interface Channel {
 	
 	/** 智能合约所在 认证组织 */
 	String org();
+	
+	/** 每秒允许发起的请求数，0 表示不限流，同一 repository 的所有方法共享该令牌桶 */
+	double permitsPerSecond() default 0;
+	
+	/** 令牌桶容量，即允许的突发请求数，默认为 1 */
+	int burst() default 1;
+	
+	/** 令牌不足时最长等待时间(毫秒)，0 表示立即失败，小于 0 表示一直等待 */
+	long acquireTimeout() default -1;
 }
@@ -43,4 +43,20 @@ public @interface Invoke {
 	/** HFClient 客户端上下文用户  */
 	@AliasFor(annotation = Proposal.class, attribute = "clientUser")
 	String clientUser() default "";
+	
+	/** 交易读写的账本键，支持占位符或spel表达式，相同键的交易会串行提交以避免 MVCC 冲突 */
+	@AliasFor(annotation = Proposal.class, attribute = "keys")
+	String[] keys() default {};
+	
+	/** 当前方法每秒允许发起的请求数，覆盖 repository 的限流配置，0 表示使用 repository 的限流配置 */
+	@AliasFor(annotation = Proposal.class, attribute = "permitsPerSecond")
+	double permitsPerSecond() default 0;
+	
+	/** 当前方法令牌桶容量，即允许的突发请求数 */
+	@AliasFor(annotation = Proposal.class, attribute = "burst")
+	int burst() default 1;
+	
+	/** 令牌不足时最长等待时间(毫秒)，0 表示立即失败，小于 0 表示一直等待 */
+	@AliasFor(annotation = Proposal.class, attribute = "acquireTimeout")
+	long acquireTimeout() default -1;
 }
@@ -51,4 +51,16 @@ public @interface Proposal {
 	
 	/** 请求提议等待响应事件 */
 	long waitTime() default 0;
+	
+	/** 交易读写的账本键，支持占位符或spel表达式，相同键的交易会串行提交以避免 MVCC 冲突；查询时为缓存结果依赖的账本键 */
+	String[] keys() default {};
+	
+	/** 当前方法每秒允许发起的请求数，0 表示使用 repository 的限流配置 */
+	double permitsPerSecond() default 0;
+	
+	/** 当前方法令牌桶容量，即允许的突发请求数 */
+	int burst() default 1;
+	
+	/** 令牌不足时最长等待时间(毫秒)，0 表示立即失败，小于 0 表示一直等待 */
+	long acquireTimeout() default -1;
 }
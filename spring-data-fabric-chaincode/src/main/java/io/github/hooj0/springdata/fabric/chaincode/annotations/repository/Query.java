@@ -43,4 +43,41 @@ public @interface Query {
 	/** HFClient 客户端上下文用户  */
 	@AliasFor(annotation = Proposal.class, attribute = "clientUser")
 	String clientUser() default "";
+	
+	/** 当前方法每秒允许发起的请求数，覆盖 repository 的限流配置，0 表示使用 repository 的限流配置 */
+	@AliasFor(annotation = Proposal.class, attribute = "permitsPerSecond")
+	double permitsPerSecond() default 0;
+	
+	/** 当前方法令牌桶容量，即允许的突发请求数 */
+	@AliasFor(annotation = Proposal.class, attribute = "burst")
+	int burst() default 1;
+	
+	/** 令牌不足时最长等待时间(毫秒)，0 表示立即失败，小于 0 表示一直等待 */
+	@AliasFor(annotation = Proposal.class, attribute = "acquireTimeout")
+	long acquireTimeout() default -1;
+	
+	/** 查询读取的账本键，支持占位符或spel表达式，@CachedQuery(invalidateOnWrite = true) 时这些键被已提交交易改写后淘汰缓存结果 */
+	@AliasFor(annotation = Proposal.class, attribute = "keys")
+	String[] keys() default {};
+	
+	/** 合并相同参数的并发查询，同一时刻只向 peer 节点发起一次查询，所有调用共享其结果 */
+	boolean coalesce() default false;
+	
+	/** 对冲查询延迟(毫秒)，查询超过该时间未返回时向下一个 peer 节点再次发起查询，0 表示不对冲 */
+	long hedgeDelay() default 0;
+	
+	/** 对冲查询延迟取该 chaincode 查询耗时的百分位数 0 ~ 100，如 95 表示 p95，样本不足时使用 hedgeDelay，0 表示使用固定延迟 */
+	double hedgePercentile() default 0;
+	
+	/** 最多发出的对冲查询数，受可查询的 peer 节点数量限制 */
+	int maxHedges() default 1;
+	
+	/** 批量查询：方法返回 Map，第一个集合类型参数为查询的键，每个键的参数由 args 模板和其他参数绑定，结果按键放入 Map */
+	boolean many() default false;
+	
+	/** 批量查询时 chaincode 端的批量读取函数，参数为所有键，返回以键为属性的 JSON 对象或与键顺序一致的 JSON 数组；为空时按键并行查询 */
+	String multiGet() default "";
+	
+	/** 批量查询按键并行查询时的最大并发数 */
+	int fanOut() default 16;
 }
@@ -7,8 +7,11 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import org.hyperledger.fabric.protos.peer.FabricTransaction.TxValidationCode;
 import org.springframework.data.annotation.QueryAnnotation;
 
+import io.github.hooj0.springdata.fabric.chaincode.enums.CommitMode;
+
 /**
  * chaincode smart contract transaction request
  * @author hoojo
@@ -32,4 +35,28 @@ public @interface Transaction {
 	
 	/** 发起交易的用户 */
 	String user() default "";
+	
+	/** 交易最大尝试次数，大于 1 时交易验证失败会重新背书提交 */
+	int maxAttempts() default 1;
+	
+	/** 首次重试等待时间(毫秒)，之后按指数增长 */
+	long backoff() default 100;
+	
+	/** 最大重试等待时间(毫秒) */
+	long maxBackoff() default 2000;
+	
+	/** 重试等待时间随机抖动比例 0 ~ 1 */
+	double jitter() default 0.5;
+	
+	/** 需要重试的交易验证码 */
+	TxValidationCode[] retryOn() default { TxValidationCode.MVCC_READ_CONFLICT, TxValidationCode.PHANTOM_READ_CONFLICT };
+	
+	/** 交易提交等待模式 */
+	CommitMode commitMode() default CommitMode.COMMITTED_ON_N_PEERS;
+	
+	/** COMMITTED_ON_N_PEERS 模式下需要等待提交的 peer 节点数量，0 表示所有事件节点 */
+	int commitPeers() default 0;
+	
+	/** 背书结果写集为空时跳过排序，直接返回背书结果，只对 submit 生效 */
+	boolean skipReadOnly() default false;
 }
@@ -4,7 +4,10 @@ import java.io.File;
 import java.io.InputStream;
 import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import org.hyperledger.fabric.sdk.BlockEvent.TransactionEvent;
 import org.hyperledger.fabric.sdk.ProposalResponse;
@@ -18,9 +21,15 @@ import io.github.hooj0.springdata.fabric.chaincode.core.convert.ChaincodeConvert
 import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.InstallCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.InstantiateCriteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.InvocationSpec;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.InvokeCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.QueryCriteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.ScatterGatherCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.UpgradeCriteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.support.BatchInvokeResult;
+import io.github.hooj0.springdata.fabric.chaincode.core.support.ChaincodeCommitTracker;
+import io.github.hooj0.springdata.fabric.chaincode.core.support.InvokeResult;
+import io.github.hooj0.springdata.fabric.chaincode.core.support.ScatterGatherResult;
 
 /**
  * chaincode operations `install & invoke & instantiate & query & upgrade` interface
@@ -140,6 +149,20 @@ public interface ChaincodeOperations {
 
 	TransactionEvent invokeFor(InvokeCriteria criteria, String func, LinkedHashMap<String, Object> args);
 	
+	// invoke batch, parallel endorsement and pipelined ordering, return aggregated result
+	
+	BatchInvokeResult invokeBatch(InvokeCriteria criteria, List<InvocationSpec> invocations);
+	
+	// invoke with criteria commit mode, return endorsed result once the commit mode is satisfied
+	
+	InvokeResult submit(InvokeCriteria criteria, String func, Object... args);
+	
+	/** 是否全局允许背书写集为空的交易跳过排序 */
+	boolean isSkipReadOnly();
+	
+	/** 通道共享的区块监听，跟踪交易提交和已提交区块的写集 */
+	ChaincodeCommitTracker getCommitTracker(Criteria criteria);
+	
 	
 	
 	// query
@@ -157,4 +180,32 @@ public interface ChaincodeOperations {
 	ResultSet queryFor(QueryCriteria criteria, String func, Object... args);
 
 	ResultSet queryFor(QueryCriteria criteria, String func, LinkedHashMap<String, Object> args);
+	
+	// query async return future
+	
+	CompletableFuture<ResultSet> queryAsync(QueryCriteria criteria, String func);
+	
+	CompletableFuture<ResultSet> queryAsync(QueryCriteria criteria, String func, Object... args);
+	
+	CompletableFuture<ResultSet> queryAsync(QueryCriteria criteria, String func, LinkedHashMap<String, Object> args);
+	
+	// query many keys, multi-get function or bounded parallel fan-out
+	
+	/**
+	 * 批量查询多个键：条件设置了 multiGet 函数时一次调用批量读取，否则以 fanOut 为并发上限按键并行调用 func
+	 * @return 按键顺序排列的查询结果，不包含结果为空的键
+	 */
+	<K> Map<K, String> queryMany(QueryCriteria criteria, String func, Collection<K> keys);
+	
+	/**
+	 * 批量查询多个键，按键并行调用 func 时由 binder 生成每个键的参数；multiGet 函数的参数仍为所有键
+	 */
+	<K> Map<K, String> queryMany(QueryCriteria criteria, String func, Collection<K> keys, Function<K, Object[]> binder);
+	
+	// scatter-gather query across channels/chaincodes
+	
+	/**
+	 * 分散查询：同时向多个 channel/chaincode 执行同一个查询函数，按合并方式、部分失败策略和整体截止时间合并结果
+	 */
+	ScatterGatherResult scatterGather(ScatterGatherCriteria criteria, String func, Object... args);
 }
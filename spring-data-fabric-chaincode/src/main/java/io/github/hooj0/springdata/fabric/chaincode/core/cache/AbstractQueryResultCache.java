@@ -0,0 +1,99 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.cache;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.util.Assert;
+
+/**
+ * 查询结果缓存基类，统计命中和未命中次数，缓存条目按写入时间过期
+ * @author hoojo
+ * @createDate 2019年1月24日 上午10:03:45
+ * @file AbstractQueryResultCache.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.cache
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public abstract class AbstractQueryResultCache implements QueryResultCache {
+
+	protected final String name;
+	/** 缓存过期时间(毫秒) */
+	protected final long ttl;
+	
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	protected final LongAdder evictions = new LongAdder();
+	protected final LongAdder expirations = new LongAdder();
+	
+	public AbstractQueryResultCache(String name, long ttl) {
+		Assert.hasText(name, "query cache name must not be empty!");
+		Assert.isTrue(ttl > 0, "query cache ttl must be greater than 0!");
+		
+		this.name = name;
+		this.ttl = ttl;
+	}
+	
+	@Override
+	public Object get(String key) {
+		CacheEntry entry = lookup(key);
+		
+		if (entry != null && entry.isExpired()) {
+			expirations.increment();
+			evict(key);
+			entry = null;
+		}
+		
+		if (entry == null) {
+			misses.increment();
+			return null;
+		}
+		
+		hits.increment();
+		return entry.value;
+	}
+	
+	@Override
+	public void put(String key, Object value) {
+		if (value != null) {
+			store(key, new CacheEntry(value, System.currentTimeMillis() + ttl));
+		}
+	}
+	
+	@Override
+	public QueryCacheMetrics getMetrics() {
+		return new QueryCacheMetrics(name, size(), hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+	}
+	
+	protected abstract CacheEntry lookup(String key);
+	
+	protected abstract void store(String key, CacheEntry entry);
+	
+	protected abstract int size();
+	
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + getMetrics();
+	}
+	
+	/**
+	 * 缓存条目，值为可序列化对象时整个条目可以写入分布式缓存
+	 */
+	protected static class CacheEntry implements Serializable {
+		
+		private static final long serialVersionUID = -3326491572340519847L;
+		
+		protected final Object value;
+		protected final long expireAt;
+		
+		protected CacheEntry(Object value, long expireAt) {
+			this.value = value;
+			this.expireAt = expireAt;
+		}
+		
+		protected boolean isExpired() {
+			return System.currentTimeMillis() >= expireAt;
+		}
+	}
+}
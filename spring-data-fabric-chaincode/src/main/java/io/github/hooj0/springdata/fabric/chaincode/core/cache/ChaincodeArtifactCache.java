@@ -0,0 +1,201 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.hyperledger.fabric.sdk.ChaincodeCollectionConfiguration;
+import org.hyperledger.fabric.sdk.ChaincodeEndorsementPolicy;
+import org.springframework.util.Assert;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeUnsupportedOperationException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * chaincode 部署文件缓存：私有数据集合配置和背书策略文件按规范路径记录文件的修改时间、大小和内容摘要，
+ * 解析结果按内容摘要缓存，每个文件内容只解析一次；文件修改时间或大小变化时重新读取，内容变化时重新解析
+ * @changelog collection configuration and endorsement policy file cache, keyed by canonical path and content hash with mtime invalidation
+ * @author hoojo
+ * @createDate 2019年1月30日 下午4:05:12
+ * @file ChaincodeArtifactCache.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.cache
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Slf4j
+public class ChaincodeArtifactCache {
+
+	public static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+	private static volatile ChaincodeArtifactCache sharedInstance;
+
+	/** 规范路径 -> 文件状态 */
+	private final Map<String, FileStamp> stamps = Maps.newConcurrentMap();
+	/** 文件类型:内容摘要 -> 解析结果 */
+	private final Cache<String, Object> artifacts;
+
+	public ChaincodeArtifactCache() {
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+
+	public ChaincodeArtifactCache(int maximumSize) {
+		Assert.isTrue(maximumSize > 0, "maximumSize must be greater than 0!");
+
+		this.artifacts = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+	}
+
+	/**
+	 * 共享的部署文件缓存
+	 */
+	public static ChaincodeArtifactCache getSharedInstance() {
+		ChaincodeArtifactCache cache = sharedInstance;
+		if (cache == null) {
+			synchronized (ChaincodeArtifactCache.class) {
+				cache = sharedInstance;
+				if (cache == null) {
+					cache = new ChaincodeArtifactCache();
+					sharedInstance = cache;
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * 获得私有数据集合配置，支持 yaml/yml/json 文件
+	 */
+	public ChaincodeCollectionConfiguration getCollectionConfiguration(File file) {
+		String suffix = Files.getFileExtension(file.getName());
+
+		boolean yaml = "yaml".equalsIgnoreCase(suffix) || "yml".equalsIgnoreCase(suffix);
+		if (!yaml && !"json".equalsIgnoreCase(suffix)) {
+			throw new ChaincodeUnsupportedOperationException("suffix '" + suffix + "' is unsupport configuration.");
+		}
+
+		return get("collection", file, content -> {
+			if (yaml) {
+				return ChaincodeCollectionConfiguration.fromYamlStream(new ByteArrayInputStream(content));
+			}
+			return ChaincodeCollectionConfiguration.fromJsonStream(new ByteArrayInputStream(content));
+		});
+	}
+
+	/**
+	 * 获得背书策略，yaml/yml 文件按 yaml 格式解析，其他文件按 protobuf 格式读取
+	 */
+	public ChaincodeEndorsementPolicy getEndorsementPolicy(File file) {
+		String suffix = Files.getFileExtension(file.getName());
+
+		return get("policy", file, content -> {
+			ChaincodeEndorsementPolicy policy = new ChaincodeEndorsementPolicy();
+			if ("yaml".equalsIgnoreCase(suffix) || "yml".equalsIgnoreCase(suffix)) {
+				// SDK 只能从文件解析 yaml 策略，写入临时文件保证解析的是计算摘要的内容
+				File temp = File.createTempFile("chaincode-endorsement-policy", "." + suffix);
+				try {
+					Files.write(content, temp);
+					policy.fromYamlFile(temp);
+				} finally {
+					if (!temp.delete()) {
+						temp.deleteOnExit();
+					}
+				}
+			} else {
+				policy.fromBytes(content);
+			}
+			return policy;
+		});
+	}
+
+	/**
+	 * 移除文件的缓存状态，下次获取时重新读取文件
+	 */
+	public void evict(File file) {
+		stamps.remove(getCanonicalPath(file));
+	}
+
+	public void clear() {
+		stamps.clear();
+		artifacts.invalidateAll();
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T get(String type, File file, ArtifactParser<T> parser) {
+		Assert.notNull(file, "artifact file must not be null!");
+
+		String path = getCanonicalPath(file);
+		File canonicalFile = new File(path);
+
+		long lastModified = canonicalFile.lastModified();
+		long length = canonicalFile.length();
+
+		// 文件修改时间和大小不变时直接使用内容摘要，否则重新读取文件计算摘要
+		byte[] content = null;
+		FileStamp stamp = stamps.get(path);
+		if (stamp == null || stamp.lastModified != lastModified || stamp.length != length) {
+			content = read(canonicalFile);
+			stamp = new FileStamp(lastModified, length, Hashing.sha256().hashBytes(content));
+			stamps.put(path, stamp);
+		}
+
+		final byte[] loaded = content;
+		try {
+			return (T) artifacts.get(type + ":" + stamp.hash, () -> {
+				log.debug("parse {} artifact file: {}", type, path);
+
+				return parser.parse(loaded != null ? loaded : read(canonicalFile));
+			});
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			throw new ChaincodeOperationException(e.getCause(), "parse %s file '%s' exception", type, path);
+		}
+	}
+
+	private byte[] read(File file) {
+		if (!file.isFile()) {
+			throw new ChaincodeOperationException("artifact file '%s' does not exist", file);
+		}
+
+		try {
+			return Files.toByteArray(file);
+		} catch (IOException e) {
+			throw new ChaincodeOperationException(e, "read artifact file '%s' exception", file);
+		}
+	}
+
+	private String getCanonicalPath(File file) {
+		try {
+			return file.getCanonicalPath();
+		} catch (IOException e) {
+			return file.getAbsolutePath();
+		}
+	}
+
+	@FunctionalInterface
+	private interface ArtifactParser<T> {
+		T parse(byte[] content) throws Exception;
+	}
+
+	private static final class FileStamp {
+		private final long lastModified;
+		private final long length;
+		private final HashCode hash;
+
+		private FileStamp(long lastModified, long length, HashCode hash) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.hash = hash;
+		}
+	}
+}
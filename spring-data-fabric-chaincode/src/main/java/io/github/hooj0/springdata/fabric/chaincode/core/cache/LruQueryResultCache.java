@@ -0,0 +1,114 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.util.Assert;
+
+/**
+ * 分段加锁的 LRU 查询结果缓存，按 key 的 hash 分到不同的段，每个段独立加锁并按访问顺序淘汰
+ * @author hoojo
+ * @createDate 2019年1月24日 上午10:21:09
+ * @file LruQueryResultCache.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.cache
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class LruQueryResultCache extends AbstractQueryResultCache {
+
+	private static final int SEGMENTS = 16;
+	
+	private final Segment[] segments;
+	
+	public LruQueryResultCache(String name, long ttl, int maxEntries) {
+		super(name, ttl);
+		Assert.isTrue(maxEntries > 0, "query cache maxEntries must be greater than 0!");
+		
+		int segmentCount = Math.min(SEGMENTS, maxEntries);
+		int capacity = (maxEntries + segmentCount - 1) / segmentCount;
+		
+		this.segments = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			segments[i] = new Segment(capacity);
+		}
+	}
+	
+	@Override
+	protected CacheEntry lookup(String key) {
+		Segment segment = segmentFor(key);
+		synchronized (segment) {
+			return segment.get(key);
+		}
+	}
+	
+	@Override
+	protected void store(String key, CacheEntry entry) {
+		Segment segment = segmentFor(key);
+		synchronized (segment) {
+			segment.put(key, entry);
+		}
+	}
+	
+	@Override
+	public void evict(String key) {
+		Segment segment = segmentFor(key);
+		synchronized (segment) {
+			segment.remove(key);
+		}
+	}
+	
+	@Override
+	public void clear() {
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+	
+	@Override
+	protected int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+	
+	private Segment segmentFor(String key) {
+		int hash = key.hashCode();
+		
+		return segments[((hash ^ (hash >>> 16)) & 0x7fffffff) % segments.length];
+	}
+	
+	/**
+	 * 按访问顺序淘汰的缓存段
+	 */
+	@SuppressWarnings("serial")
+	private class Segment extends LinkedHashMap<String, CacheEntry> {
+		
+		private final int capacity;
+		
+		Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+		
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+			if (size() > capacity) {
+				if (eldest.getValue().isExpired()) {
+					expirations.increment();
+				} else {
+					evictions.increment();
+				}
+				return true;
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.cache;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * query result cache metrics snapshot
+ * @author hoojo
+ * @createDate 2019年1月24日 上午9:52:17
+ * @file QueryCacheMetrics.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.cache
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class QueryCacheMetrics {
+
+	/** 缓存名称 */
+	private final String name;
+	/** 当前缓存条目数，无法统计时为 -1 */
+	private final int size;
+	/** 命中次数 */
+	private final long hits;
+	/** 未命中次数 */
+	private final long misses;
+	/** 超过容量被淘汰的条目数 */
+	private final long evictions;
+	/** 过期的条目数 */
+	private final long expirations;
+	
+	public double getHitRate() {
+		long total = hits + misses;
+		
+		return total == 0 ? 0 : (double) hits / total;
+	}
+}
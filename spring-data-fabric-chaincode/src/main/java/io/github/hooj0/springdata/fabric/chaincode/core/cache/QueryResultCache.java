@@ -0,0 +1,28 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.cache;
+
+/**
+ * chaincode query result cache
+ * @author hoojo
+ * @createDate 2019年1月24日 上午9:48:31
+ * @file QueryResultCache.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.cache
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public interface QueryResultCache {
+
+	/**
+	 * 获取未过期的缓存结果，不存在或已过期时返回 null
+	 */
+	Object get(String key);
+	
+	void put(String key, Object value);
+	
+	void evict(String key);
+	
+	void clear();
+	
+	QueryCacheMetrics getMetrics();
+}
@@ -0,0 +1,43 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.cache;
+
+import java.io.Serializable;
+
+import io.github.hooj0.fabric.sdk.commons.core.execution.result.ResultSet;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 缓存的查询结果快照，只保存结果和交易 id，可以序列化到分布式缓存；
+ * 原始 ResultSet 包含背书响应等不可序列化的对象，只在本地内存缓存中保留，序列化后丢失
+ * @author hoojo
+ * @createDate 2019年2月2日 上午10:15:32
+ * @file QueryResultSnapshot.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.cache
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Getter
+@ToString(exclude = "resultSet")
+public final class QueryResultSnapshot implements Serializable {
+
+	private static final long serialVersionUID = 6241350275913582107L;
+
+	/** chaincode 返回的结果 */
+	private final String result;
+	/** 查询交易 id */
+	private final String transactionId;
+	/** 原始查询结果，序列化后为空 */
+	private final transient ResultSet resultSet;
+
+	private QueryResultSnapshot(String result, String transactionId, ResultSet resultSet) {
+		this.result = result;
+		this.transactionId = transactionId;
+		this.resultSet = resultSet;
+	}
+
+	public static QueryResultSnapshot of(ResultSet resultSet) {
+		return resultSet == null ? null : new QueryResultSnapshot(resultSet.getResult(), resultSet.getTransactionId(), resultSet);
+	}
+}
@@ -0,0 +1,68 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.cache;
+
+import java.io.Serializable;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.util.Assert;
+
+/**
+ * 使用 Spring CacheManager 提供的缓存存储查询结果，容量和淘汰策略由 CacheManager 决定，过期时间由条目自身控制
+ * <p>条目只保存可序列化的查询结果快照(结果、交易 id、过期时间)，可以使用 Redis 等分布式缓存</p>
+ * @author hoojo
+ * @createDate 2019年1月24日 上午10:42:51
+ * @file SpringQueryResultCache.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.cache
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class SpringQueryResultCache extends AbstractQueryResultCache {
+
+	private final Cache cache;
+	
+	public SpringQueryResultCache(Cache cache, long ttl) {
+		super(getName(cache), ttl);
+		
+		this.cache = cache;
+	}
+	
+	private static String getName(Cache cache) {
+		Assert.notNull(cache, "spring Cache must not be null!");
+		
+		return cache.getName();
+	}
+	
+	@Override
+	protected CacheEntry lookup(String key) {
+		ValueWrapper wrapper = cache.get(key);
+		if (wrapper == null || !(wrapper.get() instanceof CacheEntry)) {
+			return null;
+		}
+		
+		return (CacheEntry) wrapper.get();
+	}
+	
+	@Override
+	protected void store(String key, CacheEntry entry) {
+		Assert.isInstanceOf(Serializable.class, entry.value, "spring cache '" + name + "' value must be serializable");
+		
+		cache.put(key, entry);
+	}
+	
+	@Override
+	public void evict(String key) {
+		cache.evict(key);
+	}
+	
+	@Override
+	public void clear() {
+		cache.clear();
+	}
+	
+	@Override
+	protected int size() {
+		return -1;
+	}
+}
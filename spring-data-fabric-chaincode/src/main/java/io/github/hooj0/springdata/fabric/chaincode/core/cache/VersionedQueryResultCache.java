@@ -0,0 +1,243 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.hyperledger.fabric.sdk.BlockEvent;
+import org.hyperledger.fabric.sdk.BlockEvent.TransactionEvent;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.Maps;
+
+import io.github.hooj0.springdata.fabric.chaincode.core.support.ChaincodeCommitTracker;
+import io.github.hooj0.springdata.fabric.chaincode.core.support.ChaincodeReadWriteSets;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 按账本键失效的查询结果缓存，缓存条目记录依赖的账本键和读取时的区块高度，
+ * 订阅通道区块事件，已提交交易的写集包含某个账本键时淘汰依赖该键的缓存条目
+ * <p>依赖的账本键可以通过 @Query(keys) 声明，也可以从背书结果的读集获得；没有依赖键的条目只按过期时间失效，
+ * 读取高度为发起查询前已处理的区块高度；读集包含范围查询或富查询时查询结果不写入缓存</p>
+ * <p>依赖关系按缓存的过期时间和最大条目数限制，跟踪的条目过期或超出容量时一并淘汰 delegate 中的结果，
+ * 不再跟踪写集的结果不会留在缓存中</p>
+ * @changelog ledger key tagged query cache, invalidated by committed write sets
+ * @author hoojo
+ * @createDate 2019年1月25日 上午11:02:47
+ * @file VersionedQueryResultCache.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.cache
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Slf4j
+public class VersionedQueryResultCache implements QueryResultCache, Consumer<BlockEvent> {
+
+	/** 最近写入的账本键保留数量，用于丢弃读取后已被改写的查询结果 */
+	public static final int DEFAULT_RECENT_WRITES = 100_000;
+	
+	private final QueryResultCache delegate;
+	private final Supplier<ChaincodeCommitTracker> tracker;
+	
+	/** 账本键 -> 依赖该键的缓存 key */
+	private final Map<String, Set<String>> dependents = Maps.newConcurrentMap();
+	/** 缓存 key -> 依赖的账本键 */
+	private final Cache<String, Collection<String>> dependencies;
+	/** 账本键 -> 最近写入的区块高度 */
+	private final Cache<String, Long> recentWrites;
+	
+	private volatile boolean subscribed;
+	/** 已处理写集的区块高度，-1 表示还没有收到区块 */
+	private volatile long blockHeight = -1;
+	
+	private final LongAdder invalidations = new LongAdder();
+	private final LongAdder stale = new LongAdder();
+	
+	/**
+	 * @param delegate 保存查询结果的缓存
+	 * @param tracker 通道共享的区块监听
+	 * @param ttl 缓存过期时间(毫秒)，与 delegate 一致
+	 * @param maxEntries 跟踪依赖账本键的最大条目数
+	 */
+	public VersionedQueryResultCache(QueryResultCache delegate, Supplier<ChaincodeCommitTracker> tracker, long ttl, int maxEntries) {
+		Assert.notNull(delegate, "delegate QueryResultCache must not be null!");
+		Assert.notNull(tracker, "ChaincodeCommitTracker supplier must not be null!");
+		Assert.isTrue(ttl > 0, "query cache ttl must be greater than 0!");
+		Assert.isTrue(maxEntries > 0, "query cache maxEntries must be greater than 0!");
+		
+		this.delegate = delegate;
+		this.tracker = tracker;
+		this.dependencies = CacheBuilder.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttl, TimeUnit.MILLISECONDS).removalListener(this::removed).build();
+		this.recentWrites = CacheBuilder.newBuilder().maximumSize(DEFAULT_RECENT_WRITES).expireAfterWrite(1, TimeUnit.HOURS).build();
+	}
+	
+	/**
+	 * 已处理写集的最新区块号，-1 表示还没有收到区块
+	 */
+	public long getBlockHeight() {
+		subscribe();
+		
+		return blockHeight;
+	}
+	
+	@Override
+	public Object get(String key) {
+		subscribe();
+		
+		return delegate.get(key);
+	}
+	
+	@Override
+	public void put(String key, Object value) {
+		delegate.put(key, value);
+	}
+	
+	/**
+	 * 写入依赖账本键的缓存条目，依赖的键在读取高度及之后的区块中被改写时丢弃该结果；
+	 * 读取高度所在的区块已经处理过，但响应查询的 peer 节点可能还没有提交，因此按 >= 保守比较
+	 * @param key 缓存 key
+	 * @param value 查询结果
+	 * @param ledgerKeys 依赖的账本键 namespace/key
+	 * @param readHeight 发起查询前 {@link #getBlockHeight()} 的值，-1 表示当时还没有收到区块
+	 */
+	public void put(String key, Object value, Collection<String> ledgerKeys, long readHeight) {
+		if (CollectionUtils.isEmpty(ledgerKeys)) {
+			delegate.put(key, value);
+			return;
+		}
+		
+		if (isWrittenAfter(ledgerKeys, readHeight)) {
+			stale.increment();
+			return;
+		}
+		
+		dependencies.put(key, ledgerKeys);
+		ledgerKeys.forEach(ledgerKey -> dependents.computeIfAbsent(ledgerKey, k -> ConcurrentHashMap.newKeySet()).add(key));
+		delegate.put(key, value);
+		
+		// 写入期间区块事件可能已经处理过依赖的键，写入后再检查一次
+		if (isWrittenAfter(ledgerKeys, readHeight)) {
+			stale.increment();
+			evict(key);
+		}
+	}
+	
+	private boolean isWrittenAfter(Collection<String> ledgerKeys, long readHeight) {
+		for (String ledgerKey : ledgerKeys) {
+			Long written = recentWrites.getIfPresent(ledgerKey);
+			if (written != null && written >= readHeight) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public void evict(String key) {
+		dependencies.invalidate(key);
+		delegate.evict(key);
+	}
+	
+	@Override
+	public void clear() {
+		dependencies.invalidateAll();
+		dependents.clear();
+		delegate.clear();
+	}
+	
+	/**
+	 * 依赖关系移除时清理账本键的反向索引；过期或超出容量时结果无法再按写集失效，一并从 delegate 淘汰
+	 */
+	private void removed(RemovalNotification<String, Collection<String>> notification) {
+		String key = notification.getKey();
+		
+		notification.getValue().forEach(ledgerKey -> dependents.computeIfPresent(ledgerKey, (k, keys) -> {
+			keys.remove(key);
+			return keys.isEmpty() ? null : keys;
+		}));
+		
+		if (notification.wasEvicted()) {
+			delegate.evict(key);
+		}
+	}
+	
+	/**
+	 * 处理已提交区块：先记录写入的账本键，再淘汰依赖这些键的缓存条目
+	 */
+	@Override
+	public void accept(BlockEvent blockEvent) {
+		long number = blockEvent.getBlockNumber();
+		
+		Map<String, Set<String>> writes = ChaincodeReadWriteSets.getWriteKeys(blockEvent);
+		for (TransactionEvent event : blockEvent.getTransactionEvents()) {
+			if (!event.isValid()) {
+				continue;
+			}
+			
+			for (String ledgerKey : writes.getOrDefault(event.getTransactionID(), Collections.emptySet())) {
+				recentWrites.put(ledgerKey, number);
+				
+				Set<String> keys = dependents.remove(ledgerKey);
+				if (keys != null) {
+					keys.forEach(key -> {
+						invalidations.increment();
+						evict(key);
+					});
+				}
+			}
+		}
+		
+		blockHeight = Math.max(blockHeight, number);
+	}
+	
+	private void subscribe() {
+		if (!subscribed) {
+			synchronized (this) {
+				if (!subscribed) {
+					tracker.get().subscribe(this);
+					subscribed = true;
+					
+					log.debug("query cache '{}' subscribed block events", delegate.getMetrics().getName());
+				}
+			}
+		}
+	}
+	
+	@Override
+	public QueryCacheMetrics getMetrics() {
+		return delegate.getMetrics();
+	}
+	
+	/** 已提交写集淘汰的缓存条目数 */
+	public long getInvalidationCount() {
+		return invalidations.sum();
+	}
+	
+	/** 跟踪依赖账本键的缓存条目数 */
+	public long getTrackedCount() {
+		dependencies.cleanUp();
+		
+		return dependencies.size();
+	}
+	
+	/** 读取后依赖的键已被改写而丢弃的查询结果数 */
+	public long getStaleCount() {
+		return stale.sum();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("VersionedQueryResultCache(blockHeight=%d, invalidations=%d, stale=%d, delegate=%s)", blockHeight, getInvalidationCount(), getStaleCount(), delegate);
+	}
+}
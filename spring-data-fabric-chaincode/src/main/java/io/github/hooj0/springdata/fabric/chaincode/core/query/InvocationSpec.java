@@ -0,0 +1,38 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.query;
+
+import org.springframework.util.Assert;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * chaincode batch invoke single invocation, chaincode function and arguments
+ * @author hoojo
+ * @createDate 2019年1月8日 上午9:42:10
+ * @file InvocationSpec.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.query
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Getter
+@ToString
+public final class InvocationSpec {
+
+	/** 链码调用方法 */
+	private final String func;
+	/** 链码调用参数 */
+	private final Object[] args;
+	
+	private InvocationSpec(String func, Object[] args) {
+		Assert.hasText(func, "invocation func must not be empty!");
+		
+		this.func = func;
+		this.args = args == null ? new Object[0] : args;
+	}
+	
+	public static InvocationSpec of(String func, Object... args) {
+		return new InvocationSpec(func, args);
+	}
+}
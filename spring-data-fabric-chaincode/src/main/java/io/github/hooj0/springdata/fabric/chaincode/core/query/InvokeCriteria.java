@@ -1,7 +1,12 @@
 package io.github.hooj0.springdata.fabric.chaincode.core.query;
 
+import java.util.Collection;
+
 import io.github.hooj0.fabric.sdk.commons.core.execution.option.InvokeOptions;
+import io.github.hooj0.springdata.fabric.chaincode.core.support.ChaincodeRetryPolicy;
+import io.github.hooj0.springdata.fabric.chaincode.enums.CommitMode;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
 
 /**
@@ -20,6 +25,21 @@ import lombok.ToString;
 public final class InvokeCriteria extends InvokeOptions {
 
 	private Criteria criteria;
+	/** 交易验证失败重试策略 */
+	@Setter
+	private ChaincodeRetryPolicy retryPolicy;
+	/** 交易读写的账本键 */
+	@Setter
+	private Collection<String> keys;
+	/** 交易提交等待模式 */
+	@Setter
+	private CommitMode commitMode = CommitMode.COMMITTED_ON_N_PEERS;
+	/** COMMITTED_ON_N_PEERS 模式下需要等待提交的 peer 节点数量，0 表示所有事件节点 */
+	@Setter
+	private int commitPeers;
+	/** 背书结果写集为空时跳过排序，直接返回背书结果，只对 submit 生效 */
+	@Setter
+	private boolean skipReadOnly;
 	
 	public InvokeCriteria(Criteria criteria) {
 		super();
@@ -1,7 +1,10 @@
 package io.github.hooj0.springdata.fabric.chaincode.core.query;
 
+import java.util.Collection;
+
 import io.github.hooj0.fabric.sdk.commons.core.execution.option.QueryOptions;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.ToString;
 
 /**
@@ -19,7 +22,27 @@ import lombok.ToString;
 @Getter
 public final class QueryCriteria extends QueryOptions {
 	
+	public static final int DEFAULT_FAN_OUT = 16;
+	
 	private Criteria criteria;
+	/** 对冲查询延迟(毫秒)，0 表示不对冲 */
+	@Setter
+	private long hedgeDelay;
+	/** 对冲查询延迟取查询耗时的百分位数，0 表示使用固定延迟 */
+	@Setter
+	private double hedgePercentile;
+	/** 最多发出的对冲查询数 */
+	@Setter
+	private int maxHedges = 1;
+	/** 查询读取的账本键 */
+	@Setter
+	private Collection<String> keys;
+	/** 批量查询的 chaincode 批量读取函数，为空时按键并行查询 */
+	@Setter
+	private String multiGet;
+	/** 批量查询按键并行查询时的最大并发数 */
+	@Setter
+	private int fanOut = DEFAULT_FAN_OUT;
 	
 	public QueryCriteria(Criteria criteria) {
 		this.criteria = criteria;
@@ -27,4 +50,8 @@ public final class QueryCriteria extends QueryOptions {
 		this.setChaincodeId(this.criteria.getChaincodeID());
 		this.setChaincodeType(this.criteria.getType());
 	}
+	
+	public boolean isHedged() {
+		return (hedgeDelay > 0 || hedgePercentile > 0) && maxHedges > 0;
+	}
 }
@@ -0,0 +1,100 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.query;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.util.Assert;
+
+import io.github.hooj0.springdata.fabric.chaincode.enums.GatherMode;
+import io.github.hooj0.springdata.fabric.chaincode.enums.PartialFailurePolicy;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 跨多个 channel/chaincode 分散查询的条件：查询目标、结果合并方式、部分失败策略和整体截止时间
+ * @changelog scatter-gather query criteria, target criteria list, merge mode, partial failure policy and overall deadline
+ * @author hoojo
+ * @createDate 2019年1月28日 上午10:24:17
+ * @file ScatterGatherCriteria.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.query
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Getter
+@ToString(exclude = { "reducer", "matcher" })
+public final class ScatterGatherCriteria {
+
+	/** 查询目标，每个 channel/chaincode 一个查询条件 */
+	private final List<QueryCriteria> targets;
+	/** 结果合并方式 */
+	private GatherMode mode = GatherMode.CONCAT;
+	/** 部分失败策略 */
+	private PartialFailurePolicy policy = PartialFailurePolicy.FAIL;
+	/** 整体截止时间(毫秒)，0 表示一直等待 */
+	private long deadline;
+	/** REDUCE 模式的归约函数 */
+	private BinaryOperator<String> reducer;
+	/** FIRST_MATCH 模式的匹配条件，默认结果不为空即匹配 */
+	private Predicate<String> matcher = StringUtils::isNotBlank;
+	
+	private ScatterGatherCriteria(List<QueryCriteria> targets) {
+		Assert.notEmpty(targets, "scatter gather targets must not be empty!");
+		Assert.noNullElements(targets.toArray(), "scatter gather targets must not contain null!");
+		
+		this.targets = Collections.unmodifiableList(targets);
+	}
+	
+	public static ScatterGatherCriteria of(QueryCriteria... targets) {
+		return new ScatterGatherCriteria(Arrays.asList(targets));
+	}
+	
+	public static ScatterGatherCriteria of(List<QueryCriteria> targets) {
+		return new ScatterGatherCriteria(targets);
+	}
+	
+	public ScatterGatherCriteria concat() {
+		this.mode = GatherMode.CONCAT;
+		return this;
+	}
+	
+	public ScatterGatherCriteria reduce(BinaryOperator<String> reducer) {
+		Assert.notNull(reducer, "reducer must not be null!");
+		
+		this.mode = GatherMode.REDUCE;
+		this.reducer = reducer;
+		return this;
+	}
+	
+	public ScatterGatherCriteria firstMatch() {
+		this.mode = GatherMode.FIRST_MATCH;
+		return this;
+	}
+	
+	public ScatterGatherCriteria firstMatch(Predicate<String> matcher) {
+		Assert.notNull(matcher, "matcher must not be null!");
+		
+		this.mode = GatherMode.FIRST_MATCH;
+		this.matcher = matcher;
+		return this;
+	}
+	
+	public ScatterGatherCriteria policy(PartialFailurePolicy policy) {
+		Assert.notNull(policy, "PartialFailurePolicy must not be null!");
+		
+		this.policy = policy;
+		return this;
+	}
+	
+	public ScatterGatherCriteria deadline(long deadline) {
+		Assert.isTrue(deadline >= 0, "deadline must not be negative!");
+		
+		this.deadline = deadline;
+		return this;
+	}
+}
@@ -1,5 +1,6 @@
 package io.github.hooj0.springdata.fabric.chaincode.core.serialize;
 
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeUnsupportedOperationException;
 import io.github.hooj0.springdata.fabric.chaincode.repository.query.ChaincodeQueryMethod;
 
 /**
@@ -33,4 +34,16 @@ public interface ChaincodeEntitySerialization {
 	 * @return deserialize value
 	 */
 	public <T> T deserialize(String json, ChaincodeQueryMethod method);
+	
+	/**
+	 * 将字符串反序列成指定类型的对象，用于批量查询中单个键的结果
+	 * @author hoojo
+	 * @createDate 2019年1月21日 上午10:12:36
+	 * @param json json string
+	 * @param type deserialize target type
+	 * @return deserialize value
+	 */
+	public default <T> T deserialize(String json, Class<T> type) {
+		throw new ChaincodeUnsupportedOperationException("%s does not support deserialize to type '%s'", getClass().getName(), type.getName());
+	}
 }
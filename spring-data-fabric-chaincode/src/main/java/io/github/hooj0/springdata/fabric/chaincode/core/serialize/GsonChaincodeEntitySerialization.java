@@ -41,9 +41,14 @@ public enum GsonChaincodeEntitySerialization implements ChaincodeEntitySerializa
 	public <T> T deserialize(String json, ChaincodeQueryMethod method) {
 
 		if (method.isCollectionQuery()) {
-	        throw new ChaincodeUnsupportedOperationException("Gson Provider not support collection '%s' deserialize.", method.getReturnType().getRawTypeInformation().getType());
+	        throw new ChaincodeUnsupportedOperationException("Gson Provider not support collection '%s' deserialize.", method.getResultTypeInformation().getRawTypeInformation().getType());
 		} 
 		
 		return (T) gson.fromJson(json, method.getResultType());
 	}
+	
+	@Override
+	public <T> T deserialize(String json, Class<T> type) {
+		return gson.fromJson(json, type);
+	}
 }
@@ -65,7 +65,7 @@ public enum JacksonChaincodeEntitySerialization implements ChaincodeEntitySerial
 		
 		try {
 			if (method.isCollectionQuery()) {
-				return mapper.readValue(json, getCollectionType(method.getReturnType().getRawTypeInformation().getType(), method.getResultType()));
+				return mapper.readValue(json, getCollectionType(method.getResultTypeInformation().getRawTypeInformation().getType(), method.getResultType()));
 			} 
 			
 			return (T) mapper.readValue(json, method.getResultType());
@@ -74,6 +74,15 @@ public enum JacksonChaincodeEntitySerialization implements ChaincodeEntitySerial
 		}
 	}
 	
+	@Override
+	public <T> T deserialize(String json, Class<T> type) {
+		try {
+			return mapper.readValue(json, type);
+		} catch (IOException e) {
+			throw new ChaincodeSerializationException(e, "jackson chaincode entity deserialize exception: %s", e.getMessage());
+		}
+	}
+	
 	private static JavaType getCollectionType(Class<?> collectionClass, Class<?>... elementClasses) {
 		return mapper.getTypeFactory().constructParametricType(collectionClass, elementClasses);
 	}
@@ -1,20 +1,89 @@
 package io.github.hooj0.springdata.fabric.chaincode.core.support;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hyperledger.fabric.protos.ledger.rwset.Rwset.CollectionHashedReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.Rwset.NsReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.Rwset.TxReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KvRwset.HashedRWSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KvRwset.KVRWSet;
+import org.hyperledger.fabric.protos.peer.FabricProposal.ChaincodeAction;
+import org.hyperledger.fabric.protos.peer.FabricProposalResponse.ProposalResponsePayload;
+import org.hyperledger.fabric.sdk.BlockEvent.TransactionEvent;
+import org.hyperledger.fabric.sdk.ChaincodeResponse;
+import org.hyperledger.fabric.sdk.Channel;
+import org.hyperledger.fabric.sdk.Channel.NOfEvents;
+import org.hyperledger.fabric.sdk.Channel.TransactionOptions;
+import org.hyperledger.fabric.sdk.EventHub;
+import org.hyperledger.fabric.sdk.Orderer;
+import org.hyperledger.fabric.sdk.Peer;
+import org.hyperledger.fabric.sdk.Peer.PeerRole;
+import org.hyperledger.fabric.sdk.ProposalResponse;
+import org.hyperledger.fabric.sdk.SDKUtils;
+import org.hyperledger.fabric.sdk.TransactionProposalRequest;
+import org.hyperledger.fabric.sdk.User;
+import org.hyperledger.fabric.sdk.exception.InvalidArgumentException;
+import org.hyperledger.fabric.sdk.exception.ProposalException;
+import org.hyperledger.fabric.sdk.exception.TransactionEventException;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.data.mapping.context.MappingContext;
 import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.ReflectionUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.protobuf.InvalidProtocolBufferException;
 
 import io.github.hooj0.fabric.sdk.commons.config.DefaultFabricConfiguration;
 import io.github.hooj0.fabric.sdk.commons.config.FabricConfiguration;
 import io.github.hooj0.fabric.sdk.commons.core.ChaincodeDeployOperations;
 import io.github.hooj0.fabric.sdk.commons.core.ChaincodeTransactionOperations;
 import io.github.hooj0.fabric.sdk.commons.core.execution.option.Options;
+import io.github.hooj0.fabric.sdk.commons.core.execution.option.TransactionsOptions;
+import io.github.hooj0.fabric.sdk.commons.core.execution.result.ResultSet;
 import io.github.hooj0.fabric.sdk.commons.core.support.ChaincodeDeployTemplate;
 import io.github.hooj0.fabric.sdk.commons.core.support.ChaincodeTransactionTemplate;
 import io.github.hooj0.fabric.sdk.commons.domain.Organization;
 import io.github.hooj0.fabric.sdk.commons.store.FabricKeyValueStore;
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
 import io.github.hooj0.springdata.fabric.chaincode.core.ChaincodeOperations;
 import io.github.hooj0.springdata.fabric.chaincode.core.cache.ChaincodeOperationBeanCache;
 import io.github.hooj0.springdata.fabric.chaincode.core.convert.ChaincodeConverter;
@@ -22,7 +91,15 @@ import io.github.hooj0.springdata.fabric.chaincode.core.convert.MappingChaincode
 import io.github.hooj0.springdata.fabric.chaincode.core.mapping.ChaincodePersistentEntity;
 import io.github.hooj0.springdata.fabric.chaincode.core.mapping.ChaincodePersistentProperty;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.InvokeCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.QueryCriteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.ScatterGatherCriteria;
+import io.github.hooj0.springdata.fabric.chaincode.enums.BulkheadType;
+import io.github.hooj0.springdata.fabric.chaincode.enums.CircuitState;
+import io.github.hooj0.springdata.fabric.chaincode.enums.CommitMode;
+import io.github.hooj0.springdata.fabric.chaincode.enums.GatherMode;
+import io.github.hooj0.springdata.fabric.chaincode.enums.PartialFailurePolicy;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * abstract base chaincode template implements
@@ -35,7 +112,12 @@ import io.github.hooj0.springdata.fabric.chaincode.core.query.QueryCriteria;
  * @email hoojo_@126.com
  * @version 1.0
  */
-public abstract class AbstractChaincodeTemplate implements ChaincodeOperations, ApplicationContextAware {
+@Slf4j
+public abstract class AbstractChaincodeTemplate implements ChaincodeOperations, ApplicationContextAware, DisposableBean {
+
+	private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+	/** FIRE_AND_FORGET 模式下向排序节点发送交易的线程池 */
+	private static final ExecutorService ORDERING_EXECUTOR = createOrderingExecutor();
 
 	protected final MappingContext<? extends ChaincodePersistentEntity<?>, ChaincodePersistentProperty> mappingContext;
 	protected ApplicationContext applicationContext;
@@ -45,6 +127,58 @@ public abstract class AbstractChaincodeTemplate implements ChaincodeOperations,
 	protected final FabricKeyValueStore store;
 	protected final ChaincodeOperationBeanCache beanCache;
 	
+	/** 异步交易管道，为空时异步交易直接发起 */
+	protected ChaincodeInvokePipeline invokePipeline;
+	/** 未设置交易管道时，批量交易使用的默认管道 */
+	private volatile ChaincodeInvokePipeline batchPipeline;
+	
+	/** 账本键冲突调度器 */
+	protected ChaincodeKeyScheduler keyScheduler = new ChaincodeKeyScheduler();
+	/** 账本键冲突调度器是否由模板创建 */
+	private boolean ownedKeyScheduler = true;
+	
+	/** 是否使用通道共享的区块监听跟踪交易提交 */
+	protected boolean commitTracking;
+	private final Map<String, ChaincodeCommitTracker> commitTrackers = Maps.newConcurrentMap();
+	private final Map<String, BlockListenerHandle> commitTrackerHandles = Maps.newConcurrentMap();
+	
+	/** 是否全局允许背书写集为空的交易跳过排序 */
+	protected boolean skipReadOnly;
+	/** 跳过排序的只读交易数 */
+	private final LongAdder readOnlySkipped = new LongAdder();
+	
+	/** 查询、交易、部署操作隔离舱，为空时操作在调用线程执行 */
+	protected ChaincodeBulkheads bulkheads;
+	
+	/** 未配置隔离舱时，异步查询使用的线程池 */
+	private volatile ExecutorService queryExecutor;
+	/** 查询线程池是否由模板创建，模板销毁时只关闭自己创建的线程池 */
+	private boolean ownedQueryExecutor;
+	
+	/** 对冲查询执行器 */
+	protected ChaincodeQueryHedger queryHedger = new ChaincodeQueryHedger();
+	/** 对冲查询执行器是否由模板创建 */
+	private boolean ownedQueryHedger = true;
+	/** 查询节点选择器，为空时查询发送到通道内所有可查询节点 */
+	protected ChaincodePeerSelector peerSelector;
+	/** peer/orderer 节点熔断器，为空时不熔断 */
+	protected ChaincodeCircuitBreakers circuitBreakers;
+	/** 按背书策略选择最少的背书节点，未设置时交易提议发送到所有背书节点 */
+	protected ChaincodeEndorsementPlanner endorsementPlanner;
+	
+	/**
+	 * 排序线程池与交易隔离舱默认大小一致，队列满载时由调用线程直接发送交易，避免无界创建线程
+	 */
+	private static ExecutorService createOrderingExecutor() {
+		int maxConcurrent = BulkheadType.INVOKE.getMaxConcurrent();
+		
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(BulkheadType.INVOKE.getQueueCapacity()), 
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("chaincode-ordering-%d").build(), new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		
+		return executor;
+	}
+	
 	public AbstractChaincodeTemplate() {
 		this(newDefaultConverter());
 	}
@@ -75,6 +209,44 @@ public abstract class AbstractChaincodeTemplate implements ChaincodeOperations,
 		}
 	}
 	
+	/**
+	 * 注销提交跟踪器的区块监听，未完成的交易等待异常结束；关闭模板创建的查询线程池、对冲查询执行器和批量交易管道
+	 */
+	@Override
+	public void destroy() {
+		commitTrackers.forEach((key, tracker) -> {
+			BlockListenerHandle handle = commitTrackerHandles.remove(key);
+			if (handle != null) {
+				try {
+					handle.channel.unregisterBlockListener(handle.handle);
+				} catch (InvalidArgumentException e) {
+					log.warn("unregister commit tracker block listener on channel '{}' failed: {}", tracker.getChannel(), e.getMessage());
+				}
+			}
+			tracker.shutdown();
+		});
+		commitTrackers.clear();
+		
+		// 只关闭模板自己创建的线程池、对冲查询执行器、账本键冲突调度器和批量交易管道，外部设置的由设置方管理
+		synchronized (this) {
+			if (this.ownedQueryExecutor && this.queryExecutor != null) {
+				this.queryExecutor.shutdown();
+				this.queryExecutor = null;
+				this.ownedQueryExecutor = false;
+			}
+			if (this.batchPipeline != null) {
+				this.batchPipeline.shutdown();
+				this.batchPipeline = null;
+			}
+			if (this.ownedQueryHedger && this.queryHedger != null) {
+				this.queryHedger.shutdown();
+			}
+			if (this.ownedKeyScheduler && this.keyScheduler != null) {
+				this.keyScheduler.shutdown();
+			}
+		}
+	}
+	
 	private static MappingChaincodeConverter newDefaultConverter() {
 		MappingChaincodeConverter converter = new MappingChaincodeConverter();
 		
@@ -135,6 +307,963 @@ public abstract class AbstractChaincodeTemplate implements ChaincodeOperations,
 		return createTransactionOperations(criteria);
 	}
 	
+	public ChaincodeInvokePipeline getInvokePipeline() {
+		return invokePipeline;
+	}
+
+	public void setInvokePipeline(ChaincodeInvokePipeline invokePipeline) {
+		this.invokePipeline = invokePipeline;
+	}
+	
+	protected <T> CompletableFuture<T> submitInvoke(Criteria criteria, Supplier<CompletableFuture<T>> invoker) {
+		if (this.invokePipeline == null) {
+			return invoker.get();
+		}
+		
+		return this.invokePipeline.submit(criteria, invoker);
+	}
+	
+	/**
+	 * 同步交易同样受交易管道并发限制，在调用线程发起，窗口已满时调用线程等待空位
+	 */
+	protected <T> T submitInvokeAndWait(Criteria criteria, Supplier<T> invoker) {
+		if (this.invokePipeline == null) {
+			return invoker.get();
+		}
+		
+		try {
+			return this.invokePipeline.executeSync(criteria, invoker).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new ChaincodeOperationException(e.getCause(), "chaincode invoke failed: %s", e.getCause().getMessage());
+		}
+	}
+	
+	/**
+	 * 在调用线程发起交易，配置了交易管道时占用管道窗口直到交易 Future 完成
+	 */
+	protected <T> CompletableFuture<T> executeInvoke(Criteria criteria, Supplier<CompletableFuture<T>> invoker) {
+		if (this.invokePipeline == null) {
+			return invoker.get();
+		}
+		
+		return this.invokePipeline.execute(criteria, invoker);
+	}
+	
+	protected ChaincodeInvokePipeline getBatchInvokePipeline() {
+		if (this.invokePipeline != null) {
+			return this.invokePipeline;
+		}
+		
+		if (this.batchPipeline == null) {
+			synchronized (this) {
+				if (this.batchPipeline == null) {
+					this.batchPipeline = new ChaincodeInvokePipeline();
+				}
+			}
+		}
+		return this.batchPipeline;
+	}
+	
+	public ChaincodeKeyScheduler getKeyScheduler() {
+		return keyScheduler;
+	}
+
+	public synchronized void setKeyScheduler(ChaincodeKeyScheduler keyScheduler) {
+		if (this.ownedKeyScheduler && this.keyScheduler != null && this.keyScheduler != keyScheduler) {
+			this.keyScheduler.shutdown();
+		}
+		this.ownedKeyScheduler = false;
+		this.keyScheduler = keyScheduler;
+	}
+	
+	protected <T> T scheduleInvoke(InvokeCriteria criteria, Supplier<T> invoker) {
+		if (this.keyScheduler == null || CollectionUtils.isEmpty(criteria.getKeys())) {
+			return invoker.get();
+		}
+		
+		return this.keyScheduler.execute(criteria.getKeys(), invoker);
+	}
+	
+	protected <T> CompletableFuture<T> scheduleInvokeAsync(InvokeCriteria criteria, Supplier<CompletableFuture<T>> invoker) {
+		if (this.keyScheduler == null || CollectionUtils.isEmpty(criteria.getKeys())) {
+			return invoker.get();
+		}
+		
+		return this.keyScheduler.submit(criteria.getKeys(), invoker);
+	}
+	
+	protected <T> T retryInvoke(InvokeCriteria criteria, Supplier<T> invoker) {
+		ChaincodeRetryPolicy policy = criteria.getRetryPolicy();
+		if (policy == null) {
+			return invoker.get();
+		}
+		
+		return policy.execute(invoker, retries -> log.debug("chaincode '{}' transaction retry {}", criteria.getCriteria().getName(), retries));
+	}
+	
+	protected <T> CompletableFuture<T> retryInvokeAsync(InvokeCriteria criteria, Supplier<CompletableFuture<T>> invoker) {
+		ChaincodeRetryPolicy policy = criteria.getRetryPolicy();
+		if (policy == null) {
+			return invoker.get();
+		}
+		
+		return policy.executeAsync(invoker, retries -> log.debug("chaincode '{}' transaction retry {}", criteria.getCriteria().getName(), retries));
+	}
+	
+	public ChaincodeBulkheads getBulkheads() {
+		return bulkheads;
+	}
+
+	public void setBulkheads(ChaincodeBulkheads bulkheads) {
+		this.bulkheads = bulkheads;
+	}
+	
+	/**
+	 * 在对应类型的隔离舱中执行操作，调用线程等待结果；隔离舱只包裹对 peer/orderer 节点的请求，
+	 * 键调度、重试间隔和交易管道的等待都在隔离舱外完成，不占用隔离舱线程
+	 */
+	protected <T> T isolate(Criteria criteria, BulkheadType type, Supplier<T> action) {
+		if (this.bulkheads == null) {
+			return action.get();
+		}
+		
+		return this.bulkheads.get(criteria, type).execute(action);
+	}
+	
+	/**
+	 * 在对应类型的隔离舱中发起异步操作
+	 */
+	protected <T> CompletableFuture<T> isolateAsync(Criteria criteria, BulkheadType type, Supplier<CompletableFuture<T>> action) {
+		if (this.bulkheads == null) {
+			return action.get();
+		}
+		
+		return this.bulkheads.get(criteria, type).submitAsync(action);
+	}
+	
+	/**
+	 * 异步查询：配置了隔离舱时在查询隔离舱中执行，否则使用有界的查询线程池，调用线程不等待
+	 */
+	protected <T> CompletableFuture<T> queryAsync(Criteria criteria, Supplier<T> query) {
+		if (this.bulkheads != null) {
+			return this.bulkheads.get(criteria, BulkheadType.QUERY).submitAsync(() -> CompletableFuture.completedFuture(query.get()));
+		}
+		
+		return ChaincodeBulkhead.supplyAsync(query, getQueryExecutor());
+	}
+	
+	public ExecutorService getQueryExecutor() {
+		if (this.queryExecutor == null) {
+			synchronized (this) {
+				if (this.queryExecutor == null) {
+					this.ownedQueryExecutor = true;
+					this.queryExecutor = Executors.newFixedThreadPool(BulkheadType.QUERY.getMaxConcurrent(), new ThreadFactoryBuilder().setDaemon(true).setNameFormat("chaincode-query-async-%d").build());
+				}
+			}
+		}
+		return this.queryExecutor;
+	}
+
+	public synchronized void setQueryExecutor(ExecutorService queryExecutor) {
+		this.ownedQueryExecutor = false;
+		this.queryExecutor = queryExecutor;
+	}
+	
+	public ChaincodeQueryHedger getQueryHedger() {
+		return queryHedger;
+	}
+	
+	public synchronized void setQueryHedger(ChaincodeQueryHedger queryHedger) {
+		if (this.ownedQueryHedger && this.queryHedger != null && this.queryHedger != queryHedger) {
+			this.queryHedger.shutdown();
+		}
+		this.ownedQueryHedger = false;
+		this.queryHedger = queryHedger;
+	}
+	
+	public ChaincodePeerSelector getPeerSelector() {
+		return peerSelector;
+	}
+	
+	public void setPeerSelector(ChaincodePeerSelector peerSelector) {
+		this.peerSelector = peerSelector;
+	}
+	
+	public ChaincodeCircuitBreakers getCircuitBreakers() {
+		return circuitBreakers;
+	}
+	
+	public void setCircuitBreakers(ChaincodeCircuitBreakers circuitBreakers) {
+		this.circuitBreakers = circuitBreakers;
+	}
+	
+	public ChaincodeEndorsementPlanner getEndorsementPlanner() {
+		return endorsementPlanner;
+	}
+	
+	public void setEndorsementPlanner(ChaincodeEndorsementPlanner endorsementPlanner) {
+		this.endorsementPlanner = endorsementPlanner;
+	}
+	
+	/**
+	 * 配置了背书规划且没有指定交易提议发送节点时，invoke 系列操作由模板背书和发送交易，背书按规划只发送到满足背书策略的节点
+	 */
+	protected boolean isEndorsementPlanned(InvokeCriteria criteria) {
+		return this.endorsementPlanner != null && CollectionUtils.isEmpty(criteria.getSend2Peers());
+	}
+	
+	/**
+	 * 查询路由：配置了节点选择器时按评分选择一个 peer 节点查询，不再比较多个节点的查询结果，配置了熔断器时绕开熔断的节点；
+	 * 条件开启对冲且存在多个可查询 peer 节点时，每次只向一个 peer 节点发起查询，超过对冲延迟未返回时再向下一个节点发起查询
+	 */
+	protected <T> T routeQuery(QueryCriteria criteria, Function<QueryCriteria, T> query) {
+		boolean hedged = this.queryHedger != null && criteria.isHedged();
+		if (!hedged && this.peerSelector == null && this.circuitBreakers == null) {
+			return query.apply(criteria);
+		}
+		
+		List<Peer> peers = getQueryPeers(criteria);
+		if (peers.isEmpty()) {
+			return query.apply(criteria);
+		}
+		
+		if (!hedged || peers.size() < 2) {
+			Peer peer = this.peerSelector != null ? this.peerSelector.select(peers) : peers.get(ThreadLocalRandom.current().nextInt(peers.size()));
+			return queryPeer(criteria, peer, query);
+		}
+		
+		if (this.peerSelector != null) {
+			peers = this.peerSelector.rank(peers);
+		} else {
+			Collections.shuffle(peers);
+		}
+		
+		String key = criteria.getCriteria().getChannel() + "_" + criteria.getCriteria().getName();
+		return this.queryHedger.execute(key, peers, criteria.getHedgeDelay(), criteria.getHedgePercentile(), criteria.getMaxHedges(), peer -> queryPeer(criteria, peer, query));
+	}
+	
+	protected List<Peer> getQueryPeers(QueryCriteria criteria) {
+		Collection<Peer> peers;
+		if (criteria.isSpecificPeers() && !CollectionUtils.isEmpty(criteria.getSend2Peers())) {
+			peers = criteria.getSend2Peers();
+		} else {
+			peers = getChaincodeDeployOperations(criteria.getCriteria()).getChannel().getPeers(EnumSet.of(PeerRole.CHAINCODE_QUERY));
+		}
+		
+		return new ArrayList<>(filterPeers(criteria.getCriteria(), peers));
+	}
+	
+	private <T> T queryPeer(QueryCriteria criteria, Peer peer, Function<QueryCriteria, T> query) {
+		Supplier<T> action = () -> query.apply(createPeerCriteria(criteria, peer));
+		if (this.peerSelector != null) {
+			Supplier<T> selected = action;
+			action = () -> this.peerSelector.execute(peer, selected);
+		}
+		
+		if (this.circuitBreakers == null) {
+			return action.get();
+		}
+		return this.circuitBreakers.execute(peer.getName(), action, this::isPeerFailure);
+	}
+	
+	/**
+	 * 查询失败是否由节点不可用引起：超时、网络异常，以及 SDK 没有收到节点响应时生成的失败响应("... failed because of ...")；
+	 * 节点有响应而 chaincode 返回业务错误时不计入熔断
+	 */
+	private boolean isPeerFailure(Throwable error) {
+		for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+			if (cause instanceof TimeoutException || cause instanceof IOException || StringUtils.contains(cause.getMessage(), "failed because of")) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * 绕开熔断器打开的 peer 节点，并为节点注册后台探测：向节点查询区块链信息
+	 */
+	protected Collection<Peer> filterPeers(Criteria criteria, Collection<Peer> peers) {
+		if (this.circuitBreakers == null) {
+			return peers;
+		}
+		
+		Channel channel = getChaincodeDeployOperations(criteria).getChannel();
+		for (Peer peer : peers) {
+			if (!this.circuitBreakers.isRegistered(peer.getName())) {
+				User user = getOrganization(criteria).getPeerAdmin();
+				this.circuitBreakers.register(peer.getName(), () -> {
+					try {
+						return channel.queryBlockchainInfo(peer, user) != null;
+					} catch (ProposalException | InvalidArgumentException e) {
+						throw new ChaincodeOperationException(e, "probe peer '%s' failed: %s", peer.getName(), e.getMessage());
+					}
+				});
+			}
+		}
+		
+		return this.circuitBreakers.filter(peers, Peer::getName);
+	}
+	
+	private QueryCriteria createPeerCriteria(QueryCriteria criteria, Peer peer) {
+		QueryCriteria peerCriteria = new QueryCriteria(criteria.getCriteria());
+		BeanUtils.copyProperties(criteria, peerCriteria);
+		peerCriteria.setSpecificPeers(true);
+		peerCriteria.setSend2Peers(Collections.singletonList(peer));
+		
+		return peerCriteria;
+	}
+	
+	/**
+	 * 按键并行查询，同时在途的查询数不超过条件的 fanOut，调用线程在达到上限时等待；任一键查询失败时整体失败
+	 */
+	protected <K> Map<K, String> fanOutQuery(QueryCriteria criteria, Collection<K> keys, Function<K, ResultSet> query) {
+		Semaphore permits = new Semaphore(Math.max(1, criteria.getFanOut()));
+		
+		Map<K, CompletableFuture<ResultSet>> futures = new LinkedHashMap<>();
+		for (K key : keys) {
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ChaincodeOperationException(e, "query many interrupted before key '%s'", key);
+			}
+			
+			CompletableFuture<ResultSet> future;
+			try {
+				future = queryAsync(criteria.getCriteria(), () -> query.apply(key));
+			} catch (RuntimeException e) {
+				permits.release();
+				throw e;
+			}
+			future.whenComplete((result, error) -> permits.release());
+			futures.put(key, future);
+		}
+		
+		Map<K, String> results = new LinkedHashMap<>();
+		futures.forEach((key, future) -> {
+			ResultSet result;
+			try {
+				result = future.join();
+			} catch (CompletionException e) {
+				Throwable cause = e.getCause() != null ? e.getCause() : e;
+				throw new ChaincodeOperationException(cause, "query many key '%s' failed: %s", key, cause.getMessage());
+			}
+			
+			if (result != null && !StringUtils.isBlank(result.getResult())) {
+				results.put(key, result.getResult());
+			}
+		});
+		return results;
+	}
+	
+	/**
+	 * 解析 chaincode 批量读取函数的结果：JSON 对象按键名取值，JSON 数组按键的顺序取值
+	 */
+	protected <K> Map<K, String> parseMultiGet(List<K> keys, String result) {
+		Map<K, String> results = new LinkedHashMap<>();
+		if (StringUtils.isBlank(result)) {
+			return results;
+		}
+		
+		JsonNode root;
+		try {
+			root = JSON_MAPPER.readTree(result);
+		} catch (IOException e) {
+			throw new ChaincodeOperationException(e, "multi get result is not a json document: %s", e.getMessage());
+		}
+		
+		if (!root.isArray() && !root.isObject()) {
+			throw new ChaincodeOperationException("multi get result must be a json object or array: %s", result);
+		}
+		
+		for (int i = 0; i < keys.size(); i++) {
+			JsonNode value = root.isArray() ? root.get(i) : root.get(String.valueOf(keys.get(i)));
+			if (value == null || value.isNull()) {
+				continue;
+			}
+			
+			String text = value.isTextual() ? value.asText() : value.toString();
+			if (!StringUtils.isBlank(text)) {
+				results.put(keys.get(i), text);
+			}
+		}
+		return results;
+	}
+	
+	/**
+	 * 分散查询：同时向所有查询目标发起查询，在整体截止时间内等待全部完成，
+	 * FAIL 策略下任一查询失败、FIRST_MATCH 模式下出现匹配结果时提前结束，未完成的查询被取消
+	 */
+	protected ScatterGatherResult gatherQuery(ScatterGatherCriteria criteria, Function<QueryCriteria, CompletableFuture<ResultSet>> query) {
+		long start = System.currentTimeMillis();
+		
+		List<QueryCriteria> targets = criteria.getTargets();
+		List<CompletableFuture<ResultSet>> futures = new ArrayList<>(targets.size());
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		AtomicInteger firstMatch = new AtomicInteger(-1);
+		
+		for (int i = 0; i < targets.size(); i++) {
+			final int index = i;
+			
+			CompletableFuture<ResultSet> future;
+			try {
+				future = query.apply(targets.get(i));
+			} catch (RuntimeException e) {
+				future = new CompletableFuture<>();
+				future.completeExceptionally(e);
+			}
+			
+			future.whenComplete((result, error) -> {
+				if (error != null && criteria.getPolicy() == PartialFailurePolicy.FAIL) {
+					done.complete(null);
+				} else if (error == null && criteria.getMode() == GatherMode.FIRST_MATCH && result != null && criteria.getMatcher().test(result.getResult())) {
+					firstMatch.compareAndSet(-1, index);
+					done.complete(null);
+				}
+			});
+			futures.add(future);
+		}
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).whenComplete((result, error) -> done.complete(null));
+		
+		boolean timeout = false;
+		try {
+			if (criteria.getDeadline() > 0) {
+				done.get(criteria.getDeadline(), TimeUnit.MILLISECONDS);
+			} else {
+				done.get();
+			}
+		} catch (TimeoutException e) {
+			timeout = true;
+			log.warn("scatter gather query exceeded deadline {}ms", criteria.getDeadline());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			futures.forEach(future -> future.cancel(true));
+			throw new ChaincodeOperationException(e, "scatter gather query interrupted");
+		} catch (ExecutionException e) {
+			throw new ChaincodeOperationException(e.getCause(), "scatter gather query failed: %s", e.getCause().getMessage());
+		}
+		
+		List<ScatterGatherResult.Item> items = new ArrayList<>(targets.size());
+		for (int i = 0; i < targets.size(); i++) {
+			items.add(gatherItem(i, targets.get(i).getCriteria(), futures.get(i), timeout, criteria.getDeadline()));
+		}
+		
+		return new ScatterGatherResult(criteria.getMode(), mergeGather(criteria, items, firstMatch.get()), items, System.currentTimeMillis() - start);
+	}
+	
+	private ScatterGatherResult.Item gatherItem(int index, Criteria target, CompletableFuture<ResultSet> future, boolean timeout, long deadline) {
+		if (!future.isDone()) {
+			future.cancel(true);
+			
+			Throwable error = timeout ? new TimeoutException(String.format("channel '%s' chaincode '%s' query exceeded deadline %sms", target.getChannel(), target.getName(), deadline)) : null;
+			return new ScatterGatherResult.Item(index, target, null, null, false, error);
+		}
+		
+		try {
+			ResultSet result = future.join();
+			return new ScatterGatherResult.Item(index, target, result == null ? null : result.getResult(), result == null ? null : result.getTransactionId(), true, null);
+		} catch (CompletionException | CancellationException e) {
+			Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+			
+			log.warn("scatter gather query channel '{}' chaincode '{}' failed: {}", target.getChannel(), target.getName(), cause.getMessage());
+			return new ScatterGatherResult.Item(index, target, null, null, false, cause);
+		}
+	}
+	
+	/**
+	 * 按部分失败策略检查查询结果，并按合并方式合并成功的查询结果；FIRST_MATCH 找到匹配结果时不再检查失败的查询
+	 */
+	private String mergeGather(ScatterGatherCriteria criteria, List<ScatterGatherResult.Item> items, int firstMatch) {
+		if (criteria.getMode() == GatherMode.FIRST_MATCH && firstMatch >= 0) {
+			return items.get(firstMatch).getResult();
+		}
+		
+		ScatterGatherResult.Item failed = items.stream().filter(item -> item.getError() != null).findFirst().orElse(null);
+		boolean anySuccess = items.stream().anyMatch(ScatterGatherResult.Item::isSuccess);
+		if (failed != null && (criteria.getPolicy() == PartialFailurePolicy.FAIL || !anySuccess)) {
+			throw new ChaincodeOperationException(failed.getError(), "scatter gather query channel '%s' chaincode '%s' failed: %s", failed.getCriteria().getChannel(), failed.getCriteria().getName(), failed.getError().getMessage());
+		}
+		
+		List<String> results = items.stream().filter(ScatterGatherResult.Item::isSuccess).map(ScatterGatherResult.Item::getResult).filter(StringUtils::isNotBlank).collect(Collectors.toList());
+		switch (criteria.getMode()) {
+			case REDUCE:
+				return results.stream().reduce(criteria.getReducer()).orElse(null);
+			case FIRST_MATCH:
+				return null;
+			case CONCAT:
+			default:
+				ArrayNode array = JSON_MAPPER.createArrayNode();
+				for (String result : results) {
+					try {
+						JsonNode node = JSON_MAPPER.readTree(result);
+						if (node.isArray()) {
+							array.addAll((ArrayNode) node);
+						} else {
+							array.add(node);
+						}
+					} catch (IOException e) {
+						array.add(result);
+					}
+				}
+				return array.toString();
+		}
+	}
+	
+	public boolean isCommitTracking() {
+		return commitTracking;
+	}
+
+	public void setCommitTracking(boolean commitTracking) {
+		this.commitTracking = commitTracking;
+	}
+	
+	@Override
+	public ChaincodeCommitTracker getCommitTracker(Criteria criteria) {
+		checkCriteria(criteria);
+		
+		return commitTrackers.computeIfAbsent(criteria.getChannel() + "_" + criteria.getOrg(), key -> {
+			ChaincodeCommitTracker tracker = new ChaincodeCommitTracker(criteria.getChannel());
+			
+			Channel channel = getChaincodeDeployOperations(criteria).getChannel();
+			try {
+				String handle = channel.registerBlockListener(tracker);
+				commitTrackerHandles.put(key, new BlockListenerHandle(channel, handle));
+			} catch (Exception e) {
+				throw new ChaincodeOperationException(e, "register commit tracker block listener on channel '%s' failed", criteria.getChannel());
+			}
+			return tracker;
+		});
+	}
+	
+	/**
+	 * 交易只等待排序节点确认，提交事件由通道共享的区块监听完成；不等待事件的交易选项设置在交易条件的副本上，不修改调用方的交易选项
+	 * @param criteria 交易条件
+	 * @param invoker 使用交易条件副本发送交易并返回交易ID的操作
+	 */
+	protected CompletableFuture<TransactionEvent> trackCommit(InvokeCriteria criteria, Function<InvokeCriteria, ResultSet> invoker) {
+		ChaincodeCommitTracker tracker = getCommitTracker(criteria.getCriteria());
+		
+		InvokeCriteria tracked = copyInvokeCriteria(applyCircuitBreakers(criteria));
+		tracked.getOptions().nOfEvents(NOfEvents.createNoEvents());
+		
+		return tracker.track(invoker.apply(tracked).getTransactionId());
+	}
+	
+	/**
+	 * 复制交易条件和交易选项，修改副本的交易选项不影响调用方的交易条件
+	 */
+	protected InvokeCriteria copyInvokeCriteria(InvokeCriteria criteria) {
+		InvokeCriteria copy = new InvokeCriteria(criteria.getCriteria());
+		BeanUtils.copyProperties(criteria, copy);
+		copy.setOptions(copyTransactionOptions(criteria.getOptions()));
+		
+		return copy;
+	}
+	
+	/**
+	 * TransactionOptions 没有读取方法，按字段复制
+	 */
+	protected TransactionOptions copyTransactionOptions(TransactionOptions options) {
+		TransactionOptions copy = TransactionOptions.createTransactionOptions();
+		if (options != null) {
+			ReflectionUtils.shallowCopyFieldState(options, copy);
+		}
+		return copy;
+	}
+	
+	protected <T> T awaitCommit(TransactionsOptions options, CompletableFuture<T> future) {
+		try {
+			if (options.getTransactionWaitTime() > 0) {
+				return future.get(options.getTransactionWaitTime(), TimeUnit.SECONDS);
+			}
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof ChaincodeOperationException) {
+				throw (ChaincodeOperationException) e.getCause();
+			}
+
+			throw new ChaincodeOperationException(e.getCause(), "transaction commit failed: %s", e.getCause().getMessage());
+		} catch (TimeoutException e) {
+			throw new ChaincodeOperationException(e, "transaction commit wait timeout: %ss", options.getTransactionWaitTime());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ChaincodeOperationException(e, "transaction commit wait interrupted");
+		}
+	}
+	
+	/**
+	 * 按交易提交等待模式在交易条件的副本上设置交易等待的事件，不修改调用方的交易选项：
+	 * ORDERER_ACK/FIRE_AND_FORGET 不等待事件，COMMITTED_ON_N_PEERS 等待 N 个事件节点；不需要设置时返回原交易条件
+	 */
+	protected InvokeCriteria applyCommitMode(InvokeCriteria criteria) {
+		NOfEvents nOfEvents = null;
+		if (criteria.getCommitMode() == CommitMode.ORDERER_ACK || criteria.getCommitMode() == CommitMode.FIRE_AND_FORGET) {
+			nOfEvents = NOfEvents.createNoEvents();
+		} else if (criteria.getCommitPeers() > 0) {
+			nOfEvents = createNOfEvents(criteria.getCriteria(), criteria.getCommitPeers());
+		}
+		
+		if (nOfEvents == null) {
+			return criteria;
+		}
+		
+		InvokeCriteria committed = copyInvokeCriteria(criteria);
+		committed.getOptions().nOfEvents(nOfEvents);
+		
+		return committed;
+	}
+	
+	/**
+	 * 只读交易只能通过 submit 跳过排序，invoke 系列操作总是把交易发送到排序节点，不接受 skipReadOnly 条件
+	 */
+	protected void checkSkipReadOnly(InvokeCriteria criteria, String operation) {
+		if (criteria.isSkipReadOnly()) {
+			throw new ChaincodeOperationException("skipReadOnly is only supported by submit, %s always sends the transaction to the orderer", operation);
+		}
+	}
+	
+	/**
+	 * 返回交易事件的操作需要等待区块提交，ORDERER_ACK/FIRE_AND_FORGET 模式不产生交易事件，只能使用 submit 或 invoke；
+	 * 通道共享的提交跟踪因此只用于 COMMITTED_ON_N_PEERS 模式
+	 */
+	protected void checkCommitEvent(InvokeCriteria criteria, String operation) {
+		if (criteria.getCommitMode() != CommitMode.COMMITTED_ON_N_PEERS) {
+			throw new ChaincodeOperationException("commit mode %s does not wait for the transaction event, %s is unsupported, use submit or invoke instead", criteria.getCommitMode(), operation);
+		}
+	}
+	
+	/**
+	 * 存在熔断的 peer 节点时，交易只发送到未熔断的背书节点：在交易条件的副本上指定节点，每次发送时重新计算，不修改调用方的交易条件；
+	 * 模板自己的背书(submit)在发送交易提议时过滤节点，不使用副本
+	 */
+	protected InvokeCriteria applyCircuitBreakers(InvokeCriteria criteria) {
+		if (this.circuitBreakers == null || !CollectionUtils.isEmpty(criteria.getSend2Peers())) {
+			return criteria;
+		}
+		
+		Collection<Peer> peers = getChaincodeDeployOperations(criteria.getCriteria()).getChannel().getPeers(EnumSet.of(PeerRole.ENDORSING_PEER));
+		Collection<Peer> available = filterPeers(criteria.getCriteria(), peers);
+		if (available.size() == peers.size()) {
+			return criteria;
+		}
+		
+		InvokeCriteria filtered = copyInvokeCriteria(criteria);
+		filtered.setSpecificPeers(true);
+		filtered.setSend2Peers(available);
+		
+		return filtered;
+	}
+	
+	private NOfEvents createNOfEvents(Criteria criteria, int n) {
+		Channel channel = getChaincodeDeployOperations(criteria).getChannel();
+		
+		Collection<Peer> peers = channel.getPeers(EnumSet.of(PeerRole.EVENT_SOURCE));
+		Collection<EventHub> eventHubs = channel.getEventHubs();
+		if (peers.size() + eventHubs.size() == 0) {
+			log.warn("channel '{}' has no event source, commit peers {} ignored", criteria.getChannel(), n);
+			return null;
+		}
+		
+		return NOfEvents.createNofEvents().addPeers(peers).addEventHubs(eventHubs).setN(Math.min(n, peers.size() + eventHubs.size()));
+	}
+	
+	/**
+	 * 背书后按交易提交等待模式发送交易：FIRE_AND_FORGET 背书成功即完成，其他模式在交易 Future 完成后完成；背书在调用线程进行
+	 * @param attempt 本次调用的第几次尝试
+	 */
+	protected CompletableFuture<InvokeResult> submitTransaction(Channel channel, InvokeCriteria criteria, int attempt, String func, Object... args) {
+		return submitTransaction(channel, criteria, attempt, skipReadOnly || criteria.isSkipReadOnly(), func, args);
+	}
+	
+	/**
+	 * @param skippable 背书写集为空时是否跳过排序，invoke 系列操作总是发送排序
+	 */
+	protected CompletableFuture<InvokeResult> submitTransaction(Channel channel, InvokeCriteria criteria, int attempt, boolean skippable, String func, Object... args) {
+		Collection<ProposalResponse> responses = endorse(channel, criteria, func, args);
+		ProposalResponse response = responses.iterator().next();
+		
+		if (skippable && isReadOnly(response)) {
+			readOnlySkipped.increment();
+			log.debug("transaction '{}' func '{}' has empty write set, ordering skipped", response.getTransactionID(), func);
+			
+			return CompletableFuture.completedFuture(new InvokeResult(response.getTransactionID(), getPayload(response), responses, criteria.getCommitMode(), CompletableFuture.completedFuture(null), false, attempt));
+		}
+		
+		CompletableFuture<TransactionEvent> future;
+		if (criteria.getCommitMode() == CommitMode.FIRE_AND_FORGET) {
+			future = CompletableFuture.supplyAsync(() -> sendTransaction(channel, criteria, responses), ORDERING_EXECUTOR).thenCompose(f -> f);
+			future.whenComplete((event, error) -> {
+				if (error != null) {
+					log.warn("fire and forget transaction '{}' failed: {}", response.getTransactionID(), error.getMessage());
+				}
+			});
+			
+			return CompletableFuture.completedFuture(new InvokeResult(response.getTransactionID(), getPayload(response), responses, criteria.getCommitMode(), future, true, attempt));
+		}
+		
+		future = sendTransaction(channel, criteria, responses);
+		InvokeResult result = new InvokeResult(response.getTransactionID(), getPayload(response), responses, criteria.getCommitMode(), future, true, attempt);
+		
+		return future.thenApply(event -> result);
+	}
+	
+	/**
+	 * 背书结果的公有数据和私有数据写集都为空时，交易为只读交易
+	 */
+	private boolean isReadOnly(ProposalResponse response) {
+		try {
+			ProposalResponsePayload payload = ProposalResponsePayload.parseFrom(response.getProposalResponse().getPayload());
+			ChaincodeAction action = ChaincodeAction.parseFrom(payload.getExtension());
+			TxReadWriteSet readWriteSet = TxReadWriteSet.parseFrom(action.getResults());
+			
+			for (NsReadWriteSet namespace : readWriteSet.getNsRwsetList()) {
+				KVRWSet rwset = KVRWSet.parseFrom(namespace.getRwset());
+				if (rwset.getWritesCount() > 0 || rwset.getMetadataWritesCount() > 0) {
+					return false;
+				}
+				
+				for (CollectionHashedReadWriteSet collection : namespace.getCollectionHashedRwsetList()) {
+					HashedRWSet hashed = HashedRWSet.parseFrom(collection.getHashedRwset());
+					if (hashed.getHashedWritesCount() > 0 || hashed.getMetadataWritesCount() > 0) {
+						return false;
+					}
+				}
+			}
+			return true;
+		} catch (InvalidProtocolBufferException e) {
+			log.warn("transaction '{}' read write set parse failed: {}", response.getTransactionID(), e.getMessage());
+			return false;
+		}
+	}
+	
+	@Override
+	public boolean isSkipReadOnly() {
+		return skipReadOnly;
+	}
+
+	public void setSkipReadOnly(boolean skipReadOnly) {
+		this.skipReadOnly = skipReadOnly;
+	}
+	
+	public long getReadOnlySkippedCount() {
+		return readOnlySkipped.sum();
+	}
+	
+	/**
+	 * 向背书节点发送交易提议，背书失败或背书结果不一致时抛出异常
+	 */
+	protected Collection<ProposalResponse> endorse(Channel channel, InvokeCriteria criteria, String func, Object... args) {
+		User user = criteria.getRequestUser() != null ? criteria.getRequestUser() : criteria.getClientUserContext();
+		if (user == null) {
+			user = getOrganization(criteria.getCriteria()).getPeerAdmin();
+		}
+		
+		TransactionProposalRequest request = TransactionProposalRequest.newInstance(user);
+		request.setChaincodeID(criteria.getChaincodeId());
+		request.setFcn(func);
+		request.setArgs(toArgs(args));
+		if (criteria.getChaincodeType() != null) {
+			request.setChaincodeLanguage(criteria.getChaincodeType());
+		}
+		if (criteria.getProposalWaitTime() > 0) {
+			request.setProposalWaitTime(criteria.getProposalWaitTime());
+		}
+		
+		try {
+			if (!CollectionUtils.isEmpty(criteria.getTransientData())) {
+				request.setTransientMap(criteria.getTransientData());
+			}
+		} catch (InvalidArgumentException e) {
+			throw new ChaincodeOperationException(e, "chaincode '%s' func '%s' endorsement failed: %s", criteria.getCriteria().getName(), func, e.getMessage());
+		}
+		
+		if (this.endorsementPlanner == null || !CollectionUtils.isEmpty(criteria.getSend2Peers())) {
+			return sendProposal(channel, criteria, request, func, criteria.getSend2Peers(), null);
+		}
+		
+		// 按背书策略只向满足策略的最少 peer 节点发送交易提议，背书失败时换一组节点
+		Collection<Peer> peers = filterPeers(criteria.getCriteria(), channel.getPeers(EnumSet.of(PeerRole.ENDORSING_PEER)));
+		Set<Peer> failedPeers = new HashSet<>();
+		ChaincodeOperationException error = null;
+		for (int attempt = 0; ; attempt++) {
+			Collection<Peer> planned = this.endorsementPlanner.plan(criteria.getCriteria(), getConfig(criteria.getCriteria()), peers, attempt, failedPeers);
+			if (planned == null) {
+				break;
+			}
+			
+			int excluded = failedPeers.size();
+			try {
+				return sendProposal(channel, criteria, request, func, planned, failedPeers);
+			} catch (ChaincodeOperationException e) {
+				// 没有新增失败节点说明 chaincode 返回了业务错误，换一组节点结果相同，立即失败
+				if (failedPeers.size() == excluded) {
+					throw e;
+				}
+				
+				log.warn("chaincode '{}' func '{}' endorsement on peers {} failed: {}", criteria.getCriteria().getName(), func, planned, e.getMessage());
+				error = e;
+			}
+		}
+		
+		if (error != null) {
+			throw error;
+		}
+		return sendProposal(channel, criteria, request, func, peers, null);
+	}
+	
+	/**
+	 * 向指定的 peer 节点发送交易提议，peers 为空时发送到所有背书节点；
+	 * 没有响应或响应验签失败的节点记入 failedPeers，chaincode 返回业务错误时不记入，由调用方直接失败
+	 */
+	private Collection<ProposalResponse> sendProposal(Channel channel, InvokeCriteria criteria, TransactionProposalRequest request, String func, Collection<Peer> peers, Set<Peer> failedPeers) {
+		Collection<ProposalResponse> responses;
+		try {
+			if (this.circuitBreakers != null) {
+				Collection<Peer> targets = CollectionUtils.isEmpty(peers) ? channel.getPeers(EnumSet.of(PeerRole.ENDORSING_PEER)) : peers;
+				responses = channel.sendTransactionProposal(request, filterPeers(criteria.getCriteria(), targets));
+				
+				// 节点有响应即视为可用，chaincode 返回的业务错误不计入熔断
+				responses.forEach(response -> {
+					if (response.getProposalResponse() != null) {
+						this.circuitBreakers.onSuccess(response.getPeer().getName());
+					} else {
+						this.circuitBreakers.onFailure(response.getPeer().getName());
+					}
+				});
+			} else if (CollectionUtils.isEmpty(peers)) {
+				responses = channel.sendTransactionProposal(request);
+			} else {
+				responses = channel.sendTransactionProposal(request, peers);
+			}
+		} catch (InvalidArgumentException | ProposalException e) {
+			if (failedPeers != null && peers != null) {
+				failedPeers.addAll(peers);
+			}
+			throw new ChaincodeOperationException(e, "chaincode '%s' func '%s' endorsement failed: %s", criteria.getCriteria().getName(), func, e.getMessage());
+		}
+		
+		if (CollectionUtils.isEmpty(responses)) {
+			throw new ChaincodeOperationException("chaincode '%s' func '%s' endorsement has no response", criteria.getCriteria().getName(), func);
+		}
+		
+		if (this.endorsementPlanner != null) {
+			this.endorsementPlanner.learn(responses);
+		}
+		
+		List<ProposalResponse> failed = responses.stream().filter(response -> response.getStatus() != ChaincodeResponse.Status.SUCCESS || !response.isVerified()).collect(Collectors.toList());
+		if (!failed.isEmpty()) {
+			// 节点有响应而状态失败，是 chaincode 拒绝了交易；SDK 只对成功的响应验签
+			boolean rejected = failed.stream().anyMatch(response -> response.getProposalResponse() != null && response.getStatus() != ChaincodeResponse.Status.SUCCESS);
+			if (failedPeers != null && !rejected) {
+				failed.forEach(response -> failedPeers.add(response.getPeer()));
+			}
+			
+			ProposalResponse response = failed.get(0);
+			throw new ChaincodeOperationException("chaincode '%s' func '%s' endorsement failed on %s of %s peers, peer '%s': %s", criteria.getCriteria().getName(), func, failed.size(), responses.size(), response.getPeer().getName(), response.getMessage());
+		}
+		
+		try {
+			if (SDKUtils.getProposalConsistencySets(responses).size() != 1) {
+				throw new ChaincodeOperationException("chaincode '%s' func '%s' endorsement responses are inconsistent", criteria.getCriteria().getName(), func);
+			}
+		} catch (InvalidArgumentException e) {
+			throw new ChaincodeOperationException(e, "chaincode '%s' func '%s' endorsement consistency check failed", criteria.getCriteria().getName(), func);
+		}
+		
+		return responses;
+	}
+	
+	/**
+	 * 将背书结果发送到排序节点，交易选项在副本上设置，不修改调用方的交易选项
+	 */
+	protected CompletableFuture<TransactionEvent> sendTransaction(Channel channel, InvokeCriteria criteria, Collection<ProposalResponse> responses) {
+		TransactionOptions options = copyTransactionOptions(criteria.getOptions());
+		if (!CollectionUtils.isEmpty(criteria.getOrderers())) {
+			options.orderers(criteria.getOrderers());
+		}
+		if (criteria.getTransactionsUser() != null) {
+			options.userContext(criteria.getTransactionsUser());
+		}
+		
+		if (this.circuitBreakers == null || !CollectionUtils.isEmpty(criteria.getOrderers())) {
+			return channel.sendTransaction(responses, options);
+		}
+		
+		// 未熔断的排序节点随机打散，熔断器关闭的节点优先，半开待试探的节点在后
+		List<Orderer> orderers = this.circuitBreakers.filter(channel.getOrderers(), Orderer::getName);
+		if (orderers.isEmpty()) {
+			return channel.sendTransaction(responses, options);
+		}
+		Collections.shuffle(orderers);
+		orderers.sort(Comparator.comparing(orderer -> this.circuitBreakers.getState(orderer.getName()) != CircuitState.CLOSED));
+		
+		return sendTransaction(channel, responses, options, orderers, 0);
+	}
+	
+	/**
+	 * 按顺序每次只向一个排序节点发送交易，以便把排序结果记录到该节点的熔断器；排序节点不可用时换下一个节点
+	 */
+	private CompletableFuture<TransactionEvent> sendTransaction(Channel channel, Collection<ProposalResponse> responses, TransactionOptions options, List<Orderer> orderers, int index) {
+		Orderer orderer = orderers.get(index);
+		boolean last = index == orderers.size() - 1;
+		
+		// 试探请求已被其他交易占用时换下一个节点，最后一个节点仍然发送
+		if (!this.circuitBreakers.allowRequest(orderer.getName()) && !last) {
+			return sendTransaction(channel, responses, options, orderers, index + 1);
+		}
+		
+		CompletableFuture<TransactionEvent> future = new CompletableFuture<>();
+		try {
+			future = channel.sendTransaction(responses, copyTransactionOptions(options).orderers(orderer));
+		} catch (RuntimeException e) {
+			future.completeExceptionally(e);
+		}
+		
+		CompletableFuture<TransactionEvent> sent = future;
+		return sent.handle((event, error) -> {
+			Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+			
+			// 排序节点已接收交易：交易提交成功，或者交易事件返回验证失败；其他异常(包括发送时同步抛出的异常)视为排序节点失败
+			if (error == null || cause instanceof TransactionEventException) {
+				this.circuitBreakers.onSuccess(orderer.getName());
+				return sent;
+			}
+			
+			this.circuitBreakers.onFailure(orderer.getName());
+			if (last) {
+				return sent;
+			}
+			
+			log.warn("orderer '{}' failed: {}, try next orderer", orderer.getName(), cause.getMessage());
+			return sendTransaction(channel, responses, options, orderers, index + 1);
+		}).thenCompose(result -> result);
+	}
+	
+	private String getPayload(ProposalResponse response) {
+		try {
+			byte[] payload = response.getChaincodeActionResponsePayload();
+			
+			return payload == null ? null : new String(payload, StandardCharsets.UTF_8);
+		} catch (InvalidArgumentException e) {
+			throw new ChaincodeOperationException(e, "read chaincode response payload failed: %s", e.getMessage());
+		}
+	}
+	
+	private String[] toArgs(Object... args) {
+		if (args == null) {
+			return new String[0];
+		}
+		
+		String[] values = new String[args.length];
+		for (int i = 0; i < args.length; i++) {
+			values[i] = Objects.toString(args[i], "");
+		}
+		return values;
+	}
+	
 	public FabricConfiguration getConfig(Criteria criteria) {
 		return this.getChaincodeDeployOperations(criteria).getConfig();
 	}
@@ -154,4 +1283,18 @@ public abstract class AbstractChaincodeTemplate implements ChaincodeOperations,
 			//System.out.println("criteria --> " + criteria);
 		}
 	}
+	
+	/**
+	 * 通道区块监听的注册句柄
+	 */
+	private static final class BlockListenerHandle {
+		
+		private final Channel channel;
+		private final String handle;
+		
+		private BlockListenerHandle(Channel channel, String handle) {
+			this.channel = channel;
+			this.handle = handle;
+		}
+	}
 }
@@ -0,0 +1,142 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+
+import com.google.common.base.Ticker;
+
+/**
+ * AIMD 自适应并发限制：耗时稳定且窗口被充分使用时加 1，背书或提交耗时超过各自基线的容忍倍数、或交易超时时按比例缩小
+ * <p>背书和提交分别维护基线，同步交易的整笔耗时单独维护基线，基线取最近一个采样周期内的最小耗时，每个周期结束后重新计算，网络整体变慢时基线随之抬升；
+ * 缩小后，在缩小之前发起的交易不会再次触发缩小，即每个往返周期最多缩小一次</p>
+ * @changelog additive-increase / multiplicative-decrease limit driven by endorsement and commit latency against rolling min-rtt baselines, decreasing at most once per round trip
+ * @author hoojo
+ * @createDate 2019年1月14日 上午10:36:52
+ * @file AimdConcurrencyLimit.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class AimdConcurrencyLimit implements ChaincodeConcurrencyLimit {
+
+	/** 最小并发数 */
+	private final int minLimit;
+	/** 最大并发数 */
+	private final int maxLimit;
+	/** 缩小比例 */
+	private final double backoffRatio;
+	/** 耗时超过基线的倍数视为拥塞 */
+	private final double tolerance;
+	/** 基线采样周期(样本数) */
+	private final int window;
+	
+	private final Ticker ticker;
+	
+	/** guarded by this */
+	private int limit;
+	/** guarded by this */
+	private final Baseline endorse = new Baseline();
+	/** guarded by this */
+	private final Baseline commit = new Baseline();
+	/** 同步交易的整笔耗时，guarded by this */
+	private final Baseline sync = new Baseline();
+	/** 最近一次缩小的时间(纳秒)，guarded by this */
+	private long lastDecrease = Long.MIN_VALUE;
+	
+	public AimdConcurrencyLimit() {
+		this(8, 1, 512, 0.9, 2.0, 100);
+	}
+	
+	public AimdConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, double tolerance, int window) {
+		this(initialLimit, minLimit, maxLimit, backoffRatio, tolerance, window, Ticker.systemTicker());
+	}
+	
+	public AimdConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, double tolerance, int window, Ticker ticker) {
+		Assert.isTrue(minLimit > 0 && minLimit <= initialLimit && initialLimit <= maxLimit, "limit must be minLimit <= initialLimit <= maxLimit!");
+		Assert.isTrue(backoffRatio > 0 && backoffRatio < 1, "backoffRatio must be between 0 and 1!");
+		Assert.isTrue(tolerance >= 1, "tolerance must be greater than or equal to 1!");
+		Assert.isTrue(window > 0, "window must be greater than 0!");
+		Assert.notNull(ticker, "ticker must not be null!");
+		
+		this.limit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.backoffRatio = backoffRatio;
+		this.tolerance = tolerance;
+		this.window = window;
+		this.ticker = ticker;
+	}
+	
+	@Override
+	public synchronized int getLimit() {
+		return limit;
+	}
+
+	@Override
+	public synchronized void onSample(long endorseRtt, long commitRtt, int inFlight, boolean dropped) {
+		boolean congested = endorse.sample(endorseRtt);
+		if (commitRtt > 0) {
+			congested |= commit.sample(commitRtt);
+		}
+		
+		adjust(endorseRtt + commitRtt, inFlight, dropped || congested);
+	}
+	
+	@Override
+	public synchronized void onSyncSample(long rtt, int inFlight, boolean dropped) {
+		boolean congested = sync.sample(rtt);
+		
+		adjust(rtt, inFlight, dropped || congested);
+	}
+	
+	private void adjust(long rtt, int inFlight, boolean congested) {
+		long now = ticker.read();
+		if (congested) {
+			// 上次缩小之前发起的交易反映的是缩小之前的窗口，不再重复缩小
+			if (now - rtt >= lastDecrease) {
+				limit = Math.max(minLimit, (int) (limit * backoffRatio));
+				lastDecrease = now;
+			}
+		} else if (inFlight * 2 >= limit) {
+			limit = Math.min(maxLimit, limit + 1);
+		}
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return String.format("AimdConcurrencyLimit(limit=%d, min=%d, max=%d, endorseBaseline=%dms, commitBaseline=%dms, syncBaseline=%dms)", limit, minLimit, maxLimit, endorse.toMillis(), commit.toMillis(), sync.toMillis());
+	}
+	
+	/**
+	 * 单个阶段的耗时基线
+	 */
+	private final class Baseline {
+		
+		private long baseline = Long.MAX_VALUE;
+		private long windowMin = Long.MAX_VALUE;
+		private int samples;
+		
+		/**
+		 * 记录耗时样本，返回耗时是否超过基线的容忍倍数
+		 */
+		boolean sample(long rtt) {
+			windowMin = Math.min(windowMin, rtt);
+			if (++samples >= window) {
+				baseline = windowMin;
+				windowMin = Long.MAX_VALUE;
+				samples = 0;
+			} else if (baseline == Long.MAX_VALUE) {
+				baseline = windowMin;
+			}
+			
+			return rtt > baseline * tolerance;
+		}
+		
+		long toMillis() {
+			return baseline == Long.MAX_VALUE ? -1 : TimeUnit.NANOSECONDS.toMillis(baseline);
+		}
+	}
+}
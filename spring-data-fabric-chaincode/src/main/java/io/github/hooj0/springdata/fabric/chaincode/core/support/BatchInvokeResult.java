@@ -0,0 +1,70 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import io.github.hooj0.springdata.fabric.chaincode.core.query.InvocationSpec;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * chaincode batch invoke aggregated result, item order follows the submitted invocations
+ * @author hoojo
+ * @createDate 2019年1月8日 上午9:51:27
+ * @file BatchInvokeResult.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Getter
+@ToString
+public final class BatchInvokeResult {
+
+	/** 每笔交易结果，顺序与提交顺序一致 */
+	private final List<Item> items;
+	/** 成功交易数 */
+	private final int succeeded;
+	/** 失败交易数 */
+	private final int failed;
+	/** 批量交易耗时(毫秒) */
+	private final long elapsed;
+	
+	BatchInvokeResult(List<Item> items, long elapsed) {
+		this.items = Collections.unmodifiableList(items);
+		this.succeeded = (int) items.stream().filter(Item::isSuccess).count();
+		this.failed = items.size() - succeeded;
+		this.elapsed = elapsed;
+	}
+	
+	public boolean isAllSuccess() {
+		return failed == 0;
+	}
+	
+	public List<Item> getFailedItems() {
+		return items.stream().filter(item -> !item.isSuccess()).collect(Collectors.toList());
+	}
+	
+	@Getter
+	@ToString
+	@AllArgsConstructor(access = AccessLevel.PACKAGE)
+	public static final class Item {
+		
+		/** 交易在批次中的序号 */
+		private final int index;
+		/** 交易调用参数 */
+		private final InvocationSpec invocation;
+		/** 交易ID */
+		private final String transactionId;
+		/** 交易是否成功提交并通过验证 */
+		private final boolean success;
+		/** 交易失败异常 */
+		private final Throwable error;
+		/** 交易尝试次数，包含第一次提交 */
+		private final int attempts;
+	}
+}
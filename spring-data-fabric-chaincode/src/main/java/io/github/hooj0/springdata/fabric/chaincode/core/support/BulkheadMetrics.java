@@ -0,0 +1,48 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import io.github.hooj0.springdata.fabric.chaincode.enums.BulkheadType;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * bulkhead executor metrics snapshot
+ * @author hoojo
+ * @createDate 2019年1月16日 上午10:40:03
+ * @file BulkheadMetrics.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class BulkheadMetrics {
+
+	/** 隔离舱名称：channel_chaincode_type */
+	private final String key;
+	/** 隔离舱类型 */
+	private final BulkheadType type;
+	/** 最大并发线程数 */
+	private final int maxConcurrent;
+	/** 排队队列容量 */
+	private final int queueCapacity;
+	/** 当前执行中的操作数 */
+	private final int active;
+	/** 当前排队的操作数 */
+	private final int queued;
+	/** 已完成操作数 */
+	private final long completed;
+	/** 队列满载被拒绝的操作数 */
+	private final long rejected;
+	
+	/**
+	 * 饱和度，(执行中 + 排队) / (最大并发 + 队列容量)，达到 1 时新的操作会被拒绝
+	 */
+	public double getSaturation() {
+		return (double) (active + queued) / (maxConcurrent + queueCapacity);
+	}
+}
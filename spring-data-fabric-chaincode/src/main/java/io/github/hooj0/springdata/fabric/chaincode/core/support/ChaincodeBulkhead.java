@@ -0,0 +1,144 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.util.Assert;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
+import io.github.hooj0.springdata.fabric.chaincode.enums.BulkheadType;
+
+/**
+ * 操作隔离舱，使用独立大小的线程池和有界队列执行一类操作，队列满载时立即拒绝
+ * @changelog bulkhead, a separately sized executor with a bounded queue for one kind of operation
+ * @author hoojo
+ * @createDate 2019年1月16日 上午10:25:51
+ * @file ChaincodeBulkhead.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodeBulkhead {
+
+	private final String key;
+	private final BulkheadType type;
+	private final int queueCapacity;
+	private final ThreadPoolExecutor executor;
+	
+	private final LongAdder rejected = new LongAdder();
+	
+	public ChaincodeBulkhead(String key, BulkheadType type, int maxConcurrent, int queueCapacity) {
+		Assert.hasText(key, "bulkhead key must not be empty!");
+		Assert.notNull(type, "BulkheadType must not be null!");
+		Assert.isTrue(maxConcurrent > 0, "maxConcurrent must be greater than 0!");
+		Assert.isTrue(queueCapacity > 0, "queueCapacity must be greater than 0!");
+		
+		this.key = key;
+		this.type = type;
+		this.queueCapacity = queueCapacity;
+		this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), 
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("chaincode-" + type.name().toLowerCase() + "-" + key.replace("%", "%%") + "-%d").build());
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+	
+	/**
+	 * 在隔离舱线程中执行操作，调用线程等待结果
+	 */
+	public <T> T execute(Supplier<T> action) {
+		CompletableFuture<T> future = submit(action);
+		
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new ChaincodeOperationException(e.getCause(), "bulkhead '%s' operation failed: %s", key, e.getCause().getMessage());
+		} catch (CancellationException e) {
+			throw new ChaincodeOperationException(e, "bulkhead '%s' operation cancelled", key);
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new ChaincodeOperationException(e, "bulkhead '%s' operation interrupted", key);
+		}
+	}
+	
+	/**
+	 * 在隔离舱线程中执行操作，隔离舱饱和时抛出异常
+	 */
+	public <T> CompletableFuture<T> submit(Supplier<T> action) {
+		try {
+			return supplyAsync(action, executor);
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+			throw new ChaincodeOperationException(e, "bulkhead '%s' is saturated, active: %s, queued: %s", key, executor.getActiveCount(), executor.getQueue().size());
+		}
+	}
+	
+	/**
+	 * 在隔离舱线程中发起异步操作，隔离舱饱和时返回异常结束的 Future
+	 */
+	public <T> CompletableFuture<T> submitAsync(Supplier<CompletableFuture<T>> action) {
+		try {
+			CompletableFuture<CompletableFuture<T>> submitted = submit(action);
+			CompletableFuture<T> result = submitted.thenCompose(future -> future);
+			
+			// thenCompose 返回的 Future 被取消时不会传递给上游，需要手动取消隔离舱任务和它发起的异步操作
+			result.whenComplete((value, e) -> {
+				if (result.isCancelled()) {
+					submitted.cancel(true);
+					submitted.thenAccept(future -> future.cancel(true));
+				}
+			});
+			return result;
+		} catch (ChaincodeOperationException e) {
+			CompletableFuture<T> future = new CompletableFuture<>();
+			future.completeExceptionally(e);
+			
+			return future;
+		}
+	}
+	
+	/**
+	 * 在线程池中异步执行操作，与 CompletableFuture.supplyAsync 不同，取消返回的 Future 时会中断正在执行的任务
+	 */
+	static <T> CompletableFuture<T> supplyAsync(Supplier<T> action, ExecutorService executor) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		
+		Future<?> task = executor.submit(() -> {
+			try {
+				future.complete(action.get());
+			} catch (Throwable e) {
+				future.completeExceptionally(e instanceof CompletionException ? e : new CompletionException(e));
+			}
+		});
+		future.whenComplete((value, e) -> {
+			if (future.isCancelled()) {
+				task.cancel(true);
+			}
+		});
+		return future;
+	}
+	
+	public BulkheadMetrics getMetrics() {
+		return new BulkheadMetrics(key, type, executor.getMaximumPoolSize(), queueCapacity, executor.getActiveCount(), executor.getQueue().size(), executor.getCompletedTaskCount(), rejected.sum());
+	}
+	
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
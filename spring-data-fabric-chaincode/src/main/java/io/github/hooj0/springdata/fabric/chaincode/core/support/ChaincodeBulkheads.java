@@ -0,0 +1,77 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.util.Assert;
+
+import com.google.common.collect.Maps;
+
+import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria;
+import io.github.hooj0.springdata.fabric.chaincode.enums.BulkheadType;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 按 channel/chaincode 和操作类型划分的隔离舱，查询、交易和部署操作互不占用线程
+ * <p>可以通过 {@link #configure(Criteria, BulkheadType, int, int)} 为每个 repository 的 criteria 单独设置大小</p>
+ * @changelog query/invoke/deploy bulkheads per channel/chaincode criteria
+ * @author hoojo
+ * @createDate 2019年1月16日 上午11:03:27
+ * @file ChaincodeBulkheads.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Slf4j
+public class ChaincodeBulkheads {
+
+	private final Map<String, ChaincodeBulkhead> bulkheads = Maps.newConcurrentMap();
+	
+	/**
+	 * 为指定 channel/chaincode 单独配置隔离舱，需要在该隔离舱第一次执行操作之前调用
+	 * @param criteria channel/chaincode 条件
+	 * @param type 隔离舱类型
+	 * @param maxConcurrent 最大并发线程数
+	 * @param queueCapacity 排队队列容量
+	 */
+	public void configure(Criteria criteria, BulkheadType type, int maxConcurrent, int queueCapacity) {
+		String key = getKey(criteria);
+		
+		ChaincodeBulkhead bulkhead = new ChaincodeBulkhead(key, type, maxConcurrent, queueCapacity);
+		if (bulkheads.putIfAbsent(key + "_" + type, bulkhead) != null) {
+			bulkhead.shutdown();
+			log.warn("bulkhead '{}' {} is already in use, configuration ignored.", key, type);
+		}
+	}
+	
+	public ChaincodeBulkhead get(Criteria criteria, BulkheadType type) {
+		Assert.notNull(type, "BulkheadType must not be null!");
+		
+		String key = getKey(criteria);
+		return bulkheads.computeIfAbsent(key + "_" + type, k -> new ChaincodeBulkhead(key, type, type.getMaxConcurrent(), type.getQueueCapacity()));
+	}
+	
+	public BulkheadMetrics getMetrics(Criteria criteria, BulkheadType type) {
+		ChaincodeBulkhead bulkhead = bulkheads.get(getKey(criteria) + "_" + type);
+		
+		return bulkhead == null ? null : bulkhead.getMetrics();
+	}
+	
+	public Collection<BulkheadMetrics> getMetrics() {
+		return bulkheads.values().stream().map(ChaincodeBulkhead::getMetrics).collect(Collectors.toList());
+	}
+	
+	public void shutdown() {
+		bulkheads.values().forEach(ChaincodeBulkhead::shutdown);
+	}
+	
+	private String getKey(Criteria criteria) {
+		Assert.notNull(criteria, "Criteria is not null!");
+		Assert.hasText(criteria.getChannel(), "Criteria.channel property is null!");
+		
+		return criteria.getChannel() + "_" + criteria.getName();
+	}
+}
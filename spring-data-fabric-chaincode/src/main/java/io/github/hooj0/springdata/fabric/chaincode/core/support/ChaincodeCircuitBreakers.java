@@ -0,0 +1,308 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.util.Assert;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.github.hooj0.springdata.fabric.chaincode.enums.CircuitState;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * peer/orderer 节点熔断器，节点连续失败或超时达到阈值后打开熔断器，请求立即绕开该节点；
+ * 打开一段时间后进入半开状态，有后台探测的节点由探测结果决定关闭或重新打开，没有探测的节点放行一个试探请求
+ * @changelog per peer/orderer circuit breakers with background half-open probing
+ * @author hoojo
+ * @createDate 2019年1月23日 上午10:12:36
+ * @file ChaincodeCircuitBreakers.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Slf4j
+public class ChaincodeCircuitBreakers {
+
+	public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+	public static final long DEFAULT_OPEN_DURATION = 10_000;
+	public static final long DEFAULT_PROBE_INTERVAL = 2_000;
+	
+	/** 打开熔断器的连续失败次数 */
+	private final int failureThreshold;
+	/** 熔断器打开后进入半开状态的时间(毫秒) */
+	private final long openDuration;
+	
+	private final Map<String, CircuitBreaker> breakers = Maps.newConcurrentMap();
+	private final ScheduledExecutorService prober;
+	
+	public ChaincodeCircuitBreakers() {
+		this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION, DEFAULT_PROBE_INTERVAL);
+	}
+	
+	/**
+	 * @param failureThreshold 打开熔断器的连续失败次数
+	 * @param openDuration 熔断器打开后进入半开状态的时间(毫秒)
+	 * @param probeInterval 后台探测检查间隔(毫秒)
+	 */
+	public ChaincodeCircuitBreakers(int failureThreshold, long openDuration, long probeInterval) {
+		Assert.isTrue(failureThreshold > 0, "failureThreshold must be greater than 0!");
+		Assert.isTrue(openDuration > 0, "openDuration must be greater than 0!");
+		Assert.isTrue(probeInterval > 0, "probeInterval must be greater than 0!");
+		
+		this.failureThreshold = failureThreshold;
+		this.openDuration = openDuration;
+		
+		this.prober = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("chaincode-circuit-prober").build());
+		this.prober.scheduleWithFixedDelay(this::probe, probeInterval, probeInterval, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * 注册节点的后台探测，探测在熔断器打开 openDuration 后执行，返回 true 或正常结束表示节点恢复
+	 */
+	public void register(String name, BooleanSupplier probe) {
+		getBreaker(name).probe = probe;
+	}
+	
+	public boolean isRegistered(String name) {
+		CircuitBreaker breaker = breakers.get(name);
+		
+		return breaker != null && breaker.probe != null;
+	}
+	
+	/**
+	 * 节点当前是否可用，不改变熔断器状态：关闭状态，或者没有后台探测且打开时间已结束(可以放行一个试探请求)
+	 */
+	public boolean isAvailable(String name) {
+		CircuitBreaker breaker = breakers.get(name);
+		
+		return breaker == null || breaker.isAvailable();
+	}
+	
+	/**
+	 * 确定向节点发送请求时调用，熔断器打开时请求被绕开；打开时间结束后占用该节点唯一的试探请求
+	 */
+	public boolean allowRequest(String name) {
+		return getBreaker(name).allowRequest();
+	}
+	
+	/**
+	 * 过滤掉熔断器打开的节点，不占用试探请求；所有节点都被熔断时返回全部节点，由请求自身的失败决定结果
+	 */
+	public <T> List<T> filter(Collection<T> nodes, Function<T, String> naming) {
+		List<T> available = nodes.stream().filter(node -> {
+			CircuitBreaker breaker = getBreaker(naming.apply(node));
+			if (breaker.isAvailable()) {
+				return true;
+			}
+			
+			breaker.rejected.increment();
+			return false;
+		}).collect(Collectors.toList());
+		if (available.isEmpty() && !nodes.isEmpty()) {
+			log.warn("all circuit breakers of {} are open", nodes.stream().map(naming).collect(Collectors.toList()));
+			return nodes.stream().collect(Collectors.toList());
+		}
+		
+		return available;
+	}
+	
+	public void onSuccess(String name) {
+		getBreaker(name).onSuccess();
+	}
+	
+	public void onFailure(String name) {
+		getBreaker(name).onFailure();
+	}
+	
+	/**
+	 * 向节点执行请求，并记录成功失败，超时等运行时异常都计为失败
+	 */
+	public <T> T execute(String name, Supplier<T> action) {
+		return execute(name, action, e -> true);
+	}
+	
+	/**
+	 * 向节点执行请求，并记录成功失败
+	 * @param failure 异常是否由节点不可用引起，节点有响应的业务错误不计入失败
+	 */
+	public <T> T execute(String name, Supplier<T> action, Predicate<RuntimeException> failure) {
+		CircuitBreaker breaker = getBreaker(name);
+		try {
+			T result = action.get();
+			breaker.onSuccess();
+			
+			return result;
+		} catch (RuntimeException e) {
+			// 对冲查询取消的请求不计入失败
+			if (Thread.currentThread().isInterrupted()) {
+				throw e;
+			}
+			
+			if (failure.test(e)) {
+				breaker.onFailure();
+			} else {
+				breaker.onSuccess();
+			}
+			throw e;
+		}
+	}
+	
+	public CircuitState getState(String name) {
+		CircuitBreaker breaker = breakers.get(name);
+		
+		return breaker == null ? CircuitState.CLOSED : breaker.getState();
+	}
+	
+	public CircuitBreakerMetrics getMetrics(String name) {
+		CircuitBreaker breaker = breakers.get(name);
+		
+		return breaker == null ? null : breaker.getMetrics();
+	}
+	
+	public Collection<CircuitBreakerMetrics> getMetrics() {
+		return breakers.values().stream().map(CircuitBreaker::getMetrics).collect(Collectors.toList());
+	}
+	
+	public void shutdown() {
+		prober.shutdown();
+	}
+	
+	private CircuitBreaker getBreaker(String name) {
+		Assert.hasText(name, "circuit breaker name must not be empty!");
+		
+		return breakers.computeIfAbsent(name, CircuitBreaker::new);
+	}
+	
+	private void probe() {
+		breakers.values().stream().filter(CircuitBreaker::isProbeDue).forEach(breaker -> {
+			boolean healthy;
+			try {
+				healthy = breaker.probe.getAsBoolean();
+			} catch (Exception e) {
+				log.debug("circuit breaker '{}' probe failed: {}", breaker.name, e.getMessage());
+				healthy = false;
+			}
+			
+			breaker.onProbe(healthy);
+		});
+	}
+	
+	/**
+	 * 单个节点的熔断器
+	 */
+	private class CircuitBreaker {
+		
+		private final String name;
+		private volatile BooleanSupplier probe;
+		
+		/** guarded by this */
+		private CircuitState state = CircuitState.CLOSED;
+		/** guarded by this */
+		private int consecutiveFailures;
+		/** guarded by this */
+		private long openedAt;
+		
+		private final LongAdder successes = new LongAdder();
+		private final LongAdder failures = new LongAdder();
+		private final LongAdder rejected = new LongAdder();
+		private final LongAdder opened = new LongAdder();
+		
+		CircuitBreaker(String name) {
+			this.name = name;
+		}
+		
+		synchronized boolean isAvailable() {
+			return state == CircuitState.CLOSED || (probe == null && isElapsed());
+		}
+		
+		synchronized boolean allowRequest() {
+			switch (state) {
+				case CLOSED:
+					return true;
+				case OPEN:
+				case HALF_OPEN:
+				default:
+					// 没有后台探测的节点，打开时间结束后放行一个试探请求，试探请求长时间没有结果时再放行下一个
+					if (probe == null && isElapsed()) {
+						state = CircuitState.HALF_OPEN;
+						openedAt = System.currentTimeMillis();
+						return true;
+					}
+					break;
+			}
+			
+			rejected.increment();
+			return false;
+		}
+		
+		synchronized void onSuccess() {
+			successes.increment();
+			
+			consecutiveFailures = 0;
+			if (state != CircuitState.CLOSED) {
+				log.info("circuit breaker '{}' closed", name);
+				state = CircuitState.CLOSED;
+			}
+		}
+		
+		synchronized void onFailure() {
+			failures.increment();
+			
+			consecutiveFailures++;
+			if (state == CircuitState.HALF_OPEN || (state == CircuitState.CLOSED && consecutiveFailures >= failureThreshold)) {
+				open();
+			}
+		}
+		
+		synchronized boolean isProbeDue() {
+			if (probe == null || state != CircuitState.OPEN || !isElapsed()) {
+				return false;
+			}
+			
+			state = CircuitState.HALF_OPEN;
+			return true;
+		}
+		
+		synchronized void onProbe(boolean healthy) {
+			if (healthy) {
+				onSuccess();
+			} else if (state == CircuitState.HALF_OPEN) {
+				open();
+			}
+		}
+		
+		private void open() {
+			log.warn("circuit breaker '{}' opened after {} consecutive failures", name, consecutiveFailures);
+			
+			opened.increment();
+			state = CircuitState.OPEN;
+			openedAt = System.currentTimeMillis();
+		}
+		
+		private boolean isElapsed() {
+			return System.currentTimeMillis() - openedAt >= openDuration;
+		}
+		
+		synchronized CircuitState getState() {
+			return state;
+		}
+		
+		synchronized CircuitBreakerMetrics getMetrics() {
+			return new CircuitBreakerMetrics(name, state, consecutiveFailures, probe != null, successes.sum(), failures.sum(), rejected.sum(), opened.sum());
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.hyperledger.fabric.sdk.BlockEvent;
+import org.hyperledger.fabric.sdk.BlockEvent.TransactionEvent;
+import org.hyperledger.fabric.sdk.BlockListener;
+import org.hyperledger.fabric.sdk.exception.TransactionEventException;
+import org.springframework.util.Assert;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 通道级交易提交跟踪器，一个通道只注册一个区块监听，按交易ID一次性完成区块内所有等待中的交易
+ * @changelog shared per-channel block listener completing pending transaction futures by txId in one pass per block
+ * @author hoojo
+ * @createDate 2019年1月9日 下午2:48:05
+ * @file ChaincodeCommitTracker.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Slf4j
+public class ChaincodeCommitTracker implements BlockListener {
+
+	/** 最近已提交交易保留数量，用于处理区块事件先于交易登记到达的情况 */
+	public static final int DEFAULT_RECENT_CAPACITY = 10_000;
+	/** 等待中交易的最大等待时间 */
+	public static final long DEFAULT_PENDING_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+	
+	@Getter
+	private final String channel;
+	private final long pendingTimeout;
+	
+	private final Map<String, PendingCommit> pending = new ConcurrentHashMap<>(256);
+	private final Cache<String, TransactionEvent> recent;
+	/** 区块事件订阅者，如按写集失效的查询缓存 */
+	private final List<Consumer<BlockEvent>> subscribers = new CopyOnWriteArrayList<>();
+	
+	@Getter
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final LongAdder committed = new LongAdder();
+	private final LongAdder invalid = new LongAdder();
+	private final LongAdder expired = new LongAdder();
+	
+	private volatile long lastSweep = System.currentTimeMillis();
+	@Getter
+	private volatile long blockHeight = -1;
+	
+	public ChaincodeCommitTracker(String channel) {
+		this(channel, DEFAULT_RECENT_CAPACITY, DEFAULT_PENDING_TIMEOUT);
+	}
+	
+	public ChaincodeCommitTracker(String channel, int recentCapacity, long pendingTimeout) {
+		Assert.hasText(channel, "channel must not be empty!");
+		Assert.isTrue(pendingTimeout > 0, "pendingTimeout must be greater than 0!");
+		
+		this.channel = channel;
+		this.pendingTimeout = pendingTimeout;
+		this.recent = CacheBuilder.newBuilder().maximumSize(recentCapacity).expireAfterWrite(pendingTimeout, TimeUnit.MILLISECONDS).build();
+	}
+	
+	/**
+	 * 登记等待提交的交易
+	 * @param transactionId 交易ID
+	 * @return 交易提交事件 Future，交易无效时异常结束
+	 */
+	public CompletableFuture<TransactionEvent> track(String transactionId) {
+		Assert.hasText(transactionId, "transactionId must not be empty!");
+		
+		PendingCommit commit = new PendingCommit();
+		pending.put(transactionId, commit);
+		
+		// 区块事件可能先于登记到达，事件处理时先写 recent 再取 pending，所以这里登记后再检查一次
+		TransactionEvent event = recent.getIfPresent(transactionId);
+		if (event != null && pending.remove(transactionId, commit)) {
+			complete(commit, event);
+		}
+		
+		return commit.future;
+	}
+	
+	public void cancel(String transactionId) {
+		pending.remove(transactionId);
+	}
+	
+	/**
+	 * 订阅通道区块事件，订阅者在区块内等待中的交易完成之后收到区块
+	 */
+	public void subscribe(Consumer<BlockEvent> subscriber) {
+		Assert.notNull(subscriber, "block subscriber must not be null!");
+		
+		subscribers.add(subscriber);
+	}
+	
+	public void unsubscribe(Consumer<BlockEvent> subscriber) {
+		subscribers.remove(subscriber);
+	}
+	
+	@Override
+	public void received(BlockEvent blockEvent) {
+		blockHeight = Math.max(blockHeight, blockEvent.getBlockNumber());
+		
+		for (TransactionEvent event : blockEvent.getTransactionEvents()) {
+			String transactionId = event.getTransactionID();
+			recent.put(transactionId, event);
+			
+			PendingCommit commit = pending.remove(transactionId);
+			if (commit != null) {
+				complete(commit, event);
+			}
+		}
+		
+		for (Consumer<BlockEvent> subscriber : subscribers) {
+			try {
+				subscriber.accept(blockEvent);
+			} catch (Exception e) {
+				log.warn("channel '{}' block {} subscriber failed: {}", channel, blockEvent.getBlockNumber(), e.getMessage());
+			}
+		}
+		
+		sweep();
+	}
+	
+	private void complete(PendingCommit commit, TransactionEvent event) {
+		latency.record(System.nanoTime() - commit.start, TimeUnit.NANOSECONDS);
+		
+		if (event.isValid()) {
+			committed.increment();
+			commit.future.complete(event);
+		} else {
+			invalid.increment();
+			commit.future.completeExceptionally(new TransactionEventException(String.format("Received invalid transaction event. Transaction ID %s status %s", event.getTransactionID(), event.getValidationCode()), event));
+		}
+	}
+	
+	private void sweep() {
+		long now = System.currentTimeMillis();
+		if (now - lastSweep < pendingTimeout / 10) {
+			return;
+		}
+		lastSweep = now;
+		
+		long deadline = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(pendingTimeout);
+		Iterator<Map.Entry<String, PendingCommit>> iter = pending.entrySet().iterator();
+		while (iter.hasNext()) {
+			Map.Entry<String, PendingCommit> entry = iter.next();
+			if (entry.getValue().start < deadline && pending.remove(entry.getKey(), entry.getValue())) {
+				expired.increment();
+				entry.getValue().future.completeExceptionally(new TimeoutException(String.format("transaction %s not committed on channel %s within %sms", entry.getKey(), channel, pendingTimeout)));
+			}
+		}
+	}
+	
+	/**
+	 * 结束所有等待中的交易，区块监听注销后调用
+	 */
+	public void shutdown() {
+		Iterator<Map.Entry<String, PendingCommit>> iter = pending.entrySet().iterator();
+		while (iter.hasNext()) {
+			Map.Entry<String, PendingCommit> entry = iter.next();
+			if (pending.remove(entry.getKey(), entry.getValue())) {
+				entry.getValue().future.completeExceptionally(new ChaincodeOperationException("channel '%s' commit tracker shutdown, transaction '%s' not committed", channel, entry.getKey()));
+			}
+		}
+		subscribers.clear();
+	}
+	
+	public int getPendingCount() {
+		return pending.size();
+	}
+	
+	public long getCommittedCount() {
+		return committed.sum();
+	}
+	
+	public long getInvalidCount() {
+		return invalid.sum();
+	}
+	
+	public long getExpiredCount() {
+		return expired.sum();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("ChaincodeCommitTracker(channel=%s, blockHeight=%d, pending=%d, committed=%d, invalid=%d, expired=%d, latency=%s)", channel, blockHeight, getPendingCount(), getCommittedCount(), getInvalidCount(), getExpiredCount(), latency);
+	}
+	
+	private static final class PendingCommit {
+		
+		private final long start = System.nanoTime();
+		private final CompletableFuture<TransactionEvent> future = new CompletableFuture<>();
+	}
+}
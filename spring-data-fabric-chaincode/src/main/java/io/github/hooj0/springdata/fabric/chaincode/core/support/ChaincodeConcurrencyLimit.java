@@ -0,0 +1,38 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+/**
+ * 交易管道并发限制，根据交易耗时样本调整窗口大小
+ * @changelog invoke pipeline concurrency limit, adjusted from transaction latency samples
+ * @author hoojo
+ * @createDate 2019年1月14日 上午10:12:08
+ * @file ChaincodeConcurrencyLimit.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public interface ChaincodeConcurrencyLimit {
+
+	/**
+	 * 当前允许的最大在途交易数
+	 */
+	int getLimit();
+	
+	/**
+	 * 异步交易完成后的耗时样本，背书和提交分别统计
+	 * @param endorseRtt 背书耗时(纳秒)，即发起操作返回之前的耗时
+	 * @param commitRtt 提交耗时(纳秒)，即发起操作返回之后到交易完成的耗时
+	 * @param inFlight 交易发起时的在途交易数
+	 * @param dropped 交易是否超时
+	 */
+	void onSample(long endorseRtt, long commitRtt, int inFlight, boolean dropped);
+	
+	/**
+	 * 同步交易完成后的耗时样本，发起操作在调用线程完成背书和提交，无法区分两个阶段，不能与异步交易的背书耗时比较
+	 * @param rtt 整笔交易耗时(纳秒)
+	 * @param inFlight 交易发起时的在途交易数
+	 * @param dropped 交易是否超时
+	 */
+	void onSyncSample(long rtt, int inFlight, boolean dropped);
+}
@@ -0,0 +1,277 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hyperledger.fabric.protos.common.MspPrincipal.MSPPrincipal;
+import org.hyperledger.fabric.protos.common.MspPrincipal.MSPRole;
+import org.hyperledger.fabric.protos.common.Policies.SignaturePolicy;
+import org.hyperledger.fabric.protos.common.Policies.SignaturePolicyEnvelope;
+import org.hyperledger.fabric.protos.msp.Identities.SerializedIdentity;
+import org.hyperledger.fabric.sdk.ChaincodeEndorsementPolicy;
+import org.hyperledger.fabric.sdk.Peer;
+import org.hyperledger.fabric.sdk.ProposalResponse;
+import org.springframework.util.Assert;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Multisets;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import io.github.hooj0.fabric.sdk.commons.config.FabricConfiguration;
+import io.github.hooj0.springdata.fabric.chaincode.core.cache.ChaincodeArtifactCache;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 按背书策略选择最少的背书节点：解析 chaincode 背书策略得到所有最小的 MSP 组合，
+ * 每笔交易只向满足其中一个组合的 peer 节点发送交易提议，在组合和组织内的 peer 节点之间轮转；
+ * peer 节点所属的 MSP 从背书响应的背书者身份中获得，未知时向所有背书节点发送交易提议
+ * @changelog endorsement-policy-aware minimal peer selection, minimal MSP sets rotated across transactions
+ * @author hoojo
+ * @createDate 2019年1月29日 上午9:42:18
+ * @file ChaincodeEndorsementPlanner.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Slf4j
+public class ChaincodeEndorsementPlanner {
+
+	public static final int DEFAULT_MAX_ATTEMPTS = 2;
+	/** 最小 MSP 组合数量上限，避免 n-of 嵌套过深时组合爆炸 */
+	private static final int MAX_PRINCIPAL_SETS = 64;
+
+	/** 每笔交易最多尝试的背书节点组合数 */
+	private final int maxAttempts;
+
+	/** channel_chaincode -> 最小 MSP 组合，空列表表示策略不可用 */
+	private final Map<String, List<Multiset<String>>> policies = Maps.newConcurrentMap();
+	/** peer 名称 -> MSP ID */
+	private final Map<String, String> peerMspIds = Maps.newConcurrentMap();
+	private final AtomicLong rotation = new AtomicLong();
+
+	public ChaincodeEndorsementPlanner() {
+		this(DEFAULT_MAX_ATTEMPTS);
+	}
+
+	public ChaincodeEndorsementPlanner(int maxAttempts) {
+		Assert.isTrue(maxAttempts > 0, "maxAttempts must be greater than 0!");
+
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * 注册 chaincode 实例化时使用的背书策略，未注册时使用配置中的背书策略文件
+	 */
+	public void register(Criteria criteria, ChaincodeEndorsementPolicy policy) {
+		Assert.notNull(policy, "ChaincodeEndorsementPolicy must not be null!");
+
+		policies.put(getKey(criteria), parse(policy.getChaincodeEndorsementPolicyAsBytes()));
+	}
+
+	/**
+	 * 指定 peer 节点所属的 MSP，未指定时从背书响应中获得
+	 */
+	public void registerPeer(String peerName, String mspId) {
+		Assert.hasText(peerName, "peerName must not be empty!");
+		Assert.hasText(mspId, "mspId must not be empty!");
+
+		peerMspIds.put(peerName, mspId);
+	}
+
+	/**
+	 * 从背书响应的背书者身份中获得 peer 节点所属的 MSP
+	 */
+	public void learn(Collection<ProposalResponse> responses) {
+		for (ProposalResponse response : responses) {
+			if (response.getPeer() == null || response.getProposalResponse() == null || !response.getProposalResponse().hasEndorsement()) {
+				continue;
+			}
+
+			try {
+				SerializedIdentity endorser = SerializedIdentity.parseFrom(response.getProposalResponse().getEndorsement().getEndorser());
+				if (StringUtils.isNotBlank(endorser.getMspid())) {
+					peerMspIds.put(response.getPeer().getName(), endorser.getMspid());
+				}
+			} catch (InvalidProtocolBufferException e) {
+				log.debug("peer '{}' endorser identity parse failed: {}", response.getPeer().getName(), e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * 为第 attempt 次背书选择满足背书策略的 peer 节点组合
+	 * @param criteria channel/chaincode 条件
+	 * @param config 未注册背书策略时读取配置的背书策略文件
+	 * @param peers 可用的背书节点
+	 * @param attempt 背书尝试序号，从 0 开始
+	 * @param excluded 之前背书失败的 peer 节点
+	 * @return peer 节点组合，策略不可用、节点 MSP 未知或节点不足时返回 null
+	 */
+	public Collection<Peer> plan(Criteria criteria, FabricConfiguration config, Collection<Peer> peers, int attempt, Set<Peer> excluded) {
+		if (attempt >= maxAttempts) {
+			return null;
+		}
+
+		List<Multiset<String>> principalSets = policies.computeIfAbsent(getKey(criteria), key -> load(config));
+		if (principalSets.isEmpty()) {
+			return null;
+		}
+
+		Map<String, List<Peer>> mspPeers = peers.stream().filter(peer -> !excluded.contains(peer) && peerMspIds.containsKey(peer.getName())).collect(Collectors.groupingBy(peer -> peerMspIds.get(peer.getName())));
+
+		long ordinal = rotation.getAndIncrement();
+		for (int i = 0; i < principalSets.size(); i++) {
+			Multiset<String> principals = principalSets.get((int) ((ordinal + i) % principalSets.size()));
+
+			Collection<Peer> selected = select(principals, mspPeers, ordinal);
+			if (selected != null) {
+				return selected;
+			}
+		}
+		return null;
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * chaincode 背书策略的所有最小 MSP 组合
+	 */
+	public List<Multiset<String>> getPrincipalSets(Criteria criteria) {
+		return policies.getOrDefault(getKey(criteria), Collections.emptyList());
+	}
+
+	private Collection<Peer> select(Multiset<String> principals, Map<String, List<Peer>> mspPeers, long ordinal) {
+		List<Peer> selected = new ArrayList<>(principals.size());
+		for (Multiset.Entry<String> entry : principals.entrySet()) {
+			List<Peer> candidates = mspPeers.get(entry.getElement());
+			if (candidates == null || candidates.size() < entry.getCount()) {
+				return null;
+			}
+
+			for (int i = 0; i < entry.getCount(); i++) {
+				selected.add(candidates.get((int) ((ordinal + i) % candidates.size())));
+			}
+		}
+		return selected;
+	}
+
+	private List<Multiset<String>> load(FabricConfiguration config) {
+		String policyFile = config.getEndorsementPolicyFilePath();
+		if (StringUtils.isBlank(policyFile)) {
+			return Collections.emptyList();
+		}
+
+		File file = new File(policyFile);
+		if (!file.exists()) {
+			file = Paths.get(config.getCommonRootPath(), policyFile).toFile();
+		}
+
+		try {
+			ChaincodeEndorsementPolicy policy = ChaincodeArtifactCache.getSharedInstance().getEndorsementPolicy(file);
+
+			return parse(policy.getChaincodeEndorsementPolicyAsBytes());
+		} catch (Exception e) {
+			log.warn("endorsement policy file '{}' load failed, endorse on all peers: {}", file, e.getMessage());
+			return Collections.emptyList();
+		}
+	}
+
+	private List<Multiset<String>> parse(byte[] policyBytes) {
+		try {
+			SignaturePolicyEnvelope envelope = SignaturePolicyEnvelope.parseFrom(policyBytes);
+
+			List<Multiset<String>> principalSets = minimize(evaluate(envelope.getRule(), envelope.getIdentitiesList()));
+			log.debug("endorsement policy minimal msp sets: {}", principalSets);
+
+			return principalSets;
+		} catch (InvalidProtocolBufferException | IllegalArgumentException e) {
+			log.warn("endorsement policy parse failed, endorse on all peers: {}", e.getMessage());
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * 计算满足签名策略的 MSP 组合：signed-by 为单个 MSP，n-of 为任取 n 个子策略的组合之和
+	 */
+	private List<Multiset<String>> evaluate(SignaturePolicy rule, List<MSPPrincipal> identities) throws InvalidProtocolBufferException {
+		switch (rule.getTypeCase()) {
+			case SIGNED_BY:
+				MSPPrincipal principal = identities.get(rule.getSignedBy());
+				if (principal.getPrincipalClassification() != MSPPrincipal.Classification.ROLE) {
+					throw new IllegalArgumentException("unsupported principal classification " + principal.getPrincipalClassification());
+				}
+
+				// peer 节点的背书签名只能满足 member/peer 角色
+				MSPRole role = MSPRole.parseFrom(principal.getPrincipal());
+				if (role.getRole() != MSPRole.MSPRoleType.MEMBER && role.getRole() != MSPRole.MSPRoleType.PEER) {
+					return Collections.emptyList();
+				}
+				return Collections.singletonList(ImmutableMultiset.of(role.getMspIdentifier()));
+			case N_OUT_OF:
+				List<List<Multiset<String>>> rules = new ArrayList<>();
+				for (SignaturePolicy child : rule.getNOutOf().getRulesList()) {
+					rules.add(evaluate(child, identities));
+				}
+
+				List<Multiset<String>> results = new ArrayList<>();
+				combine(rules, 0, rule.getNOutOf().getN(), HashMultiset.create(), results);
+				return minimize(results);
+			default:
+				throw new IllegalArgumentException("unsupported signature policy type " + rule.getTypeCase());
+		}
+	}
+
+	private void combine(List<List<Multiset<String>>> rules, int start, int n, Multiset<String> current, List<Multiset<String>> results) {
+		if (results.size() >= MAX_PRINCIPAL_SETS) {
+			return;
+		}
+		if (n == 0) {
+			results.add(ImmutableMultiset.copyOf(current));
+			return;
+		}
+
+		for (int i = start; i <= rules.size() - n; i++) {
+			for (Multiset<String> option : rules.get(i)) {
+				current.addAll(option);
+				combine(rules, i + 1, n - 1, current, results);
+				Multisets.removeOccurrences(current, option);
+			}
+		}
+	}
+
+	/**
+	 * 去掉包含其他组合的组合，按组合大小排序
+	 */
+	private List<Multiset<String>> minimize(List<Multiset<String>> sets) {
+		List<Multiset<String>> distinct = new ArrayList<>(new LinkedHashSet<>(sets));
+
+		return distinct.stream()
+				.filter(set -> distinct.stream().noneMatch(other -> other != set && other.size() < set.size() && Multisets.containsOccurrences(set, other)))
+				.sorted((a, b) -> Integer.compare(a.size(), b.size()))
+				.collect(Collectors.toList());
+	}
+
+	private String getKey(Criteria criteria) {
+		Assert.notNull(criteria, "Criteria is not null!");
+
+		return criteria.getChannel() + "_" + criteria.getName();
+	}
+}
@@ -0,0 +1,378 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.util.Assert;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria;
+import io.github.hooj0.springdata.fabric.chaincode.enums.BackpressurePolicy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 异步交易管道，按 channel/chaincode 限制在途交易数量，超出窗口的交易进入有界队列排队
+ * @changelog async invoke pipeline, bounded in-flight window per channel/chaincode criteria with a backpressure queue
+ * @author hoojo
+ * @createDate 2019年1月7日 上午10:35:12
+ * @file ChaincodeInvokePipeline.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Slf4j
+public class ChaincodeInvokePipeline {
+
+	public static final int DEFAULT_WINDOW_SIZE = 64;
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	private final Supplier<ChaincodeConcurrencyLimit> limitFactory;
+	private final int queueCapacity;
+	private final BackpressurePolicy policy;
+	private final ExecutorService dispatcher;
+
+	private final Map<String, InvokeWindow> windows = Maps.newConcurrentMap();
+
+	public ChaincodeInvokePipeline() {
+		this(DEFAULT_WINDOW_SIZE, DEFAULT_QUEUE_CAPACITY, BackpressurePolicy.BLOCK);
+	}
+
+	public ChaincodeInvokePipeline(int windowSize, int queueCapacity, BackpressurePolicy policy) {
+		this(() -> new FixedConcurrencyLimit(windowSize), queueCapacity, policy);
+	}
+
+	/**
+	 * 每个 channel/chaincode 窗口通过 limitFactory 创建独立的并发限制，如 {@link AimdConcurrencyLimit} 自适应窗口
+	 */
+	public ChaincodeInvokePipeline(Supplier<ChaincodeConcurrencyLimit> limitFactory, int queueCapacity, BackpressurePolicy policy) {
+		this(limitFactory, queueCapacity, policy, Executors.newCachedThreadPool(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("chaincode-invoke-pipeline-%d").build()));
+	}
+
+	public ChaincodeInvokePipeline(Supplier<ChaincodeConcurrencyLimit> limitFactory, int queueCapacity, BackpressurePolicy policy, ExecutorService dispatcher) {
+		Assert.notNull(limitFactory, "ChaincodeConcurrencyLimit factory must not be null!");
+		Assert.isTrue(queueCapacity > 0, "queueCapacity must be greater than 0!");
+		Assert.notNull(policy, "BackpressurePolicy must not be null!");
+		Assert.notNull(dispatcher, "dispatcher ExecutorService must not be null!");
+
+		this.limitFactory = limitFactory;
+		this.queueCapacity = queueCapacity;
+		this.policy = policy;
+		this.dispatcher = dispatcher;
+	}
+
+	/**
+	 * 为指定 channel/chaincode 单独配置窗口，需要在该窗口第一次提交交易之前调用
+	 * @param criteria channel/chaincode 条件
+	 * @param windowSize 最大在途交易数
+	 * @param queueCapacity 排队队列容量
+	 * @param policy 队列满载时的背压策略
+	 */
+	public void configure(Criteria criteria, int windowSize, int queueCapacity, BackpressurePolicy policy) {
+		configure(criteria, new FixedConcurrencyLimit(windowSize), queueCapacity, policy);
+	}
+	
+	/**
+	 * 为指定 channel/chaincode 单独配置并发限制，需要在该窗口第一次提交交易之前调用
+	 * @param criteria channel/chaincode 条件
+	 * @param limit 并发限制
+	 * @param queueCapacity 排队队列容量
+	 * @param policy 队列满载时的背压策略
+	 */
+	public void configure(Criteria criteria, ChaincodeConcurrencyLimit limit, int queueCapacity, BackpressurePolicy policy) {
+		Assert.notNull(limit, "ChaincodeConcurrencyLimit must not be null!");
+		Assert.isTrue(queueCapacity > 0, "queueCapacity must be greater than 0!");
+		Assert.notNull(policy, "BackpressurePolicy must not be null!");
+
+		InvokeWindow window = new InvokeWindow(getKey(criteria), limit, queueCapacity, policy);
+		if (windows.putIfAbsent(window.key, window) != null) {
+			log.warn("invoke pipeline window '{}' is already in use, configuration ignored.", window.key);
+		}
+	}
+
+	/**
+	 * 通过管道提交交易，窗口有空位时立即发起，否则排队等待在途交易完成
+	 * @param criteria channel/chaincode 条件
+	 * @param invoker 发起交易并返回交易 Future 的操作
+	 * @return 交易完成的 Future
+	 */
+	public <T> CompletableFuture<T> submit(Criteria criteria, Supplier<CompletableFuture<T>> invoker) {
+		Assert.notNull(invoker, "invoker must not be null!");
+
+		return getWindow(criteria).submit(invoker);
+	}
+
+	/**
+	 * 在调用线程发起交易，交易同样占用窗口，窗口已满或有排队的交易时调用线程等待空位，排队的交易优先；同步交易使用，不经过管道线程
+	 * @param criteria channel/chaincode 条件
+	 * @param invoker 发起交易并返回交易 Future 的操作
+	 * @return 交易完成的 Future，交易完成前一直占用窗口
+	 */
+	public <T> CompletableFuture<T> execute(Criteria criteria, Supplier<CompletableFuture<T>> invoker) {
+		Assert.notNull(invoker, "invoker must not be null!");
+		
+		return getWindow(criteria).execute(new PendingInvoke<>(invoker, false));
+	}
+	
+	/**
+	 * 在调用线程同步完成整笔交易，交易同样占用窗口；背书和提交无法区分，耗时作为同步样本，不计入异步交易的背书基线
+	 * @param criteria channel/chaincode 条件
+	 * @param invoker 发起交易并等待交易完成的操作
+	 * @return 交易完成的 Future
+	 */
+	public <T> CompletableFuture<T> executeSync(Criteria criteria, Supplier<T> invoker) {
+		Assert.notNull(invoker, "invoker must not be null!");
+		
+		return getWindow(criteria).execute(new PendingInvoke<>(() -> CompletableFuture.completedFuture(invoker.get()), true));
+	}
+
+	public InvokeWindowMetrics getMetrics(Criteria criteria) {
+		InvokeWindow window = windows.get(getKey(criteria));
+
+		return window == null ? null : window.getMetrics();
+	}
+
+	public Collection<InvokeWindowMetrics> getMetrics() {
+		return windows.values().stream().map(InvokeWindow::getMetrics).collect(Collectors.toList());
+	}
+
+	public void shutdown() {
+		dispatcher.shutdown();
+	}
+
+	private InvokeWindow getWindow(Criteria criteria) {
+		return windows.computeIfAbsent(getKey(criteria), key -> new InvokeWindow(key, limitFactory.get(), queueCapacity, policy));
+	}
+
+	private String getKey(Criteria criteria) {
+		Assert.notNull(criteria, "Criteria is not null!");
+		Assert.hasText(criteria.getChannel(), "Criteria.channel property is null!");
+
+		return criteria.getChannel() + "_" + criteria.getName();
+	}
+
+	/**
+	 * 等待发起的交易
+	 */
+	private static class PendingInvoke<T> {
+
+		private final Supplier<CompletableFuture<T>> invoker;
+		/** 发起操作同步完成整笔交易 */
+		private final boolean sync;
+		private final CompletableFuture<T> future = new CompletableFuture<>();
+
+		PendingInvoke(Supplier<CompletableFuture<T>> invoker, boolean sync) {
+			this.invoker = invoker;
+			this.sync = sync;
+		}
+	}
+
+	/**
+	 * 单个 channel/chaincode 的交易窗口
+	 */
+	private class InvokeWindow {
+
+		private final String key;
+		private final ChaincodeConcurrencyLimit limit;
+		private final BackpressurePolicy policy;
+		private final BlockingQueue<PendingInvoke<?>> queue;
+
+		/** guarded by this */
+		private int inFlight;
+		/** guarded by this */
+		private int peakInFlight;
+
+		private final LongAdder submitted = new LongAdder();
+		private final LongAdder completed = new LongAdder();
+		private final LongAdder failed = new LongAdder();
+		private final LongAdder rejected = new LongAdder();
+		private final LongAdder callerRuns = new LongAdder();
+		private final LongAdder latency = new LongAdder();
+
+		InvokeWindow(String key, ChaincodeConcurrencyLimit limit, int queueCapacity, BackpressurePolicy policy) {
+			this.key = key;
+			this.limit = limit;
+			this.policy = policy;
+			this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		}
+
+		<T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> invoker) {
+			submitted.increment();
+
+			PendingInvoke<T> pending = new PendingInvoke<>(invoker, false);
+			if (!queue.offer(pending)) {
+				switch (policy) {
+					case BLOCK:
+						try {
+							queue.put(pending);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+
+							rejected.increment();
+							pending.future.completeExceptionally(new ChaincodeOperationException(e, "invoke pipeline window '%s' interrupted while waiting", key));
+							return pending.future;
+						}
+						break;
+					case CALLER_RUNS:
+						// 调用线程直接发起交易，不等待窗口空位，在途交易数可能暂时超过窗口；排队的交易在在途交易数回到窗口内后按顺序发起
+						callerRuns.increment();
+						execute(pending, acquire());
+						return pending.future;
+					case REJECT:
+					default:
+						rejected.increment();
+						pending.future.completeExceptionally(new ChaincodeOperationException("invoke pipeline window '%s' is saturated, in flight: %s, queued: %s", key, getInFlight(), queue.size()));
+						return pending.future;
+				}
+			}
+
+			drain();
+			return pending.future;
+		}
+
+		<T> CompletableFuture<T> execute(PendingInvoke<T> pending) {
+			submitted.increment();
+			
+			try {
+				execute(pending, awaitSlot());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				
+				rejected.increment();
+				pending.future.completeExceptionally(new ChaincodeOperationException(e, "invoke pipeline window '%s' interrupted while waiting", key));
+			}
+			return pending.future;
+		}
+
+		private void drain() {
+			while (true) {
+				PendingInvoke<?> next;
+				int current;
+				synchronized (this) {
+					if (inFlight >= limit.getLimit()) {
+						return;
+					}
+					if ((next = queue.poll()) == null) {
+						// 队列已排空，唤醒等待空位的同步交易
+						notifyAll();
+						return;
+					}
+					current = acquire();
+				}
+
+				dispatch(next, current);
+			}
+		}
+
+		private void dispatch(PendingInvoke<?> pending, int current) {
+			try {
+				dispatcher.execute(() -> execute(pending, current));
+			} catch (RejectedExecutionException e) {
+				failed.increment();
+				release();
+
+				pending.future.completeExceptionally(new ChaincodeOperationException(e, "invoke pipeline window '%s' dispatcher rejected", key));
+			}
+		}
+
+		private <T> void execute(PendingInvoke<T> pending, int current) {
+			long start = System.nanoTime();
+
+			CompletableFuture<T> future;
+			try {
+				future = pending.invoker.get();
+			} catch (Exception e) {
+				future = new CompletableFuture<>();
+				future.completeExceptionally(e);
+			}
+			
+			// 发起操作返回之前为背书阶段，之后到 Future 完成为提交阶段
+			long endorsed = System.nanoTime();
+			future.whenComplete((result, error) -> {
+				long now = System.nanoTime();
+				latency.add(now - start);
+				
+				boolean timeout = isTimeout(error);
+				if (pending.sync && (error == null || timeout)) {
+					limit.onSyncSample(now - start, current, timeout);
+				} else if (error == null || timeout) {
+					limit.onSample(endorsed - start, now - endorsed, current, timeout);
+				}
+				
+				if (error != null) {
+					failed.increment();
+				} else {
+					completed.increment();
+				}
+
+				release();
+
+				if (error != null) {
+					pending.future.completeExceptionally(error);
+				} else {
+					pending.future.complete(result);
+				}
+			});
+		}
+
+		private synchronized int acquire() {
+			inFlight++;
+			peakInFlight = Math.max(peakInFlight, inFlight);
+			
+			return inFlight;
+		}
+
+		/**
+		 * 等待窗口空位，窗口释放的空位先交给排队的交易，队列排空后再由等待的调用线程占用
+		 */
+		private synchronized int awaitSlot() throws InterruptedException {
+			while (inFlight >= limit.getLimit() || !queue.isEmpty()) {
+				wait();
+			}
+			return acquire();
+		}
+
+		private synchronized int getInFlight() {
+			return inFlight;
+		}
+		
+		private boolean isTimeout(Throwable error) {
+			for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+				if (cause instanceof TimeoutException) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void release() {
+			synchronized (this) {
+				inFlight--;
+				notifyAll();
+			}
+
+			drain();
+		}
+
+		synchronized InvokeWindowMetrics getMetrics() {
+			long finished = completed.sum() + failed.sum();
+			double averageLatency = finished == 0 ? 0 : latency.sum() / 1e6 / finished;
+
+			return new InvokeWindowMetrics(key, limit.getLimit(), policy, inFlight, peakInFlight, queue.size(), submitted.sum(), completed.sum(), failed.sum(), rejected.sum(), callerRuns.sum(), averageLatency);
+		}
+	}
+}
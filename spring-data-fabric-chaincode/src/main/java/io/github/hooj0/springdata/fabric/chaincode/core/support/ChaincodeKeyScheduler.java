@@ -0,0 +1,191 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import org.springframework.util.Assert;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 账本键冲突调度器，读写相同键的交易按提交顺序串行执行，不相交的交易完全并行
+ * <p>键按哈希映射到固定数量的条带，每个条带只保存最后一笔交易的完成 Future，与不同键的数量无关；
+ * 多条带按序号顺序登记，保证不会出现循环等待</p>
+ * @changelog key-aware conflict scheduler, serialize transactions sharing ledger keys over hashed lock stripes
+ * @author hoojo
+ * @createDate 2019年1月11日 下午3:20:47
+ * @file ChaincodeKeyScheduler.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Slf4j
+public class ChaincodeKeyScheduler {
+
+	public static final int DEFAULT_STRIPES = 4096;
+	
+	private final Stripe[] stripes;
+	private final ExecutorService executor;
+	
+	private final LongAdder scheduled = new LongAdder();
+	private final LongAdder deferred = new LongAdder();
+	
+	public ChaincodeKeyScheduler() {
+		this(DEFAULT_STRIPES);
+	}
+	
+	public ChaincodeKeyScheduler(int stripes) {
+		this(stripes, Executors.newCachedThreadPool(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("chaincode-key-scheduler-%d").build()));
+	}
+	
+	public ChaincodeKeyScheduler(int stripes, ExecutorService executor) {
+		Assert.isTrue(stripes > 0, "stripes must be greater than 0!");
+		Assert.notNull(executor, "executor must not be null!");
+		
+		this.stripes = new Stripe[stripes];
+		for (int i = 0; i < stripes; i++) {
+			this.stripes[i] = new Stripe();
+		}
+		this.executor = executor;
+	}
+	
+	/**
+	 * 异步执行交易，等待之前登记的相同键交易完成后再发起
+	 * @param keys 交易读写的账本键
+	 * @param invoker 交易操作
+	 * @return 交易完成的 Future
+	 */
+	public <T> CompletableFuture<T> submit(Collection<String> keys, Supplier<CompletableFuture<T>> invoker) {
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		CompletableFuture<Void> ready = enqueue(keys, done);
+		
+		CompletableFuture<T> future;
+		if (ready.isDone()) {
+			future = invoke(invoker);
+		} else {
+			deferred.increment();
+			future = ready.thenComposeAsync(v -> invoke(invoker), executor);
+		}
+		
+		return future.whenComplete((result, error) -> done.complete(null));
+	}
+	
+	/**
+	 * 同步执行交易，调用线程等待之前登记的相同键交易完成
+	 * @param keys 交易读写的账本键
+	 * @param invoker 交易操作
+	 * @return 交易结果
+	 */
+	public <T> T execute(Collection<String> keys, Supplier<T> invoker) {
+		CompletableFuture<Void> done = new CompletableFuture<>();
+		CompletableFuture<Void> ready = enqueue(keys, done);
+		
+		try {
+			if (!ready.isDone()) {
+				deferred.increment();
+				ready.get();
+			}
+			
+			return invoker.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ChaincodeOperationException(e, "wait for conflicting keys %s interrupted", keys);
+		} catch (ExecutionException e) {
+			throw new ChaincodeOperationException(e.getCause(), "wait for conflicting keys %s failed", keys);
+		} finally {
+			done.complete(null);
+		}
+	}
+	
+	private <T> CompletableFuture<T> invoke(Supplier<CompletableFuture<T>> invoker) {
+		try {
+			return invoker.get();
+		} catch (Exception e) {
+			CompletableFuture<T> future = new CompletableFuture<>();
+			future.completeExceptionally(e);
+			return future;
+		}
+	}
+	
+	/**
+	 * 在交易涉及的所有条带上登记，返回之前交易全部完成的 Future
+	 */
+	private CompletableFuture<Void> enqueue(Collection<String> keys, CompletableFuture<Void> done) {
+		Assert.notEmpty(keys, "keys must not be empty!");
+		scheduled.increment();
+		
+		int[] indexes = keys.stream().mapToInt(this::stripeOf).sorted().distinct().toArray();
+		CompletableFuture<?>[] previous = new CompletableFuture<?>[indexes.length];
+		
+		lock(indexes, 0, previous, done);
+		
+		return CompletableFuture.allOf(previous);
+	}
+	
+	// 按条带序号依次加锁，所有条带都登记后再释放
+	private void lock(int[] indexes, int position, CompletableFuture<?>[] previous, CompletableFuture<Void> done) {
+		if (position == indexes.length) {
+			return;
+		}
+		
+		Stripe stripe = stripes[indexes[position]];
+		synchronized (stripe) {
+			previous[position] = stripe.tail;
+			stripe.tail = done;
+			
+			lock(indexes, position + 1, previous, done);
+		}
+	}
+	
+	private int stripeOf(String key) {
+		int hash = key == null ? 0 : key.hashCode();
+		hash ^= (hash >>> 16);
+		
+		return Math.floorMod(hash, stripes.length);
+	}
+	
+	public int getStripes() {
+		return stripes.length;
+	}
+	
+	public long getScheduledCount() {
+		return scheduled.sum();
+	}
+	
+	public long getDeferredCount() {
+		return deferred.sum();
+	}
+	
+	public long getBusyStripes() {
+		return IntStream.range(0, stripes.length).filter(i -> !stripes[i].tail.isDone()).count();
+	}
+	
+	/**
+	 * 关闭延后交易的执行线程池，关闭后不能再提交需要等待冲突键的异步交易，同步交易不受影响
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("ChaincodeKeyScheduler(stripes=%d, scheduled=%d, deferred=%d)", getStripes(), getScheduledCount(), getDeferredCount());
+	}
+	
+	private static final class Stripe {
+		
+		/** 最后登记的交易，写入时持有条带锁 */
+		private volatile CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+	}
+}
@@ -0,0 +1,195 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.hyperledger.fabric.sdk.Peer;
+import org.springframework.util.Assert;
+
+import com.google.common.collect.Maps;
+
+/**
+ * 按响应耗时和错误率选择 peer 节点，每个 peer 节点统计耗时和错误率的 EWMA，
+ * 使用 power-of-two-choices 随机取两个节点中评分较优的节点，避免所有请求同时涌向同一个节点
+ * <p>选择器需要显式配置到模板，配置后每次查询只发送到一个 peer 节点，不再由 SDK 比较多个节点的查询结果是否一致</p>
+ * @changelog latency-aware peer selection, EWMA latency/error rate with power-of-two-choices
+ * @author hoojo
+ * @createDate 2019年1月22日 上午9:31:52
+ * @file ChaincodePeerSelector.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodePeerSelector {
+
+	public static final double DEFAULT_ALPHA = 0.3;
+	public static final long DEFAULT_ERROR_PENALTY = 1000;
+	
+	/** EWMA 平滑系数，越大越偏重最近的样本 */
+	private final double alpha;
+	/** 错误率惩罚(纳秒)，评分 = 耗时 * (1 + 在途请求数) + 错误率 * 惩罚；没有成功样本的节点耗时取已采样节点耗时的中位数 */
+	private final double errorPenalty;
+	
+	private final Map<String, PeerStats> stats = Maps.newConcurrentMap();
+	
+	public ChaincodePeerSelector() {
+		this(DEFAULT_ALPHA, DEFAULT_ERROR_PENALTY);
+	}
+	
+	/**
+	 * @param alpha EWMA 平滑系数 (0, 1]
+	 * @param errorPenalty 错误率为 1 时的评分惩罚(毫秒)
+	 */
+	public ChaincodePeerSelector(double alpha, long errorPenalty) {
+		Assert.isTrue(alpha > 0 && alpha <= 1, "alpha must be in (0, 1]!");
+		Assert.isTrue(errorPenalty >= 0, "errorPenalty must not be negative!");
+		
+		this.alpha = alpha;
+		this.errorPenalty = errorPenalty * 1e6;
+	}
+	
+	/**
+	 * power-of-two-choices：随机取两个不同的 peer 节点，返回评分较优的节点
+	 */
+	public Peer select(List<Peer> peers) {
+		Assert.notEmpty(peers, "select peers must not be empty!");
+		
+		if (peers.size() == 1) {
+			return peers.get(0);
+		}
+		
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int first = random.nextInt(peers.size());
+		int second = random.nextInt(peers.size() - 1);
+		if (second >= first) {
+			second++;
+		}
+		
+		Peer a = peers.get(first), b = peers.get(second);
+		double seed = getSeedLatency();
+		return getStats(a).getScore(seed) <= getStats(b).getScore(seed) ? a : b;
+	}
+	
+	/**
+	 * 按评分从优到劣排序，用于对冲查询依次选择节点
+	 */
+	public List<Peer> rank(Collection<Peer> peers) {
+		double seed = getSeedLatency();
+		return peers.stream().sorted(Comparator.comparingDouble(peer -> getStats(peer).getScore(seed))).collect(Collectors.toList());
+	}
+	
+	/**
+	 * 向指定 peer 节点执行请求，并记录耗时和成功失败
+	 */
+	public <T> T execute(Peer peer, Supplier<T> action) {
+		PeerStats peerStats = getStats(peer);
+		
+		peerStats.inFlight.incrementAndGet();
+		long start = System.nanoTime();
+		try {
+			T result = action.get();
+			peerStats.record(System.nanoTime() - start, true);
+			
+			return result;
+		} catch (RuntimeException e) {
+			// 对冲查询取消的请求不计入错误
+			if (!Thread.currentThread().isInterrupted()) {
+				peerStats.record(System.nanoTime() - start, false);
+			}
+			throw e;
+		} finally {
+			peerStats.inFlight.decrementAndGet();
+		}
+	}
+	
+	public PeerScore getScore(String peer) {
+		PeerStats peerStats = stats.get(peer);
+		
+		return peerStats == null ? null : peerStats.getScoreSnapshot(getSeedLatency());
+	}
+	
+	public Collection<PeerScore> getScores() {
+		double seed = getSeedLatency();
+		return stats.values().stream().map(peerStats -> peerStats.getScoreSnapshot(seed)).collect(Collectors.toList());
+	}
+	
+	/**
+	 * 没有成功样本的节点使用已采样节点耗时的中位数，既不因耗时为 0 吸引所有请求，也不因没有样本而永远不被选择
+	 */
+	private double getSeedLatency() {
+		double[] latencies = stats.values().stream().mapToDouble(PeerStats::getSampledLatency).filter(latency -> latency >= 0).sorted().toArray();
+		if (latencies.length == 0) {
+			return 0;
+		}
+		
+		int middle = latencies.length / 2;
+		return latencies.length % 2 == 1 ? latencies[middle] : (latencies[middle - 1] + latencies[middle]) / 2;
+	}
+	
+	private PeerStats getStats(Peer peer) {
+		return stats.computeIfAbsent(peer.getName(), PeerStats::new);
+	}
+	
+	/**
+	 * 单个 peer 节点的统计
+	 */
+	private class PeerStats {
+		
+		private final String name;
+		
+		/** guarded by this，成功请求耗时 EWMA(纳秒)，未有样本时评分使用其他节点耗时的中位数 */
+		private double latency;
+		/** guarded by this */
+		private boolean sampled;
+		/** guarded by this */
+		private double errorRate;
+		
+		private final AtomicInteger inFlight = new AtomicInteger();
+		private final LongAdder requests = new LongAdder();
+		private final LongAdder failures = new LongAdder();
+		
+		PeerStats(String name) {
+			this.name = name;
+		}
+		
+		void record(long rtt, boolean success) {
+			requests.increment();
+			if (!success) {
+				failures.increment();
+			}
+			
+			synchronized (this) {
+				// 失败请求的耗时不计入，快速失败和超时都由错误率惩罚
+				if (success) {
+					latency = sampled ? latency + alpha * (rtt - latency) : rtt;
+					sampled = true;
+				}
+				errorRate += alpha * ((success ? 0 : 1) - errorRate);
+			}
+		}
+		
+		/**
+		 * 成功请求耗时，未有样本时返回 -1
+		 */
+		synchronized double getSampledLatency() {
+			return sampled ? latency : -1;
+		}
+		
+		synchronized double getScore(double seed) {
+			return (sampled ? latency : seed) * (1 + inFlight.get()) + errorPenalty * errorRate;
+		}
+		
+		synchronized PeerScore getScoreSnapshot(double seed) {
+			return new PeerScore(name, (sampled ? latency : seed) / 1e6, errorRate, inFlight.get(), getScore(seed) / 1e6, requests.sum(), failures.sum());
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.google.common.collect.Maps;
+
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
+
+/**
+ * 相同查询合并执行(single-flight)，同一时刻相同 key 的查询只发起一次，其他调用共享其结果
+ * <p>查询完成后立即移除，之后的调用会重新发起查询，结果不会超出本次请求的时效</p>
+ * @changelog single-flight coalescing of identical concurrent queries
+ * @author hoojo
+ * @createDate 2019年1月18日 下午2:16:09
+ * @file ChaincodeQueryCoalescer.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodeQueryCoalescer {
+
+	private final Map<String, CompletableFuture<?>> inFlight = Maps.newConcurrentMap();
+	
+	/** 实际发起的查询数 */
+	private final LongAdder executed = new LongAdder();
+	/** 合并到在途查询的调用数 */
+	private final LongAdder coalesced = new LongAdder();
+	
+	/**
+	 * 发起或加入相同 key 的异步查询
+	 * @param key 查询 key，参考 {@link #key(Object...)}
+	 * @param query 发起查询的操作
+	 * @return 查询结果 Future，相同 key 的并发调用共享同一个 Future
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> CompletableFuture<T> submit(String key, Supplier<CompletableFuture<T>> query) {
+		CompletableFuture<T> promise = new CompletableFuture<>();
+		
+		CompletableFuture<?> existing = inFlight.putIfAbsent(key, promise);
+		if (existing != null) {
+			coalesced.increment();
+			return (CompletableFuture<T>) existing;
+		}
+		
+		executed.increment();
+		try {
+			query.get().whenComplete((result, error) -> {
+				inFlight.remove(key, promise);
+				
+				if (error != null) {
+					promise.completeExceptionally(error);
+				} else {
+					promise.complete(result);
+				}
+			});
+		} catch (RuntimeException e) {
+			inFlight.remove(key, promise);
+			promise.completeExceptionally(e);
+		}
+		
+		return promise;
+	}
+	
+	/**
+	 * 发起或加入相同 key 的同步查询，首个调用在当前线程执行查询，其他调用等待其结果
+	 */
+	public <T> T execute(String key, Supplier<T> query) {
+		try {
+			return submit(key, () -> CompletableFuture.completedFuture(query.get())).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new ChaincodeOperationException(e.getCause(), "coalesced query '%s' failed: %s", key, e.getCause().getMessage());
+		}
+	}
+	
+	/**
+	 * 按长度前缀拼接查询 key 的各部分，数组逐个元素拼接；值中包含任何字符都不会与其他组合产生相同的 key，null 与空字符串也不相同
+	 * @param parts 查询 key 的各部分：channel/chaincode/version/func/mspId/user/args
+	 * @return 查询 key
+	 */
+	public static String key(Object... parts) {
+		StringBuilder key = new StringBuilder();
+		for (Object part : parts) {
+			appendKey(key, part);
+		}
+		return key.toString();
+	}
+	
+	private static void appendKey(StringBuilder key, Object part) {
+		if (part == null) {
+			key.append('-');
+			return;
+		}
+		
+		if (part instanceof Object[]) {
+			Object[] values = (Object[]) part;
+			
+			key.append('[').append(values.length).append(':');
+			for (Object value : values) {
+				appendKey(key, value);
+			}
+			key.append(']');
+			return;
+		}
+		
+		String value = part.getClass().isArray() ? Arrays.deepToString(new Object[] { part }) : String.valueOf(part);
+		key.append(value.length()).append(':').append(value);
+	}
+	
+	public int getInFlightCount() {
+		return inFlight.size();
+	}
+	
+	public long getExecutedCount() {
+		return executed.sum();
+	}
+	
+	public long getCoalescedCount() {
+		return coalesced.sum();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("ChaincodeQueryCoalescer(inFlight=%d, executed=%d, coalesced=%d)", getInFlightCount(), getExecutedCount(), getCoalescedCount());
+	}
+}
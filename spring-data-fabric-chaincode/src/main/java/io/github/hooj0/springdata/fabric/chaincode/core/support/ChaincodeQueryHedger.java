@@ -0,0 +1,237 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.hyperledger.fabric.sdk.Peer;
+import org.springframework.util.Assert;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
+import io.github.hooj0.springdata.fabric.chaincode.enums.BulkheadType;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 对冲查询，先向一个 peer 节点发起查询，超过对冲延迟仍未返回时再向下一个 peer 节点发起查询，取最先返回的有效结果并取消其他查询
+ * <p>对冲延迟可以是固定时间，也可以取该 channel/chaincode 查询耗时的百分位数</p>
+ * @changelog hedged queries across peers, fixed delay or tracked latency percentile
+ * @author hoojo
+ * @createDate 2019年1月21日 上午10:08:34
+ * @file ChaincodeQueryHedger.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Slf4j
+public class ChaincodeQueryHedger {
+
+	/** 百分位延迟生效需要的最少样本数，样本不足时使用固定延迟 */
+	public static final int MIN_PERCENTILE_SAMPLES = 20;
+	/** 只配置了百分位且样本不足时的对冲延迟(毫秒) */
+	public static final long DEFAULT_HEDGE_DELAY = 100;
+	
+	private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("chaincode-query-hedge-scheduler").build());
+	
+	private final ExecutorService executor;
+	private final Map<String, LatencyHistogram> latencies = Maps.newConcurrentMap();
+	
+	/** 对冲查询数 */
+	private final LongAdder queries = new LongAdder();
+	/** 发出的对冲请求数 */
+	private final LongAdder hedges = new LongAdder();
+	/** 由对冲请求返回结果的查询数 */
+	private final LongAdder hedgeWins = new LongAdder();
+	
+	/**
+	 * 默认线程池与查询隔离舱默认大小一致，队列满载时不再发出对冲请求。
+	 * 对冲查询的调用线程本身占用查询线程池或查询隔离舱的线程，对冲请求使用独立的线程池，避免互相等待
+	 */
+	public ChaincodeQueryHedger() {
+		this(createExecutor(BulkheadType.QUERY.getMaxConcurrent(), BulkheadType.QUERY.getQueueCapacity()));
+	}
+	
+	public ChaincodeQueryHedger(ExecutorService executor) {
+		Assert.notNull(executor, "hedge ExecutorService must not be null!");
+		
+		this.executor = executor;
+	}
+	
+	/**
+	 * 对冲执行查询
+	 * @param key 统计耗时的 key：channel_chaincode
+	 * @param peers 可以查询的 peer 节点，按顺序依次发起查询
+	 * @param hedgeDelay 固定对冲延迟(毫秒)
+	 * @param hedgePercentile 对冲延迟取查询耗时的百分位数 0 ~ 100，0 表示使用固定延迟
+	 * @param maxHedges 最多发出的对冲请求数
+	 * @param query 向指定 peer 节点发起查询的操作
+	 * @return 最先返回的有效结果
+	 */
+	public <T> T execute(String key, List<Peer> peers, long hedgeDelay, double hedgePercentile, int maxHedges, Function<Peer, T> query) {
+		Assert.notEmpty(peers, "hedge query peers must not be empty!");
+		
+		queries.increment();
+		
+		LatencyHistogram latency = latencies.computeIfAbsent(key, k -> new LatencyHistogram());
+		long delay = getDelay(latency, hedgeDelay, hedgePercentile);
+		
+		HedgedQuery<T> hedged = new HedgedQuery<>(peers, Math.min(maxHedges + 1, peers.size()), latency, query);
+		hedged.launch();
+		for (int i = 1; i < hedged.attempts; i++) {
+			hedged.schedules.add(SCHEDULER.schedule(() -> {
+				if (!hedged.result.isDone()) {
+					hedged.launch();
+				}
+			}, delay * i, TimeUnit.MILLISECONDS));
+		}
+		
+		try {
+			return hedged.result.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new ChaincodeOperationException(e.getCause(), "hedged query '%s' failed: %s", key, e.getCause().getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ChaincodeOperationException(e, "hedged query '%s' interrupted", key);
+		} finally {
+			hedged.cancel();
+		}
+	}
+	
+	private static ExecutorService createExecutor(int maxConcurrent, int queueCapacity) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity), 
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("chaincode-query-hedge-%d").build());
+		executor.allowCoreThreadTimeOut(true);
+		
+		return executor;
+	}
+	
+	private long getDelay(LatencyHistogram latency, long hedgeDelay, double hedgePercentile) {
+		if (hedgePercentile > 0 && latency.getCount() >= MIN_PERCENTILE_SAMPLES) {
+			return Math.max(1, latency.getPercentile(hedgePercentile));
+		}
+		
+		return hedgeDelay > 0 ? hedgeDelay : DEFAULT_HEDGE_DELAY;
+	}
+	
+	public LatencyHistogram getLatency(String key) {
+		return latencies.get(key);
+	}
+	
+	public long getQueryCount() {
+		return queries.sum();
+	}
+	
+	public long getHedgeCount() {
+		return hedges.sum();
+	}
+	
+	public long getHedgeWinCount() {
+		return hedgeWins.sum();
+	}
+	
+	public void shutdown() {
+		executor.shutdown();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("ChaincodeQueryHedger(queries=%d, hedges=%d, hedgeWins=%d)", getQueryCount(), getHedgeCount(), getHedgeWinCount());
+	}
+	
+	/**
+	 * 单次对冲查询，失败的请求会立即触发下一个对冲请求
+	 */
+	private class HedgedQuery<T> {
+		
+		private final List<Peer> peers;
+		private final int attempts;
+		private final LatencyHistogram latency;
+		private final Function<Peer, T> query;
+		
+		private final CompletableFuture<T> result = new CompletableFuture<>();
+		private final AtomicInteger launched = new AtomicInteger();
+		private final AtomicInteger failed = new AtomicInteger();
+		private final AtomicBoolean answered = new AtomicBoolean();
+		private final List<Future<?>> tasks = new CopyOnWriteArrayList<>();
+		private final List<Future<?>> schedules = new CopyOnWriteArrayList<>();
+		
+		HedgedQuery(List<Peer> peers, int attempts, LatencyHistogram latency, Function<Peer, T> query) {
+			this.peers = peers;
+			this.attempts = attempts;
+			this.latency = latency;
+			this.query = query;
+		}
+		
+		void launch() {
+			int attempt = launched.getAndIncrement();
+			if (attempt >= attempts) {
+				return;
+			}
+			if (attempt > 0) {
+				hedges.increment();
+			}
+			
+			Peer peer = peers.get(attempt);
+			try {
+				tasks.add(executor.submit(() -> {
+					long start = System.nanoTime();
+					try {
+						T value = query.apply(peer);
+						latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+						
+						// 先统计对冲胜出再完成结果，调用方拿到结果时统计已经可见
+						if (answered.compareAndSet(false, true)) {
+							if (attempt > 0) {
+								hedgeWins.increment();
+							}
+							result.complete(value);
+						}
+					} catch (Exception e) {
+						fail(attempt, peer, e);
+					}
+				}));
+			} catch (RejectedExecutionException e) {
+				fail(attempt, peer, new ChaincodeOperationException(e, "hedge executor is saturated, query on peer '%s' rejected", peer.getName()));
+			}
+		}
+		
+		private void fail(int attempt, Peer peer, Exception e) {
+			if (result.isDone()) {
+				return;
+			}
+			
+			log.debug("hedged query attempt {} on peer '{}' failed: {}", attempt, peer.getName(), e.getMessage());
+			if (failed.incrementAndGet() >= attempts) {
+				result.completeExceptionally(e);
+			} else {
+				launch();
+			}
+		}
+		
+		void cancel() {
+			schedules.forEach(schedule -> schedule.cancel(false));
+			tasks.forEach(task -> task.cancel(true));
+		}
+	}
+}
@@ -0,0 +1,178 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.util.Assert;
+
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
+import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Channel;
+import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Proposal;
+
+/**
+ * 无锁令牌桶限流器，按 GCRA 算法只保存下一个令牌的理论到达时间，有令牌时只需一次 CAS
+ * <p>令牌不足时在超时时间内预约令牌并等待，超过超时时间直接失败</p>
+ * @changelog lock-free token bucket (GCRA), single CAS on the fast path, wait-or-fail when permits are exhausted
+ * @author hoojo
+ * @createDate 2019年1月15日 下午2:05:19
+ * @file ChaincodeRateLimiter.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodeRateLimiter {
+
+	/** 每个令牌间隔(纳秒) */
+	private final long interval;
+	/** 允许提前消耗的时间，即突发容量 */
+	private final long tolerance;
+	/** 获取令牌最长等待时间(毫秒)，0 不等待，小于 0 一直等待 */
+	private final long timeout;
+	
+	private final double permitsPerSecond;
+	private final int burst;
+	
+	/** 下一个令牌的理论到达时间 */
+	private final AtomicLong arrival = new AtomicLong(System.nanoTime());
+	
+	private final LongAdder acquired = new LongAdder();
+	private final LongAdder waited = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	
+	public ChaincodeRateLimiter(double permitsPerSecond, int burst, long timeout) {
+		Assert.isTrue(permitsPerSecond > 0, "permitsPerSecond must be greater than 0!");
+		
+		this.permitsPerSecond = permitsPerSecond;
+		this.burst = Math.max(1, burst);
+		this.interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+		this.tolerance = (this.burst - 1) * interval;
+		this.timeout = timeout;
+	}
+	
+	/**
+	 * 限流配置无效(permitsPerSecond <= 0)时返回 null
+	 */
+	public static ChaincodeRateLimiter of(double permitsPerSecond, int burst, long timeout) {
+		return permitsPerSecond > 0 ? new ChaincodeRateLimiter(permitsPerSecond, burst, timeout) : null;
+	}
+	
+	/**
+	 * 根据 repository 的 {@link Channel} 或 {@link io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Chaincode} 配置创建限流器
+	 */
+	public static ChaincodeRateLimiter of(Channel channel) {
+		return channel == null ? null : of(channel.permitsPerSecond(), channel.burst(), channel.acquireTimeout());
+	}
+	
+	/**
+	 * 根据方法上 {@link Proposal} 的配置创建限流器
+	 */
+	public static ChaincodeRateLimiter of(Proposal proposal) {
+		return proposal == null ? null : of(proposal.permitsPerSecond(), proposal.burst(), proposal.acquireTimeout());
+	}
+	
+	/**
+	 * 获取令牌，超时仍无令牌时抛出异常
+	 */
+	public void acquire() {
+		acquire(1);
+	}
+	
+	/**
+	 * 一次获取多个令牌，如批量查询按键数计费；超过突发容量的令牌数需要等待补充
+	 */
+	public void acquire(int permits) {
+		Assert.isTrue(permits > 0, "permits must be greater than 0!");
+		
+		long wait = reserve(permits);
+		if (wait < 0) {
+			rejected.increment();
+			throw new ChaincodeOperationException("rate limit exceeded: %s permits/s, burst %s, no %s within %sms", permitsPerSecond, burst, permits == 1 ? "permit" : permits + " permits", timeout);
+		}
+		
+		acquired.add(permits);
+		if (wait > 0) {
+			waited.increment();
+			
+			long deadline = System.nanoTime() + wait;
+			for (long remaining = wait; remaining > 0; remaining = deadline - System.nanoTime()) {
+				LockSupport.parkNanos(this, remaining);
+				if (Thread.interrupted()) {
+					Thread.currentThread().interrupt();
+					throw new ChaincodeOperationException("rate limit wait interrupted");
+				}
+			}
+		}
+	}
+	
+	/**
+	 * 尝试立即获取令牌
+	 */
+	public boolean tryAcquire() {
+		while (true) {
+			long now = System.nanoTime();
+			long tat = arrival.get();
+			long start = Math.max(tat, now);
+			
+			if (start - now > tolerance) {
+				rejected.increment();
+				return false;
+			}
+			if (arrival.compareAndSet(tat, start + interval)) {
+				acquired.increment();
+				return true;
+			}
+		}
+	}
+	
+	// 预约令牌，返回需要等待的纳秒数，超过超时时间返回 -1
+	private long reserve(int permits) {
+		long maxWait = timeout < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(timeout);
+		
+		while (true) {
+			long now = System.nanoTime();
+			long tat = arrival.get();
+			long start = Math.max(tat, now);
+			long wait = Math.max(0, start + (permits - 1) * interval - now - tolerance);
+			
+			if (wait > maxWait) {
+				return -1;
+			}
+			if (arrival.compareAndSet(tat, start + permits * interval)) {
+				return wait;
+			}
+		}
+	}
+	
+	public double getPermitsPerSecond() {
+		return permitsPerSecond;
+	}
+	
+	public int getBurst() {
+		return burst;
+	}
+	
+	public long getTimeout() {
+		return timeout;
+	}
+	
+	public long getAcquiredCount() {
+		return acquired.sum();
+	}
+	
+	public long getWaitedCount() {
+		return waited.sum();
+	}
+	
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("ChaincodeRateLimiter(permitsPerSecond=%s, burst=%d, timeout=%dms, acquired=%d, waited=%d, rejected=%d)", permitsPerSecond, burst, timeout, getAcquiredCount(), getWaitedCount(), getRejectedCount());
+	}
+}
@@ -0,0 +1,143 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.hyperledger.fabric.protos.common.Common.Block;
+import org.hyperledger.fabric.protos.common.Common.ChannelHeader;
+import org.hyperledger.fabric.protos.common.Common.Envelope;
+import org.hyperledger.fabric.protos.common.Common.HeaderType;
+import org.hyperledger.fabric.protos.common.Common.Payload;
+import org.hyperledger.fabric.protos.ledger.rwset.Rwset.CollectionHashedReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.Rwset.NsReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.Rwset.TxReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KvRwset.HashedRWSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KvRwset.KVRWSet;
+import org.hyperledger.fabric.protos.peer.FabricProposal.ChaincodeAction;
+import org.hyperledger.fabric.protos.peer.FabricProposalResponse.ProposalResponsePayload;
+import org.hyperledger.fabric.protos.peer.FabricTransaction.ChaincodeActionPayload;
+import org.hyperledger.fabric.protos.peer.FabricTransaction.Transaction;
+import org.hyperledger.fabric.protos.peer.FabricTransaction.TransactionAction;
+import org.hyperledger.fabric.sdk.BlockEvent;
+import org.hyperledger.fabric.sdk.ProposalResponse;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.BaseEncoding;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 读写集解析工具，将背书结果的读集和已提交交易的写集解析为账本键
+ * <p>公有数据账本键为 namespace/key，私有数据为 namespace/collection#keyHash</p>
+ * @changelog parse endorsement read sets and committed write sets into ledger keys
+ * @author hoojo
+ * @createDate 2019年1月25日 上午10:14:22
+ * @file ChaincodeReadWriteSets.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Slf4j
+public abstract class ChaincodeReadWriteSets {
+
+	/**
+	 * 账本键：namespace/key
+	 */
+	public static String ledgerKey(String namespace, String key) {
+		return namespace + "/" + key;
+	}
+	
+	/**
+	 * 背书结果读取的账本键；读集无法完整描述查询依赖时返回 null：
+	 * 包含范围查询(结果集随键的增删变化)，或者没有任何读取(CouchDB 富查询不记录读集)
+	 */
+	public static Set<String> getReadKeys(ProposalResponse response) {
+		try {
+			return getReadKeys(response.getProposalResponse().getPayload());
+		} catch (InvalidProtocolBufferException e) {
+			log.warn("transaction '{}' read set parse failed: {}", response.getTransactionID(), e.getMessage());
+			return null;
+		}
+	}
+	
+	static Set<String> getReadKeys(ByteString proposalResponsePayload) throws InvalidProtocolBufferException {
+		Set<String> keys = Sets.newHashSet();
+		
+		for (NsReadWriteSet namespace : parse(proposalResponsePayload).getNsRwsetList()) {
+			KVRWSet rwset = KVRWSet.parseFrom(namespace.getRwset());
+			if (rwset.getRangeQueriesInfoCount() > 0) {
+				return null;
+			}
+			rwset.getReadsList().forEach(read -> keys.add(ledgerKey(namespace.getNamespace(), read.getKey())));
+			
+			for (CollectionHashedReadWriteSet collection : namespace.getCollectionHashedRwsetList()) {
+				HashedRWSet hashed = HashedRWSet.parseFrom(collection.getHashedRwset());
+				hashed.getHashedReadsList().forEach(read -> keys.add(hashedKey(namespace.getNamespace(), collection.getCollectionName(), read.getKeyHash())));
+			}
+		}
+		
+		return keys.isEmpty() ? null : keys;
+	}
+	
+	/**
+	 * 区块中各交易写入的账本键：交易ID -> 账本键，不区分交易是否有效
+	 * <p>从原始区块解析背书结果，SDK 的 TransactionActionInfo.getProposalResponsePayload 返回的是 chaincode 响应内容，不包含读写集；
+	 * 过滤区块(filtered block)不包含读写集，返回空结果</p>
+	 */
+	public static Map<String, Set<String>> getWriteKeys(BlockEvent blockEvent) {
+		Map<String, Set<String>> writes = Maps.newHashMap();
+		
+		Block block = blockEvent.getBlock();
+		if (block == null) {
+			log.debug("filtered block '{}' has no write sets", blockEvent.getBlockNumber());
+			return writes;
+		}
+		
+		for (ByteString data : block.getData().getDataList()) {
+			try {
+				Payload payload = Payload.parseFrom(Envelope.parseFrom(data).getPayload());
+				ChannelHeader header = ChannelHeader.parseFrom(payload.getHeader().getChannelHeader());
+				if (header.getType() != HeaderType.ENDORSER_TRANSACTION_VALUE) {
+					continue;
+				}
+				
+				Set<String> keys = writes.computeIfAbsent(header.getTxId(), txId -> Sets.newHashSet());
+				for (TransactionAction action : Transaction.parseFrom(payload.getData()).getActionsList()) {
+					ChaincodeActionPayload actionPayload = ChaincodeActionPayload.parseFrom(action.getPayload());
+					
+					for (NsReadWriteSet namespace : parse(actionPayload.getAction().getProposalResponsePayload()).getNsRwsetList()) {
+						KVRWSet rwset = KVRWSet.parseFrom(namespace.getRwset());
+						rwset.getWritesList().forEach(write -> keys.add(ledgerKey(namespace.getNamespace(), write.getKey())));
+						rwset.getMetadataWritesList().forEach(write -> keys.add(ledgerKey(namespace.getNamespace(), write.getKey())));
+						
+						for (CollectionHashedReadWriteSet collection : namespace.getCollectionHashedRwsetList()) {
+							HashedRWSet hashed = HashedRWSet.parseFrom(collection.getHashedRwset());
+							hashed.getHashedWritesList().forEach(write -> keys.add(hashedKey(namespace.getNamespace(), collection.getCollectionName(), write.getKeyHash())));
+							hashed.getMetadataWritesList().forEach(write -> keys.add(hashedKey(namespace.getNamespace(), collection.getCollectionName(), write.getKeyHash())));
+						}
+					}
+				}
+			} catch (InvalidProtocolBufferException e) {
+				log.warn("block '{}' write set parse failed: {}", blockEvent.getBlockNumber(), e.getMessage());
+			}
+		}
+		
+		return writes;
+	}
+	
+	private static TxReadWriteSet parse(ByteString proposalResponsePayload) throws InvalidProtocolBufferException {
+		ProposalResponsePayload payload = ProposalResponsePayload.parseFrom(proposalResponsePayload);
+		ChaincodeAction action = ChaincodeAction.parseFrom(payload.getExtension());
+		
+		return TxReadWriteSet.parseFrom(action.getResults());
+	}
+	
+	private static String hashedKey(String namespace, String collection, ByteString keyHash) {
+		return namespace + "/" + collection + "#" + BaseEncoding.base16().lowerCase().encode(keyHash.toByteArray());
+	}
+}
@@ -0,0 +1,236 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.hyperledger.fabric.protos.peer.FabricTransaction.TxValidationCode;
+import org.hyperledger.fabric.sdk.BlockEvent.TransactionEvent;
+import org.hyperledger.fabric.sdk.exception.TransactionEventException;
+import org.springframework.util.Assert;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
+import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Transaction;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 交易提交验证失败(如 MVCC_READ_CONFLICT)时的重试策略，每次重试重新背书并提交，重试间隔按指数退避并附加随机抖动
+ * @changelog retry policy for commit validation failures, re-endorse and resubmit with jittered exponential backoff
+ * @author hoojo
+ * @createDate 2019年1月10日 上午10:05:33
+ * @file ChaincodeRetryPolicy.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Slf4j
+public class ChaincodeRetryPolicy {
+
+	private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setDaemon(true).setNameFormat("chaincode-retry-%d").build());
+	
+	/** 最大尝试次数，包含第一次提交 */
+	@Getter
+	private final int maxAttempts;
+	/** 首次重试等待时间(毫秒) */
+	@Getter
+	private final long backoff;
+	/** 最大重试等待时间(毫秒) */
+	@Getter
+	private final long maxBackoff;
+	/** 随机抖动比例 0 ~ 1 */
+	@Getter
+	private final double jitter;
+	/** 需要重试的交易验证码 */
+	@Getter
+	private final Set<TxValidationCode> retryOn;
+	
+	private final LongAdder attempts = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+	private final LongAdder recovered = new LongAdder();
+	private final LongAdder exhausted = new LongAdder();
+	
+	public ChaincodeRetryPolicy(int maxAttempts, long backoff, long maxBackoff, double jitter, TxValidationCode... retryOn) {
+		Assert.isTrue(maxAttempts > 0, "maxAttempts must be greater than 0!");
+		Assert.isTrue(backoff >= 0 && maxBackoff >= backoff, "backoff must be between 0 and maxBackoff!");
+		Assert.isTrue(jitter >= 0 && jitter <= 1, "jitter must be between 0 and 1!");
+		Assert.notEmpty(retryOn, "retryOn validation codes must not be empty!");
+		
+		this.maxAttempts = maxAttempts;
+		this.backoff = backoff;
+		this.maxBackoff = maxBackoff;
+		this.jitter = jitter;
+		this.retryOn = Arrays.stream(retryOn).collect(Collectors.toSet());
+	}
+	
+	public static ChaincodeRetryPolicy of(Transaction transaction) {
+		if (transaction == null || transaction.maxAttempts() <= 1) {
+			return null;
+		}
+		
+		return new ChaincodeRetryPolicy(transaction.maxAttempts(), transaction.backoff(), transaction.maxBackoff(), transaction.jitter(), transaction.retryOn());
+	}
+	
+	/**
+	 * 异常链中是否包含可重试的交易验证失败
+	 */
+	public boolean isRetryable(Throwable error) {
+		for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+			if (cause instanceof TransactionEventException) {
+				TransactionEvent event = ((TransactionEventException) cause).getTransactionEvent();
+				return event != null && retryOn.contains(TxValidationCode.forNumber(event.getValidationCode()));
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * 第 attempt 次失败后的等待时间(毫秒)
+	 */
+	public long getDelay(int attempt) {
+		long delay = Math.min(maxBackoff, backoff << Math.min(30, attempt - 1));
+		if (jitter == 0 || delay == 0) {
+			return delay;
+		}
+		
+		long spread = (long) (delay * jitter);
+		return delay - spread + ThreadLocalRandom.current().nextLong(spread * 2 + 1);
+	}
+	
+	/**
+	 * 同步执行交易，可重试的失败会重新背书提交
+	 * @param invoker 交易操作，每次调用都会生成新的交易提案
+	 * @param listener 重试回调，参数为已重试次数
+	 */
+	public <T> T execute(Supplier<T> invoker, RetryListener listener) {
+		for (int attempt = 1; ; attempt++) {
+			attempts.increment();
+			try {
+				T result = invoker.get();
+				if (attempt > 1) {
+					recovered.increment();
+				}
+				return result;
+			} catch (RuntimeException e) {
+				if (!isRetryable(e)) {
+					throw e;
+				}
+				if (attempt >= maxAttempts) {
+					exhausted.increment();
+					throw e;
+				}
+				
+				long delay = getDelay(attempt);
+				log.warn("transaction validation conflict, retry {}/{} after {}ms: {}", attempt, maxAttempts - 1, delay, e.getMessage());
+				
+				retries.increment();
+				listener.retried(attempt);
+				sleep(delay);
+			}
+		}
+	}
+	
+	/**
+	 * 异步执行交易，可重试的失败在退避时间后重新背书提交
+	 * @param invoker 交易操作，每次调用都会生成新的交易提案
+	 * @param listener 重试回调，参数为已重试次数
+	 */
+	public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> invoker, RetryListener listener) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		executeAsync(invoker, listener, result, 1);
+		
+		return result;
+	}
+	
+	private <T> void executeAsync(Supplier<CompletableFuture<T>> invoker, RetryListener listener, CompletableFuture<T> result, int attempt) {
+		attempts.increment();
+		
+		CompletableFuture<T> future;
+		try {
+			future = invoker.get();
+		} catch (Exception e) {
+			future = new CompletableFuture<>();
+			future.completeExceptionally(e);
+		}
+		
+		future.whenComplete((value, error) -> {
+			if (error == null) {
+				if (attempt > 1) {
+					recovered.increment();
+				}
+				result.complete(value);
+				return;
+			}
+			
+			Throwable cause = error instanceof CompletionException || error instanceof ExecutionException ? error.getCause() : error;
+			if (!isRetryable(cause)) {
+				result.completeExceptionally(cause);
+				return;
+			}
+			if (attempt >= maxAttempts) {
+				exhausted.increment();
+				result.completeExceptionally(cause);
+				return;
+			}
+			
+			long delay = getDelay(attempt);
+			log.warn("transaction validation conflict, retry {}/{} after {}ms: {}", attempt, maxAttempts - 1, delay, cause.getMessage());
+			
+			retries.increment();
+			listener.retried(attempt);
+			SCHEDULER.schedule(() -> executeAsync(invoker, listener, result, attempt + 1), delay, TimeUnit.MILLISECONDS);
+		});
+	}
+	
+	private void sleep(long delay) {
+		try {
+			TimeUnit.MILLISECONDS.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ChaincodeOperationException(e, "transaction retry interrupted");
+		}
+	}
+	
+	public long getAttemptCount() {
+		return attempts.sum();
+	}
+	
+	public long getRetryCount() {
+		return retries.sum();
+	}
+	
+	public long getRecoveredCount() {
+		return recovered.sum();
+	}
+	
+	public long getExhaustedCount() {
+		return exhausted.sum();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("ChaincodeRetryPolicy(maxAttempts=%d, backoff=%dms, maxBackoff=%dms, jitter=%s, retryOn=%s, attempts=%d, retries=%d, recovered=%d, exhausted=%d)", maxAttempts, backoff, maxBackoff, jitter, retryOn, getAttemptCount(), getRetryCount(), getRecoveredCount(), getExhaustedCount());
+	}
+	
+	/**
+	 * 重试回调
+	 */
+	@FunctionalInterface
+	public interface RetryListener {
+		
+		void retried(int retries);
+	}
+}
@@ -4,23 +4,42 @@ import static com.google.common.base.Preconditions.checkState;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.StringUtils;
 import org.hyperledger.fabric.sdk.BlockEvent.TransactionEvent;
+import org.hyperledger.fabric.sdk.Channel;
 import org.hyperledger.fabric.sdk.ProposalResponse;
+import org.hyperledger.fabric.sdk.exception.TransactionEventException;
 import org.springframework.util.Assert;
 
 import io.github.hooj0.fabric.sdk.commons.config.FabricConfiguration;
+import io.github.hooj0.fabric.sdk.commons.core.ChaincodeTransactionOperations;
 import io.github.hooj0.fabric.sdk.commons.core.execution.result.ResultSet;
 import io.github.hooj0.fabric.sdk.commons.store.FabricKeyValueStore;
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
 import io.github.hooj0.springdata.fabric.chaincode.core.convert.ChaincodeConverter;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.InstallCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.InstantiateCriteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.InvocationSpec;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.InvokeCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.QueryCriteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.ScatterGatherCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.UpgradeCriteria;
+import io.github.hooj0.springdata.fabric.chaincode.enums.BulkheadType;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -54,8 +73,16 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		log.debug("chaincode template exec invoke, criteria: {}, func: {}", criteria, func);
 		
 		afterCriteriaSet(criteria);
+		checkSkipReadOnly(criteria, "invoke");
+		InvokeCriteria committed = applyCommitMode(criteria);
+
+		if (isEndorsementPlanned(criteria)) {
+			return plannedInvoke(criteria, plannedInvoker(criteria, committed, func));
+		}
+		
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
 
-		return createTransactionOperations(criteria.getCriteria()).invoke(criteria, func);
+		return scheduleInvoke(criteria, () -> retryInvoke(criteria, () -> submitInvokeAndWait(criteria.getCriteria(), () -> isolate(criteria.getCriteria(), BulkheadType.INVOKE, () -> operations.invoke(applyCircuitBreakers(committed), func)))));
 	}
 
 	@Override
@@ -63,8 +90,16 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		log.debug("chaincode template exec invoke, criteria: {}, func: {}, args: {}", criteria, func, args);
 		
 		afterCriteriaSet(criteria);
+		checkSkipReadOnly(criteria, "invoke");
+		InvokeCriteria committed = applyCommitMode(criteria);
 		
-		return createTransactionOperations(criteria.getCriteria()).invoke(criteria, func, args);
+		if (isEndorsementPlanned(criteria)) {
+			return plannedInvoke(criteria, plannedInvoker(criteria, committed, func, args));
+		}
+		
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
+
+		return scheduleInvoke(criteria, () -> retryInvoke(criteria, () -> submitInvokeAndWait(criteria.getCriteria(), () -> isolate(criteria.getCriteria(), BulkheadType.INVOKE, () -> operations.invoke(applyCircuitBreakers(committed), func, args)))));
 	}
 
 	@Override
@@ -72,8 +107,16 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		log.debug("chaincode template exec invoke, criteria: {}, func: {}, args: {}", criteria, func, args);
 		
 		afterCriteriaSet(criteria);
+		checkSkipReadOnly(criteria, "invoke");
+		InvokeCriteria committed = applyCommitMode(criteria);
 
-		return createTransactionOperations(criteria.getCriteria()).invoke(criteria, func, args);
+		if (isEndorsementPlanned(criteria)) {
+			return plannedInvoke(criteria, plannedInvoker(criteria, committed, func, args));
+		}
+		
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
+
+		return scheduleInvoke(criteria, () -> retryInvoke(criteria, () -> submitInvokeAndWait(criteria.getCriteria(), () -> isolate(criteria.getCriteria(), BulkheadType.INVOKE, () -> operations.invoke(applyCircuitBreakers(committed), func, args)))));
 	}
 
 	@Override
@@ -81,8 +124,17 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		log.debug("chaincode template exec invokeAsync, criteria: {}, func: {}", criteria, func);
 		
 		afterCriteriaSet(criteria);
+		checkSkipReadOnly(criteria, "invokeAsync");
+		checkCommitEvent(criteria, "invokeAsync");
+		InvokeCriteria committed = applyCommitMode(criteria);
 
-		return createTransactionOperations(criteria.getCriteria()).invokeAsync(criteria, func);
+		if (isEndorsementPlanned(criteria)) {
+			return plannedInvokeAsync(criteria, plannedInvoker(criteria, committed, func));
+		}
+		
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
+		
+		return invokeAsync(criteria, tracked -> operations.invoke(tracked, func), () -> operations.invokeAsync(applyCircuitBreakers(committed), func));
 	}
 
 	@Override
@@ -90,8 +142,17 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		log.debug("chaincode template exec invokeAsync, criteria: {}, func: {}, args: {}", criteria, func, args);
 		
 		afterCriteriaSet(criteria);
+		checkSkipReadOnly(criteria, "invokeAsync");
+		checkCommitEvent(criteria, "invokeAsync");
+		InvokeCriteria committed = applyCommitMode(criteria);
 
-		return createTransactionOperations(criteria.getCriteria()).invokeAsync(criteria, func, args);
+		if (isEndorsementPlanned(criteria)) {
+			return plannedInvokeAsync(criteria, plannedInvoker(criteria, committed, func, args));
+		}
+		
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
+		
+		return invokeAsync(criteria, tracked -> operations.invoke(tracked, func, args), () -> operations.invokeAsync(applyCircuitBreakers(committed), func, args));
 	}
 
 	@Override
@@ -99,8 +160,17 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		log.debug("chaincode template exec invokeAsync, criteria: {}, func: {}, args: {}", criteria, func, args);
 		
 		afterCriteriaSet(criteria);
+		checkSkipReadOnly(criteria, "invokeAsync");
+		checkCommitEvent(criteria, "invokeAsync");
+		InvokeCriteria committed = applyCommitMode(criteria);
 
-		return createTransactionOperations(criteria.getCriteria()).invokeAsync(criteria, func, args);
+		if (isEndorsementPlanned(criteria)) {
+			return plannedInvokeAsync(criteria, plannedInvoker(criteria, committed, func, args));
+		}
+		
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
+		
+		return invokeAsync(criteria, tracked -> operations.invoke(tracked, func, args), () -> operations.invokeAsync(applyCircuitBreakers(committed), func, args));
 	}
 
 	@Override
@@ -108,8 +178,17 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		log.debug("chaincode template exec invokeFor, criteria: {}, func: {}", criteria, func);
 		
 		afterCriteriaSet(criteria);
+		checkSkipReadOnly(criteria, "invokeFor");
+		checkCommitEvent(criteria, "invokeFor");
+		InvokeCriteria committed = applyCommitMode(criteria);
+
+		if (isEndorsementPlanned(criteria)) {
+			return plannedInvokeFor(criteria, plannedInvoker(criteria, committed, func));
+		}
+		
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
 
-		return createTransactionOperations(criteria.getCriteria()).invokeFor(criteria, func);
+		return invokeFor(criteria, tracked -> operations.invoke(tracked, func), () -> operations.invokeFor(applyCircuitBreakers(committed), func));
 	}
 
 	@Override
@@ -117,8 +196,17 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		log.debug("chaincode template exec invokeFor, criteria: {}, func: {}, args: {}", criteria, func, args);
 		
 		afterCriteriaSet(criteria);
+		checkSkipReadOnly(criteria, "invokeFor");
+		checkCommitEvent(criteria, "invokeFor");
+		InvokeCriteria committed = applyCommitMode(criteria);
+
+		if (isEndorsementPlanned(criteria)) {
+			return plannedInvokeFor(criteria, plannedInvoker(criteria, committed, func, args));
+		}
+		
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
 
-		return createTransactionOperations(criteria.getCriteria()).invokeFor(criteria, func, args);
+		return invokeFor(criteria, tracked -> operations.invoke(tracked, func, args), () -> operations.invokeFor(applyCircuitBreakers(committed), func, args));
 	}
 
 	@Override
@@ -126,8 +214,146 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		log.debug("chaincode template exec invokeFor, criteria: {}, func: {}, args: {}", criteria, func, args);
 		
 		afterCriteriaSet(criteria);
+		checkSkipReadOnly(criteria, "invokeFor");
+		checkCommitEvent(criteria, "invokeFor");
+		InvokeCriteria committed = applyCommitMode(criteria);
 
-		return createTransactionOperations(criteria.getCriteria()).invokeFor(criteria, func, args);
+		if (isEndorsementPlanned(criteria)) {
+			return plannedInvokeFor(criteria, plannedInvoker(criteria, committed, func, args));
+		}
+		
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
+
+		return invokeFor(criteria, tracked -> operations.invoke(tracked, func, args), () -> operations.invokeFor(applyCircuitBreakers(committed), func, args));
+	}
+
+	/**
+	 * 配置了背书规划时由模板背书和发送交易，只向满足背书策略的 peer 节点发送交易提议；invoke 系列操作总是发送排序，交易提交通过交易事件等待
+	 */
+	private Supplier<CompletableFuture<InvokeResult>> plannedInvoker(InvokeCriteria criteria, InvokeCriteria committed, String func, Object... args) {
+		Channel channel = getChaincodeDeployOperations(criteria.getCriteria()).getChannel();
+		AtomicInteger attempts = new AtomicInteger();
+		
+		return () -> submitTransaction(channel, committed, attempts.incrementAndGet(), false, func, args);
+	}
+	
+	private ResultSet plannedInvoke(InvokeCriteria criteria, Supplier<CompletableFuture<InvokeResult>> invoker) {
+		return new InvokeResultSet(scheduleInvoke(criteria, () -> retryInvoke(criteria, () -> awaitCommit(criteria, executeInvoke(criteria.getCriteria(), () -> isolateAsync(criteria.getCriteria(), BulkheadType.INVOKE, invoker))))));
+	}
+	
+	private CompletableFuture<TransactionEvent> plannedInvokeAsync(InvokeCriteria criteria, Supplier<CompletableFuture<InvokeResult>> invoker) {
+		return scheduleInvokeAsync(criteria, () -> retryInvokeAsync(criteria, () -> submitInvoke(criteria.getCriteria(), () -> isolateAsync(criteria.getCriteria(), BulkheadType.INVOKE, () -> invoker.get().thenCompose(InvokeResult::getCommitFuture)))));
+	}
+	
+	private TransactionEvent plannedInvokeFor(InvokeCriteria criteria, Supplier<CompletableFuture<InvokeResult>> invoker) {
+		return scheduleInvoke(criteria, () -> retryInvoke(criteria, () -> awaitCommit(criteria, executeInvoke(criteria.getCriteria(), () -> isolateAsync(criteria.getCriteria(), BulkheadType.INVOKE, () -> invoker.get().thenCompose(InvokeResult::getCommitFuture))))));
+	}
+
+	private CompletableFuture<TransactionEvent> invokeAsync(InvokeCriteria criteria, Function<InvokeCriteria, ResultSet> invoker, Supplier<CompletableFuture<TransactionEvent>> asyncInvoker) {
+		return scheduleInvokeAsync(criteria, () -> retryInvokeAsync(criteria, () -> submitInvoke(criteria.getCriteria(), () -> isolateAsync(criteria.getCriteria(), BulkheadType.INVOKE, () -> commitTracking ? trackCommit(criteria, invoker) : asyncInvoker.get()))));
+	}
+	
+	private TransactionEvent invokeFor(InvokeCriteria criteria, Function<InvokeCriteria, ResultSet> invoker, Supplier<TransactionEvent> syncInvoker) {
+		if (commitTracking) {
+			return scheduleInvoke(criteria, () -> retryInvoke(criteria, () -> awaitCommit(criteria, executeInvoke(criteria.getCriteria(), () -> isolateAsync(criteria.getCriteria(), BulkheadType.INVOKE, () -> trackCommit(criteria, invoker))))));
+		}
+		
+		return scheduleInvoke(criteria, () -> retryInvoke(criteria, () -> submitInvokeAndWait(criteria.getCriteria(), () -> isolate(criteria.getCriteria(), BulkheadType.INVOKE, syncInvoker))));
+	}
+
+	@Override
+	public BatchInvokeResult invokeBatch(InvokeCriteria criteria, List<InvocationSpec> invocations) {
+		log.debug("chaincode template exec invokeBatch, criteria: {}, invocations: {}", criteria, invocations.size());
+		
+		afterCriteriaSet(criteria);
+		checkSkipReadOnly(criteria, "invokeBatch");
+		checkCommitEvent(criteria, "invokeBatch");
+		
+		long start = System.currentTimeMillis();
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
+		ChaincodeInvokePipeline pipeline = getBatchInvokePipeline();
+		InvokeCriteria committed = applyCommitMode(criteria);
+		boolean planned = isEndorsementPlanned(criteria);
+		
+		List<CompletableFuture<BatchInvokeResult.Item>> futures = new ArrayList<>(invocations.size());
+		List<AtomicInteger> attemptCounts = new ArrayList<>(invocations.size());
+		for (int i = 0; i < invocations.size(); i++) {
+			final int index = i;
+			final InvocationSpec invocation = invocations.get(i);
+			
+			Function<InvokeCriteria, ResultSet> invoker = tracked -> operations.invoke(tracked, invocation.getFunc(), invocation.getArgs());
+			Supplier<CompletableFuture<InvokeResult>> plannedInvoker = planned ? plannedInvoker(criteria, committed, invocation.getFunc(), invocation.getArgs()) : null;
+			Supplier<CompletableFuture<TransactionEvent>> asyncInvoker = planned ? () -> plannedInvoker.get().thenCompose(InvokeResult::getCommitFuture) : () -> operations.invokeAsync(applyCircuitBreakers(committed), invocation.getFunc(), invocation.getArgs());
+			
+			// 批次内的交易共用交易条件，尝试次数按每笔交易单独统计
+			AtomicInteger attempts = new AtomicInteger();
+			attemptCounts.add(attempts);
+			
+			CompletableFuture<TransactionEvent> future = retryInvokeAsync(criteria, () -> {
+				attempts.incrementAndGet();
+				return pipeline.submit(criteria.getCriteria(), () -> isolateAsync(criteria.getCriteria(), BulkheadType.INVOKE, () -> commitTracking && !planned ? trackCommit(criteria, invoker) : asyncInvoker.get()));
+			});
+			futures.add(future.handle((event, error) -> {
+				if (error == null) {
+					return new BatchInvokeResult.Item(index, invocation, event.getTransactionID(), event.isValid(), null, attempts.get());
+				}
+				
+				Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+				String transactionId = cause instanceof TransactionEventException && ((TransactionEventException) cause).getTransactionEvent() != null ? ((TransactionEventException) cause).getTransactionEvent().getTransactionID() : null;
+				
+				log.warn("chaincode batch invoke item {} '{}' failed: {}", index, invocation.getFunc(), cause.getMessage());
+				return new BatchInvokeResult.Item(index, invocation, transactionId, false, cause, attempts.get());
+			}));
+		}
+		
+		awaitBatch(criteria, futures);
+		
+		List<BatchInvokeResult.Item> items = new ArrayList<>(futures.size());
+		for (int i = 0; i < futures.size(); i++) {
+			CompletableFuture<BatchInvokeResult.Item> future = futures.get(i);
+			if (future.isDone()) {
+				items.add(future.join());
+			} else {
+				items.add(new BatchInvokeResult.Item(i, invocations.get(i), null, false, new ChaincodeOperationException("batch invoke item %s wait timeout: %ss", i, criteria.getTransactionWaitTime()), attemptCounts.get(i).get()));
+			}
+		}
+		return new BatchInvokeResult(items, System.currentTimeMillis() - start);
+	}
+	
+	/**
+	 * 等待批量交易完成，transactionWaitTime 大于 0 时整批最多等待 transactionWaitTime 秒，超时未完成的交易按失败返回
+	 */
+	private void awaitBatch(InvokeCriteria criteria, List<CompletableFuture<BatchInvokeResult.Item>> futures) {
+		CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
+		if (criteria.getTransactionWaitTime() <= 0) {
+			all.join();
+			return;
+		}
+		
+		try {
+			all.get(criteria.getTransactionWaitTime(), TimeUnit.SECONDS);
+		} catch (TimeoutException e) {
+			log.warn("chaincode batch invoke wait timeout: {}s, unfinished: {}", criteria.getTransactionWaitTime(), futures.stream().filter(future -> !future.isDone()).count());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.warn("chaincode batch invoke wait interrupted");
+		} catch (ExecutionException e) {
+			// 每个交易的异常已经转换为失败结果，不会出现
+			log.warn("chaincode batch invoke failed: {}", e.getMessage());
+		}
+	}
+
+	@Override
+	public InvokeResult submit(InvokeCriteria criteria, String func, Object... args) {
+		log.debug("chaincode template exec submit, criteria: {}, func: {}, args: {}", criteria, func, args);
+		
+		afterCriteriaSet(criteria);
+		
+		Channel channel = getChaincodeDeployOperations(criteria.getCriteria()).getChannel();
+		AtomicInteger attempts = new AtomicInteger();
+		InvokeCriteria committed = applyCommitMode(criteria);
+		
+		return scheduleInvoke(criteria, () -> retryInvoke(criteria, () -> awaitCommit(criteria, executeInvoke(criteria.getCriteria(), () -> isolateAsync(criteria.getCriteria(), BulkheadType.INVOKE, () -> submitTransaction(channel, committed, attempts.incrementAndGet(), func, args))))));
 	}
 
 	@Override
@@ -136,7 +362,9 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createTransactionOperations(criteria.getCriteria()).query(criteria, func);
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
+
+		return isolate(criteria.getCriteria(), BulkheadType.QUERY, () -> routeQuery(criteria, routed -> operations.query(routed, func)));
 	}
 
 	@Override
@@ -145,7 +373,9 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createTransactionOperations(criteria.getCriteria()).query(criteria, func, args);
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
+
+		return isolate(criteria.getCriteria(), BulkheadType.QUERY, () -> routeQuery(criteria, routed -> operations.query(routed, func, args)));
 	}
 
 	@Override
@@ -154,7 +384,9 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createTransactionOperations(criteria.getCriteria()).query(criteria, func, args);
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
+
+		return isolate(criteria.getCriteria(), BulkheadType.QUERY, () -> routeQuery(criteria, routed -> operations.query(routed, func, args)));
 	}
 
 	@Override
@@ -162,8 +394,10 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		log.debug("chaincode template exec queryFor, criteria: {}, func: {}", criteria, func);
 		
 		afterCriteriaSet(criteria);
+		
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
 
-		return createTransactionOperations(criteria.getCriteria()).queryFor(criteria, func);
+		return isolate(criteria.getCriteria(), BulkheadType.QUERY, () -> routeQuery(criteria, routed -> operations.queryFor(routed, func)));
 	}
 
 	@Override
@@ -171,8 +405,10 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		log.debug("chaincode template exec queryFor, criteria: {}, func: {}, args: {}", criteria, func, args);
 		
 		afterCriteriaSet(criteria);
+		
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
 
-		return createTransactionOperations(criteria.getCriteria()).queryFor(criteria, func, args);
+		return isolate(criteria.getCriteria(), BulkheadType.QUERY, () -> routeQuery(criteria, routed -> operations.queryFor(routed, func, args)));
 	}
 
 	@Override
@@ -180,8 +416,81 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		log.debug("chaincode template exec queryFor, criteria: {}, func: {}, args: {}", criteria, func, args);
 		
 		afterCriteriaSet(criteria);
+		
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
+
+		return isolate(criteria.getCriteria(), BulkheadType.QUERY, () -> routeQuery(criteria, routed -> operations.queryFor(routed, func, args)));
+	}
+
+	@Override
+	public CompletableFuture<ResultSet> queryAsync(QueryCriteria criteria, String func) {
+		log.debug("chaincode template exec queryAsync, criteria: {}, func: {}", criteria, func);
+		
+		afterCriteriaSet(criteria);
+		
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
+		
+		return queryAsync(criteria.getCriteria(), () -> routeQuery(criteria, routed -> operations.queryFor(routed, func)));
+	}
+
+	@Override
+	public CompletableFuture<ResultSet> queryAsync(QueryCriteria criteria, String func, Object... args) {
+		log.debug("chaincode template exec queryAsync, criteria: {}, func: {}, args: {}", criteria, func, args);
+		
+		afterCriteriaSet(criteria);
+		
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
+		
+		return queryAsync(criteria.getCriteria(), () -> routeQuery(criteria, routed -> operations.queryFor(routed, func, args)));
+	}
+
+	@Override
+	public CompletableFuture<ResultSet> queryAsync(QueryCriteria criteria, String func, LinkedHashMap<String, Object> args) {
+		log.debug("chaincode template exec queryAsync, criteria: {}, func: {}, args: {}", criteria, func, args);
+		
+		afterCriteriaSet(criteria);
+		
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
+		
+		return queryAsync(criteria.getCriteria(), () -> routeQuery(criteria, routed -> operations.queryFor(routed, func, args)));
+	}
 
-		return createTransactionOperations(criteria.getCriteria()).queryFor(criteria, func, args);
+	@Override
+	public <K> Map<K, String> queryMany(QueryCriteria criteria, String func, Collection<K> keys) {
+		return queryMany(criteria, func, keys, key -> new Object[] { key });
+	}
+
+	@Override
+	public <K> Map<K, String> queryMany(QueryCriteria criteria, String func, Collection<K> keys, Function<K, Object[]> binder) {
+		log.debug("chaincode template exec queryMany, criteria: {}, func: {}, keys: {}", criteria, func, keys);
+		Assert.notNull(keys, "keys must not be null!");
+		Assert.notNull(binder, "binder must not be null!");
+		
+		afterCriteriaSet(criteria);
+		
+		List<K> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+		if (distinctKeys.isEmpty()) {
+			return new LinkedHashMap<>();
+		}
+		
+		ChaincodeTransactionOperations operations = createTransactionOperations(criteria.getCriteria());
+		
+		if (!StringUtils.isBlank(criteria.getMultiGet())) {
+			Object[] args = distinctKeys.stream().map(String::valueOf).toArray();
+			ResultSet result = isolate(criteria.getCriteria(), BulkheadType.QUERY, () -> routeQuery(criteria, routed -> operations.queryFor(routed, criteria.getMultiGet(), args)));
+			
+			return parseMultiGet(distinctKeys, result.getResult());
+		}
+		
+		return fanOutQuery(criteria, distinctKeys, key -> routeQuery(criteria, routed -> operations.queryFor(routed, func, binder.apply(key))));
+	}
+
+	@Override
+	public ScatterGatherResult scatterGather(ScatterGatherCriteria criteria, String func, Object... args) {
+		log.debug("chaincode template exec scatterGather, criteria: {}, func: {}, args: {}", criteria, func, args);
+		Assert.notNull(criteria, "ScatterGatherCriteria must not be null!");
+		
+		return gatherQuery(criteria, target -> queryAsync(target, func, args));
 	}
 
 	@Override
@@ -192,7 +501,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).install(criteria, chaincodeSourceLocation);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).install(criteria, chaincodeSourceLocation));
 	}
 
 	@Override
@@ -204,7 +513,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).install(criteria, chaincodeSourceFile);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).install(criteria, chaincodeSourceFile));
 	}
 
 	@Override
@@ -215,7 +524,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).install(criteria, chaincodeInputStream);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).install(criteria, chaincodeInputStream));
 	}
 	
 	@Override
@@ -226,7 +535,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).installFor(criteria, chaincodeSourceLocation);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).installFor(criteria, chaincodeSourceLocation));
 	}
 
 	@Override
@@ -238,7 +547,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).installFor(criteria, chaincodeSourceFile);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).installFor(criteria, chaincodeSourceFile));
 	}
 
 	@Override
@@ -249,7 +558,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).installFor(criteria, chaincodeInputStream);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).installFor(criteria, chaincodeInputStream));
 	}
 
 	@Override
@@ -258,7 +567,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).instantiate(criteria, func);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).instantiate(criteria, func));
 	}
 
 	@Override
@@ -267,7 +576,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).instantiate(criteria, func, args);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).instantiate(criteria, func, args));
 	}
 
 	@Override
@@ -276,7 +585,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).instantiate(criteria, func, args);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).instantiate(criteria, func, args));
 	}
 
 	@Override
@@ -285,7 +594,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).instantiateAsync(criteria, func);
+		return isolateAsync(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).instantiateAsync(criteria, func));
 	}
 
 	@Override
@@ -294,7 +603,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).instantiateAsync(criteria, func, args);
+		return isolateAsync(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).instantiateAsync(criteria, func, args));
 	}
 
 	@Override
@@ -303,7 +612,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).instantiateAsync(criteria, func, args);
+		return isolateAsync(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).instantiateAsync(criteria, func, args));
 	}
 
 	@Override
@@ -312,7 +621,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).instantiateFor(criteria, func);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).instantiateFor(criteria, func));
 	}
 
 	@Override
@@ -321,7 +630,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).instantiateFor(criteria, func, args);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).instantiateFor(criteria, func, args));
 	}
 
 	@Override
@@ -330,7 +639,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).instantiateFor(criteria, func, args);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).instantiateFor(criteria, func, args));
 	}
 
 	@Override
@@ -339,7 +648,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).upgrade(criteria, func);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).upgrade(criteria, func));
 	}
 
 	@Override
@@ -348,7 +657,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).upgrade(criteria, func, args);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).upgrade(criteria, func, args));
 	}
 
 	@Override
@@ -357,7 +666,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).upgrade(criteria, func, args);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).upgrade(criteria, func, args));
 	}
 
 	@Override
@@ -366,7 +675,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).upgradeAsync(criteria, func);
+		return isolateAsync(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).upgradeAsync(criteria, func));
 	}
 
 	@Override
@@ -375,7 +684,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).upgradeAsync(criteria, func, args);
+		return isolateAsync(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).upgradeAsync(criteria, func, args));
 	}
 
 	@Override
@@ -384,7 +693,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).upgradeAsync(criteria, func, args);
+		return isolateAsync(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).upgradeAsync(criteria, func, args));
 	}
 
 	@Override
@@ -393,7 +702,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).upgradeFor(criteria, func);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).upgradeFor(criteria, func));
 	}
 
 	@Override
@@ -402,7 +711,7 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).upgradeFor(criteria, func, args);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).upgradeFor(criteria, func, args));
 	}
 
 	@Override
@@ -411,6 +720,6 @@ public class ChaincodeTemplate extends AbstractChaincodeTemplate {
 		
 		afterCriteriaSet(criteria);
 
-		return createDeployOperations(criteria.getCriteria()).upgradeFor(criteria, func, args);
+		return isolate(criteria.getCriteria(), BulkheadType.DEPLOY, () -> createDeployOperations(criteria.getCriteria()).upgradeFor(criteria, func, args));
 	}
 }
@@ -0,0 +1,41 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import io.github.hooj0.springdata.fabric.chaincode.enums.CircuitState;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * peer/orderer circuit breaker state snapshot
+ * @author hoojo
+ * @createDate 2019年1月23日 上午10:32:50
+ * @file CircuitBreakerMetrics.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class CircuitBreakerMetrics {
+
+	/** 节点名称 */
+	private final String name;
+	/** 熔断器状态 */
+	private final CircuitState state;
+	/** 当前连续失败次数 */
+	private final int consecutiveFailures;
+	/** 是否有后台探测 */
+	private final boolean probed;
+	/** 成功请求数 */
+	private final long successes;
+	/** 失败请求数 */
+	private final long failures;
+	/** 因熔断被绕开的请求数 */
+	private final long rejected;
+	/** 熔断器打开次数 */
+	private final long opened;
+}
@@ -0,0 +1,40 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import org.springframework.util.Assert;
+
+import lombok.ToString;
+
+/**
+ * 固定并发限制
+ * @author hoojo
+ * @createDate 2019年1月14日 上午10:20:31
+ * @file FixedConcurrencyLimit.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@ToString
+public class FixedConcurrencyLimit implements ChaincodeConcurrencyLimit {
+
+	private final int limit;
+	
+	public FixedConcurrencyLimit(int limit) {
+		Assert.isTrue(limit > 0, "limit must be greater than 0!");
+		this.limit = limit;
+	}
+	
+	@Override
+	public int getLimit() {
+		return limit;
+	}
+
+	@Override
+	public void onSample(long endorseRtt, long commitRtt, int inFlight, boolean dropped) {
+	}
+
+	@Override
+	public void onSyncSample(long rtt, int inFlight, boolean dropped) {
+	}
+}
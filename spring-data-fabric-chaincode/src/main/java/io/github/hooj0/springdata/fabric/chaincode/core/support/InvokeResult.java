@@ -0,0 +1,46 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+import org.hyperledger.fabric.sdk.BlockEvent.TransactionEvent;
+import org.hyperledger.fabric.sdk.ProposalResponse;
+
+import io.github.hooj0.springdata.fabric.chaincode.enums.CommitMode;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 按提交等待模式发起交易的结果，包含背书结果和交易提交的 Future
+ * @changelog invoke result of a transaction submitted with a commit mode, endorsed payload plus commit future
+ * @author hoojo
+ * @createDate 2019年1月17日 上午10:31:46
+ * @file InvokeResult.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Getter
+@ToString(exclude = { "responses", "commitFuture" })
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class InvokeResult {
+
+	/** 交易ID */
+	private final String transactionId;
+	/** 背书返回的智能合约执行结果 */
+	private final String result;
+	/** 背书节点响应 */
+	private final Collection<ProposalResponse> responses;
+	/** 交易提交等待模式 */
+	private final CommitMode commitMode;
+	/** 交易提交的 Future，FIRE_AND_FORGET 模式下可能尚未完成；ORDERER_ACK 模式下完成值为 null */
+	private final CompletableFuture<TransactionEvent> commitFuture;
+	/** 交易是否已发送排序，背书写集为空跳过排序时为 false */
+	private final boolean ordered;
+	/** 本次调用的交易尝试次数，包含第一次提交 */
+	private final int attempts;
+}
@@ -0,0 +1,59 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+
+import org.hyperledger.fabric.sdk.BlockEvent.TransactionEvent;
+import org.hyperledger.fabric.sdk.ProposalResponse;
+
+import io.github.hooj0.fabric.sdk.commons.core.execution.result.ResultSet;
+
+/**
+ * 以 ResultSet 返回模板背书和发送交易的结果，配置了背书规划的 invoke 操作使用
+ * @changelog invoke result exposed as a commons result set for planned endorsement invokes
+ * @author hoojo
+ * @createDate 2019年1月30日 下午3:16:08
+ * @file InvokeResultSet.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+final class InvokeResultSet extends ResultSet {
+
+	private final InvokeResult result;
+
+	InvokeResultSet(InvokeResult result) {
+		this.result = result;
+	}
+
+	@Override
+	public String getResult() {
+		return result.getResult();
+	}
+
+	@Override
+	public String getTransactionId() {
+		return result.getTransactionId();
+	}
+
+	@Override
+	public Collection<ProposalResponse> getResponses() {
+		return result.getResponses();
+	}
+
+	/**
+	 * 交易已提交时返回交易事件，ORDERER_ACK 和 FIRE_AND_FORGET 模式下返回 null
+	 */
+	@Override
+	public TransactionEvent getTransactionEvent() {
+		CompletableFuture<TransactionEvent> future = result.getCommitFuture();
+		return future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+	}
+
+	@Override
+	public String toString() {
+		return result.toString();
+	}
+}
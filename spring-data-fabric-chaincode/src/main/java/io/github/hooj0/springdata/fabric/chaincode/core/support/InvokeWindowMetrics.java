@@ -0,0 +1,49 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import io.github.hooj0.springdata.fabric.chaincode.enums.BackpressurePolicy;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * invoke pipeline window metrics snapshot
+ * @author hoojo
+ * @createDate 2019年1月7日 上午11:02:18
+ * @file InvokeWindowMetrics.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class InvokeWindowMetrics {
+
+	/** 窗口名称：channel_chaincode */
+	private final String key;
+	/** 当前并发限制，即最大在途交易数 */
+	private final int limit;
+	/** 背压策略 */
+	private final BackpressurePolicy policy;
+	/** 当前在途交易数 */
+	private final int inFlight;
+	/** 在途交易峰值 */
+	private final int peakInFlight;
+	/** 当前排队交易数 */
+	private final int queued;
+	/** 提交交易总数 */
+	private final long submitted;
+	/** 成功完成交易数 */
+	private final long completed;
+	/** 失败交易数 */
+	private final long failed;
+	/** 被拒绝交易数 */
+	private final long rejected;
+	/** 由调用线程执行的交易数 */
+	private final long callerRuns;
+	/** 交易平均耗时(毫秒) */
+	private final double averageLatency;
+}
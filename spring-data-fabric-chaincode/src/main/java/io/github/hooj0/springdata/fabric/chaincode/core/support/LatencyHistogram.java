@@ -0,0 +1,85 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁耗时直方图，按毫秒的 2 的幂次分桶，百分位数取所在桶上界
+ * @changelog lock-free latency histogram with power-of-two millisecond buckets
+ * @author hoojo
+ * @createDate 2019年1月9日 下午2:16:40
+ * @file LatencyHistogram.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public final class LatencyHistogram {
+
+	/** 桶上界：0ms, 1ms, 2ms, 4ms ... 2^30ms */
+	private static final int BUCKETS = 32;
+	
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+	
+	public void record(long duration, TimeUnit unit) {
+		long millis = Math.max(0, unit.toMillis(duration));
+		
+		buckets.incrementAndGet(bucketOf(millis));
+		count.increment();
+		total.add(millis);
+		max.accumulate(millis);
+	}
+	
+	public long getCount() {
+		return count.sum();
+	}
+	
+	public double getMean() {
+		long n = count.sum();
+		return n == 0 ? 0 : (double) total.sum() / n;
+	}
+	
+	public long getMax() {
+		return max.get();
+	}
+	
+	/**
+	 * 百分位耗时(毫秒)
+	 * @param percentile 0 ~ 100
+	 */
+	public long getPercentile(double percentile) {
+		long n = count.sum();
+		if (n == 0) {
+			return 0;
+		}
+		
+		long rank = (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += buckets.get(i);
+			if (seen >= rank) {
+				return Math.min(upperBound(i), getMax());
+			}
+		}
+		return getMax();
+	}
+	
+	private static int bucketOf(long millis) {
+		return millis == 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis - 1) + 1);
+	}
+	
+	private static long upperBound(int bucket) {
+		return bucket == 0 ? 0 : 1L << (bucket - 1);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("LatencyHistogram(count=%d, mean=%.2fms, p50=%dms, p95=%dms, p99=%dms, max=%dms)", getCount(), getMean(), getPercentile(50), getPercentile(95), getPercentile(99), getMax());
+	}
+}
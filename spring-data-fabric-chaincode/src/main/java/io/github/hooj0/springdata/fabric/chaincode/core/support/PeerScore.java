@@ -0,0 +1,38 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * peer selector score snapshot
+ * @author hoojo
+ * @createDate 2019年1月22日 上午9:48:15
+ * @file PeerScore.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class PeerScore {
+
+	/** peer 节点名称 */
+	private final String peer;
+	/** 响应耗时 EWMA(毫秒) */
+	private final double latency;
+	/** 错误率 EWMA 0 ~ 1 */
+	private final double errorRate;
+	/** 当前在途请求数 */
+	private final int inFlight;
+	/** 评分，越小越优先 */
+	private final double score;
+	/** 请求总数 */
+	private final long requests;
+	/** 失败请求数 */
+	private final long failures;
+}
@@ -0,0 +1,78 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria;
+import io.github.hooj0.springdata.fabric.chaincode.enums.GatherMode;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 跨 channel/chaincode 分散查询的合并结果，明细顺序与查询目标顺序一致
+ * @changelog scatter-gather query merged result, item order follows the target criteria
+ * @author hoojo
+ * @createDate 2019年1月28日 上午10:41:52
+ * @file ScatterGatherResult.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Getter
+@ToString
+public final class ScatterGatherResult {
+
+	/** 结果合并方式 */
+	private final GatherMode mode;
+	/** 合并后的结果，FIRST_MATCH 没有匹配结果时为 null */
+	private final String result;
+	/** 每个查询目标的结果，顺序与查询目标顺序一致 */
+	private final List<Item> items;
+	/** 成功查询数 */
+	private final int succeeded;
+	/** 失败或超时查询数 */
+	private final int failed;
+	/** 分散查询耗时(毫秒) */
+	private final long elapsed;
+	
+	ScatterGatherResult(GatherMode mode, String result, List<Item> items, long elapsed) {
+		this.mode = mode;
+		this.result = result;
+		this.items = Collections.unmodifiableList(items);
+		this.succeeded = (int) items.stream().filter(Item::isSuccess).count();
+		this.failed = (int) items.stream().filter(item -> item.getError() != null).count();
+		this.elapsed = elapsed;
+	}
+	
+	public boolean isAllSuccess() {
+		return failed == 0;
+	}
+	
+	public List<Item> getFailedItems() {
+		return items.stream().filter(item -> item.getError() != null).collect(Collectors.toList());
+	}
+	
+	@Getter
+	@ToString
+	@AllArgsConstructor(access = AccessLevel.PACKAGE)
+	public static final class Item {
+		
+		/** 查询目标的序号 */
+		private final int index;
+		/** 查询目标 channel/chaincode */
+		private final Criteria criteria;
+		/** 查询结果 */
+		private final String result;
+		/** 交易ID */
+		private final String transactionId;
+		/** 查询是否成功 */
+		private final boolean success;
+		/** 查询失败或超时异常，FIRST_MATCH 提前结束时未完成的查询为 null */
+		private final Throwable error;
+	}
+}
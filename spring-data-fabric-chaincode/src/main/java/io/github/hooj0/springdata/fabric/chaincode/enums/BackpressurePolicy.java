@@ -0,0 +1,32 @@
+package io.github.hooj0.springdata.fabric.chaincode.enums;
+
+/**
+ * 交易管道队列满载时的背压策略
+ * @changelog invoke pipeline queue saturation backpressure policy
+ * @author hoojo
+ * @createDate 2019年1月7日 上午10:21:36
+ * @file BackpressurePolicy.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.enums
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public enum BackpressurePolicy {
+
+	/** 拒绝，直接返回异常结束的Future */
+	REJECT("拒绝，直接返回异常结束的Future"),
+	/** 阻塞，调用线程等待队列出现空位 */
+	BLOCK("阻塞，调用线程等待队列出现空位"),
+	/** 调用者执行，窗口有空位时由调用线程直接发起交易，否则等待空位 */
+	CALLER_RUNS("调用者执行，队列已满时由调用线程直接发起交易，不等待窗口空位，在途交易数可能暂时超过窗口");
+
+	private String desc;
+	BackpressurePolicy(String desc) {
+		this.desc = desc;
+	}
+
+	public String getDesc() {
+		return desc;
+	}
+}
@@ -0,0 +1,46 @@
+package io.github.hooj0.springdata.fabric.chaincode.enums;
+
+/**
+ * 操作隔离舱类型，不同类型的操作在各自独立的线程池中执行
+ * @changelog bulkhead type, query/invoke/deploy operations run on separate executors
+ * @author hoojo
+ * @createDate 2019年1月16日 上午10:12:45
+ * @file BulkheadType.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.enums
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public enum BulkheadType {
+
+	/** 查询，query/queryFor */
+	QUERY("查询", 32, 256),
+	/** 交易，invoke/invokeAsync/invokeFor/invokeBatch */
+	INVOKE("交易", 16, 512),
+	/** 部署，install/instantiate/upgrade */
+	DEPLOY("部署", 2, 16);
+
+	private String desc;
+	private int maxConcurrent;
+	private int queueCapacity;
+	BulkheadType(String desc, int maxConcurrent, int queueCapacity) {
+		this.desc = desc;
+		this.maxConcurrent = maxConcurrent;
+		this.queueCapacity = queueCapacity;
+	}
+
+	public String getDesc() {
+		return desc;
+	}
+
+	/** 默认最大并发线程数 */
+	public int getMaxConcurrent() {
+		return maxConcurrent;
+	}
+
+	/** 默认排队队列容量 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+}
@@ -0,0 +1,32 @@
+package io.github.hooj0.springdata.fabric.chaincode.enums;
+
+/**
+ * peer/orderer 节点熔断器状态
+ * @changelog per peer/orderer circuit breaker state
+ * @author hoojo
+ * @createDate 2019年1月23日 上午10:05:27
+ * @file CircuitState.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.enums
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public enum CircuitState {
+
+	/** 关闭，请求正常发送到节点 */
+	CLOSED("关闭，请求正常发送到节点"),
+	/** 打开，连续失败达到阈值，请求绕开该节点 */
+	OPEN("打开，连续失败达到阈值，请求绕开该节点"),
+	/** 半开，等待探测或试探请求的结果决定关闭或重新打开 */
+	HALF_OPEN("半开，等待探测或试探请求的结果决定关闭或重新打开");
+
+	private String desc;
+	CircuitState(String desc) {
+		this.desc = desc;
+	}
+
+	public String getDesc() {
+		return desc;
+	}
+}
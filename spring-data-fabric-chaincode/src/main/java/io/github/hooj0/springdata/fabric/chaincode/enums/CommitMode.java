@@ -0,0 +1,32 @@
+package io.github.hooj0.springdata.fabric.chaincode.enums;
+
+/**
+ * 交易提交等待模式，决定交易发起后调用者等待到哪个阶段
+ * @changelog transaction commit wait mode, how far the caller waits after the transaction is sent
+ * @author hoojo
+ * @createDate 2019年1月17日 上午9:48:21
+ * @file CommitMode.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.enums
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public enum CommitMode {
+
+	/** 背书成功后立即返回，不等待排序节点确认 */
+	FIRE_AND_FORGET("背书成功后立即返回，不等待排序节点确认"),
+	/** 排序节点接收交易后返回，不等待区块提交 */
+	ORDERER_ACK("排序节点接收交易后返回，不等待区块提交"),
+	/** 等待 N 个 peer 节点提交区块后返回，N 为 0 时等待所有事件节点 */
+	COMMITTED_ON_N_PEERS("等待 N 个 peer 节点提交区块后返回");
+
+	private String desc;
+	CommitMode(String desc) {
+		this.desc = desc;
+	}
+
+	public String getDesc() {
+		return desc;
+	}
+}
@@ -0,0 +1,32 @@
+package io.github.hooj0.springdata.fabric.chaincode.enums;
+
+/**
+ * 跨 channel/chaincode 分散查询结果的合并方式
+ * @changelog scatter-gather query result merge mode
+ * @author hoojo
+ * @createDate 2019年1月28日 上午10:12:41
+ * @file GatherMode.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.enums
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public enum GatherMode {
+
+	/** 拼接，所有结果按条件顺序合并为一个 JSON 数组，数组结果展开其元素 */
+	CONCAT("拼接，所有结果按条件顺序合并为一个 JSON 数组，数组结果展开其元素"),
+	/** 归约，按条件顺序使用归约函数两两合并结果 */
+	REDUCE("归约，按条件顺序使用归约函数两两合并结果"),
+	/** 首个匹配，返回最先完成且满足匹配条件的结果，其余查询不再等待 */
+	FIRST_MATCH("首个匹配，返回最先完成且满足匹配条件的结果，其余查询不再等待");
+
+	private String desc;
+	GatherMode(String desc) {
+		this.desc = desc;
+	}
+
+	public String getDesc() {
+		return desc;
+	}
+}
@@ -0,0 +1,30 @@
+package io.github.hooj0.springdata.fabric.chaincode.enums;
+
+/**
+ * 分散查询部分 channel/chaincode 失败或超过截止时间时的处理策略
+ * @changelog scatter-gather query partial failure policy
+ * @author hoojo
+ * @createDate 2019年1月28日 上午10:16:05
+ * @file PartialFailurePolicy.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.enums
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public enum PartialFailurePolicy {
+
+	/** 失败，任一查询失败或超时则整体失败，不再等待其余查询 */
+	FAIL("失败，任一查询失败或超时则整体失败，不再等待其余查询"),
+	/** 部分结果，合并成功的查询结果，全部失败时整体失败 */
+	PARTIAL("部分结果，合并成功的查询结果，全部失败时整体失败");
+
+	private String desc;
+	PartialFailurePolicy(String desc) {
+		this.desc = desc;
+	}
+
+	public String getDesc() {
+		return desc;
+	}
+}
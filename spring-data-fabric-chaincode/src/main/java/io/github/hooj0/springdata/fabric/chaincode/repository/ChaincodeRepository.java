@@ -1,6 +1,9 @@
 package io.github.hooj0.springdata.fabric.chaincode.repository;
 
+import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import org.hyperledger.fabric.sdk.BlockEvent.TransactionEvent;
@@ -14,6 +17,8 @@ import io.github.hooj0.fabric.sdk.commons.core.execution.result.ResultSet;
 import io.github.hooj0.fabric.sdk.commons.domain.Organization;
 import io.github.hooj0.springdata.fabric.chaincode.core.ChaincodeOperations;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.InvocationSpec;
+import io.github.hooj0.springdata.fabric.chaincode.core.support.BatchInvokeResult;
 import io.github.hooj0.springdata.fabric.chaincode.repository.support.creator.ProposalBuilder.InvokeProposal;
 import io.github.hooj0.springdata.fabric.chaincode.repository.support.creator.ProposalBuilder.QueryProposal;
 
@@ -55,6 +60,10 @@ public interface ChaincodeRepository<T> extends Repository<T, Object> {
 	TransactionEvent invokeFor(InvokeProposal proposal, String func, Object... args);
 
 	TransactionEvent invokeFor(InvokeProposal proposal, String func, LinkedHashMap<String, Object> args);
+	
+	// invoke batch
+	
+	BatchInvokeResult invokeBatch(InvokeProposal proposal, List<InvocationSpec> invocations);
 
 	
 	// query
@@ -73,6 +82,18 @@ public interface ChaincodeRepository<T> extends Repository<T, Object> {
 
 	ResultSet queryFor(QueryProposal proposal, String func, LinkedHashMap<String, Object> args);
 	
+	// query async return future
+	
+	CompletableFuture<ResultSet> queryAsync(QueryProposal proposal, String func);
+	
+	CompletableFuture<ResultSet> queryAsync(QueryProposal proposal, String func, Object... args);
+	
+	CompletableFuture<ResultSet> queryAsync(QueryProposal proposal, String func, LinkedHashMap<String, Object> args);
+	
+	// query many keys, return entities by key
+	
+	<K> Map<K, T> queryMany(QueryProposal proposal, String func, Collection<K> keys);
+	
 	
 	
 	
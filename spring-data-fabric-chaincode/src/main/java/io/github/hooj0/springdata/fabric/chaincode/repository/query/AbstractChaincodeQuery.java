@@ -1,33 +1,35 @@
 package io.github.hooj0.springdata.fabric.chaincode.repository.query;
 
 import java.io.File;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.reflect.MethodUtils;
-import org.hyperledger.fabric.sdk.BlockEvent.TransactionEvent;
-import org.hyperledger.fabric.sdk.ProposalResponse;
 import org.hyperledger.fabric.sdk.User;
 import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
 import org.springframework.data.mapping.context.MappingContext;
 import org.springframework.data.repository.query.ParametersParameterAccessor;
 import org.springframework.data.repository.query.RepositoryQuery;
-import org.springframework.data.repository.query.ReturnedType;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 
 import com.google.common.collect.Maps;
-import com.google.common.reflect.TypeToken;
+import com.google.common.collect.Sets;
 
 import io.github.hooj0.fabric.sdk.commons.core.execution.result.ResultSet;
 import io.github.hooj0.fabric.sdk.commons.domain.Organization;
 import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
+import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.CachedQuery;
 import io.github.hooj0.springdata.fabric.chaincode.core.ChaincodeOperations;
+import io.github.hooj0.springdata.fabric.chaincode.core.cache.QueryResultCache;
+import io.github.hooj0.springdata.fabric.chaincode.core.cache.QueryResultSnapshot;
+import io.github.hooj0.springdata.fabric.chaincode.core.cache.VersionedQueryResultCache;
 import io.github.hooj0.springdata.fabric.chaincode.core.convert.DateTimeConverters;
 import io.github.hooj0.springdata.fabric.chaincode.core.mapping.ChaincodePersistentEntity;
 import io.github.hooj0.springdata.fabric.chaincode.core.mapping.ChaincodePersistentProperty;
@@ -37,7 +39,11 @@ import io.github.hooj0.springdata.fabric.chaincode.core.query.InvokeCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.QueryCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.UpgradeCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.serialize.ChaincodeEntitySerialization;
-import io.github.hooj0.springdata.fabric.chaincode.enums.SerializationMode;
+import io.github.hooj0.springdata.fabric.chaincode.core.support.ChaincodeQueryCoalescer;
+import io.github.hooj0.springdata.fabric.chaincode.core.support.ChaincodeReadWriteSets;
+import io.github.hooj0.springdata.fabric.chaincode.core.support.InvokeResult;
+import io.github.hooj0.springdata.fabric.chaincode.enums.CommitMode;
+import io.github.hooj0.springdata.fabric.chaincode.repository.query.ChaincodeExecutionPlan.ResultMapping;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -60,6 +66,12 @@ public abstract class AbstractChaincodeQuery implements RepositoryQuery {
 	protected final ChaincodeEntitySerialization serialization;
 	protected final ChaincodeOperations operations;
 	protected final ChaincodeQueryMethod method;
+	/** 相同查询合并执行，未开启合并时为空 */
+	protected final ChaincodeQueryCoalescer coalescer;
+	/** 查询结果缓存，未配置 @CachedQuery 时为空 */
+	protected QueryResultCache queryCache;
+	/** 创建查询时解析的方法执行计划 */
+	protected final ChaincodeExecutionPlan plan;
 	
 
 	{
@@ -80,6 +92,9 @@ public abstract class AbstractChaincodeQuery implements RepositoryQuery {
 		
 		this.mappingContext = operations.getConverter().getMappingContext();
 		this.serialization = operations.getConverter().getChaincodeEntitySerialization();
+		
+		this.coalescer = method.getQueryAnnotated() != null && method.getQueryAnnotated().coalesce() ? new ChaincodeQueryCoalescer() : null;
+		this.plan = ChaincodeExecutionPlan.of(method, operations.getConfig(method.getCriteria()), this::getUser);
 	}
 
 	@Override
@@ -89,196 +104,263 @@ public abstract class AbstractChaincodeQuery implements RepositoryQuery {
 	
 	protected abstract Object[] createQuery(ParametersParameterAccessor parameterAccessor, Object[] parameterValues);
 	
-	protected Object installOperation(InstallCriteria criteria, Object[] parameterValues, ReturnedType returnedType, File chaincodeFile) {
-		Class<?> resultClass = returnedType.getReturnedType();
+	protected Object installOperation(InstallCriteria criteria, Object[] parameterValues, ResultMapping mapping, File chaincodeFile) {
 
 		ResultSet result = operations.installFor(criteria, chaincodeFile);
 		if (result == null) {
 			return null;
 		}
-		if (ClassUtils.isAssignable(Collection.class, method.getResultType()) && ClassUtils.isAssignable(ProposalResponse.class, resultClass)) {
-			return result.getResponses();
-		} else if (ClassUtils.isAssignable(ResultSet.class, resultClass)) {
-			return result;
-		} else if (ClassUtils.isAssignable(String.class, resultClass)) {
-			return result.getTransactionId();
-		} else if (!ClassUtils.isPrimitiveOrWrapper(resultClass)) {
-			if (StringUtils.isNotBlank(result.getResult())) {
-				return bindTransactionId(serialization.deserialize(result.getResult(), method), result);
-			}
-			return null;
-		}
 		
-		return result;
+		switch (mapping) {
+			case RESPONSES:
+				return result.getResponses();
+			case TRANSACTION_ID:
+				return result.getTransactionId();
+			case ENTITY:
+				if (StringUtils.isNotBlank(result.getResult())) {
+					return bindTransactionId(serialization.deserialize(result.getResult(), method), result);
+				}
+				return null;
+			default:
+				return result;
+		}
 	} 
 	
-	protected Object instantiateOperation(InstantiateCriteria criteria, Object[] parameterValues, ReturnedType returnedType, String func) {
+	protected Object instantiateOperation(InstantiateCriteria criteria, Object[] parameterValues, ResultMapping mapping) {
 		
-		func = StringUtils.defaultIfBlank(func, method.getName());
-		
-		Class<?> resultClass = returnedType.getReturnedType();
+		switch (mapping) {
+			case FUTURE_EVENT:
+				return operations.instantiateAsync(criteria, plan.getFunc(), parameterValues);
+			case EVENT:
+				return operations.instantiateFor(criteria, plan.getFunc(), parameterValues);
+			case RESULT_SET:
+				return operations.instantiate(criteria, plan.getFunc(), parameterValues);
+			default:
+				ResultSet result = operations.instantiate(criteria, plan.getFunc(), parameterValues);
+				if (result == null) {
+					return null;
+				}
+				return mappingResult(result.getResult(), result.getTransactionId(), mapping);
+		}
+	} 
+	
+	protected Object upgradeOperation(UpgradeCriteria criteria, Object[] parameterValues, ResultMapping mapping) {
+
+		switch (mapping) {
+			case FUTURE_EVENT:
+				return operations.upgradeAsync(criteria, plan.getFunc(), parameterValues);
+			case EVENT:
+				return operations.upgradeFor(criteria, plan.getFunc(), parameterValues);
+			case RESULT_SET:
+				return operations.upgrade(criteria, plan.getFunc(), parameterValues);
+			default:
+				ResultSet result = operations.upgrade(criteria, plan.getFunc(), parameterValues);
+				if (result == null) {
+					return null;
+				}
+				return mappingResult(result.getResult(), result.getTransactionId(), mapping);
+		}
+	} 
+	
+	protected Object invokeOperation(InvokeCriteria criteria, Object[] parameterValues, ResultMapping mapping) {
+
+		String func = plan.getFunc();
+		switch (mapping) {
+			case FUTURE_EVENT:
+				return operations.invokeAsync(criteria, func, parameterValues);
+			case EVENT:
+				return operations.invokeFor(criteria, func, parameterValues);
+			case RESULT_SET:
+				return operations.invoke(criteria, func, parameterValues);
+			case INVOKE_RESULT:
+				return operations.submit(criteria, func, parameterValues);
+			default:
+				break;
+		}
 		
-		if (ClassUtils.isAssignable(CompletableFuture.class, method.getResultType()) && ClassUtils.isAssignable(TransactionEvent.class, resultClass)) {
-			return operations.instantiateAsync(criteria, func, parameterValues);
-		} else if (ClassUtils.isAssignable(TransactionEvent.class, resultClass)) {
-			return operations.instantiateFor(criteria, func, parameterValues);
-		} else if (ClassUtils.isAssignable(ResultSet.class, resultClass)) {
-			return operations.instantiate(criteria, func, parameterValues);
+		// 不等待区块提交的模式或允许跳过只读交易排序时，背书结果在排序确认(或背书成功)后直接映射返回
+		if (criteria.getCommitMode() != CommitMode.COMMITTED_ON_N_PEERS || criteria.isSkipReadOnly() || operations.isSkipReadOnly()) {
+			InvokeResult result = operations.submit(criteria, func, parameterValues);
+			
+			return mappingResult(result.getResult(), result.getTransactionId(), mapping);
 		}
 		
-		ResultSet result = operations.instantiate(criteria, func, parameterValues);
+		ResultSet result = operations.invoke(criteria, func, parameterValues);
 		if (result == null) {
 			return null;
 		}
-		if (hasDeserializeResult()) {
-			if (StringUtils.isNotBlank(result.getResult())) {
-				return deserializeResult(method, result.getResult());
-			}
-			return null;
-		} else if (ClassUtils.isAssignable(String.class, resultClass)) {
-			return result.getResult();
-		} else if (!ClassUtils.isPrimitiveOrWrapper(resultClass)) {
-			if (StringUtils.isNotBlank(result.getResult())) {
-				return bindTransactionId(serialization.deserialize(result.getResult(), method), result);
-			}
-			return null;
-		}
 		
-		return result.getResult();
+		return mappingResult(result.getResult(), result.getTransactionId(), mapping);
 	} 
 	
-	protected Object upgradeOperation(UpgradeCriteria criteria, Object[] parameterValues, ReturnedType returnedType, String func) {
+	/**
+	 * 按结果映射方式转换 chaincode 返回的结果
+	 */
+	private Object mappingResult(String result, String transactionId, ResultMapping mapping) {
+		switch (mapping) {
+			case DESERIALIZE:
+				if (StringUtils.isNotBlank(result)) {
+					return deserializeResult(method, result);
+				}
+				return null;
+			case ENTITY:
+				if (StringUtils.isNotBlank(result)) {
+					return bindTransactionId(serialization.deserialize(result, method), transactionId);
+				}
+				return null;
+			default:
+				return result;
+		}
+	}
+	
+	protected Object queryOperation(QueryCriteria criteria, Object[] parameterValues, ResultMapping mapping) {
 
-		func = StringUtils.defaultIfBlank(func, method.getName());
+		final String function = plan.getFunc();
 		
-		Class<?> resultClass = returnedType.getReturnedType();
+		// 异步查询，在完成阶段反序列化结果
+		final String key = coalescer != null || queryCache != null ? getQueryKey(criteria, function, parameterValues) : null;
 		
-		if (ClassUtils.isAssignable(CompletableFuture.class, method.getResultType()) && ClassUtils.isAssignable(TransactionEvent.class, resultClass)) {
-			return operations.upgradeAsync(criteria, func, parameterValues);
-		} else if (ClassUtils.isAssignable(TransactionEvent.class, resultClass)) {
-			return operations.upgradeFor(criteria, func, parameterValues);
-		} else if (ClassUtils.isAssignable(ResultSet.class, resultClass)) {
-			return operations.upgrade(criteria, func, parameterValues);
+		// 命中缓存时不再发起查询，返回 ResultSet 的方法只使用保留了原始结果的本地缓存条目
+		QueryResultSnapshot cached = queryCache != null ? (QueryResultSnapshot) queryCache.get(key) : null;
+		if (cached != null && (mapping != ResultMapping.RESULT_SET || cached.getResultSet() != null)) {
+			Object result = mapping == ResultMapping.RESULT_SET ? cached.getResultSet() : mappingResult(cached.getResult(), cached.getTransactionId(), mapping);
+			
+			return plan.isFutureQuery() ? CompletableFuture.completedFuture(result) : result;
 		}
+		beforeQuery();
 		
-		ResultSet result = operations.upgrade(criteria, func, parameterValues);
-		if (result == null) {
-			return null;
-		}
-		if (hasDeserializeResult()) {
-			if (StringUtils.isNotBlank(result.getResult())) {
-				return deserializeResult(method, result.getResult());
-			}
-			return null;
-		} else if (ClassUtils.isAssignable(String.class, resultClass)) {
-			return result.getResult();
-		} else if (!ClassUtils.isPrimitiveOrWrapper(resultClass)) {
-			if (StringUtils.isNotBlank(result.getResult())) {
-				return bindTransactionId(serialization.deserialize(result.getResult(), method), result);
+		// 发起查询前记录已处理的区块高度，查询期间提交的写入都在该高度之后
+		final long readHeight = queryCache instanceof VersionedQueryResultCache ? ((VersionedQueryResultCache) queryCache).getBlockHeight() : -1;
+		
+		if (plan.isFutureQuery()) {
+			CompletableFuture<ResultSet> future;
+			if (coalescer != null) {
+				future = coalescer.submit(key, () -> operations.queryAsync(criteria, function, parameterValues));
+			} else {
+				future = operations.queryAsync(criteria, function, parameterValues);
 			}
-			return null;
+			
+			return future.thenApply(result -> queryResult(cacheResult(key, result, criteria, readHeight), mapping));
 		}
 		
-		return result.getResult();
+		ResultSet result;
+		if (coalescer != null) {
+			result = coalescer.execute(key, () -> operations.queryFor(criteria, function, parameterValues));
+		} else {
+			result = operations.queryFor(criteria, function, parameterValues);
+		}
+		
+		return queryResult(cacheResult(key, result, criteria, readHeight), mapping);
 	} 
 	
-	@SuppressWarnings("serial")
-	protected Object invokeOperation(InvokeCriteria criteria, Object[] parameterValues, ReturnedType returnedType, String func) {
-
-		func = StringUtils.defaultIfBlank(func, method.getName());
+	/**
+	 * 批量查询，结果按键返回，每个键的结果反序列化为 Map 的值类型
+	 * @param binder 生成每个键的查询参数
+	 */
+	protected Map<Object, Object> queryManyOperation(QueryCriteria criteria, Collection<Object> keys, Function<Object, Object[]> binder) {
 		
-		Class<?> resultClass = returnedType.getReturnedType();
-		TypeToken<CompletableFuture<TransactionEvent>> typeToken = new TypeToken<CompletableFuture<TransactionEvent>>() {};
+		Class<?> resultClass = method.getResultType();
 		
-		boolean isFutrued = StringUtils.equals(typeToken.getType().getTypeName(), method.getReturnType().getActualType().toString());
-		boolean isFutruedEvent = (ClassUtils.isAssignable(CompletableFuture.class, method.getResultType()) && ClassUtils.isAssignable(TransactionEvent.class, resultClass));
-		if (isFutruedEvent || isFutrued) {
-			return operations.invokeAsync(criteria, func, parameterValues);
-		} else if (ClassUtils.isAssignable(TransactionEvent.class, resultClass)) {
-			return operations.invokeFor(criteria, func, parameterValues);
-		} else if (ClassUtils.isAssignable(ResultSet.class, resultClass)) {
-			return operations.invoke(criteria, func, parameterValues);
+		Map<Object, Object> results = new LinkedHashMap<>();
+		operations.queryMany(criteria, plan.getFunc(), keys, binder).forEach((key, value) -> {
+			if (plan.isDeserializeResult()) {
+				results.put(key, plan.getSerialization().deserialize(value, resultClass));
+			} else if (ClassUtils.isAssignable(String.class, resultClass)) {
+				results.put(key, value);
+			} else {
+				results.put(key, serialization.deserialize(value, resultClass));
+			}
+		});
+		return results;
+	}
+	
+	/**
+	 * 缓存未命中、即将发起查询时调用，子类在这里获取限流许可，命中缓存的查询不占用许可
+	 */
+	protected void beforeQuery() {
+	}
+	
+	private ResultSet cacheResult(String key, ResultSet result, QueryCriteria criteria, long readHeight) {
+		if (queryCache == null || result == null) {
+			return result;
 		}
-		
-		ResultSet result = operations.invoke(criteria, func, parameterValues);
-		if (result == null) {
-			return null;
+		if (!(queryCache instanceof VersionedQueryResultCache)) {
+			queryCache.put(key, QueryResultSnapshot.of(result));
+			return result;
 		}
-		if (hasDeserializeResult()) {
-			if (StringUtils.isNotBlank(result.getResult())) {
-				return deserializeResult(method, result.getResult());
-			}
-			return null;
-		} else if (ClassUtils.isAssignable(String.class, resultClass)) {
-			return result.getResult();
-		} else if (!ClassUtils.isPrimitiveOrWrapper(resultClass)) {
-			if (StringUtils.isNotBlank(result.getResult())) {
-				return bindTransactionId(serialization.deserialize(result.getResult(), method), result);
-			}
-			return null;
+		
+		// 依赖的账本键未知时无法按写集失效，不缓存
+		Set<String> ledgerKeys = getLedgerKeys(criteria, result);
+		if (ledgerKeys == null) {
+			log.debug("query '{}' read set has range or rich queries, result not cached", method.getName());
+			return result;
 		}
 		
-		return result.getResult();
-	} 
+		((VersionedQueryResultCache) queryCache).put(key, QueryResultSnapshot.of(result), ledgerKeys, readHeight);
+		return result;
+	}
 	
-	protected Object queryOperation(QueryCriteria criteria, Object[] parameterValues, ReturnedType returnedType, String func) {
-
-		Class<?> resultClass = returnedType.getReturnedType();
+	/**
+	 * 查询结果依赖的账本键：@Query(keys) 声明的键加上背书结果读集中的键；读集包含范围查询或富查询时返回 null
+	 */
+	private Set<String> getLedgerKeys(QueryCriteria criteria, ResultSet result) {
+		Set<String> ledgerKeys = Sets.newHashSet();
+		if (criteria.getKeys() != null) {
+			criteria.getKeys().forEach(key -> ledgerKeys.add(ChaincodeReadWriteSets.ledgerKey(method.getCriteria().getName(), key)));
+		}
 		
-		func = StringUtils.defaultIfBlank(func, method.getName());
+		CachedQuery cachedQuery = method.getCachedQueryAnnotated();
+		if (cachedQuery != null && cachedQuery.learnKeys() && result.getResponses() != null && !result.getResponses().isEmpty()) {
+			Set<String> readKeys = ChaincodeReadWriteSets.getReadKeys(result.getResponses().iterator().next());
+			if (readKeys == null) {
+				return null;
+			}
+			ledgerKeys.addAll(readKeys);
+		}
+		return ledgerKeys;
+	}
+	
+	public QueryResultCache getQueryCache() {
+		return queryCache;
+	}
+	
+	public void setQueryCache(QueryResultCache queryCache) {
+		this.queryCache = queryCache;
+	}
+	
+	/**
+	 * 合并查询和缓存 key：channel/chaincode/version/func/mspId/user/args，各部分按长度前缀拼接
+	 */
+	private String getQueryKey(QueryCriteria criteria, String func, Object[] parameterValues) {
+		User user = criteria.getRequestUser() != null ? criteria.getRequestUser() : criteria.getClientUserContext();
 		
-		ResultSet result = operations.queryFor(criteria, func, parameterValues);
+		return ChaincodeQueryCoalescer.key(method.getCriteria().getChannel(), method.getCriteria().getName(), method.getCriteria().getVersion(), func, user == null ? null : user.getMspId(), user == null ? null : user.getName(), parameterValues);
+	}
+	
+	private Object queryResult(ResultSet result, ResultMapping mapping) {
 		if (result == null) {
 			return null;
 		}
-		if (ClassUtils.isAssignable(ResultSet.class, resultClass)) {
+		if (mapping == ResultMapping.RESULT_SET) {
 			return result;
-		} else if (hasDeserializeResult()) {
-			if (StringUtils.isBlank(result.getResult())) {
-				return null;
-			}
-			return deserializeResult(method, result.getResult());
-		} else if (ClassUtils.isAssignable(String.class, resultClass)) {
-			return result.getResult();
-		} else if (!ClassUtils.isPrimitiveOrWrapper(resultClass)) {
-			if (StringUtils.isBlank(result.getResult())) {
-				return null;
-			}
-			return bindTransactionId(serialization.deserialize(result.getResult(), method), result);
-		} 
+		}
 		
-		return result.getResult();
+		return mappingResult(result.getResult(), result.getTransactionId(), mapping);
 	} 
 	
 	protected boolean hasSerializeParameter() {
-		
-		if (method.hasSerializationAnnotated()) {
-			SerializationMode mode = method.getSerializationAnnotated().value();
-			if (mode == SerializationMode.ALL || mode == SerializationMode.SERIALIZE) {
-				return true;
-			}
-		}
-		
-		return false;
+		return plan.isSerializeParameter();
 	}
 	
 	protected boolean hasDeserializeResult() {
-		
-		if (method.hasSerializationAnnotated()) {
-			SerializationMode mode = method.getSerializationAnnotated().value();
-			if (mode == SerializationMode.ALL || mode == SerializationMode.DESERIALIZE) {
-				return true;
-			}
-		}
-		
-		return false;
+		return plan.isDeserializeResult();
 	}
 	
 	protected String[] serializeParameter(Object[] parameterValues) {
 
 		String[] params = new String[parameterValues.length];
 		for (int i = 0; i < parameterValues.length; i++) {
-			params[i] = method.getSerializationAnnotated().provider().getSerialization().serialize(parameterValues[i]);
+			params[i] = plan.getSerialization().serialize(parameterValues[i]);
 		}
 		
 		return params;
@@ -286,7 +368,7 @@ public abstract class AbstractChaincodeQuery implements RepositoryQuery {
 	
 	protected Object deserializeResult(ChaincodeQueryMethod method, String result) {
 		
-		return method.getSerializationAnnotated().provider().getSerialization().deserialize(result, method);
+		return plan.getSerialization().deserialize(result, method);
 	}
 	
 	protected Map<String, byte[]> transformTransientData(Object[] parameterValues) {
@@ -313,48 +395,51 @@ public abstract class AbstractChaincodeQuery implements RepositoryQuery {
 	private Map<String, byte[]> combinationTransientData(ChaincodePersistentEntity<?> entity, Object param) {
 		Map<String, byte[]> transientData = Maps.newHashMap();
 
-		Map<String, String> mappings = entity.getTransientMappings();
-		if (mappings.isEmpty()) {
+		Map<String, ChaincodePersistentProperty> properties = entity.getTransientProperties();
+		if (properties.isEmpty()) {
 			return transientData;
 		}
 		
-		Set<String> keys = mappings.keySet();
-		for (String key : keys) {
-			try {
-				
-				Object parameter = MethodUtils.invokeMethod(param, "get" + StringUtils.capitalize(key));
-				if (parameter == null) {
-					continue;
-				}
-				
-				String value = null;
-				if (conversionService.canConvert(parameter.getClass(), String.class)) {
-					value = conversionService.convert(parameter, String.class);
-				} else {
-					value = parameter.toString();
-				}
-				
-				transientData.put(mappings.get(key), value.getBytes());
-			} catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-				log.error("获取 {} 属性 {} 值异常", param.getClass().getName(), key, e);
+		// 使用实体生成的属性访问器读取属性值，不再反射调用 getter 方法
+		PersistentPropertyAccessor<?> accessor = entity.getPropertyAccessor(param);
+		properties.forEach((key, property) -> {
+			Object parameter = accessor.getProperty(property);
+			if (parameter == null) {
+				return;
 			}
-		}
+			
+			String value = null;
+			if (conversionService.canConvert(parameter.getClass(), String.class)) {
+				value = conversionService.convert(parameter, String.class);
+			} else {
+				value = parameter.toString();
+			}
+			
+			transientData.put(key, value.getBytes(StandardCharsets.UTF_8));
+		});
 		
 		return transientData;
 	}
 	
 	protected Object bindTransactionId(Object result, ResultSet resultSet) {
+		return bindTransactionId(result, resultSet.getTransactionId());
+	}
+	
+	protected Object bindTransactionId(Object result, String transactionId) {
 		ChaincodePersistentEntity<?> entity = mappingContext.getPersistentEntity(result.getClass());
 		if (entity != null) {
-			Method setter = entity.getRequiredIdProperty().getSetter();
+			ChaincodePersistentProperty idProperty = entity.getRequiredIdProperty();
 			try {
-				if (ClassUtils.isAssignable(byte[].class, setter.getReturnType())) {
-					setter.invoke(result, resultSet.getTransactionId().getBytes());
+				PersistentPropertyAccessor<?> accessor = entity.getPropertyAccessor(result);
+				if (ClassUtils.isAssignable(byte[].class, idProperty.getType())) {
+					accessor.setProperty(idProperty, transactionId.getBytes(StandardCharsets.UTF_8));
 				} else {
-					setter.invoke(result, resultSet.getTransactionId());
+					accessor.setProperty(idProperty, transactionId);
 				}
-			} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-				throw new ChaincodeOperationException(e, "chaincode setter transaction id '%s.%s' exception", setter.getClass().getName(), setter.getName());
+				
+				return accessor.getBean();
+			} catch (RuntimeException e) {
+				throw new ChaincodeOperationException(e, "chaincode setter transaction id '%s.%s' exception", entity.getType().getName(), idProperty.getName());
 			}
 		}
 		
@@ -0,0 +1,340 @@
+package io.github.hooj0.springdata.fabric.chaincode.repository.query;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hyperledger.fabric.sdk.BlockEvent.TransactionEvent;
+import org.hyperledger.fabric.sdk.ProposalResponse;
+import org.hyperledger.fabric.sdk.User;
+import org.springframework.data.repository.query.ParametersParameterAccessor;
+import org.springframework.util.ClassUtils;
+
+import com.google.common.reflect.TypeToken;
+
+import io.github.hooj0.fabric.sdk.commons.config.FabricConfiguration;
+import io.github.hooj0.fabric.sdk.commons.core.execution.result.ResultSet;
+import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Install;
+import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Instantiate;
+import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Proposal;
+import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Query;
+import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Transaction;
+import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Upgrade;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.QueryCriteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.serialize.ChaincodeEntitySerialization;
+import io.github.hooj0.springdata.fabric.chaincode.core.support.InvokeResult;
+import io.github.hooj0.springdata.fabric.chaincode.enums.CommitMode;
+import io.github.hooj0.springdata.fabric.chaincode.enums.ProposalType;
+import io.github.hooj0.springdata.fabric.chaincode.enums.SerializationMode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Repository 方法的执行计划：在创建查询时一次性解析方法的操作类型、注解配置、用户、等待时间、结果映射方式和序列化实现，
+ * 每次调用只需绑定参数并按计划分发执行
+ * @changelog per-method precompiled execution plan, operation kind, users, wait times, result mapping and serializer resolved once
+ * @author hoojo
+ * @createDate 2019年1月30日 下午2:18:36
+ * @file ChaincodeExecutionPlan.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.repository.query
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@Slf4j
+@Getter
+@ToString(exclude = { "method", "clientUser", "requestUser", "transactionsUser", "serialization" })
+public final class ChaincodeExecutionPlan {
+
+	@SuppressWarnings("serial")
+	private static final String FUTURE_EVENT_TYPE = new TypeToken<CompletableFuture<TransactionEvent>>() {}.getType().getTypeName();
+
+	private final ChaincodeQueryMethod method;
+
+	/** 操作类型，方法没有操作注解时为空 */
+	private final ProposalType operation;
+	/** chaincode 函数名称，默认为方法名称 */
+	private final String func;
+
+	private final User clientUser;
+	private final User requestUser;
+	private final long proposalWaitTime;
+	private final boolean specificPeers;
+
+	/** 是否配置了 @Transaction */
+	private final boolean transactionAnnotated;
+	private final User transactionsUser;
+	private final long transactionWaitTime;
+	private final CommitMode commitMode;
+	private final int commitPeers;
+	private final boolean skipReadOnly;
+
+	/** 是否配置了 @Query */
+	private final boolean queryAnnotated;
+	private final long hedgeDelay;
+	private final double hedgePercentile;
+	private final int maxHedges;
+	private final String multiGet;
+	private final int fanOut;
+
+	/** 安装 chaincode 的升级版本和 META-INF 目录 */
+	private final String upgradeVersion;
+	private final File chaincodeMetaINF;
+	private final File chaincodeLocation;
+	/** 实例化、升级使用的背书策略文件和私有数据集合配置文件 */
+	private final File endorsementPolicyFile;
+	private final File collectionConfigurationFile;
+
+	private final boolean futureQuery;
+	private final boolean manyQuery;
+	/** 批量查询键参数的位置 */
+	private final int manyKeysIndex;
+	/** 返回值是否依赖动态投影参数，依赖时每次调用重新计算结果映射方式 */
+	private final boolean dynamicProjection;
+	private final ResultMapping resultMapping;
+
+	/** @Serialization 配置的序列化实现，未配置时为空 */
+	private final ChaincodeEntitySerialization serialization;
+	private final boolean serializeParameter;
+	private final boolean deserializeResult;
+
+	private ChaincodeExecutionPlan(ChaincodeQueryMethod method, FabricConfiguration config, Function<String, User> users) {
+		this.method = method;
+		this.operation = resolveOperation(method);
+
+		Proposal proposal = method.getProposalAnnotated();
+		this.func = StringUtils.defaultIfBlank(proposal.func(), method.getName());
+		this.clientUser = users.apply(proposal.clientUser());
+		this.requestUser = users.apply(proposal.requestUser());
+		this.proposalWaitTime = proposal.waitTime();
+		this.specificPeers = proposal.specificPeers();
+
+		Transaction transaction = method.getTransactionAnnotated();
+		this.transactionAnnotated = transaction != null;
+		this.transactionsUser = transaction != null ? users.apply(transaction.user()) : null;
+		this.transactionWaitTime = transaction != null ? transaction.waitTime() : 0;
+		this.commitMode = transaction != null ? transaction.commitMode() : CommitMode.COMMITTED_ON_N_PEERS;
+		this.commitPeers = transaction != null ? transaction.commitPeers() : 0;
+		this.skipReadOnly = transaction != null && transaction.skipReadOnly();
+
+		Query query = method.getQueryAnnotated();
+		this.queryAnnotated = query != null;
+		this.hedgeDelay = query != null ? query.hedgeDelay() : 0;
+		this.hedgePercentile = query != null ? query.hedgePercentile() : 0;
+		this.maxHedges = query != null ? query.maxHedges() : 1;
+		this.multiGet = query != null ? query.multiGet() : null;
+		this.fanOut = query != null ? query.fanOut() : QueryCriteria.DEFAULT_FAN_OUT;
+
+		Install install = operation == ProposalType.INSTALL ? method.getInstallAnnotated() : null;
+		this.upgradeVersion = install != null ? install.version() : null;
+		this.chaincodeMetaINF = install != null && StringUtils.isNotBlank(install.metaINF()) ? new File(install.metaINF()) : null;
+		this.chaincodeLocation = operation == ProposalType.INSTALL ? resolveFile(config, StringUtils.defaultIfBlank(install != null ? install.chaincodeLocation() : null, config.getChaincodeRootPath()), "chaincode source code") : null;
+
+		String policyFile = null;
+		String collectionFile = null;
+		if (operation == ProposalType.INSTANTIATE && method.getInstantiateAnnotated() != null) {
+			Instantiate instantiate = method.getInstantiateAnnotated();
+			policyFile = instantiate.endorsementPolicyFile();
+			collectionFile = instantiate.collectionConfiguration();
+		} else if (operation == ProposalType.UPGRADE && method.getUpgradeAnnotated() != null) {
+			Upgrade upgrade = method.getUpgradeAnnotated();
+			policyFile = upgrade.endorsementPolicyFile();
+			collectionFile = upgrade.collectionConfiguration();
+		}
+
+		boolean deploy = operation == ProposalType.INSTANTIATE || operation == ProposalType.UPGRADE;
+		this.endorsementPolicyFile = deploy ? resolveFile(config, StringUtils.defaultIfBlank(policyFile, config.getEndorsementPolicyFilePath()), "endorsement policy") : null;
+		this.collectionConfigurationFile = deploy && StringUtils.isNotBlank(collectionFile) ? resolveFile(config, collectionFile, "collection config") : null;
+
+		this.futureQuery = method.isFutureQuery();
+		this.manyQuery = method.isManyQuery();
+		this.manyKeysIndex = manyQuery ? checkManyKeysIndex(method) : -1;
+
+		SerializationMode mode = method.hasSerializationAnnotated() ? method.getSerializationAnnotated().value() : null;
+		this.serialization = mode != null ? method.getSerializationAnnotated().provider().getSerialization() : null;
+		this.serializeParameter = mode == SerializationMode.ALL || mode == SerializationMode.SERIALIZE;
+		this.deserializeResult = mode == SerializationMode.ALL || mode == SerializationMode.DESERIALIZE;
+
+		this.dynamicProjection = method.getParameters().hasDynamicProjection();
+		this.resultMapping = dynamicProjection ? null : checkResultMapping(resolveResultMapping(method.getResultProcessor().getReturnedType().getReturnedType()));
+
+		log.debug("method '{}' execution plan: {}", method.getName(), this);
+	}
+
+	/**
+	 * 创建方法的执行计划
+	 * @param method 查询方法
+	 * @param config 解析部署文件路径的配置
+	 * @param users 按用户名称获得用户，名称为空时返回 null
+	 * @return 执行计划
+	 */
+	public static ChaincodeExecutionPlan of(ChaincodeQueryMethod method, FabricConfiguration config, Function<String, User> users) {
+		return new ChaincodeExecutionPlan(method, config, users);
+	}
+
+	/**
+	 * 本次调用的结果映射方式，返回值不依赖动态投影参数时直接使用预先计算的结果
+	 */
+	public ResultMapping getResultMapping(ParametersParameterAccessor accessor) {
+		if (!dynamicProjection) {
+			return resultMapping;
+		}
+
+		return checkResultMapping(resolveResultMapping(method.getResultProcessor().withDynamicProjection(accessor).getReturnedType().getReturnedType()));
+	}
+
+	/**
+	 * 返回交易事件的方法需要等待区块提交，不能使用不产生交易事件的提交等待模式；
+	 * 跳过只读交易排序只对 submit 生效，返回交易事件或 ResultSet 的方法不能配置 skipReadOnly
+	 */
+	private ResultMapping checkResultMapping(ResultMapping mapping) {
+		if (operation != ProposalType.INVOKE) {
+			return mapping;
+		}
+
+		if (commitMode != CommitMode.COMMITTED_ON_N_PEERS && (mapping == ResultMapping.FUTURE_EVENT || mapping == ResultMapping.EVENT)) {
+			throw new IllegalStateException("Chaincode Repository method " + method + " returns transaction event, commit mode " + commitMode + " is unsupported");
+		}
+		if (skipReadOnly && (mapping == ResultMapping.FUTURE_EVENT || mapping == ResultMapping.EVENT || mapping == ResultMapping.RESULT_SET)) {
+			throw new IllegalStateException("Chaincode Repository method " + method + " returns " + mapping + ", skipReadOnly is only supported by submit");
+		}
+		return mapping;
+	}
+
+	private int checkManyKeysIndex(ChaincodeQueryMethod method) {
+		if (!ClassUtils.isAssignable(Map.class, method.getReturnType().getType())) {
+			throw new IllegalStateException("Chaincode Repository query many method " + method + " must return Map");
+		}
+		
+		int index = method.getManyKeysIndex();
+		if (index < 0) {
+			throw new IllegalStateException("Chaincode Repository query many method " + method + " has no Collection keys parameter");
+		}
+		return index;
+	}
+
+	private ProposalType resolveOperation(ChaincodeQueryMethod method) {
+		if (method.hasInstallAnnotated()) {
+			return ProposalType.INSTALL;
+		} else if (method.hasInstantiateAnnotated()) {
+			return ProposalType.INSTANTIATE;
+		} else if (method.hasInvokeAnnotated()) {
+			return ProposalType.INVOKE;
+		} else if (method.hasQueryAnnotated()) {
+			return ProposalType.QUERY;
+		} else if (method.hasUpgradeAnnotated()) {
+			return ProposalType.UPGRADE;
+		}
+		return null;
+	}
+
+	/**
+	 * 按操作类型和返回值类型计算结果映射方式，判断顺序与各操作原有的结果处理顺序一致
+	 */
+	private ResultMapping resolveResultMapping(Class<?> resultClass) {
+		if (operation == null) {
+			return ResultMapping.RAW;
+		}
+
+		switch (operation) {
+			case INSTALL:
+				if (ClassUtils.isAssignable(Collection.class, method.getResultType()) && ClassUtils.isAssignable(ProposalResponse.class, resultClass)) {
+					return ResultMapping.RESPONSES;
+				} else if (ClassUtils.isAssignable(ResultSet.class, resultClass)) {
+					return ResultMapping.RESULT_SET;
+				} else if (ClassUtils.isAssignable(String.class, resultClass)) {
+					return ResultMapping.TRANSACTION_ID;
+				} else if (!ClassUtils.isPrimitiveOrWrapper(resultClass)) {
+					return ResultMapping.ENTITY;
+				}
+				return ResultMapping.RESULT_SET;
+			case INVOKE:
+				boolean futureEvent = StringUtils.equals(FUTURE_EVENT_TYPE, method.getReturnType().getActualType().toString());
+				if (futureEvent || (futureQuery && ClassUtils.isAssignable(TransactionEvent.class, resultClass))) {
+					return ResultMapping.FUTURE_EVENT;
+				} else if (ClassUtils.isAssignable(TransactionEvent.class, resultClass)) {
+					return ResultMapping.EVENT;
+				} else if (ClassUtils.isAssignable(ResultSet.class, resultClass)) {
+					return ResultMapping.RESULT_SET;
+				} else if (ClassUtils.isAssignable(InvokeResult.class, resultClass)) {
+					return ResultMapping.INVOKE_RESULT;
+				}
+				return resolveValueMapping(resultClass);
+			case INSTANTIATE:
+			case UPGRADE:
+				if (futureQuery && ClassUtils.isAssignable(TransactionEvent.class, resultClass)) {
+					return ResultMapping.FUTURE_EVENT;
+				} else if (ClassUtils.isAssignable(TransactionEvent.class, resultClass)) {
+					return ResultMapping.EVENT;
+				} else if (ClassUtils.isAssignable(ResultSet.class, resultClass)) {
+					return ResultMapping.RESULT_SET;
+				}
+				return resolveValueMapping(resultClass);
+			case QUERY:
+				if (ClassUtils.isAssignable(ResultSet.class, resultClass)) {
+					return ResultMapping.RESULT_SET;
+				}
+				return resolveValueMapping(resultClass);
+			default:
+				return ResultMapping.RAW;
+		}
+	}
+
+	private ResultMapping resolveValueMapping(Class<?> resultClass) {
+		if (deserializeResult) {
+			return ResultMapping.DESERIALIZE;
+		} else if (ClassUtils.isAssignable(String.class, resultClass)) {
+			return ResultMapping.STRING;
+		} else if (!ClassUtils.isPrimitiveOrWrapper(resultClass)) {
+			return ResultMapping.ENTITY;
+		}
+		return ResultMapping.RAW;
+	}
+
+	private File resolveFile(FabricConfiguration config, String location, String name) {
+		if (StringUtils.isBlank(location)) {
+			return null;
+		}
+
+		File file = new File(location);
+		if (!file.exists()) {
+			file = Paths.get(config.getCommonRootPath(), location).toFile();
+			log.warn("{} directory '{}' does not exist, Try to bring the default prefix path: {}", name, location, file);
+		}
+
+		return file;
+	}
+
+	/**
+	 * 方法返回值的映射方式
+	 */
+	public static enum ResultMapping {
+
+		/** 异步返回交易事件 */
+		FUTURE_EVENT,
+		/** 等待交易事件 */
+		EVENT,
+		/** 返回 ResultSet */
+		RESULT_SET,
+		/** 返回背书或排序确认结果 */
+		INVOKE_RESULT,
+		/** 返回安装的背书响应 */
+		RESPONSES,
+		/** 返回交易ID */
+		TRANSACTION_ID,
+		/** 使用 @Serialization 反序列化 */
+		DESERIALIZE,
+		/** 返回字符串结果 */
+		STRING,
+		/** 反序列化为实体并绑定交易ID */
+		ENTITY,
+		/** 返回原始结果 */
+		RAW;
+	}
+}
@@ -2,7 +2,9 @@ package io.github.hooj0.springdata.fabric.chaincode.repository.query;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.AnnotationUtils;
@@ -19,6 +21,7 @@ import com.google.common.collect.ClassToInstanceMap;
 import com.google.common.collect.MutableClassToInstanceMap;
 
 import io.github.hooj0.springdata.fabric.chaincode.ChaincodeUnsupportedOperationException;
+import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.CachedQuery;
 import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Channel;
 import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Deploy;
 import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Install;
@@ -59,7 +62,7 @@ public class ChaincodeQueryMethod extends QueryMethod {
 	private final Proposal proposalAnnotated;
 	private final Deploy deployAnnotated;
 	
-	private Class[] annotationes = { Install.class, Instantiate.class, Upgrade.class, Invoke.class, Query.class, Channel.class, Transaction.class, Serialization.class };
+	private Class[] annotationes = { Install.class, Instantiate.class, Upgrade.class, Invoke.class, Query.class, Channel.class, Transaction.class, Serialization.class, CachedQuery.class };
 	private ClassToInstanceMap<Annotation> annotationInstatnces = MutableClassToInstanceMap.<Annotation>create();
 	
 	@SuppressWarnings("unchecked")
@@ -124,6 +127,10 @@ public class ChaincodeQueryMethod extends QueryMethod {
 		return proposalType == ProposalType.QUERY || getQueryAnnotated() != null;
 	}
 	
+	public CachedQuery getCachedQueryAnnotated() {
+		return this.getAnnotation(CachedQuery.class);
+	}
+	
 	public Deploy getDeployAnnotated() {
 		return this.deployAnnotated;
 	}
@@ -185,8 +192,47 @@ public class ChaincodeQueryMethod extends QueryMethod {
 		return ClassTypeInformation.fromReturnTypeOf(this.method);
 	}
 	
+	/**
+	 * 方法返回值是否为 CompletableFuture 异步结果
+	 */
+	public boolean isFutureQuery() {
+		return ClassUtils.isAssignable(CompletableFuture.class, getReturnType().getType());
+	}
+	
+	/**
+	 * 是否为批量查询：方法配置了 @Query(many = true)
+	 */
+	public boolean isManyQuery() {
+		return hasQueryAnnotated() && getQueryAnnotated().many();
+	}
+	
+	/**
+	 * 批量查询键参数的位置：第一个集合类型参数，不存在时返回 -1
+	 */
+	public int getManyKeysIndex() {
+		Class<?>[] parameterTypes = this.method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (ClassUtils.isAssignable(Collection.class, parameterTypes[i])) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * 返回值类型，CompletableFuture 返回值取其泛型参数类型
+	 */
+	public TypeInformation<?> getResultTypeInformation() {
+		TypeInformation<?> returnType = getReturnType();
+		if (isFutureQuery() && returnType.getComponentType() != null) {
+			return returnType.getComponentType();
+		}
+		
+		return returnType;
+	}
+	
 	public Class<?> getResultType() {
-		TypeInformation<?> actualType = getReturnType().getActualType();
+		TypeInformation<?> actualType = getResultTypeInformation().getActualType();
 
 		return actualType.getType();
 	}
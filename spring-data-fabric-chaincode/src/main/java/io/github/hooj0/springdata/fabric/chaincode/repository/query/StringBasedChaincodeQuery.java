@@ -1,39 +1,37 @@
 package io.github.hooj0.springdata.fabric.chaincode.repository.query;
 
 import java.io.File;
-import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hyperledger.fabric.sdk.ChaincodeCollectionConfiguration;
 import org.springframework.data.repository.query.ParametersParameterAccessor;
 import org.springframework.data.repository.query.QueryMethodEvaluationContextProvider;
-import org.springframework.data.repository.query.ResultProcessor;
-import org.springframework.data.repository.query.ReturnedType;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 
 import com.google.common.base.Optional;
-import com.google.common.base.Strings;
-import com.google.common.io.Files;
 
-import io.github.hooj0.fabric.sdk.commons.config.FabricConfiguration;
+import io.github.hooj0.fabric.sdk.commons.core.execution.option.InstantiateOptions;
 import io.github.hooj0.fabric.sdk.commons.core.execution.option.Options;
 import io.github.hooj0.fabric.sdk.commons.core.execution.option.TransactionsOptions;
 import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
 import io.github.hooj0.springdata.fabric.chaincode.ChaincodeUnsupportedOperationException;
-import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Install;
-import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Instantiate;
-import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Proposal;
-import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Transaction;
-import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Upgrade;
 import io.github.hooj0.springdata.fabric.chaincode.core.ChaincodeOperations;
+import io.github.hooj0.springdata.fabric.chaincode.core.cache.ChaincodeArtifactCache;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.InstallCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.InstantiateCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.InvokeCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.QueryCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.UpgradeCriteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.support.ChaincodeRateLimiter;
+import io.github.hooj0.springdata.fabric.chaincode.core.support.ChaincodeRetryPolicy;
+import io.github.hooj0.springdata.fabric.chaincode.enums.ProposalType;
+import io.github.hooj0.springdata.fabric.chaincode.repository.query.ChaincodeExecutionPlan.ResultMapping;
+import io.github.hooj0.springdata.fabric.chaincode.repository.query.parser.ArgumentTemplate;
 import io.github.hooj0.springdata.fabric.chaincode.repository.query.parser.ExpressionEvaluatingParameterBinder;
-import io.github.hooj0.springdata.fabric.chaincode.repository.query.parser.SimpleStatement;
-import io.github.hooj0.springdata.fabric.chaincode.repository.query.parser.StringBasedQueryBinder;
 import io.github.hooj0.springdata.fabric.chaincode.repository.query.parser.StringBasedQueryParser;
 import lombok.extern.slf4j.Slf4j;
 
@@ -55,24 +53,36 @@ public class StringBasedChaincodeQuery extends AbstractChaincodeQuery {
 	private static final String QUERY_ARGS_SEPARATOR = "_;_";
 
 	private final StringBasedQueryParser parser;
-	private final FabricConfiguration config;
-	private StringBasedQueryBinder binder;
-	private String query;
+	private final ChaincodeRetryPolicy retryPolicy;
+	private ChaincodeRateLimiter rateLimiter;
+	private ArgumentTemplate argsTemplate;
+	private ArgumentTemplate keysTemplate;
 	
 	public StringBasedChaincodeQuery(ChaincodeQueryMethod method, ChaincodeOperations operations, SpelExpressionParser expressionParser, QueryMethodEvaluationContextProvider evaluationContextProvider) {
-		this(StringUtils.join(method.getRequiredAnnotatedQuery(), QUERY_ARGS_SEPARATOR), method, operations, expressionParser, evaluationContextProvider);
+		this(method.getRequiredAnnotatedQuery(), method, operations, expressionParser, evaluationContextProvider);
 	}
 
 	public StringBasedChaincodeQuery(String namedQuery, ChaincodeQueryMethod queryMethod, ChaincodeOperations operations, SpelExpressionParser expressionParser, QueryMethodEvaluationContextProvider evaluationContextProvider) {
+		this(StringUtils.splitByWholeSeparator(namedQuery, QUERY_ARGS_SEPARATOR), queryMethod, operations, expressionParser, evaluationContextProvider);
+	}
+	
+	private StringBasedChaincodeQuery(String[] args, ChaincodeQueryMethod queryMethod, ChaincodeOperations operations, SpelExpressionParser expressionParser, QueryMethodEvaluationContextProvider evaluationContextProvider) {
 		super(queryMethod, operations);
 		
-		this.config = operations.getConfig(method.getCriteria());
-		this.query = namedQuery;
+		this.retryPolicy = ChaincodeRetryPolicy.of(method.getTransactionAnnotated());
+		this.rateLimiter = ChaincodeRateLimiter.of(method.getProposalAnnotated());
 		
 		this.parser = new StringBasedQueryParser(conversionService);
-		if (StringUtils.isNotBlank(query)) {
-			this.binder = new StringBasedQueryBinder(query, new ExpressionEvaluatingParameterBinder(expressionParser, evaluationContextProvider));
+		
+		ExpressionEvaluatingParameterBinder parameterBinder = new ExpressionEvaluatingParameterBinder(expressionParser, evaluationContextProvider);
+		if (args != null && args.length > 0) {
+			this.argsTemplate = ArgumentTemplate.compile(args, method, parameterBinder, parser);
 		} 
+		
+		String[] keys = method.getProposalAnnotated().keys();
+		if (keys.length > 0) {
+			this.keysTemplate = ArgumentTemplate.compile(keys, method, parameterBinder, parser);
+		}
 	}
 
 	@Override
@@ -82,215 +92,223 @@ public class StringBasedChaincodeQuery extends AbstractChaincodeQuery {
 			parameterValues = serializeParameter(parameterValues);
 		} 
 		
-		if (StringUtils.isNotBlank(query)) {
-			log.debug("args string: {}", query);
-
-			SimpleStatement statement = binder.bindQuery(parameterAccessor, method, parameterValues);
-			log.debug("binder query statement: {}, args: {}", statement.getBindableStatement(), statement.getArray());
+		if (argsTemplate != null) {
+			String[] args = argsTemplate.fill(parameterAccessor, parameterValues);
+			log.debug("parser args: {}", new Object[] { args });
 			
-			String result = parser.replacePlaceholders(statement.getBindableStatement(), statement.getArray());
-			log.debug("parser args: {}", new Object[] { result });
-			
-			return StringUtils.split(result, QUERY_ARGS_SEPARATOR);
+			return args;
 		}
 		
 		return parameterValues;
 	}
 	
+	/**
+	 * 计算交易读写的账本键
+	 */
+	protected List<String> createKeys(ParametersParameterAccessor parameterAccessor, Object[] parameterValues) {
+		if (keysTemplate == null) {
+			return null;
+		}
+		
+		String[] keys = keysTemplate.fill(parameterAccessor, parameterValues);
+		log.debug("parser keys: {}", new Object[] { keys });
+		
+		return Arrays.asList(keys);
+	}
+	
 	@Override
 	public Object execute(Object[] parameterValues) {
 		
+		if (plan.getOperation() == null) {
+			throw new ChaincodeUnsupportedOperationException("Unknow Support has not @Annotation implemented yet.");
+		}
+		
+		// 查询在缓存未命中后才获取许可
+		if (rateLimiter != null && plan.getOperation() != ProposalType.QUERY) {
+			rateLimiter.acquire();
+		}
+		
 		ParametersParameterAccessor accessor = new ParametersParameterAccessor(method.getParameters(), parameterValues);
-		ResultProcessor processor = method.getResultProcessor().withDynamicProjection(accessor);
+		ResultMapping mapping = plan.getResultMapping(accessor);
 		
 		Object[] conditionValues = createQuery(accessor, parameterValues);
 		conditionValues = Optional.fromNullable(conditionValues).or(parameterValues);
 		log.info("query string params: {}", new Object[] { conditionValues });
 		
-		ChaincodeExecutor executor = new ChaincodeExecutor(parameterValues, conditionValues, processor.getReturnedType());
-		
 		try {
-			if (method.hasInstallAnnotated()) {
-				return executor.executeInstall();
-			} else if (method.hasInstantiateAnnotated()) {
-				return executor.executeInstantiate();
-			} else if (method.hasInvokeAnnotated()) {
-				return executor.executeInvoke();
-			} else if (method.hasQueryAnnotated()) {
-				return executor.executeQuery();
-			} else if (method.hasUpgradeAnnotated()) {
-				return executor.executeUpgrade();
+			switch (plan.getOperation()) {
+				case INSTALL:
+					return executeInstall(parameterValues, conditionValues, mapping);
+				case INSTANTIATE:
+					return executeInstantiate(parameterValues, conditionValues, mapping);
+				case INVOKE:
+					return executeInvoke(parameterValues, conditionValues, createKeys(accessor, parameterValues), mapping);
+				case QUERY:
+					return executeQuery(parameterValues, conditionValues, createKeys(accessor, parameterValues), mapping);
+				default:
+					return executeUpgrade(parameterValues, conditionValues, mapping);
 			}
 		} catch (Exception e) {
 			log.error(e.getMessage(), e);
 			throw new ChaincodeOperationException(e);
 		} 
-		
-		throw new ChaincodeUnsupportedOperationException("Unknow Support has not @Annotation implemented yet.");
 	}
 	
-	private class ChaincodeExecutor {
-		private Object[] parameterValues;
-		private Object[] conditionValues;
-		private ReturnedType returnedType;
+	public ChaincodeRetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+	
+	public ChaincodeRateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+	
+	public void setRateLimiter(ChaincodeRateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+	
+	public ChaincodeExecutionPlan getPlan() {
+		return plan;
+	}
+	
+	private Object executeInstall(Object[] parameterValues, Object[] conditionValues, ResultMapping mapping) {
+		InstallCriteria criteria = new InstallCriteria(method.getCriteria());
+		criteria.setTransientData(transformTransientData(parameterValues));
 		
-		public ChaincodeExecutor(Object[] parameterValues, Object[] conditionValues, ReturnedType returnedType) {
-			this.parameterValues = parameterValues;
-			this.conditionValues = conditionValues;
-			this.returnedType = returnedType;
+		if (plan.getUpgradeVersion() != null) {
+			criteria.setChaincodeUpgradeVersion(plan.getUpgradeVersion());
+		}
+		if (plan.getChaincodeMetaINF() != null) {
+			criteria.setChaincodeMetaINF(plan.getChaincodeMetaINF());
 		}
+		this.afterCriteriaSet(criteria);
 		
-		protected Object executeInstall() throws Exception {
-			Install install = method.getInstallAnnotated();
-			InstallCriteria criteria = new InstallCriteria(method.getCriteria());
-			criteria.setTransientData(transformTransientData(parameterValues));
-			
-			String chaincodeLocation = null;
-			if (install != null) {
-				criteria.setChaincodeUpgradeVersion(install.version());
-				if (!Strings.isNullOrEmpty(install.metaINF())) {
-					criteria.setChaincodeMetaINF(new File(install.metaINF()));
-				}
-				chaincodeLocation = install.chaincodeLocation();
-			} 
-			
-			Proposal proposal = method.getProposalAnnotated();
-			this.afterCriteriaSet(criteria, proposal);
-
-			chaincodeLocation = StringUtils.defaultIfBlank(chaincodeLocation, config.getChaincodeRootPath());
-			File chaincodeFile = new File(chaincodeLocation);
-			if (!chaincodeFile.exists()) {
-				chaincodeFile = Paths.get(config.getCommonRootPath(), chaincodeLocation).toFile();
-				log.warn("chaincode source code directory '{}' does not exist, Try to bring the default prefix path: {}", chaincodeLocation, chaincodeFile);
-			} 
-			
-			return installOperation(criteria, conditionValues, returnedType, chaincodeFile);
-		} 
+		return installOperation(criteria, conditionValues, mapping, plan.getChaincodeLocation());
+	} 
+	
+	private Object executeInstantiate(Object[] parameterValues, Object[] conditionValues, ResultMapping mapping) {
+		InstantiateCriteria criteria = new InstantiateCriteria(method.getCriteria());
+		criteria.setTransientData(transformTransientData(parameterValues));
+		this.afterDeploySet(criteria);
 		
-		private Object executeInstantiate() throws Exception {
-			Instantiate instantiate = method.getInstantiateAnnotated();
-			InstantiateCriteria criteria = new InstantiateCriteria(method.getCriteria());
-			criteria.setTransientData(transformTransientData(parameterValues));
-
-			String endorsementPolicyFile = null;
-			if (instantiate != null) {
-				File collectionFile = getCollectionFile(instantiate.collectionConfiguration());
-				criteria.setCollectionConfiguration(getCollectionConfiguration(collectionFile));
-				endorsementPolicyFile = instantiate.endorsementPolicyFile();
-			}
-			criteria.setEndorsementPolicyFile(getPolicyFile(endorsementPolicyFile));
-			
-			Proposal proposal = method.getProposalAnnotated();
-			this.afterCriteriaSet(criteria, proposal);
-
-			Transaction transaction = method.getTransactionAnnotated();
-			this.afterTransactionSet(criteria, transaction);
-			
-			return instantiateOperation(criteria, conditionValues, returnedType, proposal.func());
-		} 
+		this.afterCriteriaSet(criteria);
+		this.afterTransactionSet(criteria);
 		
-		private Object executeUpgrade() throws Exception {
-			Upgrade upgrade = method.getUpgradeAnnotated();
-			UpgradeCriteria criteria = new UpgradeCriteria(method.getCriteria());
-			criteria.setTransientData(transformTransientData(parameterValues));
-			
-			String endorsementPolicyFile = null;
-			if (upgrade != null) {
-				File collectionFile = getCollectionFile(upgrade.collectionConfiguration());
-				criteria.setCollectionConfiguration(getCollectionConfiguration(collectionFile));
-				endorsementPolicyFile = upgrade.endorsementPolicyFile();
-			}
-			
-			endorsementPolicyFile = StringUtils.defaultIfBlank(endorsementPolicyFile, config.getEndorsementPolicyFilePath());
-			criteria.setEndorsementPolicyFile(getPolicyFile(endorsementPolicyFile));
-			
-			Proposal proposal = method.getProposalAnnotated();
-			this.afterCriteriaSet(criteria, proposal);
-
-			Transaction transaction = method.getTransactionAnnotated();
-			this.afterTransactionSet(criteria, transaction);
-			
-			return upgradeOperation(criteria, conditionValues, returnedType, proposal.func());
-		} 
+		return instantiateOperation(criteria, conditionValues, mapping);
+	} 
+	
+	private Object executeUpgrade(Object[] parameterValues, Object[] conditionValues, ResultMapping mapping) {
+		UpgradeCriteria criteria = new UpgradeCriteria(method.getCriteria());
+		criteria.setTransientData(transformTransientData(parameterValues));
+		this.afterDeploySet(criteria);
 		
-		private Object executeInvoke() {
-			InvokeCriteria criteria = new InvokeCriteria(method.getCriteria());
-			criteria.setTransientData(transformTransientData(parameterValues));
-			
-			Proposal proposal = method.getProposalAnnotated();
-			this.afterCriteriaSet(criteria, proposal);
-
-			Transaction transaction = method.getTransactionAnnotated();
-			this.afterTransactionSet(criteria, transaction);
-			
-			return invokeOperation(criteria, conditionValues, returnedType, proposal.func());
-		}
+		this.afterCriteriaSet(criteria);
+		this.afterTransactionSet(criteria);
 		
-		private Object executeQuery() {
-			QueryCriteria criteria = new QueryCriteria(method.getCriteria());
-			criteria.setTransientData(transformTransientData(parameterValues));
-			
-			Proposal proposal = method.getProposalAnnotated();
-			this.afterCriteriaSet(criteria, proposal);
-
-			return queryOperation(criteria, conditionValues, returnedType, proposal.func());
+		return upgradeOperation(criteria, conditionValues, mapping);
+	} 
+	
+	private Object executeInvoke(Object[] parameterValues, Object[] conditionValues, List<String> keys, ResultMapping mapping) {
+		InvokeCriteria criteria = new InvokeCriteria(method.getCriteria());
+		criteria.setTransientData(transformTransientData(parameterValues));
+		
+		this.afterCriteriaSet(criteria);
+		this.afterTransactionSet(criteria);
+		criteria.setRetryPolicy(retryPolicy);
+		criteria.setKeys(keys);
+		
+		return invokeOperation(criteria, conditionValues, mapping);
+	}
+	
+	private Object executeQuery(Object[] parameterValues, Object[] conditionValues, List<String> keys, ResultMapping mapping) {
+		QueryCriteria criteria = new QueryCriteria(method.getCriteria());
+		criteria.setTransientData(transformTransientData(parameterValues));
+		
+		this.afterCriteriaSet(criteria);
+		
+		if (plan.isQueryAnnotated()) {
+			criteria.setHedgeDelay(plan.getHedgeDelay());
+			criteria.setHedgePercentile(plan.getHedgePercentile());
+			criteria.setMaxHedges(plan.getMaxHedges());
+			criteria.setMultiGet(plan.getMultiGet());
+			criteria.setFanOut(plan.getFanOut());
 		}
+		criteria.setKeys(keys);
 		
-		private File getPolicyFile(String endorsementPolicyFile) {
-			endorsementPolicyFile = StringUtils.defaultIfBlank(endorsementPolicyFile, config.getEndorsementPolicyFilePath());
-			File policyFile = new File(endorsementPolicyFile);
-			if (!policyFile.exists()) {
-				policyFile = Paths.get(config.getCommonRootPath(), endorsementPolicyFile).toFile();
-				log.warn("endorsement policy directory '{}' does not exist, Try to bring the default prefix path: {}", endorsementPolicyFile, policyFile);
-			} 
-			
-			return policyFile;
+		if (plan.isManyQuery()) {
+			return executeQueryMany(criteria, parameterValues);
 		}
 
-		private File getCollectionFile(String collectionConfigFile) {
-			if (Strings.isNullOrEmpty(collectionConfigFile)) {
-				return null;
-			}
-			
-			File configFile = new File(collectionConfigFile);
-			if (!configFile.exists()) {
-				configFile = Paths.get(config.getCommonRootPath(), collectionConfigFile).toFile();
-				log.warn("collection config directory '{}' does not exist, Try to bring the default prefix path: {}", collectionConfigFile, configFile);
-			} 
-			
-			return configFile;
+		return queryOperation(criteria, conditionValues, mapping);
+	}
+	
+	@Override
+	protected void beforeQuery() {
+		if (rateLimiter != null) {
+			rateLimiter.acquire();
+		}
+	}
+	
+	/**
+	 * 批量查询：键为方法的第一个集合类型参数，每个键替换该参数后按 args 模板绑定查询参数；
+	 * 按键并行查询时每个键占用一个限流令牌，multiGet 一次调用只占用一个
+	 */
+	@SuppressWarnings("unchecked")
+	private Object executeQueryMany(QueryCriteria criteria, Object[] parameterValues) {
+		int index = plan.getManyKeysIndex();
+		if (parameterValues[index] == null) {
+			throw new ChaincodeOperationException("query many method '%s' collection keys parameter is null", method.getName());
 		}
 		
-		private ChaincodeCollectionConfiguration getCollectionConfiguration(File collectionFile) throws Exception {
-			if (collectionFile == null) {
-				return null;
-			}
-			log.info("chaincode collection config file location：{}", collectionFile.getAbsolutePath());
-
-			String suffix = Files.getFileExtension(collectionFile.getName());
-			if ("yaml".equalsIgnoreCase(suffix) || "yml".equalsIgnoreCase(suffix)) {
-				return ChaincodeCollectionConfiguration.fromYamlFile(collectionFile);
-			} else if ("json".equalsIgnoreCase(suffix)) {
-				return ChaincodeCollectionConfiguration.fromJsonFile(collectionFile);
-			} else {
-				throw new IllegalArgumentException("suffix '" + suffix + "' is unsupport configuration.");
-			}
+		Collection<Object> keys = (Collection<Object>) parameterValues[index];
+		if (rateLimiter != null && !keys.isEmpty()) {
+			rateLimiter.acquire(StringUtils.isBlank(plan.getMultiGet()) ? new HashSet<>(keys).size() : 1);
 		}
 		
-		private void afterTransactionSet(TransactionsOptions options, Transaction transaction) {
-			if (transaction != null) {
-				options.setTransactionsUser(getUser(transaction.user()));
-				options.setTransactionWaitTime(transaction.waitTime());
-			}
+		return queryManyOperation(criteria, keys, key -> {
+			Object[] values = parameterValues.clone();
+			values[index] = key;
+			
+			Object[] args = createQuery(new ParametersParameterAccessor(method.getParameters(), values), values);
+			return Optional.fromNullable(args).or(values);
+		});
+	}
+	
+	private ChaincodeCollectionConfiguration getCollectionConfiguration(File collectionFile) {
+		if (collectionFile == null) {
+			return null;
 		}
+		log.debug("chaincode collection config file location：{}", collectionFile.getAbsolutePath());
+
+		return ChaincodeArtifactCache.getSharedInstance().getCollectionConfiguration(collectionFile);
+	}
+	
+	private void afterDeploySet(InstantiateOptions options) {
+		File policyFile = plan.getEndorsementPolicyFile();
 		
-		private void afterCriteriaSet(Options options, Proposal proposal) {
-			if (proposal != null) {
-				options.setClientUserContext(getUser(proposal.clientUser()));
-				options.setProposalWaitTime(proposal.waitTime());
-				options.setRequestUser(getUser(proposal.requestUser()));
-				options.setSpecificPeers(proposal.specificPeers());
+		options.setCollectionConfiguration(getCollectionConfiguration(plan.getCollectionConfigurationFile()));
+		options.setEndorsementPolicyFile(policyFile);
+		if (policyFile != null && policyFile.isFile()) {
+			options.setEndorsementPolicy(ChaincodeArtifactCache.getSharedInstance().getEndorsementPolicy(policyFile));
+		}
+	}
+	
+	private void afterTransactionSet(TransactionsOptions options) {
+		if (plan.isTransactionAnnotated()) {
+			options.setTransactionsUser(plan.getTransactionsUser());
+			options.setTransactionWaitTime(plan.getTransactionWaitTime());
+			
+			if (options instanceof InvokeCriteria) {
+				((InvokeCriteria) options).setCommitMode(plan.getCommitMode());
+				((InvokeCriteria) options).setCommitPeers(plan.getCommitPeers());
+				((InvokeCriteria) options).setSkipReadOnly(plan.isSkipReadOnly());
 			}
 		}
 	}
+	
+	private void afterCriteriaSet(Options options) {
+		options.setClientUserContext(plan.getClientUser());
+		options.setProposalWaitTime(plan.getProposalWaitTime());
+		options.setRequestUser(plan.getRequestUser());
+		options.setSpecificPeers(plan.isSpecificPeers());
+	}
 }
@@ -0,0 +1,137 @@
+package io.github.hooj0.springdata.fabric.chaincode.repository.query.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.data.repository.query.ParametersParameterAccessor;
+import org.springframework.util.Assert;
+
+import io.github.hooj0.springdata.fabric.chaincode.repository.query.ChaincodeQueryMethod;
+import io.github.hooj0.springdata.fabric.chaincode.repository.query.parser.ExpressionEvaluatingParameterBinder.BindingContext;
+import io.github.hooj0.springdata.fabric.chaincode.repository.query.parser.ExpressionEvaluatingParameterBinder.ParameterBinding;
+
+/**
+ * 预编译的 chaincode 参数模板：方法的每个参数在创建查询时解析一次，拆分成字面量片段和参数占位，
+ * 调用时按参数绑定的值直接填充结果数组，不再经过占位符的正则替换和字符串拼接/拆分
+ * @changelog precompiled chaincode argument template, literal segments plus parameter slots filled per call
+ * @author hoojo
+ * @createDate 2019年1月30日 上午10:05:47
+ * @file ArgumentTemplate.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.repository.query.parser
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public final class ArgumentTemplate {
+
+	private static final String ARGUMENT_PLACEHOLDER = "?_param_?";
+
+	/** 每个参数的字面量片段，片段数比占位数多一 */
+	private final String[][] segments;
+	/** 每个参数的占位对应的参数绑定序号 */
+	private final int[][] slots;
+	/** 每个参数的字面量长度，用于预估填充后的长度 */
+	private final int[] literalLengths;
+
+	private final BindingContext bindingContext;
+	private final ExpressionEvaluatingParameterBinder parameterBinder;
+	private final StringBasedQueryParser parser;
+
+	private ArgumentTemplate(String[] args, ChaincodeQueryMethod queryMethod, ExpressionEvaluatingParameterBinder parameterBinder, StringBasedQueryParser parser) {
+		this.segments = new String[args.length][];
+		this.slots = new int[args.length][];
+		this.literalLengths = new int[args.length];
+
+		List<ParameterBinding> bindings = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			int offset = bindings.size();
+			String arg = StringBasedQueryBinder.ParameterBindingParser.INSTANCE.parseAndCollectParameterBindingsFromQueryIntoBindings(args[i], bindings);
+
+			compileArgument(i, arg == null ? "" : arg, offset, bindings.size() - offset);
+		}
+
+		this.bindingContext = parameterBinder.createBindingContext(queryMethod, Collections.unmodifiableList(bindings));
+		this.parameterBinder = parameterBinder;
+		this.parser = parser;
+	}
+
+	/**
+	 * 编译方法的参数模板
+	 * @param args 参数，支持 ?0、:name、?#{expression}、:#{expression} 占位
+	 * @param queryMethod 参数所属的方法
+	 * @param parameterBinder 参数和表达式绑定器
+	 * @param parser 参数值转换成字符串
+	 * @return 参数模板
+	 */
+	public static ArgumentTemplate compile(String[] args, ChaincodeQueryMethod queryMethod, ExpressionEvaluatingParameterBinder parameterBinder, StringBasedQueryParser parser) {
+		Assert.notNull(args, "args must not be null");
+		Assert.notNull(queryMethod, "ChaincodeQueryMethod must not be null");
+		Assert.notNull(parameterBinder, "ExpressionEvaluatingParameterBinder must not be null");
+		Assert.notNull(parser, "StringBasedQueryParser must not be null");
+
+		return new ArgumentTemplate(args, queryMethod, parameterBinder, parser);
+	}
+
+	private void compileArgument(int index, String arg, int offset, int count) {
+		String[] argSegments = new String[count + 1];
+		int[] argSlots = new int[count];
+
+		int start = 0;
+		for (int slot = 0; slot < count; slot++) {
+			int position = arg.indexOf(ARGUMENT_PLACEHOLDER, start);
+
+			argSegments[slot] = arg.substring(start, position);
+			argSlots[slot] = offset + slot;
+			start = position + ARGUMENT_PLACEHOLDER.length();
+		}
+		argSegments[count] = arg.substring(start);
+
+		int length = 0;
+		for (String segment : argSegments) {
+			length += segment.length();
+		}
+
+		this.segments[index] = argSegments;
+		this.slots[index] = argSlots;
+		this.literalLengths[index] = length;
+	}
+
+	/**
+	 * 按方法参数值填充参数模板
+	 * @param parameterAccessor 方法参数访问器
+	 * @param values 方法参数值
+	 * @return 与模板参数一一对应的参数值
+	 */
+	public String[] fill(ParametersParameterAccessor parameterAccessor, Object[] values) {
+		List<Object> bound = parameterBinder.bind(parameterAccessor, bindingContext, values);
+
+		String[] result = new String[segments.length];
+		for (int i = 0; i < segments.length; i++) {
+			String[] argSegments = segments[i];
+			int[] argSlots = slots[i];
+
+			if (argSlots.length == 0) {
+				result[i] = argSegments[0];
+			} else if (argSlots.length == 1 && argSegments[0].isEmpty() && argSegments[1].isEmpty()) {
+				result[i] = parser.convert(bound.get(argSlots[0]));
+			} else {
+				StringBuilder sb = new StringBuilder(literalLengths[i] + 16 * argSlots.length);
+				for (int slot = 0; slot < argSlots.length; slot++) {
+					sb.append(argSegments[slot]).append(parser.convert(bound.get(argSlots[slot])));
+				}
+				result[i] = sb.append(argSegments[argSlots.length]).toString();
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * 模板参数个数
+	 */
+	public int size() {
+		return segments.length;
+	}
+}
@@ -50,6 +50,37 @@ public class ExpressionEvaluatingParameterBinder {
 		this.evaluationContextProvider = evaluationContextProvider;
 	}
 
+	/**
+	 * 创建参数绑定上下文：命名参数在创建时解析成参数索引，表达式在创建时解析一次，之后每次绑定直接使用
+	 * @param queryMethod
+	 *            must not be {@literal null}.
+	 * @param bindings
+	 *            must not be {@literal null}.
+	 * @return 预先解析的参数绑定上下文
+	 */
+	public BindingContext createBindingContext(ChaincodeQueryMethod queryMethod, List<ParameterBinding> bindings) {
+		Assert.notNull(queryMethod, "ChaincodeQueryMethod must not be null");
+		Assert.notNull(bindings, "ParameterBindings must not be null");
+
+		int[] parameterIndexes = new int[bindings.size()];
+		Expression[] expressions = new Expression[bindings.size()];
+
+		for (int i = 0; i < bindings.size(); i++) {
+			ParameterBinding binding = bindings.get(i);
+
+			if (binding.isExpression()) {
+				expressions[i] = expressionParser.parseExpression(binding.getExpression());
+				parameterIndexes[i] = -1;
+			} else if (binding.isNamed()) {
+				parameterIndexes[i] = getParameterIndex(queryMethod.getParameters(), binding.getParameterName());
+			} else {
+				parameterIndexes[i] = binding.getParameterIndex();
+			}
+		}
+
+		return new BindingContext(queryMethod, bindings, parameterIndexes, expressions);
+	}
+
 	/**
 	 * Bind values provided by {@link ParametersParameterAccessor} to placeholders in {@link BindingContext} while
 	 * considering potential conversions and parameter types.
@@ -65,35 +96,25 @@ public class ExpressionEvaluatingParameterBinder {
 			return Collections.emptyList();
 		}
 
-		List<Object> parameters = new ArrayList<>(bindingContext.getBindings().size());
+		int size = bindingContext.bindings.size();
+		List<Object> parameters = new ArrayList<>(size);
 
-		bindingContext.getBindings() //
-				.stream() //
-				.map(binding -> getParameterValueForBinding(parameterAccessor, bindingContext.getParameters(), binding, values)) //
-				.forEach(parameters::add);
+		// 表达式求值上下文依赖本次调用的参数值，同一次绑定的所有表达式共用一个上下文
+		EvaluationContext evaluationContext = null;
+		for (int i = 0; i < size; i++) {
+			Expression expression = bindingContext.expressions[i];
 
-		return parameters;
-	}
-
-	/**
-	 * 将参数值绑定到对应参数索引占位符的索引上
-	 * @param parameterAccessor
-	 *            must not be {@literal null}.
-	 * @param parameters
-	 *            must not be {@literal null}.
-	 * @param binding
-	 *            must not be {@literal null}.
-	 * @return the value used for the given {@link ParameterBinding}.
-	 */
-	@Nullable
-	private Object getParameterValueForBinding(ParametersParameterAccessor parameterAccessor, Parameters<?, ?> parameters, ParameterBinding binding, Object[] values) {
-		if (binding.isExpression()) {
-			return evaluateExpression(binding.getExpression(), parameters, values);
+			if (expression != null) {
+				if (evaluationContext == null) {
+					evaluationContext = evaluationContextProvider.getEvaluationContext(bindingContext.getParameters(), values);
+				}
+				parameters.add(expression.getValue(evaluationContext, Object.class));
+			} else {
+				parameters.add(parameterAccessor.getBindableValue(bindingContext.parameterIndexes[i]));
+			}
 		}
 
-		return binding.isNamed()
-				? parameterAccessor.getBindableValue(getParameterIndex(parameters, binding.getParameterName()))
-				: parameterAccessor.getBindableValue(binding.getParameterIndex());
+		return parameters;
 	}
 
 	// 获取参数的索引位置
@@ -109,25 +130,6 @@ public class ExpressionEvaluatingParameterBinder {
 						String.format("Invalid parameter name; Cannot resolve parameter [%s]", parameterName)));
 	}
 
-	/**
-	 * 转换参数表达式
-	 * @param expressionString
-	 *            must not be {@literal null} or empty.
-	 * @param parameters
-	 *            must not be {@literal null}.
-	 * @param parameterValues
-	 *            must not be {@literal null}.
-	 * @return the value of the {@code expressionString} evaluation.
-	 */
-	@Nullable
-	private Object evaluateExpression(String expressionString, Parameters<?, ?> parameters, Object[] parameterValues) {
-
-		EvaluationContext evaluationContext = evaluationContextProvider.getEvaluationContext(parameters, parameterValues);
-		Expression expression = expressionParser.parseExpression(expressionString);
-
-		return expression.getValue(evaluationContext, Object.class);
-	}
-
 	/**
 	 * 参数绑定上下文
 	 */
@@ -135,6 +137,10 @@ public class ExpressionEvaluatingParameterBinder {
 
 		final ChaincodeQueryMethod queryMethod;
 		final List<ParameterBinding> bindings;
+		/** 每个绑定对应的参数索引，表达式绑定为 -1 */
+		final int[] parameterIndexes;
+		/** 每个绑定预先解析的表达式，非表达式绑定为 null */
+		final Expression[] expressions;
 
 		/**
 		 * Creates new {@link BindingContext}.
@@ -143,10 +149,16 @@ public class ExpressionEvaluatingParameterBinder {
 		 * @param bindings
 		 *            {@link List} of {@link ParameterBinding} containing name or position (index) information
 		 *            pertaining to the parameter in the referenced {@code queryMethod}.
+		 * @param parameterIndexes
+		 *            resolved parameter index of each binding.
+		 * @param expressions
+		 *            parsed expression of each binding.
 		 */
-		public BindingContext(ChaincodeQueryMethod queryMethod, List<ParameterBinding> bindings) {
+		private BindingContext(ChaincodeQueryMethod queryMethod, List<ParameterBinding> bindings, int[] parameterIndexes, Expression[] expressions) {
 			this.queryMethod = queryMethod;
 			this.bindings = bindings;
+			this.parameterIndexes = parameterIndexes;
+			this.expressions = expressions;
 		}
 
 		/**
@@ -30,6 +30,8 @@ public class StringBasedQueryBinder {
 	private final String query;
 	private final ExpressionEvaluatingParameterBinder parameterBinder;
 	private final List<ParameterBinding> queryParameterBindings = new ArrayList<>();
+	/** 预先解析的参数绑定上下文，查询方法不变时重复使用 */
+	private volatile BindingContext bindingContext;
 
 	/**
 	 * Create a new {@link StringBasedQueryBinder} given {@code query}, {@link ExpressionEvaluatingParameterBinder} and
@@ -63,7 +65,13 @@ public class StringBasedQueryBinder {
 		Assert.notNull(parameterAccessor, "ParametersParameterAccessor must not be null");
 		Assert.notNull(queryMethod, "TemplateQueryMethod must not be null");
 
-		List<Object> arguments = getParameterBinder().bind(parameterAccessor, new BindingContext(queryMethod, this.queryParameterBindings), values);
+		BindingContext context = this.bindingContext;
+		if (context == null || context.getQueryMethod() != queryMethod) {
+			context = getParameterBinder().createBindingContext(queryMethod, this.queryParameterBindings);
+			this.bindingContext = context;
+		}
+
+		List<Object> arguments = getParameterBinder().bind(parameterAccessor, context, values);
 
 		return ParameterBinder.INSTANCE.bind(getQuery(), arguments);
 	}
@@ -44,9 +44,15 @@ public class StringBasedQueryParser {
 	}
 
 	// 通过参数占位符获取参数名称
-	@SuppressWarnings("rawtypes")
 	protected String getParameterWithIndex(Object[] values, int index) {
-		Object parameter = values[index];
+		return convert(values[index]);
+	}
+	
+	/**
+	 * 将参数值转换成字符串，集合参数以空格分隔各元素
+	 */
+	@SuppressWarnings("rawtypes")
+	public String convert(Object parameter) {
 		if (parameter == null) {
 			return "null";
 		}
@@ -86,31 +92,7 @@ public class StringBasedQueryParser {
 		return result;
 	}
 	
-	@SuppressWarnings("rawtypes")
 	protected String getParameterWithIndex(ParametersParameterAccessor accessor, int index) {
-		Object parameter = accessor.getBindableValue(index);
-		if (parameter == null) {
-			return "null";
-		}
-
-		// 参数转换
-		if (conversionService.canConvert(parameter.getClass(), String.class)) {
-			return conversionService.convert(parameter, String.class);
-		}
-
-		if (parameter instanceof Collection) {
-			StringBuilder sb = new StringBuilder();
-			for (Object o : (Collection) parameter) {
-				if (conversionService.canConvert(o.getClass(), String.class)) {
-					sb.append(conversionService.convert(o, String.class));
-				} else {
-					sb.append(o.toString());
-				}
-				sb.append(" ");
-			}
-			return sb.toString().trim();
-		}
-
-		return parameter.toString();
+		return convert(accessor.getBindableValue(index));
 	}
 }
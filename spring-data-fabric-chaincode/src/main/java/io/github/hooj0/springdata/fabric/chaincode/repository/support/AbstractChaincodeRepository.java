@@ -9,8 +9,6 @@ import org.hyperledger.fabric.sdk.ChaincodeCollectionConfiguration;
 import org.hyperledger.fabric.sdk.User;
 import org.springframework.util.Assert;
 
-import com.google.common.io.Files;
-
 import io.github.hooj0.fabric.sdk.commons.config.FabricConfiguration;
 import io.github.hooj0.fabric.sdk.commons.core.ChaincodeDeployOperations;
 import io.github.hooj0.fabric.sdk.commons.core.ChaincodeTransactionOperations;
@@ -19,15 +17,18 @@ import io.github.hooj0.fabric.sdk.commons.core.execution.option.InstantiateOptio
 import io.github.hooj0.fabric.sdk.commons.core.execution.option.Options;
 import io.github.hooj0.fabric.sdk.commons.core.execution.option.TransactionsOptions;
 import io.github.hooj0.fabric.sdk.commons.domain.Organization;
-import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
-import io.github.hooj0.springdata.fabric.chaincode.ChaincodeUnsupportedOperationException;
 import io.github.hooj0.springdata.fabric.chaincode.core.ChaincodeOperations;
+import io.github.hooj0.springdata.fabric.chaincode.core.cache.ChaincodeArtifactCache;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.InvokeCriteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.QueryCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.repository.ChaincodeRepository;
 import io.github.hooj0.springdata.fabric.chaincode.repository.DeployChaincodeRepository;
 import io.github.hooj0.springdata.fabric.chaincode.repository.support.creator.ProposalBuilder.InstallProposal;
 import io.github.hooj0.springdata.fabric.chaincode.repository.support.creator.ProposalBuilder.InstantiateProposal;
+import io.github.hooj0.springdata.fabric.chaincode.repository.support.creator.ProposalBuilder.InvokeProposal;
 import io.github.hooj0.springdata.fabric.chaincode.repository.support.creator.ProposalBuilder.Proposal;
+import io.github.hooj0.springdata.fabric.chaincode.repository.support.creator.ProposalBuilder.QueryProposal;
 import io.github.hooj0.springdata.fabric.chaincode.repository.support.creator.ProposalBuilder.TransactionProposal;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -79,6 +80,22 @@ public abstract class AbstractChaincodeRepository<T> implements ChaincodeReposit
 			afterTransactionSet(transactionProposal, transactionsOptions);
 		}
 		
+		if (proposal instanceof TransactionProposal && options instanceof InvokeCriteria) {
+			((InvokeCriteria) options).setCommitMode(((TransactionProposal) proposal).getCommitMode());
+			((InvokeCriteria) options).setCommitPeers(((TransactionProposal) proposal).getCommitPeers());
+			((InvokeCriteria) options).setSkipReadOnly(((TransactionProposal) proposal).isSkipReadOnly());
+		}
+		
+		if (proposal instanceof InvokeProposal && options instanceof InvokeCriteria) {
+			((InvokeCriteria) options).setRetryPolicy(((InvokeProposal) proposal).getRetryPolicy());
+			((InvokeCriteria) options).setKeys(((InvokeProposal) proposal).getKeys());
+		}
+		
+		if (proposal instanceof QueryProposal && options instanceof QueryCriteria) {
+			((QueryCriteria) options).setMultiGet(((QueryProposal) proposal).getMultiGet());
+			((QueryCriteria) options).setFanOut(((QueryProposal) proposal).getFanOut());
+		}
+		
 		if (proposal instanceof InstantiateProposal && options instanceof InstantiateOptions) {
 			InstantiateProposal instantiateProposal = (InstantiateProposal) proposal;
 			InstantiateOptions instantiateOptions = (InstantiateOptions) options;
@@ -112,6 +129,9 @@ public abstract class AbstractChaincodeRepository<T> implements ChaincodeReposit
 	protected void afterInstantiateSet(InstantiateProposal proposal, InstantiateOptions options) {
 		options.setEndorsementPolicy(proposal.getEndorsementPolicy());
 		options.setEndorsementPolicyFile(proposal.getEndorsementPolicyFile());
+		if (proposal.getEndorsementPolicy() == null && proposal.getEndorsementPolicyFile() != null && proposal.getEndorsementPolicyFile().isFile()) {
+			options.setEndorsementPolicy(ChaincodeArtifactCache.getSharedInstance().getEndorsementPolicy(proposal.getEndorsementPolicyFile()));
+		}
 		options.setEndorsementPolicyInputStream(proposal.getEndorsementPolicyInputStream());
 		options.setCollectionConfiguration(getCollectionConfiguration(proposal.getCollectionConfiguration()));
 	}
@@ -138,19 +158,7 @@ public abstract class AbstractChaincodeRepository<T> implements ChaincodeReposit
 		}
 		log.info("chaincode collection config file location：{}", collectionFile.getAbsolutePath());
 
-		String suffix = Files.getFileExtension(collectionFile.getName());
-		try {
-			if ("yaml".equalsIgnoreCase(suffix) || "yml".equalsIgnoreCase(suffix)) {
-				return ChaincodeCollectionConfiguration.fromYamlFile(collectionFile);
-			} else if ("json".equalsIgnoreCase(suffix)) {
-				return ChaincodeCollectionConfiguration.fromJsonFile(collectionFile);
-			}
-		} catch (Exception e) {
-			log.error(e.getMessage(), e);
-			throw new ChaincodeOperationException("suffix '" + suffix + "' is unsupport configuration.");
-		}
-		
-		throw new ChaincodeUnsupportedOperationException("suffix '" + suffix + "' is unsupport configuration.");
+		return ChaincodeArtifactCache.getSharedInstance().getCollectionConfiguration(collectionFile);
 	}
 	
 	@Override
@@ -6,6 +6,8 @@ import java.lang.reflect.Method;
 import java.util.Optional;
 
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.data.mapping.context.MappingContext;
@@ -19,17 +21,25 @@ import org.springframework.data.repository.query.QueryLookupStrategy;
 import org.springframework.data.repository.query.QueryLookupStrategy.Key;
 import org.springframework.data.repository.query.QueryMethodEvaluationContextProvider;
 import org.springframework.data.repository.query.RepositoryQuery;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.util.Assert;
 
 import io.github.hooj0.springdata.fabric.chaincode.ChaincodeUnsupportedOperationException;
+import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.CachedQuery;
 import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Chaincode;
 import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Channel;
 import io.github.hooj0.springdata.fabric.chaincode.core.ChaincodeOperations;
+import io.github.hooj0.springdata.fabric.chaincode.core.cache.LruQueryResultCache;
+import io.github.hooj0.springdata.fabric.chaincode.core.cache.QueryResultCache;
+import io.github.hooj0.springdata.fabric.chaincode.core.cache.SpringQueryResultCache;
+import io.github.hooj0.springdata.fabric.chaincode.core.cache.VersionedQueryResultCache;
 import io.github.hooj0.springdata.fabric.chaincode.core.mapping.ChaincodePersistentEntity;
 import io.github.hooj0.springdata.fabric.chaincode.core.mapping.ChaincodePersistentProperty;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria.CriteriaBuilder;
+import io.github.hooj0.springdata.fabric.chaincode.core.support.ChaincodeRateLimiter;
 import io.github.hooj0.springdata.fabric.chaincode.repository.query.ChaincodeQueryMethod;
 import io.github.hooj0.springdata.fabric.chaincode.repository.query.StringBasedChaincodeQuery;
 import io.github.hooj0.springdata.fabric.chaincode.repository.support.creator.ChaincodeEntityInformationCreator;
@@ -50,13 +60,22 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class ChaincodeRepositoryFactory extends RepositoryFactorySupport {
 
-	private static final SpelExpressionParser EXPRESSION_PARSER = new SpelExpressionParser();
+	/** 参数表达式在创建查询时解析一次，多次执行后编译成字节码，无法编译时回退为解释执行 */
+	private static final SpelExpressionParser EXPRESSION_PARSER = new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.MIXED, ChaincodeRepositoryFactory.class.getClassLoader()));
 	
 	private final ChaincodeEntityInformationCreator entityInformationCreator;
 	private final ChaincodeOperations operations;
 	private final Criteria criteria;
+	/** 当前 repository 所有方法共享的限流器 */
+	private final ChaincodeRateLimiter rateLimiter;
+	/** @CachedQuery 查询结果缓存使用的 Spring CacheManager，可以为空 */
+	private final CacheManager cacheManager;
 	
 	public ChaincodeRepositoryFactory(Class<?> repositoryInterface, ChaincodeOperations operations) {
+		this(repositoryInterface, operations, null);
+	}
+	
+	public ChaincodeRepositoryFactory(Class<?> repositoryInterface, ChaincodeOperations operations, CacheManager cacheManager) {
 		log.debug("Creating chaincode bean factory. target repository interface '{}'", repositoryInterface.getSimpleName());
 		
 		Assert.notNull(operations, "ChaincodeOperations must not be null!");
@@ -67,6 +86,11 @@ public class ChaincodeRepositoryFactory extends RepositoryFactorySupport {
 		
 		this.criteria = buildCriteria(repositoryInterface);
 		log.debug("repository interface '{}', criteria: {}", repositoryInterface.getSimpleName(), criteria);
+		
+		this.rateLimiter = buildRateLimiter(repositoryInterface);
+		log.debug("repository interface '{}', rate limiter: {}", repositoryInterface.getSimpleName(), rateLimiter);
+		
+		this.cacheManager = cacheManager;
 	}
 	
 	private Criteria buildCriteria(Class<?> repositoryInterface) {
@@ -87,6 +111,15 @@ public class ChaincodeRepositoryFactory extends RepositoryFactorySupport {
 		return builder.build();
 	}
 	
+	private ChaincodeRateLimiter buildRateLimiter(Class<?> repositoryInterface) {
+		Chaincode chaincode = AnnotationUtils.findAnnotation(repositoryInterface, Chaincode.class);
+		if (chaincode != null && chaincode.permitsPerSecond() > 0) {
+			return ChaincodeRateLimiter.of(chaincode.permitsPerSecond(), chaincode.burst(), chaincode.acquireTimeout());
+		}
+		
+		return ChaincodeRateLimiter.of(AnnotatedElementUtils.findMergedAnnotation(repositoryInterface, Channel.class));
+	}
+	
 	@Override
 	public <T, ID> ChaincodeEntityInformation<T, ID> getEntityInformation(Class<T> domainClass) {
 		
@@ -175,13 +208,57 @@ public class ChaincodeRepositoryFactory extends RepositoryFactorySupport {
 
 			if (namedQueries.hasQuery(namedQueryName)) {
 				String namedQuery = namedQueries.getQuery(namedQueryName);
-				return new StringBasedChaincodeQuery(namedQuery, queryMethod, operations, EXPRESSION_PARSER, evaluationContextProvider);
+				return withQueryCache(withRateLimiter(new StringBasedChaincodeQuery(namedQuery, queryMethod, operations, EXPRESSION_PARSER, evaluationContextProvider)), metadata);
 			} else if (queryMethod.hasProposalAnnotated()) {
-				return new StringBasedChaincodeQuery(queryMethod, operations, EXPRESSION_PARSER, evaluationContextProvider);
+				return withQueryCache(withRateLimiter(new StringBasedChaincodeQuery(queryMethod, operations, EXPRESSION_PARSER, evaluationContextProvider)), metadata);
 			} else {
 				//return new PartTreeChaincodeQuery(queryMethod, operations);
 				throw new ChaincodeUnsupportedOperationException("Unknow Support method '%s.%s' has not been implemented yet.", metadata.getRepositoryInterface().getSimpleName(), method.getName());
 			}
 		}
+		
+		/**
+		 * 方法上未单独配置限流时，使用 repository 共享的限流器
+		 */
+		private StringBasedChaincodeQuery withRateLimiter(StringBasedChaincodeQuery query) {
+			if (query.getRateLimiter() == null) {
+				query.setRateLimiter(rateLimiter);
+			}
+			return query;
+		}
+		
+		/**
+		 * 方法配置了 @CachedQuery 时创建查询结果缓存，CacheManager 中已配置同名缓存或显式指定 cacheName 时使用 CacheManager 的缓存，否则使用内置 LRU 缓存；
+		 * 按需创建缓存的 CacheManager(如 ConcurrentMapCacheManager)创建的缓存没有容量上限，默认名称的缓存因此使用受 maxEntries 限制的内置缓存
+		 */
+		private StringBasedChaincodeQuery withQueryCache(StringBasedChaincodeQuery query, RepositoryMetadata metadata) {
+			CachedQuery cachedQuery = query.getQueryMethod().getCachedQueryAnnotated();
+			if (cachedQuery == null || !query.getQueryMethod().hasQueryAnnotated()) {
+				return query;
+			}
+			
+			String cacheName = StringUtils.defaultIfBlank(cachedQuery.cacheName(), metadata.getRepositoryInterface().getName() + "." + query.getQueryMethod().getName());
+			
+			Cache cache = null;
+			if (cacheManager != null && (StringUtils.isNotBlank(cachedQuery.cacheName()) || cacheManager.getCacheNames().contains(cacheName))) {
+				cache = cacheManager.getCache(cacheName);
+			}
+			QueryResultCache queryCache;
+			if (cache != null) {
+				queryCache = new SpringQueryResultCache(cache, cachedQuery.ttl());
+			} else {
+				queryCache = new LruQueryResultCache(cacheName, cachedQuery.ttl(), cachedQuery.maxEntries());
+			}
+			
+			// 已提交交易改写依赖的账本键时淘汰缓存结果
+			if (cachedQuery.invalidateOnWrite()) {
+				Criteria queryCriteria = query.getQueryMethod().getCriteria();
+				queryCache = new VersionedQueryResultCache(queryCache, () -> operations.getCommitTracker(queryCriteria), cachedQuery.ttl(), cachedQuery.maxEntries());
+			}
+			query.setQueryCache(queryCache);
+			
+			log.debug("query method '{}' result cache: {}", cacheName, query.getQueryCache());
+			return query;
+		}
 	}
 }
@@ -1,6 +1,10 @@
 package io.github.hooj0.springdata.fabric.chaincode.repository.support;
 
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
 import org.springframework.data.repository.core.support.RepositoryFactorySupport;
@@ -25,6 +29,7 @@ public class ChaincodeRepositoryFactoryBean<T extends Repository<S, ID>, S, ID>
 
 	private final Class<? extends T> repositoryInterface;
 	private @Nullable ChaincodeOperations operations;
+	private @Nullable BeanFactory beanFactory;
 	
 	protected ChaincodeRepositoryFactoryBean(Class<? extends T> repositoryInterface) {
 		super(repositoryInterface);
@@ -35,7 +40,27 @@ public class ChaincodeRepositoryFactoryBean<T extends Repository<S, ID>, S, ID>
 	@Override
 	protected RepositoryFactorySupport createRepositoryFactory() {
 
-		return new ChaincodeRepositoryFactory(repositoryInterface, operations);
+		return new ChaincodeRepositoryFactory(repositoryInterface, operations, getCacheManager());
+	}
+	
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+		super.setBeanFactory(beanFactory);
+		
+		this.beanFactory = beanFactory;
+	}
+	
+	/**
+	 * 容器中存在唯一的 CacheManager 时，@CachedQuery 查询结果缓存使用 CacheManager 提供的缓存
+	 */
+	private CacheManager getCacheManager() {
+		if (beanFactory instanceof ListableBeanFactory) {
+			String[] names = ((ListableBeanFactory) beanFactory).getBeanNamesForType(CacheManager.class);
+			if (names.length == 1) {
+				return beanFactory.getBean(names[0], CacheManager.class);
+			}
+		}
+		return null;
 	}
 	
 	public void setChaincodeOperations(ChaincodeOperations operations) {
@@ -4,6 +4,8 @@ import java.io.File;
 import java.io.InputStream;
 import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import org.hyperledger.fabric.sdk.ProposalResponse;
@@ -14,9 +16,12 @@ import io.github.hooj0.springdata.fabric.chaincode.core.ChaincodeOperations;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.InstallCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.InstantiateCriteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.InvocationSpec;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.InvokeCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.QueryCriteria;
 import io.github.hooj0.springdata.fabric.chaincode.core.query.UpgradeCriteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.serialize.ChaincodeEntitySerialization;
+import io.github.hooj0.springdata.fabric.chaincode.core.support.BatchInvokeResult;
 import io.github.hooj0.springdata.fabric.chaincode.repository.support.creator.ProposalBuilder.InstallProposal;
 import io.github.hooj0.springdata.fabric.chaincode.repository.support.creator.ProposalBuilder.InstantiateProposal;
 import io.github.hooj0.springdata.fabric.chaincode.repository.support.creator.ProposalBuilder.InvokeProposal;
@@ -125,6 +130,15 @@ public class SimpleChaincodeRepository<T> extends AbstractChaincodeRepository<T>
 		return this.operations.invokeFor(invokeCriteria, func, args);
 	}
 
+	@Override
+	public BatchInvokeResult invokeBatch(InvokeProposal proposal, List<InvocationSpec> invocations) {
+		InvokeCriteria invokeCriteria = new InvokeCriteria(criteria);
+		
+		afterCriteriaSet(proposal, invokeCriteria);
+		
+		return this.operations.invokeBatch(invokeCriteria, invocations);
+	}
+
 	@Override
 	public String query(QueryProposal proposal, String func) {
 		QueryCriteria queryCriteria = new QueryCriteria(criteria);
@@ -178,6 +192,50 @@ public class SimpleChaincodeRepository<T> extends AbstractChaincodeRepository<T>
 		
 		return this.operations.queryFor(queryCriteria, func, args);
 	}
+
+	@Override
+	public CompletableFuture<ResultSet> queryAsync(QueryProposal proposal, String func) {
+		QueryCriteria queryCriteria = new QueryCriteria(criteria);
+		
+		afterCriteriaSet(proposal, queryCriteria);
+		
+		return this.operations.queryAsync(queryCriteria, func);
+	}
+
+	@Override
+	public CompletableFuture<ResultSet> queryAsync(QueryProposal proposal, String func, Object... args) {
+		QueryCriteria queryCriteria = new QueryCriteria(criteria);
+		
+		afterCriteriaSet(proposal, queryCriteria);
+		
+		return this.operations.queryAsync(queryCriteria, func, args);
+	}
+
+	@Override
+	public CompletableFuture<ResultSet> queryAsync(QueryProposal proposal, String func, LinkedHashMap<String, Object> args) {
+		QueryCriteria queryCriteria = new QueryCriteria(criteria);
+		
+		afterCriteriaSet(proposal, queryCriteria);
+		
+		return this.operations.queryAsync(queryCriteria, func, args);
+	}
+	
+	@SuppressWarnings("unchecked")
+	@Override
+	public <K> Map<K, T> queryMany(QueryProposal proposal, String func, Collection<K> keys) {
+		QueryCriteria queryCriteria = new QueryCriteria(criteria);
+		
+		afterCriteriaSet(proposal, queryCriteria);
+		
+		Class<T> entityClass = getEntityClass();
+		ChaincodeEntitySerialization serialization = this.operations.getConverter().getChaincodeEntitySerialization();
+		
+		Map<K, T> entities = new LinkedHashMap<>();
+		this.operations.queryMany(queryCriteria, func, keys).forEach((key, value) -> {
+			entities.put(key, String.class.equals(entityClass) ? (T) value : serialization.deserialize(value, entityClass));
+		});
+		return entities;
+	}
 	
 	@Override
 	public Collection<ProposalResponse> install(InstallProposal proposal, String chaincodeSourceLocation) {
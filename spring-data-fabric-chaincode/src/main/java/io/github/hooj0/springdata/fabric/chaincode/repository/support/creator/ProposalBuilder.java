@@ -10,6 +10,9 @@ import org.hyperledger.fabric.sdk.Channel.TransactionOptions;
 import org.hyperledger.fabric.sdk.Orderer;
 import org.hyperledger.fabric.sdk.Peer;
 
+import io.github.hooj0.springdata.fabric.chaincode.core.query.QueryCriteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.support.ChaincodeRetryPolicy;
+import io.github.hooj0.springdata.fabric.chaincode.enums.CommitMode;
 import lombok.Getter;
 
 /**
@@ -103,6 +106,12 @@ public interface ProposalBuilder {
 		private Collection<Orderer> orderers;
 		/** 交易选项 */
 		private TransactionOptions options;
+		/** 交易提交等待模式 */
+		private CommitMode commitMode = CommitMode.COMMITTED_ON_N_PEERS;
+		/** COMMITTED_ON_N_PEERS 模式下需要等待提交的 peer 节点数量，0 表示所有事件节点 */
+		private int commitPeers;
+		/** 背书结果写集为空时跳过排序，直接返回背书结果，只对 submit 生效 */
+		private boolean skipReadOnly;
 		
 		private TransactionProposal() {}
 		
@@ -125,6 +134,21 @@ public interface ProposalBuilder {
 			this.options = options;
 			return this;
 		}
+		
+		public TransactionProposal commitMode(CommitMode commitMode) {
+			this.commitMode = commitMode;
+			return this;
+		}
+		
+		public TransactionProposal commitPeers(int commitPeers) {
+			this.commitPeers = commitPeers;
+			return this;
+		}
+		
+		public TransactionProposal skipReadOnly(boolean skipReadOnly) {
+			this.skipReadOnly = skipReadOnly;
+			return this;
+		}
 	}
 	
 	@Getter
@@ -181,12 +205,42 @@ public interface ProposalBuilder {
 	
 	@Getter
 	final class InvokeProposal extends TransactionProposal {
+		/** 交易验证失败重试策略 */
+		private ChaincodeRetryPolicy retryPolicy;
+		/** 交易读写的账本键，相同键的交易会串行提交 */
+		private Collection<String> keys;
+		
 		private InvokeProposal() {}
+		
+		public InvokeProposal keys(Collection<String> keys) {
+			this.keys = keys;
+			return this;
+		}
+		
+		public InvokeProposal retryPolicy(ChaincodeRetryPolicy retryPolicy) {
+			this.retryPolicy = retryPolicy;
+			return this;
+		}
 	}
 	
 	@Getter
 	final class QueryProposal extends Proposal {
+		/** 批量查询的 chaincode 批量读取函数，为空时按键并行查询 */
+		private String multiGet;
+		/** 批量查询按键并行查询时的最大并发数 */
+		private int fanOut = QueryCriteria.DEFAULT_FAN_OUT;
+		
 		private QueryProposal() {}
+		
+		public QueryProposal multiGet(String multiGet) {
+			this.multiGet = multiGet;
+			return this;
+		}
+		
+		public QueryProposal fanOut(int fanOut) {
+			this.fanOut = fanOut;
+			return this;
+		}
 	}
 	
 	@Getter
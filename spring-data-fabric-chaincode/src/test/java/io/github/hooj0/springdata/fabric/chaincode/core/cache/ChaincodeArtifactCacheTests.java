@@ -0,0 +1,104 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import org.hyperledger.fabric.protos.common.MspPrincipal.MSPRole;
+import org.hyperledger.fabric.protos.common.Policies.SignaturePolicyEnvelope;
+import org.hyperledger.fabric.sdk.ChaincodeEndorsementPolicy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.io.Files;
+
+/**
+ * chaincode artifact file cache test units
+ * @author hoojo
+ * @createDate 2019年2月3日 下午2:26:47
+ * @file ChaincodeArtifactCacheTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.cache
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodeArtifactCacheTests {
+
+	private static final String ORG1_POLICY = "identities:\n  user1: {\"role\": {\"name\": \"member\", \"mspId\": \"Org1MSP\"}}\npolicy:\n  1-of:\n    - signed-by: \"user1\"\n";
+	private static final String ORG2_POLICY = "identities:\n  user2: {\"role\": {\"name\": \"member\", \"mspId\": \"Org2MSP\"}}\npolicy:\n  1-of:\n    - signed-by: \"user2\"\n";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final ChaincodeArtifactCache cache = new ChaincodeArtifactCache();
+
+	@Test
+	public void testYamlPolicyParsedOnce() throws Exception {
+		File file = write("chaincode-endorsement-policy.yaml", ORG1_POLICY);
+
+		ChaincodeEndorsementPolicy policy = cache.getEndorsementPolicy(file);
+		assertEquals("Org1MSP", getMspId(policy));
+		assertSame(policy, cache.getEndorsementPolicy(file));
+	}
+
+	@Test
+	public void testYamlPolicyReparsedOnChange() throws Exception {
+		File file = write("chaincode-endorsement-policy.yml", ORG1_POLICY);
+		assertEquals("Org1MSP", getMspId(cache.getEndorsementPolicy(file)));
+
+		Files.write(ORG2_POLICY.getBytes(StandardCharsets.UTF_8), file);
+		file.setLastModified(file.lastModified() + 2000);
+		assertEquals("Org2MSP", getMspId(cache.getEndorsementPolicy(file)));
+	}
+
+	@Test
+	public void testSameContentSharesPolicy() throws Exception {
+		File first = write("first.yaml", ORG1_POLICY);
+		File second = write("second.yaml", ORG1_POLICY);
+
+		assertSame(cache.getEndorsementPolicy(first), cache.getEndorsementPolicy(second));
+	}
+
+	@Test
+	public void testProtobufPolicy() throws Exception {
+		byte[] bytes = cache.getEndorsementPolicy(write("policy.yaml", ORG1_POLICY)).getChaincodeEndorsementPolicyAsBytes();
+
+		File file = folder.newFile("policy.pb");
+		Files.write(bytes, file);
+
+		ChaincodeEndorsementPolicy policy = cache.getEndorsementPolicy(file);
+		assertArrayEquals(bytes, policy.getChaincodeEndorsementPolicyAsBytes());
+	}
+
+	@Test
+	public void testYamlTempFileDeleted() throws Exception {
+		File tempDir = new File(System.getProperty("java.io.tmpdir"));
+		int before = countTempPolicies(tempDir);
+
+		cache.getEndorsementPolicy(write("chaincode-endorsement-policy.yaml", ORG1_POLICY));
+		assertFalse(countTempPolicies(tempDir) > before);
+	}
+
+	private File write(String name, String content) throws Exception {
+		File file = folder.newFile(name);
+		Files.write(content.getBytes(StandardCharsets.UTF_8), file);
+		return file;
+	}
+
+	private static String getMspId(ChaincodeEndorsementPolicy policy) throws Exception {
+		SignaturePolicyEnvelope envelope = SignaturePolicyEnvelope.parseFrom(policy.getChaincodeEndorsementPolicyAsBytes());
+
+		return MSPRole.parseFrom(envelope.getIdentities(0).getPrincipal()).getMspIdentifier();
+	}
+
+	private static int countTempPolicies(File dir) {
+		String[] names = dir.list((parent, name) -> name.startsWith("chaincode-endorsement-policy"));
+		return names == null ? 0 : names.length;
+	}
+}
@@ -0,0 +1,109 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * segmented LRU query result cache test units
+ * @author hoojo
+ * @createDate 2019年2月2日 上午10:36:14
+ * @file LruQueryResultCacheTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.cache
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class LruQueryResultCacheTests {
+
+	@Test
+	public void testHitAndMiss() {
+		LruQueryResultCache cache = new LruQueryResultCache("query", 60_000, 16);
+
+		assertNull(cache.get("a"));
+		cache.put("a", "1");
+		assertEquals("1", cache.get("a"));
+
+		// 空结果不缓存
+		cache.put("b", null);
+		assertNull(cache.get("b"));
+
+		QueryCacheMetrics metrics = cache.getMetrics();
+		assertEquals(1, metrics.getSize());
+		assertEquals(1, metrics.getHits());
+		assertEquals(2, metrics.getMisses());
+	}
+
+	@Test
+	public void testEvictLeastRecentlyUsed() {
+		// 容量 1 时只有 1 个段，新条目淘汰旧条目
+		LruQueryResultCache cache = new LruQueryResultCache("query", 60_000, 1);
+
+		cache.put("a", "1");
+		cache.put("b", "2");
+		assertNull(cache.get("a"));
+		assertEquals("2", cache.get("b"));
+		assertEquals(1, cache.getMetrics().getSize());
+		assertEquals(1, cache.getMetrics().getEvictions());
+	}
+
+	@Test
+	public void testAccessOrder() {
+		LruQueryResultCache cache = new LruQueryResultCache("query", 60_000, 32);
+
+		// 找到落在同一段的 3 个 key，段容量为 2
+		String[] keys = sameSegmentKeys(cache, 3);
+		cache.put(keys[0], "0");
+		cache.put(keys[1], "1");
+		cache.get(keys[0]);
+		cache.put(keys[2], "2");
+
+		assertEquals("0", cache.get(keys[0]));
+		assertNull(cache.get(keys[1]));
+		assertEquals("2", cache.get(keys[2]));
+	}
+
+	@Test
+	public void testExpired() throws Exception {
+		LruQueryResultCache cache = new LruQueryResultCache("query", 20, 16);
+
+		cache.put("a", "1");
+		TimeUnit.MILLISECONDS.sleep(30);
+
+		assertNull(cache.get("a"));
+		assertEquals(1, cache.getMetrics().getExpirations());
+		assertEquals(0, cache.getMetrics().getSize());
+	}
+
+	@Test
+	public void testEvictAndClear() {
+		LruQueryResultCache cache = new LruQueryResultCache("query", 60_000, 16);
+
+		cache.put("a", "1");
+		cache.put("b", "2");
+		cache.evict("a");
+		assertNull(cache.get("a"));
+		assertEquals("2", cache.get("b"));
+
+		cache.clear();
+		assertEquals(0, cache.getMetrics().getSize());
+	}
+
+	private static String[] sameSegmentKeys(LruQueryResultCache cache, int count) {
+		String[] keys = new String[count];
+
+		int found = 0;
+		for (int i = 0; found < count; i++) {
+			String key = "key" + i;
+			int hash = key.hashCode();
+			if (((hash ^ (hash >>> 16)) & 0x7fffffff) % 16 == 0) {
+				keys[found++] = key;
+			}
+		}
+		return keys;
+	}
+}
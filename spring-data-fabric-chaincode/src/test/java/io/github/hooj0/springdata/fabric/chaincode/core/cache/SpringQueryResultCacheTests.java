@@ -0,0 +1,73 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+/**
+ * spring cache backed query result cache test units
+ * @author hoojo
+ * @createDate 2019年2月2日 上午10:52:40
+ * @file SpringQueryResultCacheTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.cache
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class SpringQueryResultCacheTests {
+
+	private final Cache cache = newCache();
+
+	/**
+	 * 按值存储的缓存，写入时序列化条目，模拟分布式缓存
+	 */
+	private static Cache newCache() {
+		ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("query");
+		cacheManager.setStoreByValue(true);
+		
+		return cacheManager.getCache("query");
+	}
+
+	@Test
+	public void testStoreSerializedEntry() {
+		SpringQueryResultCache queryCache = new SpringQueryResultCache(cache, 60_000);
+
+		queryCache.put("a", "1");
+		assertEquals("1", queryCache.get("a"));
+		assertEquals(-1, queryCache.getMetrics().getSize());
+
+		queryCache.evict("a");
+		assertNull(queryCache.get("a"));
+	}
+
+	@Test
+	public void testExpiredBySelf() throws Exception {
+		SpringQueryResultCache queryCache = new SpringQueryResultCache(cache, 20);
+
+		queryCache.put("a", "1");
+		TimeUnit.MILLISECONDS.sleep(30);
+
+		assertNull(queryCache.get("a"));
+		assertEquals(1, queryCache.getMetrics().getExpirations());
+		assertNull(cache.get("a"));
+	}
+
+	@Test
+	public void testRejectNotSerializable() {
+		SpringQueryResultCache queryCache = new SpringQueryResultCache(cache, 60_000);
+
+		try {
+			queryCache.put("a", new Object());
+			fail("not serializable value must be rejected");
+		} catch (IllegalArgumentException e) {
+			assertNull(cache.get("a"));
+		}
+	}
+}
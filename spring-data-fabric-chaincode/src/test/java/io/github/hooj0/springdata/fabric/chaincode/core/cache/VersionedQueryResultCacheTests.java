@@ -0,0 +1,137 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.cache;
+
+import static io.github.hooj0.springdata.fabric.chaincode.core.support.ChaincodeReadWriteSetsTests.newWriteBlockEvent;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.protos.peer.FabricTransaction.TxValidationCode;
+import org.junit.Test;
+
+import io.github.hooj0.springdata.fabric.chaincode.core.support.ChaincodeCommitTracker;
+
+/**
+ * ledger key invalidated query cache test units
+ * @author hoojo
+ * @createDate 2019年2月2日 下午2:40:51
+ * @file VersionedQueryResultCacheTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.cache
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class VersionedQueryResultCacheTests {
+
+	private final ChaincodeCommitTracker tracker = new ChaincodeCommitTracker("mychannel");
+	private final VersionedQueryResultCache cache = new VersionedQueryResultCache(new LruQueryResultCache("query", 60_000, 16), () -> tracker, 60_000, 16);
+
+	@Test
+	public void testWriteInvalidatesDependents() throws Exception {
+		cache.put("q1", "1", Arrays.asList("cc/a"), 4);
+		cache.put("q2", "2", Arrays.asList("cc/b"), 4);
+		assertEquals("1", cache.get("q1"));
+
+		tracker.received(newWriteBlockEvent(5, "tx1", TxValidationCode.VALID, "cc", "a"));
+
+		assertNull(cache.get("q1"));
+		assertEquals("2", cache.get("q2"));
+		assertEquals(1, cache.getInvalidationCount());
+		assertEquals(5, cache.getBlockHeight());
+	}
+
+	@Test
+	public void testInvalidTransactionIgnored() throws Exception {
+		cache.put("q1", "1", Arrays.asList("cc/a"), 4);
+		assertEquals("1", cache.get("q1"));
+
+		tracker.received(newWriteBlockEvent(5, "tx1", TxValidationCode.MVCC_READ_CONFLICT, "cc", "a"));
+
+		assertEquals("1", cache.get("q1"));
+		assertEquals(0, cache.getInvalidationCount());
+	}
+
+	@Test
+	public void testStaleResultDiscarded() throws Exception {
+		// 发起查询前已处理到区块 5，查询期间提交的区块 6 改写了依赖的键
+		cache.get("q0");
+		tracker.received(newWriteBlockEvent(5, "tx0", TxValidationCode.VALID, "cc", "b"));
+		long readHeight = cache.getBlockHeight();
+		tracker.received(newWriteBlockEvent(6, "tx1", TxValidationCode.VALID, "cc", "a"));
+
+		cache.put("q1", "1", Arrays.asList("cc/a"), readHeight);
+		assertNull(cache.get("q1"));
+		assertEquals(1, cache.getStaleCount());
+
+		// 读取高度所在的区块中改写的键，响应查询的节点可能还没有提交
+		cache.put("q2", "2", Arrays.asList("cc/b"), readHeight);
+		assertNull(cache.get("q2"));
+		assertEquals(2, cache.getStaleCount());
+
+		// 之后发起的查询读取高度为 6，区块 5、6 的写入已经可见
+		cache.put("q3", "3", Arrays.asList("cc/b"), cache.getBlockHeight());
+		assertEquals("3", cache.get("q3"));
+	}
+
+	@Test
+	public void testNoBlockBeforeQuery() throws Exception {
+		// 订阅后还没有收到区块时读取高度为 -1，之后提交的写入都使结果过时
+		long readHeight = cache.getBlockHeight();
+		assertEquals(-1, readHeight);
+		tracker.received(newWriteBlockEvent(0, "tx1", TxValidationCode.VALID, "cc", "a"));
+
+		cache.put("q1", "1", Arrays.asList("cc/a"), readHeight);
+		assertNull(cache.get("q1"));
+	}
+
+	@Test
+	public void testTrackedEntriesBounded() throws Exception {
+		// 跟踪容量 2，超出容量的条目从 delegate 中一并淘汰
+		LruQueryResultCache delegate = new LruQueryResultCache("query", 60_000, 16);
+		VersionedQueryResultCache bounded = new VersionedQueryResultCache(delegate, () -> tracker, 60_000, 2);
+
+		for (int i = 0; i < 10; i++) {
+			bounded.put("q" + i, String.valueOf(i), Arrays.asList("cc/k" + i), -1);
+		}
+		assertEquals(2, bounded.getTrackedCount());
+		assertEquals(2, delegate.getMetrics().getSize());
+		assertEquals("9", bounded.get("q9"));
+	}
+
+	@Test
+	public void testTrackedEntriesExpire() throws Exception {
+		LruQueryResultCache delegate = new LruQueryResultCache("query", 20, 16);
+		VersionedQueryResultCache expiring = new VersionedQueryResultCache(delegate, () -> tracker, 20, 16);
+
+		expiring.put("q1", "1", Arrays.asList("cc/a"), -1);
+		assertEquals(1, expiring.getTrackedCount());
+
+		TimeUnit.MILLISECONDS.sleep(30);
+		assertEquals(0, expiring.getTrackedCount());
+		assertNull(expiring.get("q1"));
+	}
+
+	@Test
+	public void testEvictReleasesDependents() throws Exception {
+		cache.get("q0");
+		cache.put("q1", "1", Arrays.asList("cc/a"), 4);
+		cache.evict("q1");
+		assertEquals(0, cache.getTrackedCount());
+
+		// 淘汰后的条目不再依赖账本键，重新写入的无依赖结果不受写集影响
+		cache.put("q1", "2");
+		tracker.received(newWriteBlockEvent(5, "tx1", TxValidationCode.VALID, "cc", "a"));
+		assertEquals("2", cache.get("q1"));
+		assertEquals(0, cache.getInvalidationCount());
+	}
+
+	@Test
+	public void testWithoutLedgerKeys() throws Exception {
+		cache.put("q1", "1", null, -1);
+
+		tracker.received(newWriteBlockEvent(5, "tx1", TxValidationCode.VALID, "cc", "a"));
+		assertEquals("1", cache.get("q1"));
+	}
+}
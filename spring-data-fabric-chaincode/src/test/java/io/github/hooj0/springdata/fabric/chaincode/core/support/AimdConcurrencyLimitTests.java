@@ -0,0 +1,119 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+
+/**
+ * AIMD concurrency limit test units
+ * @author hoojo
+ * @createDate 2019年2月1日 下午4:20:35
+ * @file AimdConcurrencyLimitTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class AimdConcurrencyLimitTests {
+
+	private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static class ManualTicker extends Ticker {
+
+		private long now = TimeUnit.SECONDS.toNanos(1);
+
+		@Override
+		public long read() {
+			return now;
+		}
+
+		void advance(long nanos) {
+			now += nanos;
+		}
+	}
+
+	private final ManualTicker ticker = new ManualTicker();
+	private final AimdConcurrencyLimit limit = new AimdConcurrencyLimit(10, 1, 20, 0.5, 2.0, 100, ticker);
+
+	@Test
+	public void testIncreaseWhenWindowUsed() {
+		limit.onSample(10 * MS, 0, 5, false);
+		assertEquals(11, limit.getLimit());
+
+		// 窗口使用不到一半时不增加
+		limit.onSample(10 * MS, 0, 2, false);
+		assertEquals(11, limit.getLimit());
+	}
+
+	@Test
+	public void testDecreaseOnSlowEndorsement() {
+		limit.onSample(10 * MS, 0, 5, false);
+		ticker.advance(100 * MS);
+
+		limit.onSample(50 * MS, 0, 5, false);
+		assertEquals(5, limit.getLimit());
+	}
+
+	@Test
+	public void testDecreaseOncePerRoundTrip() {
+		limit.onSample(10 * MS, 0, 5, false);
+		ticker.advance(100 * MS);
+
+		limit.onSample(50 * MS, 0, 5, false);
+		assertEquals(5, limit.getLimit());
+
+		// 同一批慢交易在缩小之前发起，不再重复缩小
+		ticker.advance(10 * MS);
+		limit.onSample(50 * MS, 0, 5, false);
+		limit.onSample(50 * MS, 0, 5, true);
+		assertEquals(5, limit.getLimit());
+
+		// 缩小之后发起的慢交易再次缩小
+		ticker.advance(100 * MS);
+		limit.onSample(50 * MS, 0, 5, false);
+		assertEquals(2, limit.getLimit());
+	}
+
+	@Test
+	public void testCommitBaselineSeparateFromEndorsement() {
+		// 提交耗时远大于背书耗时，但各自与自己的基线比较，不视为拥塞
+		limit.onSample(10 * MS, 2000 * MS, 6, false);
+		ticker.advance(3000 * MS);
+		limit.onSample(10 * MS, 2100 * MS, 6, false);
+		assertEquals(12, limit.getLimit());
+
+		ticker.advance(6000 * MS);
+		limit.onSample(10 * MS, 5000 * MS, 6, false);
+		assertEquals(6, limit.getLimit());
+	}
+
+	@Test
+	public void testSyncBaselineSeparateFromEndorsement() {
+		// 异步交易的背书基线为 10ms，同步交易的整笔耗时与自己的基线比较，不视为拥塞
+		limit.onSample(10 * MS, 100 * MS, 6, false);
+		ticker.advance(1000 * MS);
+		limit.onSyncSample(300 * MS, 6, false);
+		ticker.advance(1000 * MS);
+		limit.onSyncSample(320 * MS, 6, false);
+		assertEquals(13, limit.getLimit());
+
+		// 同步交易耗时超过自己的基线时缩小
+		ticker.advance(1000 * MS);
+		limit.onSyncSample(700 * MS, 6, false);
+		assertEquals(6, limit.getLimit());
+	}
+
+	@Test
+	public void testMinLimit() {
+		for (int i = 0; i < 20; i++) {
+			ticker.advance(1000 * MS);
+			limit.onSample(10 * MS, 0, 1, true);
+		}
+		assertEquals(1, limit.getLimit());
+	}
+}
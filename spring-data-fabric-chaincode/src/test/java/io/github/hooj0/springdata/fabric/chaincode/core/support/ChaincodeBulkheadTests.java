@@ -0,0 +1,191 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria.CriteriaBuilder;
+import io.github.hooj0.springdata.fabric.chaincode.enums.BulkheadType;
+
+/**
+ * operation bulkhead test units
+ * @author hoojo
+ * @createDate 2019年2月1日 下午3:40:12
+ * @file ChaincodeBulkheadTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodeBulkheadTests {
+
+	private final Criteria criteria = CriteriaBuilder.newBuilder().channel("mychannel").name("example_cc_go").build();
+
+	@Test
+	public void testExecuteInBulkheadThread() throws Exception {
+		ChaincodeBulkhead bulkhead = new ChaincodeBulkhead("mychannel_example_cc_go", BulkheadType.QUERY, 1, 1);
+
+		String thread = bulkhead.execute(() -> Thread.currentThread().getName());
+		assertTrue(thread.startsWith("chaincode-query-mychannel_example_cc_go-"));
+
+		// 线程池在任务返回后才计入完成数，结果可能先于计数可见
+		for (int i = 0; i < 100 && bulkhead.getMetrics().getCompleted() < 1; i++) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		assertEquals(1, bulkhead.getMetrics().getCompleted());
+
+		bulkhead.shutdown();
+	}
+
+	@Test
+	public void testKeyWithPercent() {
+		ChaincodeBulkhead bulkhead = new ChaincodeBulkhead("my%channel_cc%d", BulkheadType.INVOKE, 1, 1);
+
+		String thread = bulkhead.execute(() -> Thread.currentThread().getName());
+		assertTrue(thread.startsWith("chaincode-invoke-my%channel_cc%d-"));
+
+		bulkhead.shutdown();
+	}
+
+	@Test
+	public void testExecuteRethrowsRuntimeException() {
+		ChaincodeBulkhead bulkhead = new ChaincodeBulkhead("mychannel_example_cc_go", BulkheadType.QUERY, 1, 1);
+
+		IllegalStateException failure = new IllegalStateException("query failed");
+		try {
+			bulkhead.execute(() -> {
+				throw failure;
+			});
+			fail("operation failure must be thrown");
+		} catch (IllegalStateException e) {
+			assertSame(failure, e);
+		}
+
+		bulkhead.shutdown();
+	}
+
+	@Test
+	public void testRejectWhenSaturated() throws Exception {
+		ChaincodeBulkhead bulkhead = new ChaincodeBulkhead("mychannel_example_cc_go", BulkheadType.INVOKE, 1, 1);
+
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> first = bulkhead.submit(() -> {
+			running.countDown();
+			await(release);
+			return "first";
+		});
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+
+		CompletableFuture<String> queued = bulkhead.submit(() -> "queued");
+		assertEquals(1, bulkhead.getMetrics().getQueued());
+
+		try {
+			bulkhead.submit(() -> "rejected");
+			fail("saturated bulkhead must reject");
+		} catch (ChaincodeOperationException e) {
+			assertTrue(e.getMessage().contains("saturated"));
+		}
+
+		CompletableFuture<String> async = bulkhead.submitAsync(() -> CompletableFuture.completedFuture("rejected"));
+		try {
+			async.get();
+			fail("saturated bulkhead must fail async operation");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ChaincodeOperationException);
+		}
+		assertEquals(2, bulkhead.getMetrics().getRejected());
+
+		release.countDown();
+		assertEquals("first", first.get(5, TimeUnit.SECONDS));
+		assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+
+		bulkhead.shutdown();
+	}
+
+	@Test
+	public void testCancelInterruptsRunningTask() throws Exception {
+		ChaincodeBulkhead bulkhead = new ChaincodeBulkhead("mychannel_example_cc_go", BulkheadType.QUERY, 1, 1);
+
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		CompletableFuture<String> future = bulkhead.submitAsync(() -> CompletableFuture.completedFuture(block(running, interrupted)));
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+
+		// 取消组合后的 Future 需要中断隔离舱线程中的任务
+		future.cancel(true);
+		assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+
+		bulkhead.shutdown();
+	}
+
+	@Test
+	public void testSupplyAsyncCancelInterruptsRunningTask() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		CompletableFuture<String> future = ChaincodeBulkhead.supplyAsync(() -> block(running, interrupted), executor);
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+
+		future.cancel(true);
+		assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+
+		assertEquals("done", ChaincodeBulkhead.supplyAsync(() -> "done", executor).get(5, TimeUnit.SECONDS));
+		executor.shutdown();
+	}
+
+	@Test
+	public void testBulkheadsPerCriteriaAndType() {
+		ChaincodeBulkheads bulkheads = new ChaincodeBulkheads();
+		bulkheads.configure(criteria, BulkheadType.INVOKE, 4, 8);
+
+		ChaincodeBulkhead invoke = bulkheads.get(criteria, BulkheadType.INVOKE);
+		assertSame(invoke, bulkheads.get(criteria, BulkheadType.INVOKE));
+		assertNotSame(invoke, bulkheads.get(criteria, BulkheadType.QUERY));
+
+		BulkheadMetrics metrics = bulkheads.getMetrics(criteria, BulkheadType.INVOKE);
+		assertEquals(4, metrics.getMaxConcurrent());
+		assertEquals(8, metrics.getQueueCapacity());
+		assertEquals(BulkheadType.QUERY.getMaxConcurrent(), bulkheads.getMetrics(criteria, BulkheadType.QUERY).getMaxConcurrent());
+
+		// 隔离舱已经创建后的配置被忽略
+		bulkheads.configure(criteria, BulkheadType.INVOKE, 1, 1);
+		assertSame(invoke, bulkheads.get(criteria, BulkheadType.INVOKE));
+		assertEquals(4, bulkheads.getMetrics(criteria, BulkheadType.INVOKE).getMaxConcurrent());
+
+		bulkheads.shutdown();
+	}
+
+	private static String block(CountDownLatch running, CountDownLatch interrupted) {
+		running.countDown();
+		try {
+			TimeUnit.SECONDS.sleep(10);
+		} catch (InterruptedException e) {
+			interrupted.countDown();
+		}
+		return "blocked";
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
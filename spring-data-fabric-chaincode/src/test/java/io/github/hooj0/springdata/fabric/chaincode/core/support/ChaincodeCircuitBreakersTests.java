@@ -0,0 +1,167 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Test;
+
+import io.github.hooj0.springdata.fabric.chaincode.enums.CircuitState;
+
+/**
+ * peer/orderer circuit breaker test units
+ * @author hoojo
+ * @createDate 2019年2月1日 下午6:10:25
+ * @file ChaincodeCircuitBreakersTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodeCircuitBreakersTests {
+
+	private final ChaincodeCircuitBreakers breakers = new ChaincodeCircuitBreakers(2, 50, 10_000);
+
+	@After
+	public void shutdown() {
+		breakers.shutdown();
+	}
+
+	@Test
+	public void testOpenAfterThreshold() {
+		breakers.onFailure("orderer0");
+		assertEquals(CircuitState.CLOSED, breakers.getState("orderer0"));
+		assertTrue(breakers.isAvailable("orderer0"));
+
+		breakers.onFailure("orderer0");
+		assertEquals(CircuitState.OPEN, breakers.getState("orderer0"));
+		assertFalse(breakers.isAvailable("orderer0"));
+		assertFalse(breakers.allowRequest("orderer0"));
+
+		assertEquals(1, breakers.getMetrics("orderer0").getOpened());
+		assertEquals(1, breakers.getMetrics("orderer0").getRejected());
+	}
+
+	@Test
+	public void testSuccessResetsFailures() {
+		breakers.onFailure("orderer0");
+		breakers.onSuccess("orderer0");
+		breakers.onFailure("orderer0");
+
+		assertEquals(CircuitState.CLOSED, breakers.getState("orderer0"));
+	}
+
+	@Test
+	public void testIsAvailableWithoutSideEffect() throws Exception {
+		open("orderer0");
+		TimeUnit.MILLISECONDS.sleep(60);
+
+		// 打开时间结束后可用，但只检查不占用试探请求
+		assertTrue(breakers.isAvailable("orderer0"));
+		assertTrue(breakers.isAvailable("orderer0"));
+		assertEquals(CircuitState.OPEN, breakers.getState("orderer0"));
+		assertEquals(0, breakers.getMetrics("orderer0").getRejected());
+
+		// 选中节点后占用唯一的试探请求
+		assertTrue(breakers.allowRequest("orderer0"));
+		assertEquals(CircuitState.HALF_OPEN, breakers.getState("orderer0"));
+		assertFalse(breakers.isAvailable("orderer0"));
+		assertFalse(breakers.allowRequest("orderer0"));
+	}
+
+	@Test
+	public void testFilterDoesNotConsumeProbe() throws Exception {
+		open("orderer0");
+		open("orderer1");
+		TimeUnit.MILLISECONDS.sleep(60);
+
+		List<String> nodes = Arrays.asList("orderer0", "orderer1", "orderer2");
+		assertEquals(nodes, breakers.filter(nodes, Function.identity()));
+
+		// 只有选中的节点进入半开状态
+		assertTrue(breakers.allowRequest("orderer1"));
+		assertEquals(CircuitState.OPEN, breakers.getState("orderer0"));
+		assertEquals(CircuitState.HALF_OPEN, breakers.getState("orderer1"));
+		assertEquals(Arrays.asList("orderer0", "orderer2"), breakers.filter(nodes, Function.identity()));
+	}
+
+	@Test
+	public void testFilterFallbackWhenAllOpen() {
+		open("orderer0");
+		open("orderer1");
+
+		List<String> nodes = Arrays.asList("orderer0", "orderer1");
+		assertEquals(nodes, breakers.filter(nodes, Function.identity()));
+		assertEquals(1, breakers.getMetrics("orderer0").getRejected());
+	}
+
+	@Test
+	public void testHalfOpenTrialResult() throws Exception {
+		open("orderer0");
+		open("orderer1");
+		TimeUnit.MILLISECONDS.sleep(60);
+
+		assertTrue(breakers.allowRequest("orderer0"));
+		breakers.onSuccess("orderer0");
+		assertEquals(CircuitState.CLOSED, breakers.getState("orderer0"));
+
+		// 试探请求失败立即重新打开
+		assertTrue(breakers.allowRequest("orderer1"));
+		breakers.onFailure("orderer1");
+		assertEquals(CircuitState.OPEN, breakers.getState("orderer1"));
+		assertEquals(2, breakers.getMetrics("orderer1").getOpened());
+	}
+
+	@Test
+	public void testProbeRegisteredNodeNotTrialed() throws Exception {
+		breakers.register("peer0", () -> true);
+		open("peer0");
+		TimeUnit.MILLISECONDS.sleep(60);
+
+		// 有后台探测的节点由探测结果决定恢复，不放行试探请求
+		assertFalse(breakers.isAvailable("peer0"));
+		assertFalse(breakers.allowRequest("peer0"));
+		assertEquals(CircuitState.OPEN, breakers.getState("peer0"));
+	}
+
+	@Test
+	public void testExecuteIgnoresBusinessError() {
+		for (int i = 0; i < 3; i++) {
+			try {
+				breakers.execute("peer0", () -> {
+					throw new IllegalStateException("chaincode returned status 500");
+				}, e -> false);
+				fail("business error must be thrown");
+			} catch (IllegalStateException e) {
+				assertEquals("chaincode returned status 500", e.getMessage());
+			}
+		}
+		assertEquals(CircuitState.CLOSED, breakers.getState("peer0"));
+		assertEquals(0, breakers.getMetrics("peer0").getFailures());
+
+		for (int i = 0; i < 2; i++) {
+			try {
+				breakers.execute("peer0", () -> {
+					throw new IllegalStateException("peer0 unavailable");
+				});
+				fail("failure must be thrown");
+			} catch (IllegalStateException e) {
+				assertEquals("peer0 unavailable", e.getMessage());
+			}
+		}
+		assertEquals(CircuitState.OPEN, breakers.getState("peer0"));
+	}
+
+	private void open(String name) {
+		breakers.onFailure(name);
+		breakers.onFailure(name);
+	}
+}
@@ -0,0 +1,119 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hyperledger.fabric.protos.common.Common.HeaderType;
+import org.hyperledger.fabric.protos.peer.FabricTransaction.TxValidationCode;
+import org.hyperledger.fabric.protos.peer.PeerEvents.DeliverResponse;
+import org.hyperledger.fabric.protos.peer.PeerEvents.FilteredBlock;
+import org.hyperledger.fabric.protos.peer.PeerEvents.FilteredTransaction;
+import org.hyperledger.fabric.sdk.BlockEvent;
+import org.hyperledger.fabric.sdk.BlockEvent.TransactionEvent;
+import org.hyperledger.fabric.sdk.Peer;
+import org.hyperledger.fabric.sdk.exception.TransactionEventException;
+import org.junit.Test;
+
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
+
+/**
+ * channel commit tracker test units
+ * @author hoojo
+ * @createDate 2019年2月1日 上午11:05:21
+ * @file ChaincodeCommitTrackerTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodeCommitTrackerTests {
+
+	/**
+	 * 构造只包含交易ID和验证结果的过滤区块事件
+	 */
+	static BlockEvent newBlockEvent(long number, String transactionId, TxValidationCode code) throws Exception {
+		FilteredTransaction transaction = FilteredTransaction.newBuilder().setTxid(transactionId).setType(HeaderType.ENDORSER_TRANSACTION).setTxValidationCode(code).build();
+		FilteredBlock block = FilteredBlock.newBuilder().setChannelId("mychannel").setNumber(number).addFilteredTransactions(transaction).build();
+
+		Constructor<BlockEvent> constructor = BlockEvent.class.getDeclaredConstructor(Peer.class, DeliverResponse.class);
+		constructor.setAccessible(true);
+		return constructor.newInstance(null, DeliverResponse.newBuilder().setFilteredBlock(block).build());
+	}
+
+	@Test
+	public void testTrackCompletesOnBlock() throws Exception {
+		ChaincodeCommitTracker tracker = new ChaincodeCommitTracker("mychannel");
+
+		CompletableFuture<TransactionEvent> future = tracker.track("tx1");
+		assertFalse(future.isDone());
+		assertEquals(1, tracker.getPendingCount());
+
+		tracker.received(newBlockEvent(3, "tx1", TxValidationCode.VALID));
+
+		assertEquals("tx1", future.get().getTransactionID());
+		assertEquals(0, tracker.getPendingCount());
+		assertEquals(1, tracker.getCommittedCount());
+		assertEquals(3, tracker.getBlockHeight());
+	}
+
+	@Test
+	public void testBlockBeforeTrack() throws Exception {
+		ChaincodeCommitTracker tracker = new ChaincodeCommitTracker("mychannel");
+
+		tracker.received(newBlockEvent(1, "tx1", TxValidationCode.VALID));
+
+		assertTrue(tracker.track("tx1").isDone());
+		assertEquals(0, tracker.getPendingCount());
+	}
+
+	@Test
+	public void testInvalidTransaction() throws Exception {
+		ChaincodeCommitTracker tracker = new ChaincodeCommitTracker("mychannel");
+
+		CompletableFuture<TransactionEvent> future = tracker.track("tx1");
+		tracker.received(newBlockEvent(1, "tx1", TxValidationCode.MVCC_READ_CONFLICT));
+
+		try {
+			future.get();
+			fail("invalid transaction must fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof TransactionEventException);
+		}
+		assertEquals(1, tracker.getInvalidCount());
+	}
+
+	@Test
+	public void testSubscriberReceivesBlock() throws Exception {
+		ChaincodeCommitTracker tracker = new ChaincodeCommitTracker("mychannel");
+
+		AtomicLong received = new AtomicLong(-1);
+		tracker.subscribe(block -> received.set(block.getBlockNumber()));
+		tracker.received(newBlockEvent(7, "tx1", TxValidationCode.VALID));
+
+		assertEquals(7, received.get());
+	}
+
+	@Test
+	public void testShutdownFailsPending() throws Exception {
+		ChaincodeCommitTracker tracker = new ChaincodeCommitTracker("mychannel");
+
+		CompletableFuture<TransactionEvent> future = tracker.track("tx1");
+		tracker.shutdown();
+
+		try {
+			future.get();
+			fail("pending commit must fail on shutdown");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ChaincodeOperationException);
+		}
+		assertEquals(0, tracker.getPendingCount());
+	}
+}
@@ -0,0 +1,175 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.hyperledger.fabric.protos.common.MspPrincipal.MSPPrincipal;
+import org.hyperledger.fabric.protos.common.MspPrincipal.MSPRole;
+import org.hyperledger.fabric.protos.common.Policies.SignaturePolicy;
+import org.hyperledger.fabric.protos.common.Policies.SignaturePolicyEnvelope;
+import org.hyperledger.fabric.sdk.ChaincodeEndorsementPolicy;
+import org.hyperledger.fabric.sdk.Peer;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+
+import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria.CriteriaBuilder;
+
+/**
+ * endorsement policy peer planner test units
+ * @author hoojo
+ * @createDate 2019年2月3日 上午10:18:36
+ * @file ChaincodeEndorsementPlannerTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodeEndorsementPlannerTests {
+
+	private final Criteria criteria = CriteriaBuilder.newBuilder().channel("mychannel").name("example_cc_go").build();
+
+	private ChaincodeEndorsementPlanner planner;
+	private Peer peer0Org1, peer1Org1, peer0Org2, peer0Org3;
+	private List<Peer> peers;
+
+	@Before
+	public void setup() throws Exception {
+		peer0Org1 = newPeer("peer0.org1.example.com");
+		peer1Org1 = newPeer("peer1.org1.example.com");
+		peer0Org2 = newPeer("peer0.org2.example.com");
+		peer0Org3 = newPeer("peer0.org3.example.com");
+		peers = Arrays.asList(peer0Org1, peer1Org1, peer0Org2, peer0Org3);
+
+		planner = new ChaincodeEndorsementPlanner(3);
+		planner.registerPeer(peer0Org1.getName(), "Org1MSP");
+		planner.registerPeer(peer1Org1.getName(), "Org1MSP");
+		planner.registerPeer(peer0Org2.getName(), "Org2MSP");
+		planner.registerPeer(peer0Org3.getName(), "Org3MSP");
+	}
+
+	@Test
+	public void testMinimalPrincipalSets() {
+		// 2-of(Org1, Org2, Org3)
+		planner.register(criteria, newPolicy(2, "Org1MSP", "Org2MSP", "Org3MSP"));
+
+		List<Multiset<String>> sets = planner.getPrincipalSets(criteria);
+		assertEquals(3, sets.size());
+		assertTrue(sets.contains(ImmutableMultiset.of("Org1MSP", "Org2MSP")));
+		assertTrue(sets.contains(ImmutableMultiset.of("Org1MSP", "Org3MSP")));
+		assertTrue(sets.contains(ImmutableMultiset.of("Org2MSP", "Org3MSP")));
+	}
+
+	@Test
+	public void testPlanSatisfiesPolicy() {
+		planner.register(criteria, newPolicy(2, "Org1MSP", "Org2MSP", "Org3MSP"));
+
+		Set<Set<String>> planned = new HashSet<>();
+		for (int i = 0; i < 3; i++) {
+			Collection<Peer> selected = planner.plan(criteria, null, peers, 0, Collections.emptySet());
+			assertEquals(2, selected.size());
+			planned.add(orgs(selected));
+		}
+		// 在最小组合之间轮转
+		assertEquals(3, planned.size());
+	}
+
+	@Test
+	public void testPlanExcludesFailedPeers() {
+		planner.register(criteria, newPolicy(2, "Org1MSP", "Org2MSP", "Org3MSP"));
+
+		Set<Peer> failed = new HashSet<>(Arrays.asList(peer0Org2));
+		for (int i = 0; i < 3; i++) {
+			Collection<Peer> selected = planner.plan(criteria, null, peers, 1, failed);
+			assertFalse(selected.contains(peer0Org2));
+			assertEquals(new HashSet<>(Arrays.asList("org1", "org3")), orgs(selected));
+		}
+
+		// 满足策略的节点不足
+		failed.add(peer0Org3);
+		assertNull(planner.plan(criteria, null, peers, 1, failed));
+	}
+
+	@Test
+	public void testPlanLimitsAttempts() {
+		planner.register(criteria, newPolicy(1, "Org1MSP", "Org2MSP"));
+
+		assertEquals(1, planner.plan(criteria, null, peers, 2, Collections.emptySet()).size());
+		assertNull(planner.plan(criteria, null, peers, 3, Collections.emptySet()));
+	}
+
+	@Test
+	public void testUnknownPeerMsp() {
+		planner.register(criteria, newPolicy(2, "Org1MSP", "Org4MSP"));
+
+		// peer 节点的 MSP 未知，向所有背书节点发送交易提议
+		assertNull(planner.plan(criteria, null, peers, 0, Collections.emptySet()));
+	}
+
+	@Test
+	public void testAdminPrincipalIgnored() {
+		SignaturePolicyEnvelope.Builder envelope = SignaturePolicyEnvelope.newBuilder()
+				.addIdentities(newPrincipal("Org1MSP", MSPRole.MSPRoleType.ADMIN))
+				.addIdentities(newPrincipal("Org2MSP", MSPRole.MSPRoleType.MEMBER))
+				.setRule(nOutOf(1, 2));
+
+		ChaincodeEndorsementPolicy policy = new ChaincodeEndorsementPolicy();
+		policy.fromBytes(envelope.build().toByteArray());
+		planner.register(criteria, policy);
+
+		assertEquals(Arrays.asList(ImmutableMultiset.of("Org2MSP")), planner.getPrincipalSets(criteria));
+	}
+
+	private static ChaincodeEndorsementPolicy newPolicy(int n, String... mspIds) {
+		SignaturePolicyEnvelope.Builder envelope = SignaturePolicyEnvelope.newBuilder();
+		for (String mspId : mspIds) {
+			envelope.addIdentities(newPrincipal(mspId, MSPRole.MSPRoleType.MEMBER));
+		}
+		envelope.setRule(nOutOf(n, mspIds.length));
+
+		ChaincodeEndorsementPolicy policy = new ChaincodeEndorsementPolicy();
+		policy.fromBytes(envelope.build().toByteArray());
+		return policy;
+	}
+
+	private static SignaturePolicy nOutOf(int n, int count) {
+		SignaturePolicy.NOutOf.Builder rule = SignaturePolicy.NOutOf.newBuilder().setN(n);
+		for (int i = 0; i < count; i++) {
+			rule.addRules(SignaturePolicy.newBuilder().setSignedBy(i));
+		}
+		return SignaturePolicy.newBuilder().setNOutOf(rule).build();
+	}
+
+	private static MSPPrincipal newPrincipal(String mspId, MSPRole.MSPRoleType role) {
+		MSPRole principal = MSPRole.newBuilder().setMspIdentifier(mspId).setRole(role).build();
+
+		return MSPPrincipal.newBuilder().setPrincipalClassification(MSPPrincipal.Classification.ROLE).setPrincipal(principal.toByteString()).build();
+	}
+
+	private static Peer newPeer(String name) throws Exception {
+		Constructor<Peer> constructor = Peer.class.getDeclaredConstructor(String.class, String.class, Properties.class);
+		constructor.setAccessible(true);
+		return constructor.newInstance(name, "grpc://localhost:7051", null);
+	}
+
+	private static Set<String> orgs(Collection<Peer> peers) {
+		Set<String> orgs = new HashSet<>();
+		peers.forEach(peer -> orgs.add(peer.getName().split("\\.")[1]));
+		return orgs;
+	}
+}
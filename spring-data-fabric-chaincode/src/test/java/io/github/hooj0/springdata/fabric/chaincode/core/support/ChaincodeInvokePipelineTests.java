@@ -0,0 +1,273 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria.CriteriaBuilder;
+import io.github.hooj0.springdata.fabric.chaincode.enums.BackpressurePolicy;
+
+/**
+ * invoke pipeline window and backpressure test units
+ * @author hoojo
+ * @createDate 2019年2月1日 上午10:12:36
+ * @file ChaincodeInvokePipelineTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodeInvokePipelineTests {
+
+	private final Criteria criteria = CriteriaBuilder.newBuilder().channel("mychannel").name("example_cc_go").build();
+
+	private ChaincodeInvokePipeline newPipeline(int windowSize, int queueCapacity, BackpressurePolicy policy) {
+		return new ChaincodeInvokePipeline(() -> new FixedConcurrencyLimit(windowSize), queueCapacity, policy, MoreExecutors.newDirectExecutorService());
+	}
+
+	@Test
+	public void testWindowLimitsInFlight() throws Exception {
+		ChaincodeInvokePipeline pipeline = newPipeline(2, 16, BackpressurePolicy.BLOCK);
+
+		AtomicInteger started = new AtomicInteger();
+		List<CompletableFuture<String>> invokes = Lists.newArrayList();
+		List<CompletableFuture<String>> results = Lists.newArrayList();
+		for (int i = 0; i < 5; i++) {
+			CompletableFuture<String> invoke = new CompletableFuture<>();
+			invokes.add(invoke);
+
+			results.add(pipeline.submit(criteria, () -> {
+				started.incrementAndGet();
+				return invoke;
+			}));
+		}
+
+		assertEquals(2, started.get());
+		assertEquals(2, pipeline.getMetrics(criteria).getInFlight());
+		assertEquals(3, pipeline.getMetrics(criteria).getQueued());
+
+		invokes.get(0).complete("tx0");
+		assertEquals("tx0", results.get(0).get());
+		assertEquals(3, started.get());
+
+		for (CompletableFuture<String> invoke : invokes) {
+			invoke.complete("tx");
+		}
+
+		InvokeWindowMetrics metrics = pipeline.getMetrics(criteria);
+		assertEquals(5, started.get());
+		assertEquals(0, metrics.getInFlight());
+		assertEquals(2, metrics.getPeakInFlight());
+		assertEquals(5, metrics.getCompleted());
+	}
+
+	@Test
+	public void testRejectWhenSaturated() throws Exception {
+		ChaincodeInvokePipeline pipeline = newPipeline(1, 1, BackpressurePolicy.REJECT);
+
+		CompletableFuture<String> invoke = new CompletableFuture<>();
+		pipeline.submit(criteria, () -> invoke);
+		pipeline.submit(criteria, () -> invoke);
+
+		CompletableFuture<String> rejected = pipeline.submit(criteria, () -> invoke);
+		try {
+			rejected.get();
+			fail("saturated window must reject");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof ChaincodeOperationException);
+			assertTrue(e.getCause().getMessage().contains("in flight: 1"));
+		}
+		assertEquals(1, pipeline.getMetrics(criteria).getRejected());
+	}
+
+	@Test
+	public void testCallerRunsExceedsWindow() throws Exception {
+		ChaincodeInvokePipeline pipeline = newPipeline(1, 1, BackpressurePolicy.CALLER_RUNS);
+
+		CompletableFuture<String> first = new CompletableFuture<>();
+		pipeline.submit(criteria, () -> first);
+		
+		AtomicInteger queuedRuns = new AtomicInteger();
+		pipeline.submit(criteria, () -> {
+			queuedRuns.incrementAndGet();
+			return CompletableFuture.completedFuture("queued");
+		});
+
+		// 队列已满，调用线程不等待窗口空位，直接发起交易
+		AtomicInteger callerRuns = new AtomicInteger();
+		CompletableFuture<String> caller = pipeline.submit(criteria, () -> {
+			callerRuns.incrementAndGet();
+			return CompletableFuture.completedFuture("caller");
+		});
+		
+		assertEquals("caller", caller.get(5, TimeUnit.SECONDS));
+		assertEquals(1, callerRuns.get());
+		assertEquals(0, queuedRuns.get());
+
+		first.complete("first");
+		assertEquals(1, queuedRuns.get());
+
+		InvokeWindowMetrics metrics = pipeline.getMetrics(criteria);
+		assertEquals(2, metrics.getPeakInFlight());
+		assertEquals(1, metrics.getCallerRuns());
+		assertEquals(3, metrics.getCompleted());
+	}
+	
+	@Test
+	public void testQueuedInvokesRunFirstUnderSaturation() throws Exception {
+		ChaincodeInvokePipeline pipeline = newPipeline(1, 2, BackpressurePolicy.CALLER_RUNS);
+		List<String> started = Collections.synchronizedList(Lists.newArrayList());
+
+		CompletableFuture<String> first = new CompletableFuture<>();
+		pipeline.submit(criteria, () -> {
+			started.add("first");
+			return first;
+		});
+		for (String name : Arrays.asList("queued-1", "queued-2")) {
+			pipeline.submit(criteria, () -> {
+				started.add(name);
+				return CompletableFuture.completedFuture(name);
+			});
+		}
+		
+		CompletableFuture<String> caller = new CompletableFuture<>();
+		pipeline.submit(criteria, () -> {
+			started.add("caller");
+			return caller;
+		});
+		
+		// 同步交易等待空位，不能越过排队的交易
+		Thread sync = new Thread(() -> pipeline.execute(criteria, () -> {
+			started.add("sync");
+			return CompletableFuture.completedFuture("sync");
+		}));
+		sync.start();
+		Thread.sleep(100);
+		assertEquals(Arrays.asList("first", "caller"), started);
+
+		first.complete("first");
+		assertEquals(Arrays.asList("first", "caller"), started);
+		
+		caller.complete("caller");
+		sync.join(5000);
+		
+		pipeline.submit(criteria, () -> {
+			started.add("last");
+			return CompletableFuture.completedFuture("last");
+		});
+		assertEquals(Arrays.asList("first", "caller", "queued-1", "queued-2", "sync", "last"), started);
+	}
+
+	@Test
+	public void testExecuteRunsInCallerWithinWindow() throws Exception {
+		ChaincodeInvokePipeline pipeline = newPipeline(1, 4, BackpressurePolicy.BLOCK);
+
+		Thread caller = Thread.currentThread();
+		CompletableFuture<Thread> inline = pipeline.execute(criteria, () -> CompletableFuture.completedFuture(Thread.currentThread()));
+		assertEquals(caller, inline.get());
+
+		CompletableFuture<String> first = new CompletableFuture<>();
+		pipeline.submit(criteria, () -> first);
+
+		CountDownLatch executed = new CountDownLatch(1);
+		new Thread(() -> {
+			pipeline.execute(criteria, () -> CompletableFuture.completedFuture("sync")).join();
+			executed.countDown();
+		}).start();
+
+		assertFalse(executed.await(200, TimeUnit.MILLISECONDS));
+		first.complete("first");
+		assertTrue(executed.await(5, TimeUnit.SECONDS));
+		assertEquals(1, pipeline.getMetrics(criteria).getPeakInFlight());
+	}
+
+	@Test
+	public void testSamplesEndorseAndCommitSeparately() throws Exception {
+		long[] sample = new long[2];
+		ChaincodeInvokePipeline pipeline = new ChaincodeInvokePipeline(() -> new FixedConcurrencyLimit(1) {
+			@Override
+			public void onSample(long endorseRtt, long commitRtt, int inFlight, boolean dropped) {
+				sample[0] = endorseRtt;
+				sample[1] = commitRtt;
+			}
+		}, 4, BackpressurePolicy.BLOCK, MoreExecutors.newDirectExecutorService());
+
+		CompletableFuture<String> commit = new CompletableFuture<>();
+		pipeline.submit(criteria, () -> {
+			sleep(50);
+			return commit;
+		});
+		sleep(100);
+		commit.complete("committed");
+
+		assertTrue(sample[0] >= TimeUnit.MILLISECONDS.toNanos(50));
+		assertTrue(sample[1] >= TimeUnit.MILLISECONDS.toNanos(100));
+	}
+
+	@Test
+	public void testSyncInvokeSampledSeparately() throws Exception {
+		long[] sample = new long[] { -1, -1 };
+		ChaincodeInvokePipeline pipeline = new ChaincodeInvokePipeline(() -> new FixedConcurrencyLimit(1) {
+			@Override
+			public void onSample(long endorseRtt, long commitRtt, int inFlight, boolean dropped) {
+				sample[0] = endorseRtt;
+			}
+
+			@Override
+			public void onSyncSample(long rtt, int inFlight, boolean dropped) {
+				sample[1] = rtt;
+			}
+		}, 4, BackpressurePolicy.BLOCK, MoreExecutors.newDirectExecutorService());
+
+		// 同步交易的整笔耗时不作为背书样本
+		assertEquals("sync", pipeline.executeSync(criteria, () -> {
+			sleep(50);
+			return "sync";
+		}).get());
+
+		assertEquals(-1, sample[0]);
+		assertTrue(sample[1] >= TimeUnit.MILLISECONDS.toNanos(50));
+		assertEquals(0, pipeline.getMetrics(criteria).getInFlight());
+	}
+
+	@Test
+	public void testFailedInvokeReleasesWindow() throws Exception {
+		ChaincodeInvokePipeline pipeline = newPipeline(1, 4, BackpressurePolicy.BLOCK);
+
+		CompletableFuture<String> failed = pipeline.submit(criteria, () -> {
+			throw new IllegalStateException("endorse failed");
+		});
+		CompletableFuture<String> next = pipeline.submit(criteria, () -> CompletableFuture.completedFuture("next"));
+
+		assertTrue(failed.isCompletedExceptionally());
+		assertEquals("next", next.get());
+		assertEquals(1, pipeline.getMetrics(criteria).getFailed());
+		assertEquals(0, pipeline.getMetrics(criteria).getInFlight());
+	}
+
+	private static void sleep(long millis) {
+		try {
+			TimeUnit.MILLISECONDS.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * ledger key conflict scheduler test units
+ * @author hoojo
+ * @createDate 2019年2月1日 下午3:02:11
+ * @file ChaincodeKeySchedulerTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodeKeySchedulerTests {
+
+	private final ChaincodeKeyScheduler scheduler = new ChaincodeKeyScheduler(ChaincodeKeyScheduler.DEFAULT_STRIPES, MoreExecutors.newDirectExecutorService());
+
+	@Test
+	public void testSameKeyWaitsForPrevious() {
+		CompletableFuture<String> first = new CompletableFuture<>();
+		AtomicInteger started = new AtomicInteger();
+
+		CompletableFuture<String> a = scheduler.submit(Collections.singletonList("account_1"), () -> {
+			started.incrementAndGet();
+			return first;
+		});
+		CompletableFuture<String> b = scheduler.submit(Arrays.asList("account_2", "account_1"), () -> {
+			started.incrementAndGet();
+			return CompletableFuture.completedFuture("b");
+		});
+
+		assertEquals(1, started.get());
+		assertFalse(b.isDone());
+		assertEquals(1, scheduler.getDeferredCount());
+
+		first.complete("a");
+		assertEquals("a", a.join());
+		assertEquals("b", b.join());
+		assertEquals(2, started.get());
+	}
+
+	@Test
+	public void testDisjointKeysRunInParallel() {
+		CompletableFuture<String> first = new CompletableFuture<>();
+		scheduler.submit(Collections.singletonList("account_1"), () -> first);
+
+		CompletableFuture<String> other = scheduler.submit(Collections.singletonList("account_2"), () -> CompletableFuture.completedFuture("other"));
+
+		assertEquals("other", other.join());
+		assertEquals(0, scheduler.getDeferredCount());
+		assertEquals(1, scheduler.getBusyStripes());
+	}
+
+	@Test
+	public void testStripeCollisionSerializes() {
+		// 只有一个条带时不同的键也会排队，保证正确性但失去并行
+		ChaincodeKeyScheduler single = new ChaincodeKeyScheduler(1, MoreExecutors.newDirectExecutorService());
+
+		CompletableFuture<String> first = new CompletableFuture<>();
+		single.submit(Collections.singletonList("account_1"), () -> first);
+		CompletableFuture<String> other = single.submit(Collections.singletonList("account_2"), () -> CompletableFuture.completedFuture("other"));
+
+		assertFalse(other.isDone());
+		first.complete("first");
+		assertEquals("other", other.join());
+	}
+
+	@Test
+	public void testFailedInvokeReleasesKeys() {
+		CompletableFuture<String> failed = scheduler.submit(Collections.singletonList("account_1"), () -> {
+			throw new IllegalStateException("endorse failed");
+		});
+		CompletableFuture<String> next = scheduler.submit(Collections.singletonList("account_1"), () -> CompletableFuture.completedFuture("next"));
+
+		assertTrue(failed.isCompletedExceptionally());
+		assertEquals("next", next.join());
+	}
+
+	@Test
+	public void testExecuteWaitsForAsyncHolder() throws Exception {
+		CompletableFuture<String> first = new CompletableFuture<>();
+		scheduler.submit(Collections.singletonList("account_1"), () -> first);
+
+		CountDownLatch executed = new CountDownLatch(1);
+		Thread caller = new Thread(() -> {
+			scheduler.execute(Collections.singletonList("account_1"), () -> "sync");
+			executed.countDown();
+		});
+		caller.start();
+
+		assertFalse(executed.await(200, TimeUnit.MILLISECONDS));
+		first.complete("first");
+		assertTrue(executed.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testShutdownStopsExecutor() {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		ChaincodeKeyScheduler scheduler = new ChaincodeKeyScheduler(16, executor);
+		scheduler.shutdown();
+		
+		assertTrue(executor.isShutdown());
+		assertEquals("sync", scheduler.execute(Collections.singletonList("account_1"), () -> "sync"));
+	}
+}
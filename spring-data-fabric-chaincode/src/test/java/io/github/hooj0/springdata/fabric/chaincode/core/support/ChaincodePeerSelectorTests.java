@@ -0,0 +1,102 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import static io.github.hooj0.springdata.fabric.chaincode.core.support.ChaincodeQueryHedgerTests.newPeer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hyperledger.fabric.sdk.Peer;
+import org.junit.Test;
+
+/**
+ * latency-aware peer selector test units
+ * @author hoojo
+ * @createDate 2019年2月1日 下午5:36:18
+ * @file ChaincodePeerSelectorTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodePeerSelectorTests {
+
+	@Test
+	public void testSelectPrefersFasterPeer() throws Exception {
+		ChaincodePeerSelector selector = new ChaincodePeerSelector(1, 1000);
+		Peer fast = newPeer("peer0"), slow = newPeer("peer1");
+
+		selector.execute(fast, () -> "fast");
+		selector.execute(slow, () -> sleep(20));
+
+		List<Peer> peers = Arrays.asList(fast, slow);
+		for (int i = 0; i < 20; i++) {
+			assertSame(fast, selector.select(peers));
+		}
+		assertEquals(Arrays.asList(fast, slow), selector.rank(Arrays.asList(slow, fast)));
+	}
+
+	@Test
+	public void testUnsampledPeerUsesMedianLatency() throws Exception {
+		ChaincodePeerSelector selector = new ChaincodePeerSelector(1, 1000);
+		Peer fast = newPeer("peer0"), slow = newPeer("peer1"), fresh = newPeer("peer2");
+
+		selector.execute(fast, () -> sleep(5));
+		selector.execute(slow, () -> sleep(40));
+
+		// 未采样节点既不排在所有节点之前，也不排在所有节点之后
+		List<Peer> ranked = selector.rank(Arrays.asList(fresh, slow, fast));
+		assertEquals(Arrays.asList(fast, fresh, slow), ranked);
+
+		PeerScore fast0 = selector.getScore("peer0"), slow1 = selector.getScore("peer1");
+		assertNull(selector.getScore("peer3"));
+		assertEquals((fast0.getLatency() + slow1.getLatency()) / 2, selector.getScore("peer2").getLatency(), 0.001);
+	}
+
+	@Test
+	public void testFailedPeerPenalized() throws Exception {
+		ChaincodePeerSelector selector = new ChaincodePeerSelector(1, 1000);
+		Peer healthy = newPeer("peer0"), failing = newPeer("peer1");
+
+		selector.execute(healthy, () -> sleep(5));
+		try {
+			selector.execute(failing, () -> {
+				throw new IllegalStateException("peer1 unavailable");
+			});
+			fail("failure must be thrown");
+		} catch (IllegalStateException e) {
+			assertEquals("peer1 unavailable", e.getMessage());
+		}
+
+		// 没有成功样本的失败节点按中位耗时加错误惩罚评分
+		assertEquals(Arrays.asList(healthy, failing), selector.rank(Arrays.asList(failing, healthy)));
+
+		PeerScore score = selector.getScore("peer1");
+		assertEquals(1, score.getErrorRate(), 0.001);
+		assertEquals(1, score.getFailures());
+		assertTrue(score.getScore() >= 1000);
+	}
+
+	@Test
+	public void testSinglePeer() throws Exception {
+		ChaincodePeerSelector selector = new ChaincodePeerSelector();
+		Peer peer = newPeer("peer0");
+
+		assertSame(peer, selector.select(Arrays.asList(peer)));
+	}
+
+	private static String sleep(long millis) {
+		try {
+			TimeUnit.MILLISECONDS.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return "slept";
+	}
+}
@@ -0,0 +1,167 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * single-flight query coalescer and query key test units
+ * @author hoojo
+ * @createDate 2019年2月1日 下午4:20:35
+ * @file ChaincodeQueryCoalescerTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodeQueryCoalescerTests {
+
+	@Test
+	public void testSubmitSharesInFlightQuery() throws Exception {
+		ChaincodeQueryCoalescer coalescer = new ChaincodeQueryCoalescer();
+
+		AtomicInteger queries = new AtomicInteger();
+		CompletableFuture<String> query = new CompletableFuture<>();
+		CompletableFuture<String> first = coalescer.submit("key", () -> {
+			queries.incrementAndGet();
+			return query;
+		});
+		CompletableFuture<String> second = coalescer.submit("key", () -> {
+			queries.incrementAndGet();
+			return CompletableFuture.completedFuture("other");
+		});
+
+		assertSame(first, second);
+		assertEquals(1, coalescer.getInFlightCount());
+
+		query.complete("result");
+		assertEquals("result", second.get());
+		assertEquals(1, queries.get());
+		assertEquals(0, coalescer.getInFlightCount());
+		assertEquals(1, coalescer.getExecutedCount());
+		assertEquals(1, coalescer.getCoalescedCount());
+
+		// 查询完成后不再合并，重新发起查询
+		assertEquals("again", coalescer.submit("key", () -> CompletableFuture.completedFuture("again")).get());
+		assertEquals(2, coalescer.getExecutedCount());
+	}
+
+	@Test
+	public void testDifferentKeysNotCoalesced() {
+		ChaincodeQueryCoalescer coalescer = new ChaincodeQueryCoalescer();
+
+		CompletableFuture<String> first = coalescer.submit("a", CompletableFuture::new);
+		CompletableFuture<String> second = coalescer.submit("b", CompletableFuture::new);
+
+		assertNotSame(first, second);
+		assertEquals(2, coalescer.getInFlightCount());
+		assertEquals(0, coalescer.getCoalescedCount());
+	}
+
+	@Test
+	public void testFailureSharedAndRemoved() throws Exception {
+		ChaincodeQueryCoalescer coalescer = new ChaincodeQueryCoalescer();
+
+		CompletableFuture<String> failed = coalescer.submit("key", () -> {
+			throw new IllegalStateException("query failed");
+		});
+
+		try {
+			failed.get();
+			fail("query failure must be shared");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+		assertEquals(0, coalescer.getInFlightCount());
+	}
+
+	@Test
+	public void testExecuteWaitsForLeader() throws Exception {
+		ChaincodeQueryCoalescer coalescer = new ChaincodeQueryCoalescer();
+
+		AtomicInteger queries = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> coalescer.execute("key", () -> {
+			queries.incrementAndGet();
+			started.countDown();
+			await(release);
+			return "result";
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> coalescer.execute("key", () -> {
+			queries.incrementAndGet();
+			return "other";
+		}));
+		while (coalescer.getCoalescedCount() == 0) {
+			TimeUnit.MILLISECONDS.sleep(5);
+		}
+
+		release.countDown();
+		assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+		assertEquals("result", follower.get(5, TimeUnit.SECONDS));
+		assertEquals(1, queries.get());
+	}
+
+	@Test
+	public void testExecuteRethrowsRuntimeException() {
+		ChaincodeQueryCoalescer coalescer = new ChaincodeQueryCoalescer();
+
+		IllegalStateException failure = new IllegalStateException("query failed");
+		try {
+			coalescer.execute("key", () -> {
+				throw failure;
+			});
+			fail("query failure must be thrown");
+		} catch (IllegalStateException e) {
+			assertSame(failure, e);
+		}
+	}
+
+	@Test
+	public void testKeySeparatorCollision() {
+		// 旧的 "|" 拼接下以下组合得到相同的 key
+		assertNotEquals(ChaincodeQueryCoalescer.key("mychannel", "cc", "1.0", "get", "Org1MSP", "user1", new Object[] { "a|b" }),
+				ChaincodeQueryCoalescer.key("mychannel", "cc", "1.0", "get|", "Org1MSP", "user1", new Object[] { "b" }));
+		assertNotEquals(ChaincodeQueryCoalescer.key("mychannel", "cc", "1.0", "get", "Org1MSP", "user1", new Object[] { "a, b" }),
+				ChaincodeQueryCoalescer.key("mychannel", "cc", "1.0", "get", "Org1MSP", "user1", new Object[] { "a", "b" }));
+		assertNotEquals(ChaincodeQueryCoalescer.key("a", "bc"), ChaincodeQueryCoalescer.key("ab", "c"));
+		assertNotEquals(ChaincodeQueryCoalescer.key("1:a"), ChaincodeQueryCoalescer.key("1", "a"));
+	}
+
+	@Test
+	public void testKeyNullAndEmpty() {
+		assertNotEquals(ChaincodeQueryCoalescer.key((Object) null), ChaincodeQueryCoalescer.key(""));
+		assertNotEquals(ChaincodeQueryCoalescer.key("null"), ChaincodeQueryCoalescer.key((Object) null));
+		assertNotEquals(ChaincodeQueryCoalescer.key("a", new Object[] { null }), ChaincodeQueryCoalescer.key("a", new Object[0]));
+	}
+
+	@Test
+	public void testKeyIncludesMspId() {
+		assertNotEquals(ChaincodeQueryCoalescer.key("mychannel", "cc", "1.0", "get", "Org1MSP", "admin", new Object[] { "a" }),
+				ChaincodeQueryCoalescer.key("mychannel", "cc", "1.0", "get", "Org2MSP", "admin", new Object[] { "a" }));
+		assertEquals(ChaincodeQueryCoalescer.key("mychannel", "cc", "1.0", "get", "Org1MSP", "admin", new Object[] { "a", 1 }),
+				ChaincodeQueryCoalescer.key("mychannel", "cc", "1.0", "get", "Org1MSP", "admin", new Object[] { "a", 1 }));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
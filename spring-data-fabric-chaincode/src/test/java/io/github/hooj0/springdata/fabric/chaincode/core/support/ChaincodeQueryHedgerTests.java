@@ -0,0 +1,137 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hyperledger.fabric.sdk.Peer;
+import org.junit.Test;
+
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
+
+/**
+ * hedged query test units
+ * @author hoojo
+ * @createDate 2019年2月1日 下午5:02:44
+ * @file ChaincodeQueryHedgerTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodeQueryHedgerTests {
+
+	/**
+	 * 构造不连接网络的 peer 节点
+	 */
+	static Peer newPeer(String name) throws Exception {
+		Constructor<Peer> constructor = Peer.class.getDeclaredConstructor(String.class, String.class, Properties.class);
+		constructor.setAccessible(true);
+		return constructor.newInstance(name, "grpc://localhost:7051", null);
+	}
+
+	private final ChaincodeQueryHedger hedger = new ChaincodeQueryHedger();
+
+	@Test
+	public void testFirstPeerWithinDelay() throws Exception {
+		List<Peer> peers = Arrays.asList(newPeer("peer0"), newPeer("peer1"));
+
+		AtomicInteger queries = new AtomicInteger();
+		String result = hedger.execute("mychannel_cc", peers, 500, 0, 1, peer -> {
+			queries.incrementAndGet();
+			return peer.getName();
+		});
+
+		assertEquals("peer0", result);
+		assertEquals(1, queries.get());
+		assertEquals(0, hedger.getHedgeCount());
+		assertEquals(1, hedger.getLatency("mychannel_cc").getCount());
+	}
+
+	@Test
+	public void testHedgeWinsOnSlowPeer() throws Exception {
+		List<Peer> peers = Arrays.asList(newPeer("peer0"), newPeer("peer1"));
+
+		CountDownLatch slow = new CountDownLatch(1);
+		String result = hedger.execute("mychannel_cc", peers, 20, 0, 1, peer -> {
+			if ("peer0".equals(peer.getName())) {
+				await(slow);
+			}
+			return peer.getName();
+		});
+		slow.countDown();
+
+		assertEquals("peer1", result);
+		assertEquals(1, hedger.getHedgeCount());
+		assertEquals(1, hedger.getHedgeWinCount());
+	}
+
+	@Test
+	public void testFailureLaunchesNextPeerImmediately() throws Exception {
+		List<Peer> peers = Arrays.asList(newPeer("peer0"), newPeer("peer1"));
+
+		long start = System.nanoTime();
+		String result = hedger.execute("mychannel_cc", peers, 5000, 0, 1, peer -> {
+			if ("peer0".equals(peer.getName())) {
+				throw new IllegalStateException("peer0 unavailable");
+			}
+			return peer.getName();
+		});
+
+		assertEquals("peer1", result);
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+	}
+
+	@Test
+	public void testAllPeersFailed() throws Exception {
+		List<Peer> peers = Arrays.asList(newPeer("peer0"), newPeer("peer1"));
+
+		try {
+			hedger.execute("mychannel_cc", peers, 10, 0, 1, peer -> {
+				throw new IllegalStateException(peer.getName() + " unavailable");
+			});
+			fail("all failed queries must be thrown");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getMessage().endsWith("unavailable"));
+		}
+	}
+
+	@Test
+	public void testSaturatedExecutorRejectsHedge() throws Exception {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1));
+		ChaincodeQueryHedger bounded = new ChaincodeQueryHedger(executor);
+
+		CountDownLatch release = new CountDownLatch(1);
+		executor.submit(() -> await(release));
+		executor.submit(() -> {});
+
+		try {
+			bounded.execute("mychannel_cc", Arrays.asList(newPeer("peer0")), 10, 0, 0, Peer::getName);
+			fail("saturated hedge executor must reject");
+		} catch (ChaincodeOperationException e) {
+			assertTrue(e.getMessage().contains("saturated"));
+		} finally {
+			release.countDown();
+			bounded.shutdown();
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
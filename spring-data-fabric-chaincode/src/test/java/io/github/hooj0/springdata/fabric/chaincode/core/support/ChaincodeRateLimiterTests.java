@@ -0,0 +1,141 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.github.hooj0.springdata.fabric.chaincode.ChaincodeOperationException;
+import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Channel;
+
+/**
+ * GCRA rate limiter test units
+ * @author hoojo
+ * @createDate 2019年2月1日 下午3:02:18
+ * @file ChaincodeRateLimiterTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodeRateLimiterTests {
+
+	@Test
+	public void testOfDisabled() {
+		assertNull(ChaincodeRateLimiter.of(0, 10, 0));
+		assertNull(ChaincodeRateLimiter.of(-1, 10, 0));
+		assertNull(ChaincodeRateLimiter.of((Channel) null));
+
+		ChaincodeRateLimiter limiter = ChaincodeRateLimiter.of(10, 0, 0);
+		assertEquals(1, limiter.getBurst());
+	}
+
+	@Test
+	public void testTryAcquireBurst() {
+		// 每秒 1 个令牌，突发 3 个，前 3 次立即通过，第 4 次拒绝
+		ChaincodeRateLimiter limiter = new ChaincodeRateLimiter(1, 3, 0);
+
+		assertTrue(limiter.tryAcquire());
+		assertTrue(limiter.tryAcquire());
+		assertTrue(limiter.tryAcquire());
+		assertFalse(limiter.tryAcquire());
+
+		assertEquals(3, limiter.getAcquiredCount());
+		assertEquals(1, limiter.getRejectedCount());
+	}
+
+	@Test
+	public void testTryAcquireRefill() throws Exception {
+		ChaincodeRateLimiter limiter = new ChaincodeRateLimiter(20, 1, 0);
+
+		assertTrue(limiter.tryAcquire());
+		assertFalse(limiter.tryAcquire());
+
+		// 50ms 后补充一个令牌
+		TimeUnit.MILLISECONDS.sleep(60);
+		assertTrue(limiter.tryAcquire());
+	}
+
+	@Test
+	public void testAcquireWithoutWaitRejects() {
+		ChaincodeRateLimiter limiter = new ChaincodeRateLimiter(1, 1, 0);
+		limiter.acquire();
+
+		try {
+			limiter.acquire();
+			fail("acquire without permit must be rejected");
+		} catch (ChaincodeOperationException e) {
+			assertTrue(e.getMessage().contains("rate limit exceeded"));
+		}
+		assertEquals(1, limiter.getAcquiredCount());
+		assertEquals(1, limiter.getRejectedCount());
+	}
+
+	@Test
+	public void testAcquireWaitsForPermit() {
+		// 每秒 10 个令牌，第二次获取需要等待约 100ms
+		ChaincodeRateLimiter limiter = new ChaincodeRateLimiter(10, 1, 1000);
+		limiter.acquire();
+
+		long start = System.nanoTime();
+		limiter.acquire();
+		long elapsed = System.nanoTime() - start;
+
+		assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(80));
+		assertEquals(2, limiter.getAcquiredCount());
+		assertEquals(1, limiter.getWaitedCount());
+	}
+
+	@Test
+	public void testAcquirePermits() {
+		// 突发 3 个，一次获取 3 个令牌后桶已空
+		ChaincodeRateLimiter limiter = new ChaincodeRateLimiter(1, 3, 0);
+		limiter.acquire(3);
+
+		assertFalse(limiter.tryAcquire());
+		assertEquals(3, limiter.getAcquiredCount());
+
+		try {
+			new ChaincodeRateLimiter(1, 3, 0).acquire(4);
+			fail("permits beyond burst without wait must be rejected");
+		} catch (ChaincodeOperationException e) {
+			assertTrue(e.getMessage().contains("no 4 permits within 0ms"));
+		}
+	}
+
+	@Test
+	public void testAcquirePermitsWaits() {
+		// 每秒 20 个令牌，突发 1 个，获取 3 个令牌需要等待约 100ms
+		ChaincodeRateLimiter limiter = new ChaincodeRateLimiter(20, 1, 1000);
+
+		long start = System.nanoTime();
+		limiter.acquire(3);
+
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(80));
+		assertEquals(1, limiter.getWaitedCount());
+	}
+
+	@Test
+	public void testAcquireRejectsBeyondTimeout() {
+		// 每秒 1 个令牌，等待上限 100ms，不足以等到下一个令牌
+		ChaincodeRateLimiter limiter = new ChaincodeRateLimiter(1, 1, 100);
+		limiter.acquire();
+
+		long start = System.nanoTime();
+		try {
+			limiter.acquire();
+			fail("permit beyond timeout must be rejected");
+		} catch (ChaincodeOperationException e) {
+			assertTrue(e.getMessage().contains("no permit within 100ms"));
+		}
+		// 超出等待上限时立即拒绝，不占用令牌
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(100));
+		assertEquals(1, limiter.getRejectedCount());
+	}
+}
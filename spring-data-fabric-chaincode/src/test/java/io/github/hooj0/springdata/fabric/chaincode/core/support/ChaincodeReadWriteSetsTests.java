@@ -0,0 +1,120 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.Set;
+
+import org.hyperledger.fabric.protos.common.Common.Block;
+import org.hyperledger.fabric.protos.common.Common.BlockData;
+import org.hyperledger.fabric.protos.common.Common.BlockHeader;
+import org.hyperledger.fabric.protos.common.Common.BlockMetadata;
+import org.hyperledger.fabric.protos.common.Common.ChannelHeader;
+import org.hyperledger.fabric.protos.common.Common.Envelope;
+import org.hyperledger.fabric.protos.common.Common.Header;
+import org.hyperledger.fabric.protos.common.Common.HeaderType;
+import org.hyperledger.fabric.protos.common.Common.Payload;
+import org.hyperledger.fabric.protos.ledger.rwset.Rwset.NsReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.Rwset.TxReadWriteSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KvRwset.KVRWSet;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KvRwset.KVRead;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KvRwset.KVWrite;
+import org.hyperledger.fabric.protos.ledger.rwset.kvrwset.KvRwset.RangeQueryInfo;
+import org.hyperledger.fabric.protos.peer.FabricProposal.ChaincodeAction;
+import org.hyperledger.fabric.protos.peer.FabricProposalResponse.ProposalResponsePayload;
+import org.hyperledger.fabric.protos.peer.FabricTransaction.ChaincodeActionPayload;
+import org.hyperledger.fabric.protos.peer.FabricTransaction.ChaincodeEndorsedAction;
+import org.hyperledger.fabric.protos.peer.FabricTransaction.Transaction;
+import org.hyperledger.fabric.protos.peer.FabricTransaction.TransactionAction;
+import org.hyperledger.fabric.protos.peer.FabricTransaction.TxValidationCode;
+import org.hyperledger.fabric.protos.peer.PeerEvents.DeliverResponse;
+import org.hyperledger.fabric.sdk.BlockEvent;
+import org.hyperledger.fabric.sdk.Peer;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+import com.google.protobuf.ByteString;
+
+/**
+ * read write set parse test units
+ * @author hoojo
+ * @createDate 2019年2月2日 下午2:12:08
+ * @file ChaincodeReadWriteSetsTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodeReadWriteSetsTests {
+
+	/**
+	 * 构造包含一个交易写集的完整区块事件
+	 */
+	public static BlockEvent newWriteBlockEvent(long number, String transactionId, TxValidationCode code, String namespace, String... keys) throws Exception {
+		KVRWSet.Builder rwset = KVRWSet.newBuilder();
+		for (String key : keys) {
+			rwset.addWrites(KVWrite.newBuilder().setKey(key).setValue(ByteString.copyFromUtf8("value")));
+		}
+
+		ChaincodeActionPayload actionPayload = ChaincodeActionPayload.newBuilder().setAction(ChaincodeEndorsedAction.newBuilder().setProposalResponsePayload(newPayload(namespace, rwset.build()))).build();
+		Transaction transaction = Transaction.newBuilder().addActions(TransactionAction.newBuilder().setPayload(actionPayload.toByteString())).build();
+
+		ChannelHeader header = ChannelHeader.newBuilder().setType(HeaderType.ENDORSER_TRANSACTION_VALUE).setTxId(transactionId).setChannelId("mychannel").build();
+		Payload payload = Payload.newBuilder().setHeader(Header.newBuilder().setChannelHeader(header.toByteString())).setData(transaction.toByteString()).build();
+
+		// 第 3 个元数据为交易验证结果
+		BlockMetadata.Builder metadata = BlockMetadata.newBuilder();
+		for (int i = 0; i < 4; i++) {
+			metadata.addMetadata(i == 2 ? ByteString.copyFrom(new byte[] { (byte) code.getNumber() }) : ByteString.EMPTY);
+		}
+		Block block = Block.newBuilder().setHeader(BlockHeader.newBuilder().setNumber(number))
+				.setData(BlockData.newBuilder().addData(Envelope.newBuilder().setPayload(payload.toByteString()).build().toByteString()))
+				.setMetadata(metadata).build();
+
+		Constructor<BlockEvent> constructor = BlockEvent.class.getDeclaredConstructor(Peer.class, DeliverResponse.class);
+		constructor.setAccessible(true);
+		return constructor.newInstance(null, DeliverResponse.newBuilder().setBlock(block).build());
+	}
+
+	private static ByteString newPayload(String namespace, KVRWSet rwset) {
+		TxReadWriteSet results = TxReadWriteSet.newBuilder().setDataModel(TxReadWriteSet.DataModel.KV).addNsRwset(NsReadWriteSet.newBuilder().setNamespace(namespace).setRwset(rwset.toByteString())).build();
+
+		return ProposalResponsePayload.newBuilder().setExtension(ChaincodeAction.newBuilder().setResults(results.toByteString()).build().toByteString()).build().toByteString();
+	}
+
+	@Test
+	public void testReadKeys() throws Exception {
+		KVRWSet rwset = KVRWSet.newBuilder().addReads(KVRead.newBuilder().setKey("a")).addReads(KVRead.newBuilder().setKey("b")).build();
+
+		assertEquals(Sets.newHashSet("cc/a", "cc/b"), ChaincodeReadWriteSets.getReadKeys(newPayload("cc", rwset)));
+	}
+
+	@Test
+	public void testRangeQueryReadKeysUnknown() throws Exception {
+		KVRWSet rwset = KVRWSet.newBuilder().addReads(KVRead.newBuilder().setKey("a")).addRangeQueriesInfo(RangeQueryInfo.newBuilder().setStartKey("a").setEndKey("z")).build();
+
+		assertNull(ChaincodeReadWriteSets.getReadKeys(newPayload("cc", rwset)));
+	}
+
+	@Test
+	public void testRichQueryReadKeysUnknown() throws Exception {
+		// 富查询不记录读集
+		assertNull(ChaincodeReadWriteSets.getReadKeys(newPayload("cc", KVRWSet.getDefaultInstance())));
+	}
+
+	@Test
+	public void testWriteKeys() throws Exception {
+		Map<String, Set<String>> writes = ChaincodeReadWriteSets.getWriteKeys(newWriteBlockEvent(5, "tx1", TxValidationCode.VALID, "cc", "a", "b"));
+
+		assertEquals(Sets.newHashSet("cc/a", "cc/b"), writes.get("tx1"));
+	}
+
+	@Test
+	public void testFilteredBlockHasNoWrites() throws Exception {
+		assertTrue(ChaincodeReadWriteSets.getWriteKeys(ChaincodeCommitTrackerTests.newBlockEvent(5, "tx1", TxValidationCode.VALID)).isEmpty());
+	}
+}
@@ -0,0 +1,138 @@
+package io.github.hooj0.springdata.fabric.chaincode.core.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hyperledger.fabric.protos.peer.FabricTransaction.TxValidationCode;
+import org.hyperledger.fabric.sdk.exception.TransactionEventException;
+import org.junit.Test;
+
+/**
+ * transaction validation retry policy test units
+ * @author hoojo
+ * @createDate 2019年2月1日 下午2:16:40
+ * @file ChaincodeRetryPolicyTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.core.support
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ChaincodeRetryPolicyTests {
+
+	private final ChaincodeRetryPolicy policy = new ChaincodeRetryPolicy(3, 1, 4, 0, TxValidationCode.MVCC_READ_CONFLICT);
+
+	private static TransactionEventException conflict(TxValidationCode code) throws Exception {
+		return new TransactionEventException("invalid transaction", ChaincodeCommitTrackerTests.newBlockEvent(1, "tx1", code).getTransactionEvents().iterator().next());
+	}
+
+	@Test
+	public void testRetryUntilSuccess() throws Exception {
+		TransactionEventException conflict = conflict(TxValidationCode.MVCC_READ_CONFLICT);
+
+		AtomicInteger attempts = new AtomicInteger();
+		AtomicInteger retried = new AtomicInteger();
+		String result = policy.execute(() -> {
+			if (attempts.incrementAndGet() < 3) {
+				throw new RuntimeException(conflict);
+			}
+			return "ok";
+		}, retries -> retried.set(retries));
+
+		assertEquals("ok", result);
+		assertEquals(3, attempts.get());
+		assertEquals(2, retried.get());
+		assertEquals(1, policy.getRecoveredCount());
+	}
+
+	@Test
+	public void testNotRetryableFailsImmediately() throws Exception {
+		TransactionEventException endorsement = conflict(TxValidationCode.ENDORSEMENT_POLICY_FAILURE);
+
+		AtomicInteger attempts = new AtomicInteger();
+		try {
+			policy.execute(() -> {
+				attempts.incrementAndGet();
+				throw new RuntimeException(endorsement);
+			}, retries -> fail("must not retry"));
+			fail("non retryable failure must be thrown");
+		} catch (RuntimeException e) {
+			assertSame(endorsement, e.getCause());
+		}
+		assertEquals(1, attempts.get());
+		assertFalse(policy.isRetryable(new IllegalStateException()));
+	}
+
+	@Test
+	public void testExhausted() throws Exception {
+		TransactionEventException conflict = conflict(TxValidationCode.MVCC_READ_CONFLICT);
+
+		AtomicInteger attempts = new AtomicInteger();
+		try {
+			policy.execute(() -> {
+				attempts.incrementAndGet();
+				throw new RuntimeException(conflict);
+			}, retries -> {});
+			fail("exhausted retry must be thrown");
+		} catch (RuntimeException e) {
+			assertTrue(policy.isRetryable(e));
+		}
+		assertEquals(3, attempts.get());
+		assertEquals(1, policy.getExhaustedCount());
+	}
+
+	@Test
+	public void testExecuteAsync() throws Exception {
+		TransactionEventException conflict = conflict(TxValidationCode.MVCC_READ_CONFLICT);
+
+		AtomicInteger attempts = new AtomicInteger();
+		CompletableFuture<String> result = policy.executeAsync(() -> {
+			CompletableFuture<String> future = new CompletableFuture<>();
+			if (attempts.incrementAndGet() < 2) {
+				future.completeExceptionally(conflict);
+			} else {
+				future.complete("ok");
+			}
+			return future;
+		}, retries -> {});
+
+		assertEquals("ok", result.get(5, TimeUnit.SECONDS));
+		assertEquals(2, attempts.get());
+	}
+
+	@Test
+	public void testExecuteAsyncNotRetryable() throws Exception {
+		CompletableFuture<String> result = policy.executeAsync(() -> {
+			throw new IllegalStateException("endorse failed");
+		}, retries -> fail("must not retry"));
+
+		try {
+			result.get(5, TimeUnit.SECONDS);
+			fail("non retryable failure must be thrown");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void testBackoff() {
+		assertEquals(1, policy.getDelay(1));
+		assertEquals(2, policy.getDelay(2));
+		assertEquals(4, policy.getDelay(3));
+		assertEquals(4, policy.getDelay(10));
+
+		ChaincodeRetryPolicy jittered = new ChaincodeRetryPolicy(3, 100, 1000, 0.5, TxValidationCode.MVCC_READ_CONFLICT);
+		for (int i = 0; i < 100; i++) {
+			long delay = jittered.getDelay(1);
+			assertTrue(delay >= 50 && delay <= 150);
+		}
+	}
+}
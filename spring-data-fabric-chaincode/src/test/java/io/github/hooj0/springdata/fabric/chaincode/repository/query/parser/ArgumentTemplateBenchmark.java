@@ -0,0 +1,160 @@
+package io.github.hooj0.springdata.fabric.chaincode.repository.query.parser;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hyperledger.fabric.sdk.TransactionRequest.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.core.support.DefaultRepositoryMetadata;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.query.ParametersParameterAccessor;
+import org.springframework.data.repository.query.QueryMethodEvaluationContextProvider;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Query;
+import io.github.hooj0.springdata.fabric.chaincode.core.mapping.SimpleChaincodeMappingContext;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria.CriteriaBuilder;
+import io.github.hooj0.springdata.fabric.chaincode.repository.ChaincodeRepository;
+import io.github.hooj0.springdata.fabric.chaincode.repository.query.ChaincodeQueryMethod;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 参数模板基准测试：对比原有的拼接、正则替换、拆分方式和预编译参数模板的填充方式，以及每次调用解析表达式和预先解析表达式的绑定方式
+ * @changelog argument template benchmark, legacy join/replace/split pipeline versus precompiled template fill, per-call versus precompiled SpEL binding
+ * @author hoojo
+ * @createDate 2019年1月30日 上午11:26:32
+ * @file ArgumentTemplateBenchmark.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.repository.query.parser
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArgumentTemplateBenchmark {
+
+	private static final String QUERY_ARGS_SEPARATOR = "_;_";
+
+	private ChaincodeQueryMethod method;
+	private StringBasedQueryParser parser;
+	private StringBasedQueryBinder binder;
+	private ArgumentTemplate template;
+
+	private Object[] values;
+	private ParametersParameterAccessor accessor;
+
+	private ChaincodeQueryMethod expressionMethod;
+	private ArgumentTemplate expressionTemplate;
+	private String[] expressions;
+
+	private Object[] expressionValues;
+	private ParametersParameterAccessor expressionAccessor;
+
+	@Setup
+	public void setup() throws Exception {
+		Method transfer = AccountRepository.class.getMethod("transfer", String.class, String.class, Integer.class);
+		Criteria criteria = CriteriaBuilder.newBuilder().channel("mychannel").name("example_cc_go").path("github.com/example_cc").version("1").type(Type.GO_LANG).org("peerOrg1").build();
+
+		this.method = new ChaincodeQueryMethod(transfer, new DefaultRepositoryMetadata(AccountRepository.class), new SpelAwareProxyProjectionFactory(), new SimpleChaincodeMappingContext(), criteria);
+		this.parser = new StringBasedQueryParser(DefaultConversionService.getSharedInstance());
+
+		ExpressionEvaluatingParameterBinder parameterBinder = new ExpressionEvaluatingParameterBinder(new SpelExpressionParser(), QueryMethodEvaluationContextProvider.DEFAULT);
+		String[] args = method.getRequiredAnnotatedQuery();
+
+		this.binder = new StringBasedQueryBinder(StringUtils.join(args, QUERY_ARGS_SEPARATOR), parameterBinder);
+		this.template = ArgumentTemplate.compile(args, method, parameterBinder, parser);
+
+		this.values = new Object[] { "a", "b", 100 };
+		this.accessor = new ParametersParameterAccessor(method.getParameters(), values);
+
+		Method transferAccount = AccountRepository.class.getMethod("transferAccount", Account.class);
+		this.expressionMethod = new ChaincodeQueryMethod(transferAccount, new DefaultRepositoryMetadata(AccountRepository.class), new SpelAwareProxyProjectionFactory(), new SimpleChaincodeMappingContext(), criteria);
+
+		SpelExpressionParser compilingParser = new SpelExpressionParser(new SpelParserConfiguration(SpelCompilerMode.MIXED, getClass().getClassLoader()));
+		ExpressionEvaluatingParameterBinder expressionBinder = new ExpressionEvaluatingParameterBinder(compilingParser, QueryMethodEvaluationContextProvider.DEFAULT);
+		this.expressionTemplate = ArgumentTemplate.compile(expressionMethod.getRequiredAnnotatedQuery(), expressionMethod, expressionBinder, parser);
+		this.expressions = new String[] { "#account.from", "#account.to", "#account.amount" };
+
+		this.expressionValues = new Object[] { new Account("a", "b", 100) };
+		this.expressionAccessor = new ParametersParameterAccessor(expressionMethod.getParameters(), expressionValues);
+	}
+
+	@Benchmark
+	public String[] replacePlaceholders() {
+		SimpleStatement statement = binder.bindQuery(accessor, method, values);
+		String result = parser.replacePlaceholders(statement.getBindableStatement(), statement.getArray());
+
+		return StringUtils.splitByWholeSeparator(result, QUERY_ARGS_SEPARATOR);
+	}
+
+	@Benchmark
+	public String[] fillTemplate() {
+		return template.fill(accessor, values);
+	}
+
+	/**
+	 * 每个表达式每次调用都重新解析并创建求值上下文
+	 */
+	@Benchmark
+	public Object[] parseExpressionPerCall() {
+		SpelExpressionParser expressionParser = new SpelExpressionParser();
+
+		Object[] result = new Object[expressions.length];
+		for (int i = 0; i < expressions.length; i++) {
+			EvaluationContext context = QueryMethodEvaluationContextProvider.DEFAULT.getEvaluationContext(expressionMethod.getParameters(), expressionValues);
+			result[i] = expressionParser.parseExpression(expressions[i]).getValue(context, Object.class);
+		}
+		return result;
+	}
+
+	@Benchmark
+	public String[] fillExpressionTemplate() {
+		return expressionTemplate.fill(expressionAccessor, expressionValues);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(ArgumentTemplateBenchmark.class.getSimpleName()).build()).run();
+	}
+
+	@Getter
+	@AllArgsConstructor
+	public static class Account {
+		private String from;
+		private String to;
+		private Integer amount;
+	}
+
+	interface AccountRepository extends ChaincodeRepository<Account> {
+
+		@Query(func = "invoke", args = { "move", "?0", "amount=?2", ":to" })
+		String transfer(@Param("from") String from, @Param("to") String to, @Param("amount") Integer amount);
+
+		@Query(func = "invoke", args = { "move", ":#{#account.from}", ":#{#account.to}", ":#{#account.amount}" })
+		String transferAccount(@Param("account") Account account);
+	}
+}
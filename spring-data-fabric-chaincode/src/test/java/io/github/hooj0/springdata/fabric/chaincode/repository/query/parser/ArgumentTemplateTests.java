@@ -0,0 +1,93 @@
+package io.github.hooj0.springdata.fabric.chaincode.repository.query.parser;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.lang.reflect.Method;
+
+import org.hyperledger.fabric.sdk.TransactionRequest.Type;
+import org.junit.Test;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.core.support.DefaultRepositoryMetadata;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.query.ParametersParameterAccessor;
+import org.springframework.data.repository.query.QueryMethodEvaluationContextProvider;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+import io.github.hooj0.springdata.fabric.chaincode.annotations.repository.Query;
+import io.github.hooj0.springdata.fabric.chaincode.core.mapping.SimpleChaincodeMappingContext;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria;
+import io.github.hooj0.springdata.fabric.chaincode.core.query.Criteria.CriteriaBuilder;
+import io.github.hooj0.springdata.fabric.chaincode.domain.AbstractEntity;
+import io.github.hooj0.springdata.fabric.chaincode.repository.ChaincodeRepository;
+import io.github.hooj0.springdata.fabric.chaincode.repository.query.ChaincodeQueryMethod;
+
+/**
+ * precompiled argument template test units
+ * @author hoojo
+ * @createDate 2019年2月1日 下午3:40:26
+ * @file ArgumentTemplateTests.java
+ * @package io.github.hooj0.springdata.fabric.chaincode.repository.query.parser
+ * @project spring-data-fabric-chaincode
+ * @blog http://hoojo.cnblogs.com
+ * @email hoojo_@126.com
+ * @version 1.0
+ */
+public class ArgumentTemplateTests {
+
+	private final Criteria criteria = CriteriaBuilder.newBuilder().channel("mychannel").name("example_cc_go").path("github.com/example_cc").version("1").type(Type.GO_LANG).org("peerOrg1").build();
+
+	private final StringBasedQueryParser parser = new StringBasedQueryParser(DefaultConversionService.getSharedInstance());
+	private final ExpressionEvaluatingParameterBinder parameterBinder = new ExpressionEvaluatingParameterBinder(new SpelExpressionParser(), QueryMethodEvaluationContextProvider.DEFAULT);
+
+	private String[] fill(String name, Object... values) throws Exception {
+		Method method = AccountRepository.class.getMethod(name, String.class, String.class);
+		ChaincodeQueryMethod queryMethod = new ChaincodeQueryMethod(method, new DefaultRepositoryMetadata(AccountRepository.class), new SpelAwareProxyProjectionFactory(), new SimpleChaincodeMappingContext(), criteria);
+
+		ArgumentTemplate template = ArgumentTemplate.compile(queryMethod.getProposalAnnotated().keys(), queryMethod, parameterBinder, parser);
+		return template.fill(new ParametersParameterAccessor(queryMethod.getParameters(), values), values);
+	}
+
+	@Test
+	public void testKeysKeepSeparatorCharacters() throws Exception {
+		// 原来按 "_;_" 的任意字符拆分，account_1 会被拆成 account 和 1
+		assertArrayEquals(new String[] { "account_1", "account_2" }, fill("transfer", "account_1", "account_2"));
+		assertArrayEquals(new String[] { "a;b", "c_;_d" }, fill("transfer", "a;b", "c_;_d"));
+	}
+
+	@Test
+	public void testKeysWithLiteralSegments() throws Exception {
+		assertArrayEquals(new String[] { "balance_account_1", "history_;_account_2" }, fill("prefixed", "account_1", "account_2"));
+	}
+
+	@Test
+	public void testValuesWithReplacementCharacters() throws Exception {
+		// 参数值原样填充，不作为正则替换串处理
+		assertArrayEquals(new String[] { "$1", "a\\b" }, fill("transfer", "$1", "a\\b"));
+		assertArrayEquals(new String[] { "balance_$0\\", "history_;_\\$" }, fill("prefixed", "$0\\", "\\$"));
+	}
+
+	@Test
+	public void testValuesWithPlaceholders() throws Exception {
+		// 参数值中的占位符不会被再次解析
+		assertArrayEquals(new String[] { "?_param_?", ":to" }, fill("transfer", "?_param_?", ":to"));
+		assertArrayEquals(new String[] { "balance_?1", "history_;_?_param_?:from" }, fill("prefixed", "?1", "?_param_?:from"));
+	}
+
+	@Test
+	public void testLiteralsWithReplacementCharacters() throws Exception {
+		assertArrayEquals(new String[] { "$price\\\\account_1" }, fill("escaped", "account_1", "account_2"));
+	}
+
+	interface AccountRepository extends ChaincodeRepository<AbstractEntity> {
+
+		@Query(func = "query", args = { "?0", "?1" }, keys = { "?0", ":to" })
+		String transfer(@Param("from") String from, @Param("to") String to);
+
+		@Query(func = "query", args = { "?0" }, keys = { "balance_?0", "history_;_:to" })
+		String prefixed(@Param("from") String from, @Param("to") String to);
+
+		@Query(func = "query", args = { "?0" }, keys = { "$price\\\\?0" })
+		String escaped(@Param("from") String from, @Param("to") String to);
+	}
+}